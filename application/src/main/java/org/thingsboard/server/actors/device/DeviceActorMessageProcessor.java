@@ -763,6 +763,8 @@ class DeviceActorMessageProcessor extends AbstractContextAwareMsgProcessor {
         ToTransportUpdateCredentialsProto.Builder notification = ToTransportUpdateCredentialsProto.newBuilder();
         notification.addCredentialsId(deviceCredentials.getCredentialsId());
         notification.addCredentialsValue(deviceCredentials.getCredentialsValue());
+        notification.setDeviceIdMSB(deviceId.getId().getMostSignificantBits());
+        notification.setDeviceIdLSB(deviceId.getId().getLeastSignificantBits());
         ToTransportMsg msg = ToTransportMsg.newBuilder()
                 .setSessionIdMSB(sessionId.getMostSignificantBits())
                 .setSessionIdLSB(sessionId.getLeastSignificantBits())
@@ -19,6 +19,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.netty.channel.EventLoopGroup;
 import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.util.Arrays;
@@ -730,6 +731,11 @@ class DefaultTbContext implements TbContext {
         return mainCtx.getRuleNodeStateService().save(getTenantId(), state);
     }
 
+    @Override
+    public ListenableFuture<RuleNodeState> saveRuleNodeStateAsync(RuleNodeState state) {
+        return getDbCallbackExecutor().executeAsync(() -> saveRuleNodeState(state));
+    }
+
     @Override
     public void clearRuleNodeStates() {
         if (log.isDebugEnabled()) {
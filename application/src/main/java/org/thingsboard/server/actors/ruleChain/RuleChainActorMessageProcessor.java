@@ -70,11 +70,11 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
     private final TbActorRef parent;
     private final TbActorRef self;
     private final Map<RuleNodeId, RuleNodeCtx> nodeActors;
-    private final Map<RuleNodeId, List<RuleNodeRelation>> nodeRoutes;
     private final RuleChainService service;
     private final TbClusterService clusterService;
     private final TbApiUsageReportClient apiUsageClient;
     private String ruleChainName;
+    private volatile RuleNodeRoutes nodeRoutes = RuleNodeRoutes.EMPTY;
 
     private RuleNodeId firstId;
     private RuleNodeCtx firstNode;
@@ -87,7 +87,6 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         this.parent = parent;
         this.self = self;
         this.nodeActors = new HashMap<>();
-        this.nodeRoutes = new HashMap<>();
         this.service = systemContext.getRuleChainService();
         this.clusterService = systemContext.getClusterService();
     }
@@ -155,7 +154,7 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         log.trace("[{}][{}] Stopping rule chain with {} nodes", tenantId, entityId, nodeActors.size());
         nodeActors.values().stream().map(RuleNodeCtx::getSelfActor).map(TbActorRef::getActorId).forEach(ctx::stop);
         nodeActors.clear();
-        nodeRoutes.clear();
+        nodeRoutes = RuleNodeRoutes.EMPTY;
         started = false;
     }
 
@@ -171,13 +170,13 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
     }
 
     private void initRoutes(RuleChain ruleChain, List<RuleNode> ruleNodeList) {
-        nodeRoutes.clear();
+        Map<RuleNodeId, List<RuleNodeRelation>> routes = new HashMap<>();
         // Populating the routes map;
         for (RuleNode ruleNode : ruleNodeList) {
             List<EntityRelation> relations = service.getRuleNodeRelations(TenantId.SYS_TENANT_ID, ruleNode.getId());
             log.trace("[{}][{}][{}] Processing rule node relations [{}]", tenantId, entityId, ruleNode.getId(), relations.size());
             if (relations.size() == 0) {
-                nodeRoutes.put(ruleNode.getId(), Collections.emptyList());
+                routes.put(ruleNode.getId(), Collections.emptyList());
             } else {
                 for (EntityRelation relation : relations) {
                     log.trace("[{}][{}][{}] Processing rule node relation [{}]", tenantId, entityId, ruleNode.getId(), relation.getTo());
@@ -187,11 +186,12 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                             throw new IllegalArgumentException("Rule Node [" + relation.getFrom() + "] has invalid relation to Rule node [" + relation.getTo() + "]");
                         }
                     }
-                    nodeRoutes.computeIfAbsent(ruleNode.getId(), k -> new ArrayList<>())
+                    routes.computeIfAbsent(ruleNode.getId(), k -> new ArrayList<>())
                             .add(new RuleNodeRelation(ruleNode.getId(), relation.getTo(), relation.getType()));
                 }
             }
         }
+        nodeRoutes = new RuleNodeRoutes(routes);
 
         firstId = ruleChain.getFirstRuleNodeId();
         firstNode = nodeActors.get(firstId);
@@ -295,16 +295,12 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
             EntityId entityId = msg.getOriginator();
             TopicPartitionInfo tpi = systemContext.resolve(ServiceType.TB_RULE_ENGINE, msg.getQueueName(), tenantId, entityId);
 
-            List<RuleNodeRelation> ruleNodeRelations = nodeRoutes.get(originatorNodeId);
-            if (ruleNodeRelations == null) { // When unchecked, this will cause NullPointerException when rule node doesn't exist anymore
+            RuleNodeRelation[] relationsByTypes = nodeRoutes.getRelations(originatorNodeId, relationTypes);
+            if (relationsByTypes == null) { // When unchecked, this will cause NullPointerException when rule node doesn't exist anymore
                 log.warn("[{}][{}][{}] No outbound relations (null). Probably rule node does not exist. Probably old message.", tenantId, entityId, msg.getId());
-                ruleNodeRelations = Collections.emptyList();
+                relationsByTypes = new RuleNodeRelation[0];
             }
-
-            List<RuleNodeRelation> relationsByTypes = ruleNodeRelations.stream()
-                    .filter(r -> contains(relationTypes, r.getType()))
-                    .collect(Collectors.toList());
-            int relationsCount = relationsByTypes.size();
+            int relationsCount = relationsByTypes.length;
             if (relationsCount == 0) {
                 log.trace("[{}][{}][{}] No outbound relations to process", tenantId, entityId, msg.getId());
                 if (relationTypes.contains(TbRelationTypes.FAILURE)) {
@@ -319,10 +315,9 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
                     msg.getCallback().onSuccess();
                 }
             } else if (relationsCount == 1) {
-                for (RuleNodeRelation relation : relationsByTypes) {
-                    log.trace("[{}][{}][{}] Pushing message to single target: [{}]", tenantId, entityId, msg.getId(), relation.getOut());
-                    pushToTarget(tpi, msg, relation.getOut(), relation.getType());
-                }
+                RuleNodeRelation relation = relationsByTypes[0];
+                log.trace("[{}][{}][{}] Pushing message to single target: [{}]", tenantId, entityId, msg.getId(), relation.getOut());
+                pushToTarget(tpi, msg, relation.getOut(), relation.getType());
             } else {
                 MultipleTbQueueTbMsgCallbackWrapper callbackWrapper = new MultipleTbQueueTbMsgCallbackWrapper(relationsCount, msg.getCallback());
                 log.trace("[{}][{}][{}] Pushing message to multiple targets: [{}]", tenantId, entityId, msg.getId(), relationsByTypes);
@@ -374,18 +369,6 @@ public class RuleChainActorMessageProcessor extends ComponentMsgProcessor<RuleCh
         clusterService.pushMsgToRuleEngine(tpi, newMsg.getId(), toQueueMsg, callbackWrapper);
     }
 
-    private boolean contains(Set<String> relationTypes, String type) {
-        if (relationTypes == null) {
-            return true;
-        }
-        for (String relationType : relationTypes) {
-            if (relationType.equalsIgnoreCase(type)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private void pushMsgToNode(RuleNodeCtx nodeCtx, TbMsg msg, String fromRelationType) {
         if (nodeCtx != null) {
             nodeCtx.getSelfActor().tell(new RuleChainToRuleNodeMsg(new DefaultTbContext(systemContext, ruleChainName, nodeCtx), msg, fromRelationType));
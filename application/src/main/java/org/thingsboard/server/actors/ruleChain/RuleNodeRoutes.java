@@ -0,0 +1,109 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable routing table of a rule chain, compiled from the rule node relations on (re)initialization.
+ * Relation types are matched case-insensitively, targets keep the order of the relations.
+ */
+final class RuleNodeRoutes {
+
+    static final RuleNodeRoutes EMPTY = new RuleNodeRoutes(Collections.emptyMap());
+    private static final RuleNodeRelation[] NO_RELATIONS = new RuleNodeRelation[0];
+
+    private final Map<RuleNodeId, NodeRoutes> routes;
+
+    RuleNodeRoutes(Map<RuleNodeId, List<RuleNodeRelation>> relations) {
+        Map<RuleNodeId, NodeRoutes> routes = new HashMap<>();
+        relations.forEach((ruleNodeId, nodeRelations) -> routes.put(ruleNodeId, new NodeRoutes(nodeRelations)));
+        this.routes = Collections.unmodifiableMap(routes);
+    }
+
+    /**
+     * @return relations of the rule node with any of the given types, all relations if the types are null,
+     * or null if the rule node is not part of the rule chain
+     */
+    RuleNodeRelation[] getRelations(RuleNodeId ruleNodeId, Set<String> relationTypes) {
+        NodeRoutes nodeRoutes = routes.get(ruleNodeId);
+        if (nodeRoutes == null) {
+            return null;
+        }
+        if (relationTypes == null) {
+            return nodeRoutes.all;
+        }
+        if (relationTypes.size() == 1) {
+            return nodeRoutes.get(relationTypes.iterator().next());
+        }
+        List<RuleNodeRelation> result = new ArrayList<>();
+        for (RuleNodeRelation relation : nodeRoutes.all) {
+            for (String relationType : relationTypes) {
+                if (relationType.equalsIgnoreCase(relation.getType())) {
+                    result.add(relation);
+                    break;
+                }
+            }
+        }
+        return result.toArray(NO_RELATIONS);
+    }
+
+    private static final class NodeRoutes {
+
+        private final RuleNodeRelation[] all;
+        private final Map<String, RuleNodeRelation[]> byType;
+
+        NodeRoutes(List<RuleNodeRelation> relations) {
+            this.all = relations.toArray(NO_RELATIONS);
+            Map<String, List<RuleNodeRelation>> grouped = new LinkedHashMap<>();
+            for (RuleNodeRelation relation : relations) {
+                grouped.computeIfAbsent(toKey(relation.getType()), k -> new ArrayList<>()).add(relation);
+            }
+            Map<String, RuleNodeRelation[]> byType = new HashMap<>();
+            grouped.forEach((type, typeRelations) -> byType.put(type, typeRelations.toArray(NO_RELATIONS)));
+            // the types as they are spelled in the relations resolve without lower-casing the requested type
+            for (RuleNodeRelation relation : relations) {
+                byType.putIfAbsent(relation.getType(), byType.get(toKey(relation.getType())));
+            }
+            this.byType = Collections.unmodifiableMap(byType);
+        }
+
+        RuleNodeRelation[] get(String relationType) {
+            if (relationType == null) {
+                return NO_RELATIONS;
+            }
+            RuleNodeRelation[] relations = byType.get(relationType);
+            if (relations == null) {
+                relations = byType.getOrDefault(toKey(relationType), NO_RELATIONS);
+            }
+            return relations;
+        }
+
+        private static String toKey(String relationType) {
+            return relationType.toLowerCase(Locale.ROOT);
+        }
+    }
+
+}
@@ -60,6 +60,11 @@ class RuleNodeToRuleChainTellNextMsg extends TbRuleEngineActorMsg implements Ser
         msg.getCallback().onFailure(new RuleEngineException(message));
     }
 
+    @Override
+    public void onTbActorMailboxOverflow() {
+        msg.getCallback().onFailure(new RuleEngineException(String.format("Rule chain [%s] mailbox is full", ruleChainId.getId())));
+    }
+
     @Override
     public MsgType getMsgType() {
         return MsgType.RULE_TO_RULE_CHAIN_TELL_NEXT_MSG;
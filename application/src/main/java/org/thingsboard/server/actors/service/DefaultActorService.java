@@ -15,32 +15,43 @@
  */
 package org.thingsboard.server.actors.service;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.thingsboard.common.util.ThingsBoardExecutors;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.actors.ActorSystemContext;
 import org.thingsboard.server.actors.DefaultTbActorSystem;
+import org.thingsboard.server.actors.TbActorMailboxOverflowPolicy;
+import org.thingsboard.server.actors.TbActorMailboxStats;
+import org.thingsboard.server.actors.TbActorMailboxStatsListener;
 import org.thingsboard.server.actors.TbActorRef;
 import org.thingsboard.server.actors.TbActorSystem;
 import org.thingsboard.server.actors.TbActorSystemSettings;
 import org.thingsboard.server.actors.app.AppActor;
 import org.thingsboard.server.actors.app.AppInitMsg;
 import org.thingsboard.server.actors.stats.StatsActor;
+import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.queue.discovery.TbApplicationEventListener;
 import org.thingsboard.server.queue.discovery.event.PartitionChangeEvent;
 import org.thingsboard.server.queue.util.AfterStartUp;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
@@ -54,6 +65,9 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     @Autowired
     private ActorSystemContext actorContext;
 
+    @Autowired
+    private StatsFactory statsFactory;
+
     private TbActorSystem system;
 
     private TbActorRef appActor;
@@ -79,11 +93,30 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
     @Value("${actors.system.rule_dispatcher_pool_size:4}")
     private int ruleDispatcherSize;
 
+    @Value("${actors.system.mailbox.capacity:}")
+    private String mailboxCapacity;
+
+    @Value("${actors.system.mailbox.overflow_policy:reject}")
+    private String mailboxOverflowPolicy;
+
+    @Value("${actors.system.mailbox.block_timeout_ms:1000}")
+    private long mailboxBlockTimeoutMs;
+
+    @Value("${actors.system.mailbox.stats_enabled:false}")
+    private boolean mailboxStatsEnabled;
+
+    @Value("${actors.system.mailbox.stats_print_interval_ms:60000}")
+    private long mailboxStatsPrintIntervalMs;
+
     @PostConstruct
     public void initActorSystem() {
         log.info("Initializing actor system.");
         actorContext.setActorService(this);
         TbActorSystemSettings settings = new TbActorSystemSettings(actorThroughput, schedulerPoolSize, maxActorInitAttempts);
+        settings.setMailboxCapacity(parseMailboxCapacity(mailboxCapacity));
+        settings.setMailboxOverflowPolicy(TbActorMailboxOverflowPolicy.valueOf(mailboxOverflowPolicy.toUpperCase()));
+        settings.setMailboxBlockTimeoutMs(mailboxBlockTimeoutMs);
+        settings.setMailboxStatsListenerFactory(this::createMailboxStatsListener);
         system = new DefaultTbActorSystem(settings);
 
         system.createDispatcher(APP_DISPATCHER_NAME, initDispatcherExecutor(APP_DISPATCHER_NAME, appDispatcherSize));
@@ -102,6 +135,65 @@ public class DefaultActorService extends TbApplicationEventListener<PartitionCha
         log.info("Actor system initialized.");
     }
 
+    private Map<String, Integer> parseMailboxCapacity(String config) {
+        Map<String, Integer> capacity = new HashMap<>();
+        if (StringUtils.isNotBlank(config)) {
+            for (String entry : config.split(",")) {
+                String[] typeAndCapacity = entry.trim().split(":");
+                if (typeAndCapacity.length != 2) {
+                    throw new IllegalArgumentException("Invalid actor mailbox capacity: " + entry + ". Expected format: ACTOR_TYPE:CAPACITY");
+                }
+                capacity.put(typeAndCapacity[0].trim().toUpperCase(), Integer.parseInt(typeAndCapacity[1].trim()));
+            }
+        }
+        log.info("Actor mailbox capacity: {}, overflow policy: {}", capacity, mailboxOverflowPolicy);
+        return capacity;
+    }
+
+    private TbActorMailboxStatsListener createMailboxStatsListener(TbActorMailboxStats stats) {
+        String actorType = stats.getActorType();
+        statsFactory.createGauge("actors.mailbox.size", stats.getQueueSize(), "actorType", actorType);
+        Timer waitTimer = statsFactory.createTimer("actors.mailbox.wait", "actorType", actorType);
+        DefaultCounter processedCounter = statsFactory.createDefaultCounter("actors.mailbox.processed", "actorType", actorType);
+        DefaultCounter rejectedCounter = statsFactory.createDefaultCounter("actors.mailbox.rejected", "actorType", actorType);
+        DefaultCounter droppedCounter = statsFactory.createDefaultCounter("actors.mailbox.dropped", "actorType", actorType);
+        return new TbActorMailboxStatsListener() {
+            @Override
+            public void onProcessed(long waitNs) {
+                waitTimer.record(waitNs, TimeUnit.NANOSECONDS);
+                processedCounter.increment();
+            }
+
+            @Override
+            public void onRejected() {
+                rejectedCounter.increment();
+            }
+
+            @Override
+            public void onDropped() {
+                droppedCounter.increment();
+            }
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${actors.system.mailbox.stats_print_interval_ms:60000}")
+    public void printMailboxStats() {
+        if (!mailboxStatsEnabled || system == null) {
+            return;
+        }
+        for (TbActorMailboxStats stats : system.getMailboxStats()) {
+            long processed = stats.getAndResetIntervalProcessed();
+            long waitNs = stats.getAndResetIntervalWaitNs();
+            long maxWaitNs = stats.getAndResetIntervalMaxWaitNs();
+            if (processed > 0 || stats.getQueueSize().get() > 0) {
+                log.info("[{}] Actor mailbox stats: queue size [{}], processed [{}] ({} msg/s), avg wait [{}] ms, max wait [{}] ms, rejected [{}], dropped [{}]",
+                        stats.getActorType(), stats.getQueueSize().get(), processed, processed * 1000 / Math.max(mailboxStatsPrintIntervalMs, 1),
+                        processed > 0 ? TimeUnit.NANOSECONDS.toMillis(waitNs / processed) : 0, TimeUnit.NANOSECONDS.toMillis(maxWaitNs),
+                        stats.getRejected().get(), stats.getDropped().get());
+            }
+        }
+    }
+
     private ExecutorService initDispatcherExecutor(String dispatcherName, int poolSize) {
         if (poolSize == 0) {
             int cores = Runtime.getRuntime().availableProcessors();
@@ -35,6 +35,8 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.id.UserId;
 import org.thingsboard.server.common.data.tenant.profile.DefaultTenantProfileConfiguration;
 import org.thingsboard.server.common.msg.tools.TbRateLimits;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.config.WebSocketConfiguration;
 import org.thingsboard.server.dao.tenant.TbTenantProfileCache;
 import org.thingsboard.server.queue.util.TbCoreComponent;
@@ -44,7 +46,9 @@ import org.thingsboard.server.service.telemetry.SessionEvent;
 import org.thingsboard.server.service.telemetry.TelemetryWebSocketMsgEndpoint;
 import org.thingsboard.server.service.telemetry.TelemetryWebSocketService;
 import org.thingsboard.server.service.telemetry.TelemetryWebSocketSessionRef;
+import org.thingsboard.server.service.telemetry.sub.TelemetrySubscriptionUpdate;
 
+import javax.annotation.PostConstruct;
 import javax.websocket.RemoteEndpoint;
 import javax.websocket.SendHandler;
 import javax.websocket.SendResult;
@@ -57,8 +61,12 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import static org.thingsboard.server.service.telemetry.DefaultTelemetryWebSocketService.NUMBER_OF_PING_ATTEMPTS;
 
@@ -77,6 +85,9 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements Telemetr
     @Autowired
     private TbTenantProfileCache tenantProfileCache;
 
+    @Autowired
+    private StatsFactory statsFactory;
+
     @Value("${server.ws.send_timeout:5000}")
     private long sendTimeout;
     @Value("${server.ws.ping_timeout:30000}")
@@ -90,6 +101,17 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements Telemetr
     private ConcurrentMap<UserId, Set<String>> regularUserSessionsMap = new ConcurrentHashMap<>();
     private ConcurrentMap<UserId, Set<String>> publicUserSessionsMap = new ConcurrentHashMap<>();
 
+    private final AtomicLong pendingMsgs = new AtomicLong();
+    private DefaultCounter conflatedUpdatesCounter;
+    private DefaultCounter queueOverflowsCounter;
+
+    @PostConstruct
+    public void init() {
+        statsFactory.createGauge("ws.pendingMsgs", pendingMsgs);
+        conflatedUpdatesCounter = statsFactory.createDefaultCounter("ws.conflatedUpdates");
+        queueOverflowsCounter = statsFactory.createDefaultCounter("ws.queueOverflows");
+    }
+
     @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) {
         try {
@@ -173,6 +195,7 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements Telemetr
         super.afterConnectionClosed(session, closeStatus);
         SessionMetaData sessionMd = internalSessionMap.remove(session.getId());
         if (sessionMd != null) {
+            sessionMd.clearMsgQueue();
             cleanupLimits(session, sessionMd.sessionRef);
             externalSessionMap.remove(sessionMd.sessionRef.getSessionId());
             processInWebSocketService(sessionMd.sessionRef, SessionEvent.onClosed());
@@ -207,13 +230,18 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements Telemetr
         }
     }
 
-    private class SessionMetaData implements SendHandler {
+    class SessionMetaData implements SendHandler {
         private final WebSocketSession session;
         private final RemoteEndpoint.Async asyncRemote;
         private final TelemetryWebSocketSessionRef sessionRef;
 
-        private volatile boolean isSending = false;
-        private final Queue<TbWebSocketMsg<?>> msgQueue;
+        private final AtomicBoolean isSending = new AtomicBoolean(false);
+        private final Queue<TbWebSocketMsg<?>> msgQueue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger msgQueueSize = new AtomicInteger();
+        private final int maxMsgQueueSize;
+        // subscription updates that are queued but not sent yet, newer updates are merged into them
+        private final ConcurrentMap<Integer, TbWebSocketSubscriptionUpdateMsg> pendingUpdates = new ConcurrentHashMap<>();
+        private final AtomicLong conflatedUpdates = new AtomicLong();
 
         private volatile long lastActivityTime;
 
@@ -223,7 +251,7 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements Telemetr
             Session nativeSession = ((NativeWebSocketSession) session).getNativeSession(Session.class);
             this.asyncRemote = nativeSession.getAsyncRemote();
             this.sessionRef = sessionRef;
-            this.msgQueue = new LinkedBlockingQueue<>(maxMsgQueuePerSession);
+            this.maxMsgQueueSize = maxMsgQueuePerSession;
             this.lastActivityTime = System.currentTimeMillis();
         }
 
@@ -236,6 +264,9 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements Telemetr
                 } else if (timeSinceLastActivity >= pingTimeout / NUMBER_OF_PING_ATTEMPTS) {
                     sendMsg(TbWebSocketPingMsg.INSTANCE);
                 }
+                if (log.isDebugEnabled() && (getMsgQueueSize() > 0 || getConflatedUpdates() > 0)) {
+                    log.debug("[{}] Pending msgs: {}, conflated updates: {}", session.getId(), getMsgQueueSize(), getConflatedUpdates());
+                }
             } catch (Exception e) {
                 log.trace("[{}] Failed to send ping msg", session.getId(), e);
                 closeSession(CloseStatus.SESSION_NOT_RELIABLE);
@@ -250,41 +281,75 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements Telemetr
             }
         }
 
-        synchronized void processPongMessage(long currentTime) {
+        void processPongMessage(long currentTime) {
             lastActivityTime = currentTime;
         }
 
-        synchronized void sendMsg(String msg) {
+        int getMsgQueueSize() {
+            return msgQueueSize.get();
+        }
+
+        long getConflatedUpdates() {
+            return conflatedUpdates.get();
+        }
+
+        void sendMsg(String msg) {
             sendMsg(new TbWebSocketTextMsg(msg));
         }
 
-        synchronized void sendMsg(TbWebSocketMsg<?> msg) {
-            if (isSending) {
-                try {
-                    msgQueue.add(msg);
-                } catch (RuntimeException e) {
-                    if (log.isTraceEnabled()) {
-                        log.trace("[{}][{}] Session closed due to queue error", sessionRef.getSecurityCtx().getTenantId(), session.getId(), e);
-                    } else {
-                        log.info("[{}][{}] Session closed due to queue error", sessionRef.getSecurityCtx().getTenantId(), session.getId());
-                    }
-                    closeSession(CloseStatus.POLICY_VIOLATION.withReason("Max pending updates limit reached!"));
+        void sendUpdate(TelemetrySubscriptionUpdate update) {
+            TbWebSocketSubscriptionUpdateMsg[] created = new TbWebSocketSubscriptionUpdateMsg[1];
+            pendingUpdates.compute(update.getSubscriptionId(), (id, pending) -> {
+                if (pending != null) {
+                    int conflated = pending.merge(update);
+                    conflatedUpdates.addAndGet(conflated);
+                    conflatedUpdatesCounter.add(conflated);
+                    return pending;
                 }
-            } else {
-                isSending = true;
-                sendMsgInternal(msg);
+                created[0] = new TbWebSocketSubscriptionUpdateMsg(update);
+                return created[0];
+            });
+            if (created[0] != null && !sendMsg(created[0])) {
+                pendingUpdates.remove(update.getSubscriptionId(), created[0]);
+            }
+        }
+
+        boolean sendMsg(TbWebSocketMsg<?> msg) {
+            if (msgQueueSize.incrementAndGet() > maxMsgQueueSize) {
+                msgQueueSize.decrementAndGet();
+                queueOverflowsCounter.increment();
+                // the counters are node-wide, the log tells which session is too slow to consume its updates
+                log.warn("[{}][{}][{}] Session closed due to queue error: max pending msgs limit {} reached, conflated updates: {}",
+                        sessionRef.getSecurityCtx().getTenantId(), sessionRef.getSessionId(), session.getId(), maxMsgQueueSize, getConflatedUpdates());
+                closeSession(CloseStatus.POLICY_VIOLATION.withReason("Max pending updates limit reached!"));
+                return false;
+            }
+            pendingMsgs.incrementAndGet();
+            msgQueue.add(msg);
+            processNextMsg();
+            return true;
+        }
+
+        void clearMsgQueue() {
+            while (msgQueue.poll() != null) {
+                msgQueueSize.decrementAndGet();
+                pendingMsgs.decrementAndGet();
             }
+            pendingUpdates.clear();
         }
 
         private void sendMsgInternal(TbWebSocketMsg<?> msg) {
             try {
                 if (TbWebSocketMsgType.TEXT.equals(msg.getType())) {
-                    TbWebSocketTextMsg textMsg = (TbWebSocketTextMsg) msg;
-                    this.asyncRemote.sendText(textMsg.getMsg(), this);
+                    if (msg instanceof TbWebSocketSubscriptionUpdateMsg) {
+                        // stop merging into the update once it is taken for sending
+                        pendingUpdates.remove(((TbWebSocketSubscriptionUpdateMsg) msg).getSubscriptionId(), msg);
+                    }
+                    this.asyncRemote.sendText((String) msg.getMsg(), this);
                 } else {
                     TbWebSocketPingMsg pingMsg = (TbWebSocketPingMsg) msg;
                     this.asyncRemote.sendPing(pingMsg.getMsg());
-                    processNextMsg();
+                    onSendCompleted();
                 }
             } catch (Exception e) {
                 log.trace("[{}] Failed to send msg", session.getId(), e);
@@ -298,24 +363,44 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements Telemetr
                 log.trace("[{}] Failed to send msg", session.getId(), result.getException());
                 closeSession(CloseStatus.SESSION_NOT_RELIABLE);
             } else {
-                processNextMsg();
+                onSendCompleted();
             }
         }
 
+        private void onSendCompleted() {
+            isSending.set(false);
+            processNextMsg();
+        }
+
         private void processNextMsg() {
-            TbWebSocketMsg<?> msg = msgQueue.poll();
-            if (msg != null) {
-                sendMsgInternal(msg);
-            } else {
-                isSending = false;
+            // only one frame is in flight per session, callers never wait for it
+            while (!msgQueue.isEmpty() && isSending.compareAndSet(false, true)) {
+                TbWebSocketMsg<?> msg = msgQueue.poll();
+                if (msg != null) {
+                    msgQueueSize.decrementAndGet();
+                    pendingMsgs.decrementAndGet();
+                    sendMsgInternal(msg);
+                    return;
+                }
+                isSending.set(false);
             }
         }
     }
 
     @Override
     public void send(TelemetryWebSocketSessionRef sessionRef, int subscriptionId, String msg) throws IOException {
+        log.debug("[{}] Processing {}", sessionRef.getSessionId(), msg);
+        send(sessionRef, subscriptionId, sessionMd -> sessionMd.sendMsg(msg));
+    }
+
+    @Override
+    public void send(TelemetryWebSocketSessionRef sessionRef, TelemetrySubscriptionUpdate update) throws IOException {
+        log.debug("[{}] Processing {}", sessionRef.getSessionId(), update);
+        send(sessionRef, update.getSubscriptionId(), sessionMd -> sessionMd.sendUpdate(update));
+    }
+
+    private void send(TelemetryWebSocketSessionRef sessionRef, int subscriptionId, Consumer<SessionMetaData> sendFunction) {
         String externalId = sessionRef.getSessionId();
-        log.debug("[{}] Processing {}", externalId, msg);
         String internalId = externalSessionMap.get(externalId);
         if (internalId != null) {
             SessionMetaData sessionMd = internalSessionMap.get(internalId);
@@ -339,7 +424,7 @@ public class TbWebSocketHandler extends TextWebSocketHandler implements Telemetr
                         perSessionUpdateLimits.remove(sessionRef.getSessionId());
                     }
                 }
-                sessionMd.sendMsg(msg);
+                sendFunction.accept(sessionMd);
             } else {
                 log.warn("[{}][{}] Failed to find session by internal id", externalId, internalId);
             }
@@ -0,0 +1,66 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.controller.plugin;
+
+import lombok.Getter;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.service.telemetry.sub.TelemetrySubscriptionUpdate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Telemetry subscription update waiting in the session send queue.
+ * Updates of the same subscription that arrive before it is sent are merged into it, keeping the newest values per key.
+ */
+public class TbWebSocketSubscriptionUpdateMsg implements TbWebSocketMsg<String> {
+
+    @Getter
+    private final int subscriptionId;
+    private final Map<String, List<Object>> data = new TreeMap<>();
+
+    TbWebSocketSubscriptionUpdateMsg(TelemetrySubscriptionUpdate update) {
+        this.subscriptionId = update.getSubscriptionId();
+        merge(update);
+    }
+
+    /**
+     * @return number of keys whose pending values were replaced by the newer ones
+     */
+    synchronized int merge(TelemetrySubscriptionUpdate update) {
+        int conflated = 0;
+        if (update.getData() != null) {
+            for (Map.Entry<String, List<Object>> entry : update.getData().entrySet()) {
+                if (data.put(entry.getKey(), entry.getValue()) != null) {
+                    conflated++;
+                }
+            }
+        }
+        return conflated;
+    }
+
+    @Override
+    public TbWebSocketMsgType getType() {
+        return TbWebSocketMsgType.TEXT;
+    }
+
+    @Override
+    public synchronized String getMsg() {
+        return JacksonUtil.toString(new TelemetrySubscriptionUpdate(subscriptionId, data));
+    }
+
+}
@@ -16,7 +16,11 @@
 package org.thingsboard.server.service.apiusage;
 
 import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Striped;
 import lombok.extern.slf4j.Slf4j;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -76,12 +80,12 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -89,6 +93,7 @@ import java.util.stream.Collectors;
 public class DefaultTbApiUsageStateService extends AbstractPartitionBasedService<EntityId> implements TbApiUsageStateService {
 
     public static final String HOURLY = "Hourly";
+    private static final int UPDATE_LOCK_STRIPES = 64;
     public static final FutureCallback<Integer> VOID_CALLBACK = new FutureCallback<Integer>() {
         @Override
         public void onSuccess(@Nullable Integer result) {
@@ -118,13 +123,17 @@ public class DefaultTbApiUsageStateService extends AbstractPartitionBasedService
 
     final Set<EntityId> deletedEntities = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
+    // States that are being loaded from the DB, so concurrent usage reports share a single fetch
+    private final ConcurrentMap<EntityId, ListenableFuture<BaseApiUsageState>> pendingStateFetches = new ConcurrentHashMap<>();
+
     @Value("${usage.stats.report.enabled:true}")
     private boolean enabled;
 
     @Value("${usage.stats.check.cycle:60000}")
     private long nextCycleCheckInterval;
 
-    private final Lock updateLock = new ReentrantLock();
+    // Usage states of different tenants and customers are updated independently
+    private final Striped<Lock> updateLocks = Striped.lock(UPDATE_LOCK_STRIPES);
 
     private final ExecutorService mailExecutor;
 
@@ -179,20 +188,40 @@ public class DefaultTbApiUsageStateService extends AbstractPartitionBasedService
             entityId = tenantId;
         }
 
-        processEntityUsageStats(tenantId, entityId, statsMsg.getValuesList());
-        callback.onSuccess();
+        if (deletedEntities.contains(entityId)) {
+            callback.onSuccess();
+            return;
+        }
+
+        Futures.addCallback(getOrFetchStateAsync(tenantId, entityId), new FutureCallback<>() {
+            @Override
+            public void onSuccess(BaseApiUsageState usageState) {
+                try {
+                    processEntityUsageStats(tenantId, entityId, usageState, statsMsg.getValuesList());
+                    callback.onSuccess();
+                } catch (Exception e) {
+                    log.warn("[{}][{}] Failed to process usage stats", tenantId, entityId, e);
+                    callback.onFailure(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                log.warn("[{}][{}] Failed to fetch api usage state", tenantId, entityId, t);
+                callback.onFailure(t);
+            }
+        }, MoreExecutors.directExecutor());
     }
 
-    private void processEntityUsageStats(TenantId tenantId, EntityId entityId, List<UsageStatsKVProto> values) {
+    private void processEntityUsageStats(TenantId tenantId, EntityId entityId, BaseApiUsageState usageState, List<UsageStatsKVProto> values) {
         if (deletedEntities.contains(entityId)) return;
 
-        BaseApiUsageState usageState;
         List<TsKvEntry> updatedEntries;
         Map<ApiFeature, ApiUsageStateValue> result;
 
+        Lock updateLock = updateLocks.get(usageState.getEntityId());
         updateLock.lock();
         try {
-            usageState = getOrFetchState(tenantId, entityId);
             long ts = usageState.getCurrentCycleTs();
             long hourTs = usageState.getCurrentHourTs();
             long newHourTs = SchedulerUtils.getStartOfCurrentHour();
@@ -258,25 +287,27 @@ public class DefaultTbApiUsageStateService extends AbstractPartitionBasedService
     public void onTenantProfileUpdate(TenantProfileId tenantProfileId) {
         log.info("[{}] On Tenant Profile Update", tenantProfileId);
         TenantProfile tenantProfile = tenantProfileCache.get(tenantProfileId);
-        updateLock.lock();
-        try {
-            myUsageStates.values().stream()
-                    .filter(state -> state.getEntityType() == EntityType.TENANT)
-                    .map(state -> (TenantApiUsageState) state)
-                    .forEach(state -> {
+        myUsageStates.values().stream()
+                .filter(state -> state.getEntityType() == EntityType.TENANT)
+                .map(state -> (TenantApiUsageState) state)
+                .forEach(state -> {
+                    Lock updateLock = updateLocks.get(state.getEntityId());
+                    updateLock.lock();
+                    try {
                         if (tenantProfile.getId().equals(state.getTenantProfileId())) {
                             updateTenantState(state, tenantProfile);
                         }
-                    });
-        } finally {
-            updateLock.unlock();
-        }
+                    } finally {
+                        updateLock.unlock();
+                    }
+                });
     }
 
     @Override
     public void onTenantUpdate(TenantId tenantId) {
         log.info("[{}] On Tenant Update.", tenantId);
         TenantProfile tenantProfile = tenantProfileCache.get(tenantId);
+        Lock updateLock = updateLocks.get(tenantId);
         updateLock.lock();
         try {
             TenantApiUsageState state = (TenantApiUsageState) myUsageStates.get(tenantId);
@@ -300,12 +331,13 @@ public class DefaultTbApiUsageStateService extends AbstractPartitionBasedService
                 oldProfileData.getConfiguration(), profile.getProfileData().getConfiguration());
     }
 
-    private void addEntityState(TopicPartitionInfo tpi, BaseApiUsageState state) {
+    private BaseApiUsageState addEntityState(TopicPartitionInfo tpi, BaseApiUsageState state) {
         EntityId entityId = state.getEntityId();
         Set<EntityId> entityIds = partitionedEntities.get(tpi);
         if (entityIds != null) {
             entityIds.add(entityId);
-            myUsageStates.put(entityId, state);
+            BaseApiUsageState existingState = myUsageStates.putIfAbsent(entityId, state);
+            return existingState != null ? existingState : state;
         } else {
             log.debug("[{}] belongs to external partition {}", entityId, tpi.getFullTopicName());
             throw new RuntimeException(entityId.getEntityType() + " belongs to external partition " + tpi.getFullTopicName() + "!");
@@ -405,10 +437,11 @@ public class DefaultTbApiUsageStateService extends AbstractPartitionBasedService
     }
 
     private void checkStartOfNextCycle() {
-        updateLock.lock();
-        try {
-            long now = System.currentTimeMillis();
-            myUsageStates.values().forEach(state -> {
+        long now = System.currentTimeMillis();
+        myUsageStates.values().forEach(state -> {
+            Lock updateLock = updateLocks.get(state.getEntityId());
+            updateLock.lock();
+            try {
                 if ((state.getNextCycleTs() < now) && (now - state.getNextCycleTs() < TimeUnit.HOURS.toMillis(1))) {
                     state.setCycles(state.getNextCycleTs(), SchedulerUtils.getStartOfNextNextMonth());
                     saveNewCounts(state, Arrays.asList(ApiUsageRecordKey.values()));
@@ -417,10 +450,10 @@ public class DefaultTbApiUsageStateService extends AbstractPartitionBasedService
                         updateTenantState((TenantApiUsageState) state, tenantProfileCache.get(tenantId));
                     }
                 }
-            });
-        } finally {
-            updateLock.unlock();
-        }
+            } finally {
+                updateLock.unlock();
+            }
+        });
     }
 
     private void saveNewCounts(BaseApiUsageState state, List<ApiUsageRecordKey> keys) {
@@ -431,6 +464,33 @@ public class DefaultTbApiUsageStateService extends AbstractPartitionBasedService
         tsWsService.saveAndNotifyInternal(state.getTenantId(), state.getApiUsageState().getId(), counts, VOID_CALLBACK);
     }
 
+    ListenableFuture<BaseApiUsageState> getOrFetchStateAsync(TenantId tenantId, EntityId entityId) {
+        EntityId stateEntityId = entityId == null || entityId.isNullUid() ? tenantId : entityId;
+        BaseApiUsageState state = myUsageStates.get(stateEntityId);
+        if (state != null) {
+            return Futures.immediateFuture(state);
+        }
+        ListenableFuture<BaseApiUsageState> pendingFetch = pendingStateFetches.get(stateEntityId);
+        if (pendingFetch != null) {
+            return pendingFetch;
+        }
+        SettableFuture<BaseApiUsageState> fetchFuture = SettableFuture.create();
+        pendingFetch = pendingStateFetches.putIfAbsent(stateEntityId, fetchFuture);
+        if (pendingFetch != null) {
+            return pendingFetch;
+        }
+        dbExecutor.execute(() -> {
+            try {
+                fetchFuture.set(getOrFetchState(tenantId, stateEntityId));
+            } catch (Throwable t) {
+                fetchFuture.setException(t);
+            } finally {
+                pendingStateFetches.remove(stateEntityId, fetchFuture);
+            }
+        });
+        return fetchFuture;
+    }
+
     BaseApiUsageState getOrFetchState(TenantId tenantId, EntityId entityId) {
         if (entityId == null || entityId.isNullUid()) {
             entityId = tenantId;
@@ -486,7 +546,11 @@ public class DefaultTbApiUsageStateService extends AbstractPartitionBasedService
             log.debug("[{}] Initialized state: {}", entityId, storedState);
             TopicPartitionInfo tpi = partitionService.resolve(ServiceType.TB_CORE, tenantId, entityId);
             if (tpi.isMyPartition()) {
-                addEntityState(tpi, state);
+                BaseApiUsageState existingState = addEntityState(tpi, state);
+                if (existingState != state) {
+                    // loaded concurrently by another thread, keep the state that may already have accumulated usage
+                    return existingState;
+                }
             } else {
                 otherUsageStates.put(entityId, state.getApiUsageState());
             }
@@ -509,30 +573,32 @@ public class DefaultTbApiUsageStateService extends AbstractPartitionBasedService
         var result = new HashMap<TopicPartitionInfo, List<ListenableFuture<?>>>();
         try {
             log.info("Initializing tenant states.");
-            updateLock.lock();
-            try {
-                PageDataIterable<Tenant> tenantIterator = new PageDataIterable<>(tenantService::findTenants, 1024);
-                for (Tenant tenant : tenantIterator) {
-                    TopicPartitionInfo tpi = partitionService.resolve(ServiceType.TB_CORE, tenant.getId(), tenant.getId());
-                    if (addedPartitions.contains(tpi)) {
-                        if (!myUsageStates.containsKey(tenant.getId()) && tpi.isMyPartition()) {
-                            log.debug("[{}] Initializing tenant state.", tenant.getId());
-                            result.computeIfAbsent(tpi, tmp -> new ArrayList<>()).add(dbExecutor.submit(() -> {
+            PageDataIterable<Tenant> tenantIterator = new PageDataIterable<>(tenantService::findTenants, 1024);
+            for (Tenant tenant : tenantIterator) {
+                TopicPartitionInfo tpi = partitionService.resolve(ServiceType.TB_CORE, tenant.getId(), tenant.getId());
+                if (addedPartitions.contains(tpi)) {
+                    if (!myUsageStates.containsKey(tenant.getId()) && tpi.isMyPartition()) {
+                        log.debug("[{}] Initializing tenant state.", tenant.getId());
+                        result.computeIfAbsent(tpi, tmp -> new ArrayList<>()).add(dbExecutor.submit(() -> {
+                            try {
+                                TenantApiUsageState state = (TenantApiUsageState) getOrFetchState(tenant.getId(), tenant.getId());
+                                Lock updateLock = updateLocks.get(tenant.getId());
+                                updateLock.lock();
                                 try {
-                                    updateTenantState((TenantApiUsageState) getOrFetchState(tenant.getId(), tenant.getId()), tenantProfileCache.get(tenant.getTenantProfileId()));
-                                    log.debug("[{}] Initialized tenant state.", tenant.getId());
-                                } catch (Exception e) {
-                                    log.warn("[{}] Failed to initialize tenant API state", tenant.getId(), e);
+                                    updateTenantState(state, tenantProfileCache.get(tenant.getTenantProfileId()));
+                                } finally {
+                                    updateLock.unlock();
                                 }
-                                return null;
-                            }));
-                        }
-                    } else {
-                        log.debug("[{}][{}] Tenant doesn't belong to current partition. tpi [{}]", tenant.getName(), tenant.getId(), tpi);
+                                log.debug("[{}] Initialized tenant state.", tenant.getId());
+                            } catch (Exception e) {
+                                log.warn("[{}] Failed to initialize tenant API state", tenant.getId(), e);
+                            }
+                            return null;
+                        }));
                     }
+                } else {
+                    log.debug("[{}][{}] Tenant doesn't belong to current partition. tpi [{}]", tenant.getName(), tenant.getId(), tpi);
                 }
-            } finally {
-                updateLock.unlock();
             }
         } catch (Exception e) {
             log.warn("Unknown failure", e);
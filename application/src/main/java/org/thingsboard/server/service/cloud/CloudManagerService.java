@@ -86,7 +86,9 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 @Service
@@ -108,6 +110,18 @@ public class CloudManagerService {
     @Value("${cloud.reconnect_timeout}")
     private long reconnectTimeoutMs;
 
+    @Value("${cloud.reconnect_max_timeout:60000}")
+    private long reconnectMaxTimeoutMs;
+
+    @Value("${cloud.session_resume_timeout:600000}")
+    private long sessionResumeTimeoutMs;
+
+    @Value("${cloud.sync.incremental:true}")
+    private boolean incrementalSyncEnabled;
+
+    @Value("${cloud.sync.manifest_chunk_size:1000}")
+    private int syncManifestChunkSize;
+
     @Autowired
     private EdgeService edgeService;
 
@@ -129,6 +143,9 @@ public class CloudManagerService {
     @Autowired
     private DownlinkMessageService downlinkMessageService;
 
+    @Autowired
+    private CloudSyncManifestService cloudSyncManifestService;
+
     @Autowired
     private EdgeRpcClient edgeRpcClient;
 
@@ -176,10 +193,13 @@ public class CloudManagerService {
 
     private ExecutorService executor;
     private ScheduledExecutorService reconnectScheduler;
-    private ScheduledFuture<?> scheduledFuture;
+    private volatile ScheduledFuture<?> scheduledFuture;
+    private final AtomicInteger reconnectAttempts = new AtomicInteger();
+    private volatile long disconnectedTs;
     private ScheduledExecutorService shutdownExecutor;
     private volatile boolean initialized;
     private volatile boolean syncInProgress = false;
+    private final AtomicInteger connectionSeq = new AtomicInteger();
 
     private final ConcurrentMap<Integer, UplinkMsg> pendingMsgsMap = new ConcurrentHashMap<>();
 
@@ -435,10 +455,7 @@ public class CloudManagerService {
 
     private void onEdgeUpdate(EdgeConfiguration edgeConfiguration) {
         try {
-            if (scheduledFuture != null) {
-                scheduledFuture.cancel(true);
-                scheduledFuture = null;
-            }
+            cancelReconnect();
 
             if ("CE".equals(edgeConfiguration.getCloudType())) {
                 initAndUpdateEdgeSettings(edgeConfiguration);
@@ -468,18 +485,27 @@ public class CloudManagerService {
         this.currentEdgeSettings = cloudEventService.findEdgeSettings(tenantId);
 
         EdgeSettings newEdgeSetting = constructEdgeSettings(edgeConfiguration);
-        if (this.currentEdgeSettings == null || !this.currentEdgeSettings.getEdgeId().equals(newEdgeSetting.getEdgeId())) {
+        boolean sameEdge = this.currentEdgeSettings != null && this.currentEdgeSettings.getEdgeId().equals(newEdgeSetting.getEdgeId());
+        if (!sameEdge) {
             tenantCloudProcessor.cleanUp(this.tenantId);
             this.currentEdgeSettings = newEdgeSetting;
         } else {
             log.trace("Using edge settings from DB {}", this.currentEdgeSettings);
         }
 
-        // TODO: voba - should sync be executed in some other cases ???
-        log.trace("Sending sync request, fullSyncRequired {}, edgeCustomerIdUpdated {}", this.currentEdgeSettings.isFullSyncRequired(), edgeCustomerIdUpdated);
-        edgeRpcClient.sendSyncRequestMsg(this.currentEdgeSettings.isFullSyncRequired() | edgeCustomerIdUpdated);
-        this.syncInProgress = true;
+        boolean syncRequired = this.currentEdgeSettings.isFullSyncRequired() | edgeCustomerIdUpdated;
+        if (edgeRpcClient.isSessionResumed() && sameEdge && !syncRequired) {
+            // cloud continues the previous session - uplink and downlink queues resume from the persisted offsets
+            log.info("Session resumed, skipping sync request");
+            this.syncInProgress = false;
+        } else {
+            // TODO: voba - should sync be executed in some other cases ???
+            log.trace("Sending sync request, fullSyncRequired {}, edgeCustomerIdUpdated {}", this.currentEdgeSettings.isFullSyncRequired(), edgeCustomerIdUpdated);
+            sendSyncRequest(syncRequired, true);
+            this.syncInProgress = true;
+        }
 
+        // edge configuration may have been changed on cloud while disconnected, so it is applied on resume as well
         cloudEventService.saveEdgeSettings(tenantId, this.currentEdgeSettings);
 
         saveOrUpdateEdge(tenantId, edgeConfiguration);
@@ -489,6 +515,39 @@ public class CloudManagerService {
         initialized = true;
     }
 
+    private void sendSyncRequest(boolean syncRequired, boolean fullSync) {
+        if (!syncRequired || !incrementalSyncEnabled) {
+            edgeRpcClient.sendSyncRequestMsg(syncRequired, fullSync);
+            return;
+        }
+        // manifest is built off the connect path and sent in chunks, the last chunk starts the sync on cloud
+        int currentConnectionSeq = connectionSeq.get();
+        ListenableFuture<Void> future = Futures.transformAsync(getQueueStartTs(), queueStartTs ->
+                cloudSyncManifestService.buildSyncManifest(tenantId, queueStartTs, syncManifestChunkSize, (entityVersions, hasMore) -> {
+                    if (currentConnectionSeq != connectionSeq.get()) {
+                        throw new IllegalStateException("Connection to cloud was lost while sending sync manifest");
+                    }
+                    edgeRpcClient.sendSyncRequestMsg(true, fullSync, entityVersions, hasMore);
+                }), MoreExecutors.directExecutor());
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(@Nullable Void result) {
+                log.trace("Sync request with manifest has been sent");
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (currentConnectionSeq != connectionSeq.get()) {
+                    log.debug("Sync manifest was not sent, connection to cloud was lost", t);
+                    return;
+                }
+                // partial manifest is safe - entities missing in it are simply pushed by cloud again
+                log.warn("Failed to build sync manifest. Requesting sync of the remaining entities", t);
+                edgeRpcClient.sendSyncRequestMsg(true, fullSync, Collections.emptyList(), false);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
     private boolean setOrUpdateCustomerId(EdgeConfiguration edgeConfiguration) {
         EdgeId edgeId = getEdgeId(edgeConfiguration);
         Edge edge = edgeService.findEdgeById(tenantId, edgeId);
@@ -549,7 +608,7 @@ public class CloudManagerService {
                 if (downlinkMsg.hasEdgeConfiguration()) {
                     if (edgeCustomerIdUpdated && !syncInProgress) {
                         log.info("Edge customer id has been updated. Sending sync request...");
-                        edgeRpcClient.sendSyncRequestMsg(true, false);
+                        sendSyncRequest(true, false);
                         syncInProgress = true;
                     }
                 }
@@ -588,27 +647,69 @@ public class CloudManagerService {
 
     private void scheduleReconnect(Exception e) {
         initialized = false;
+        connectionSeq.incrementAndGet();
+
+        if (syncInProgress) {
+            // previous session was not synced completely - next session must start from the sync request
+            edgeRpcClient.clearResumeToken();
+        }
 
         updateConnectivityStatus(false);
 
-        if (scheduledFuture == null) {
-            scheduledFuture = reconnectScheduler.scheduleAtFixedRate(() -> {
-                log.info("Trying to reconnect due to the error: {}!", e.getMessage());
-                try {
-                    edgeRpcClient.disconnect(true);
-                } catch (Exception ex) {
-                    log.error("Exception during disconnect: {}", ex.getMessage());
-                }
-                try {
-                    edgeRpcClient.connect(routingKey, routingSecret,
-                            this::onUplinkResponse,
-                            this::onEdgeUpdate,
-                            this::onDownlink,
-                            this::scheduleReconnect);
-                } catch (Exception ex) {
-                    log.error("Exception during connect: {}", ex.getMessage());
+        synchronized (this) {
+            if (scheduledFuture == null) {
+                disconnectedTs = System.currentTimeMillis();
+                scheduleReconnectAttempt(e);
+            }
+        }
+    }
+
+    private synchronized void scheduleReconnectAttempt(Exception e) {
+        long delayMs = getReconnectDelayMs(reconnectAttempts.getAndIncrement());
+        log.info("Scheduling reconnect in {} ms due to the error: {}!", delayMs, e.getMessage());
+        scheduledFuture = reconnectScheduler.schedule(() -> {
+            log.info("Trying to reconnect due to the error: {}!", e.getMessage());
+            if (System.currentTimeMillis() - disconnectedTs > sessionResumeTimeoutMs) {
+                edgeRpcClient.clearResumeToken();
+            }
+            try {
+                edgeRpcClient.disconnect(true);
+            } catch (Exception ex) {
+                log.error("Exception during disconnect: {}", ex.getMessage());
+            }
+            try {
+                edgeRpcClient.connect(routingKey, routingSecret,
+                        this::onUplinkResponse,
+                        this::onEdgeUpdate,
+                        this::onDownlink,
+                        this::scheduleReconnect);
+            } catch (Exception ex) {
+                log.error("Exception during connect: {}", ex.getMessage());
+            }
+            // keep retrying until the connection is confirmed by the edge configuration message
+            synchronized (this) {
+                if (scheduledFuture != null) {
+                    scheduleReconnectAttempt(e);
                 }
-            }, reconnectTimeoutMs, reconnectTimeoutMs, TimeUnit.MILLISECONDS);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private long getReconnectDelayMs(int attempt) {
+        long maxDelayMs = Math.max(reconnectTimeoutMs, reconnectMaxTimeoutMs);
+        long delayMs = reconnectTimeoutMs << Math.min(attempt, 16);
+        if (delayMs <= 0 || delayMs > maxDelayMs) {
+            delayMs = maxDelayMs;
+        }
+        // full jitter within [reconnectTimeout, delay] to avoid edges reconnecting in lockstep after a cloud restart
+        return ThreadLocalRandom.current().nextLong(reconnectTimeoutMs, delayMs + 1);
+    }
+
+    private synchronized void cancelReconnect() {
+        reconnectAttempts.set(0);
+        if (scheduledFuture != null) {
+            scheduledFuture.cancel(false);
+            scheduledFuture = null;
         }
     }
 
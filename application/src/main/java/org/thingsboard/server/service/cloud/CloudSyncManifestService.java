@@ -0,0 +1,33 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.cloud;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.gen.edge.v1.EntityVersionProto;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+public interface CloudSyncManifestService {
+
+    /**
+     * Builds the sync manifest in the background and passes it to the consumer in chunks of at most chunkSize entries.
+     * The consumer receives hasMore = false only for the last (possibly empty) chunk.
+     */
+    ListenableFuture<Void> buildSyncManifest(TenantId tenantId, long queueStartTs, int chunkSize,
+                                             BiConsumer<List<EntityVersionProto>, Boolean> chunkConsumer);
+}
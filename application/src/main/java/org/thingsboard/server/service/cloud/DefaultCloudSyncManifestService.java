@@ -0,0 +1,148 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.cloud;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.BaseData;
+import org.thingsboard.server.common.data.Dashboard;
+import org.thingsboard.server.common.data.DashboardInfo;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.EntityView;
+import org.thingsboard.server.common.data.asset.Asset;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.page.PageDataIterable;
+import org.thingsboard.server.dao.asset.AssetService;
+import org.thingsboard.server.dao.dashboard.DashboardService;
+import org.thingsboard.server.dao.device.DeviceService;
+import org.thingsboard.server.dao.entityview.EntityViewService;
+import org.thingsboard.server.gen.edge.v1.EntityVersionProto;
+import org.thingsboard.server.service.edge.rpc.constructor.EntityVersionMsgConstructor;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+@Service
+@Slf4j
+public class DefaultCloudSyncManifestService implements CloudSyncManifestService {
+
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private AssetService assetService;
+
+    @Autowired
+    private EntityViewService entityViewService;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private EntityVersionMsgConstructor entityVersionMsgConstructor;
+
+    private ListeningExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("cloud-sync-manifest")));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public ListenableFuture<Void> buildSyncManifest(TenantId tenantId, long queueStartTs, int chunkSize,
+                                                    BiConsumer<List<EntityVersionProto>, Boolean> chunkConsumer) {
+        return executor.submit(() -> {
+            ManifestChunker chunker = new ManifestChunker(Math.max(1, chunkSize), chunkConsumer);
+            for (Device device : new PageDataIterable<>(link -> deviceService.findDevicesByTenantId(tenantId, link), DEFAULT_PAGE_SIZE)) {
+                if (isDeliveredToCloud(device, queueStartTs)) {
+                    chunker.add(entityVersionMsgConstructor.constructEntityVersion(device));
+                }
+            }
+            for (Asset asset : new PageDataIterable<>(link -> assetService.findAssetsByTenantId(tenantId, link), DEFAULT_PAGE_SIZE)) {
+                if (isDeliveredToCloud(asset, queueStartTs)) {
+                    chunker.add(entityVersionMsgConstructor.constructEntityVersion(asset));
+                }
+            }
+            for (EntityView entityView : new PageDataIterable<>(link -> entityViewService.findEntityViewByTenantId(tenantId, link), DEFAULT_PAGE_SIZE)) {
+                if (isDeliveredToCloud(entityView, queueStartTs)) {
+                    chunker.add(entityVersionMsgConstructor.constructEntityVersion(entityView));
+                }
+            }
+            for (DashboardInfo dashboardInfo : new PageDataIterable<>(link -> dashboardService.findDashboardsByTenantId(tenantId, link), DEFAULT_PAGE_SIZE)) {
+                if (isDeliveredToCloud(dashboardInfo, queueStartTs)) {
+                    Dashboard dashboard = dashboardService.findDashboardById(tenantId, dashboardInfo.getId());
+                    if (dashboard != null) {
+                        chunker.add(entityVersionMsgConstructor.constructEntityVersion(dashboard));
+                    }
+                }
+            }
+            chunker.complete();
+            log.debug("[{}] Sync manifest contains [{}] entities", tenantId, chunker.total);
+            return null;
+        });
+    }
+
+    // entities created on edge after the current cloud event queue offset may not be known to cloud yet,
+    // so they must not be reported in the manifest, otherwise cloud would treat them as deleted
+    private boolean isDeliveredToCloud(BaseData<?> entity, long queueStartTs) {
+        return entity.getCreatedTime() < queueStartTs;
+    }
+
+    private static class ManifestChunker {
+
+        private final int chunkSize;
+        private final BiConsumer<List<EntityVersionProto>, Boolean> chunkConsumer;
+        private List<EntityVersionProto> chunk;
+        private int total;
+
+        ManifestChunker(int chunkSize, BiConsumer<List<EntityVersionProto>, Boolean> chunkConsumer) {
+            this.chunkSize = chunkSize;
+            this.chunkConsumer = chunkConsumer;
+            this.chunk = new ArrayList<>(chunkSize);
+        }
+
+        void add(EntityVersionProto entityVersion) {
+            chunk.add(entityVersion);
+            total++;
+            if (chunk.size() >= chunkSize) {
+                chunkConsumer.accept(chunk, true);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+
+        void complete() {
+            chunkConsumer.accept(chunk, false);
+        }
+    }
+}
@@ -17,16 +17,24 @@ package org.thingsboard.server.service.cloud;
 
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.thingsboard.common.util.ThingsBoardExecutors;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.asset.Asset;
 import org.thingsboard.server.common.data.cloud.CloudEventType;
 import org.thingsboard.server.common.data.edge.EdgeEventActionType;
 import org.thingsboard.server.common.data.edge.EdgeSettings;
+import org.thingsboard.server.common.data.id.AssetId;
 import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.dao.asset.AssetService;
 import org.thingsboard.server.dao.cloud.CloudEventService;
+import org.thingsboard.server.dao.device.DeviceService;
 import org.thingsboard.server.gen.edge.v1.AdminSettingsUpdateMsg;
 import org.thingsboard.server.gen.edge.v1.AlarmUpdateMsg;
 import org.thingsboard.server.gen.edge.v1.AssetProfileUpdateMsg;
@@ -70,11 +78,21 @@ import org.thingsboard.server.service.cloud.rpc.processor.WidgetBundleCloudProce
 import org.thingsboard.server.service.cloud.rpc.processor.WidgetTypeCloudProcessor;
 import org.thingsboard.server.service.executors.DbCallbackExecutorService;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -142,12 +160,36 @@ public class DefaultDownlinkMessageService implements DownlinkMessageService {
     @Autowired
     private DbCallbackExecutorService dbCallbackExecutorService;
 
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private AssetService assetService;
+
+    @Value("${cloud.rpc.downlink_parallelism:4}")
+    private int downlinkParallelism;
+
+    private ExecutorService downlinkExecutor;
+
+    @PostConstruct
+    public void init() {
+        downlinkExecutor = ThingsBoardExecutors.newWorkStealingPool(Math.max(downlinkParallelism, 1), "cloud-downlink");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (downlinkExecutor != null) {
+            downlinkExecutor.shutdownNow();
+        }
+    }
+
     public ListenableFuture<List<Void>> processDownlinkMsg(TenantId tenantId,
                                                            CustomerId edgeCustomerId,
                                                            DownlinkMsg downlinkMsg,
                                                            EdgeSettings currentEdgeSettings,
                                                            Long queueStartTs) {
         List<ListenableFuture<Void>> result = new ArrayList<>();
+        ListenableFuture<List<Void>> devicesAndAssetsFuture;
         try {
             log.debug("[{}] Starting process DownlinkMsg. edgeCustomerId [{}], downlinkMsgId [{}],",
                     tenantId, edgeCustomerId, downlinkMsg.getDownlinkMsgId());
@@ -178,112 +220,172 @@ public class DefaultDownlinkMessageService implements DownlinkMessageService {
                     result.add(deviceProfileProcessor.processDeviceProfileMsgFromCloud(tenantId, deviceProfileUpdateMsg));
                 }
             }
-            if (downlinkMsg.getDeviceUpdateMsgCount() > 0) {
-                for (DeviceUpdateMsg deviceUpdateMsg : downlinkMsg.getDeviceUpdateMsgList()) {
-                    result.add(deviceProcessor.processDeviceMsgFromCloud(tenantId, edgeCustomerId, deviceUpdateMsg, queueStartTs));
-                }
-            }
             if (downlinkMsg.getAssetProfileUpdateMsgCount() > 0) {
                 for (AssetProfileUpdateMsg assetProfileUpdateMsg  : downlinkMsg.getAssetProfileUpdateMsgList()) {
                     result.add(assetProfileProcessor.processAssetProfileMsgFromCloud(tenantId, assetProfileUpdateMsg));
                 }
             }
-            if (downlinkMsg.getDeviceCredentialsUpdateMsgCount() > 0) {
-                for (DeviceCredentialsUpdateMsg deviceCredentialsUpdateMsg : downlinkMsg.getDeviceCredentialsUpdateMsgList()) {
-                    result.add(deviceProcessor.processDeviceCredentialsMsgFromCloud(tenantId, deviceCredentialsUpdateMsg));
+            devicesAndAssetsFuture = processDeviceAndAssetMsgs(tenantId, edgeCustomerId, downlinkMsg, queueStartTs);
+        } catch (Exception e) {
+            log.error("Can't process downlink message [{}]", downlinkMsg, e);
+            return Futures.immediateFailedFuture(new RuntimeException("Can't process downlink message", e));
+        }
+        // entities below may depend on devices and assets, so they are processed once devices and assets are saved
+        return Futures.transformAsync(devicesAndAssetsFuture, devicesAndAssetsResult -> {
+            try {
+                if (downlinkMsg.getDeviceCredentialsUpdateMsgCount() > 0) {
+                    for (DeviceCredentialsUpdateMsg deviceCredentialsUpdateMsg : downlinkMsg.getDeviceCredentialsUpdateMsgList()) {
+                        result.add(deviceProcessor.processDeviceCredentialsMsgFromCloud(tenantId, deviceCredentialsUpdateMsg));
+                    }
                 }
-            }
-            if (downlinkMsg.getAssetUpdateMsgCount() > 0) {
-                for (AssetUpdateMsg assetUpdateMsg : downlinkMsg.getAssetUpdateMsgList()) {
-                    result.add(assetProcessor.processAssetMsgFromCloud(tenantId, edgeCustomerId, assetUpdateMsg, queueStartTs));
+                if (downlinkMsg.getEntityViewUpdateMsgCount() > 0) {
+                    for (EntityViewUpdateMsg entityViewUpdateMsg : downlinkMsg.getEntityViewUpdateMsgList()) {
+                        result.add(entityViewProcessor.processEntityViewMsgFromCloud(tenantId, edgeCustomerId, entityViewUpdateMsg, queueStartTs));
+                    }
                 }
-            }
-            if (downlinkMsg.getEntityViewUpdateMsgCount() > 0) {
-                for (EntityViewUpdateMsg entityViewUpdateMsg : downlinkMsg.getEntityViewUpdateMsgList()) {
-                    result.add(entityViewProcessor.processEntityViewMsgFromCloud(tenantId, edgeCustomerId, entityViewUpdateMsg, queueStartTs));
+                if (downlinkMsg.getRuleChainUpdateMsgCount() > 0) {
+                    for (RuleChainUpdateMsg ruleChainUpdateMsg : downlinkMsg.getRuleChainUpdateMsgList()) {
+                        result.add(ruleChainProcessor.processRuleChainMsgFromCloud(tenantId, ruleChainUpdateMsg, queueStartTs));
+                    }
                 }
-            }
-            if (downlinkMsg.getRuleChainUpdateMsgCount() > 0) {
-                for (RuleChainUpdateMsg ruleChainUpdateMsg : downlinkMsg.getRuleChainUpdateMsgList()) {
-                    result.add(ruleChainProcessor.processRuleChainMsgFromCloud(tenantId, ruleChainUpdateMsg, queueStartTs));
+                if (downlinkMsg.getRuleChainMetadataUpdateMsgCount() > 0) {
+                    for (RuleChainMetadataUpdateMsg ruleChainMetadataUpdateMsg : downlinkMsg.getRuleChainMetadataUpdateMsgList()) {
+                        result.add(ruleChainProcessor.processRuleChainMetadataMsgFromCloud(tenantId, ruleChainMetadataUpdateMsg));
+                    }
                 }
-            }
-            if (downlinkMsg.getRuleChainMetadataUpdateMsgCount() > 0) {
-                for (RuleChainMetadataUpdateMsg ruleChainMetadataUpdateMsg : downlinkMsg.getRuleChainMetadataUpdateMsgList()) {
-                    result.add(ruleChainProcessor.processRuleChainMetadataMsgFromCloud(tenantId, ruleChainMetadataUpdateMsg));
+                if (downlinkMsg.getDashboardUpdateMsgCount() > 0) {
+                    for (DashboardUpdateMsg dashboardUpdateMsg : downlinkMsg.getDashboardUpdateMsgList()) {
+                        result.add(dashboardProcessor.processDashboardMsgFromCloud(tenantId, edgeCustomerId, dashboardUpdateMsg, queueStartTs));
+                    }
                 }
-            }
-            if (downlinkMsg.getDashboardUpdateMsgCount() > 0) {
-                for (DashboardUpdateMsg dashboardUpdateMsg : downlinkMsg.getDashboardUpdateMsgList()) {
-                    result.add(dashboardProcessor.processDashboardMsgFromCloud(tenantId, edgeCustomerId, dashboardUpdateMsg, queueStartTs));
+                if (downlinkMsg.getAlarmUpdateMsgCount() > 0) {
+                    for (AlarmUpdateMsg alarmUpdateMsg : downlinkMsg.getAlarmUpdateMsgList()) {
+                        result.add(alarmProcessor.processAlarmMsgFromCloud(tenantId, alarmUpdateMsg));
+                    }
                 }
-            }
-            if (downlinkMsg.getAlarmUpdateMsgCount() > 0) {
-                for (AlarmUpdateMsg alarmUpdateMsg : downlinkMsg.getAlarmUpdateMsgList()) {
-                    result.add(alarmProcessor.processAlarmMsgFromCloud(tenantId, alarmUpdateMsg));
+                if (downlinkMsg.getCustomerUpdateMsgCount() > 0) {
+                    for (CustomerUpdateMsg customerUpdateMsg : downlinkMsg.getCustomerUpdateMsgList()) {
+                        sequenceDependencyLock.lock();
+                        try {
+                            result.add(customerProcessor.processCustomerMsgFromCloud(tenantId, customerUpdateMsg));
+                        } finally {
+                            sequenceDependencyLock.unlock();
+                        }
+                    }
                 }
-            }
-            if (downlinkMsg.getCustomerUpdateMsgCount() > 0) {
-                for (CustomerUpdateMsg customerUpdateMsg : downlinkMsg.getCustomerUpdateMsgList()) {
-                    sequenceDependencyLock.lock();
-                    try {
-                        result.add(customerProcessor.processCustomerMsgFromCloud(tenantId, customerUpdateMsg));
-                    } finally {
-                        sequenceDependencyLock.unlock();
+                if (downlinkMsg.getRelationUpdateMsgCount() > 0) {
+                    for (RelationUpdateMsg relationUpdateMsg : downlinkMsg.getRelationUpdateMsgList()) {
+                        result.add(relationProcessor.processRelationMsgFromCloud(tenantId, relationUpdateMsg));
                     }
                 }
-            }
-            if (downlinkMsg.getRelationUpdateMsgCount() > 0) {
-                for (RelationUpdateMsg relationUpdateMsg : downlinkMsg.getRelationUpdateMsgList()) {
-                    result.add(relationProcessor.processRelationMsgFromCloud(tenantId, relationUpdateMsg));
+                if (downlinkMsg.getWidgetsBundleUpdateMsgCount() > 0) {
+                    for (WidgetsBundleUpdateMsg widgetsBundleUpdateMsg : downlinkMsg.getWidgetsBundleUpdateMsgList()) {
+                        result.add(widgetsBundleProcessor.processWidgetsBundleMsgFromCloud(tenantId, widgetsBundleUpdateMsg, queueStartTs));
+                    }
                 }
-            }
-            if (downlinkMsg.getWidgetsBundleUpdateMsgCount() > 0) {
-                for (WidgetsBundleUpdateMsg widgetsBundleUpdateMsg : downlinkMsg.getWidgetsBundleUpdateMsgList()) {
-                    result.add(widgetsBundleProcessor.processWidgetsBundleMsgFromCloud(tenantId, widgetsBundleUpdateMsg, queueStartTs));
+                if (downlinkMsg.getWidgetTypeUpdateMsgCount() > 0) {
+                    for (WidgetTypeUpdateMsg widgetTypeUpdateMsg : downlinkMsg.getWidgetTypeUpdateMsgList()) {
+                        result.add(widgetTypeProcessor.processWidgetTypeMsgFromCloud(tenantId, widgetTypeUpdateMsg));
+                    }
                 }
-            }
-            if (downlinkMsg.getWidgetTypeUpdateMsgCount() > 0) {
-                for (WidgetTypeUpdateMsg widgetTypeUpdateMsg : downlinkMsg.getWidgetTypeUpdateMsgList()) {
-                    result.add(widgetTypeProcessor.processWidgetTypeMsgFromCloud(tenantId, widgetTypeUpdateMsg));
+                if (downlinkMsg.getUserUpdateMsgCount() > 0) {
+                    for (UserUpdateMsg userUpdateMsg : downlinkMsg.getUserUpdateMsgList()) {
+                        sequenceDependencyLock.lock();
+                        try {
+                            result.add(userProcessor.processUserMsgFromCloud(tenantId, edgeCustomerId, userUpdateMsg, queueStartTs));
+                        } finally {
+                            sequenceDependencyLock.unlock();
+                        }
+                    }
                 }
-            }
-            if (downlinkMsg.getUserUpdateMsgCount() > 0) {
-                for (UserUpdateMsg userUpdateMsg : downlinkMsg.getUserUpdateMsgList()) {
-                    sequenceDependencyLock.lock();
-                    try {
-                        result.add(userProcessor.processUserMsgFromCloud(tenantId, edgeCustomerId, userUpdateMsg, queueStartTs));
-                    } finally {
-                        sequenceDependencyLock.unlock();
+                if (downlinkMsg.getUserCredentialsUpdateMsgCount() > 0) {
+                    for (UserCredentialsUpdateMsg userCredentialsUpdateMsg : downlinkMsg.getUserCredentialsUpdateMsgList()) {
+                        result.add(userProcessor.processUserCredentialsMsgFromCloud(tenantId, userCredentialsUpdateMsg));
                     }
                 }
-            }
-            if (downlinkMsg.getUserCredentialsUpdateMsgCount() > 0) {
-                for (UserCredentialsUpdateMsg userCredentialsUpdateMsg : downlinkMsg.getUserCredentialsUpdateMsgList()) {
-                    result.add(userProcessor.processUserCredentialsMsgFromCloud(tenantId, userCredentialsUpdateMsg));
+                if (downlinkMsg.getAdminSettingsUpdateMsgCount() > 0) {
+                    for (AdminSettingsUpdateMsg adminSettingsUpdateMsg : downlinkMsg.getAdminSettingsUpdateMsgList()) {
+                        result.add(adminSettingsProcessor.processAdminSettingsMsgFromCloud(tenantId, adminSettingsUpdateMsg));
+                    }
                 }
-            }
-            if (downlinkMsg.getAdminSettingsUpdateMsgCount() > 0) {
-                for (AdminSettingsUpdateMsg adminSettingsUpdateMsg : downlinkMsg.getAdminSettingsUpdateMsgList()) {
-                    result.add(adminSettingsProcessor.processAdminSettingsMsgFromCloud(tenantId, adminSettingsUpdateMsg));
+                if (downlinkMsg.getOtaPackageUpdateMsgCount() > 0) {
+                    for (OtaPackageUpdateMsg otaPackageUpdateMsg : downlinkMsg.getOtaPackageUpdateMsgList()) {
+                        result.add(otaPackageProcessor.processOtaPackageMsgFromCloud(tenantId, otaPackageUpdateMsg));
+                    }
                 }
-            }
-            if (downlinkMsg.getOtaPackageUpdateMsgCount() > 0) {
-                for (OtaPackageUpdateMsg otaPackageUpdateMsg : downlinkMsg.getOtaPackageUpdateMsgList()) {
-                    result.add(otaPackageProcessor.processOtaPackageMsgFromCloud(tenantId, otaPackageUpdateMsg));
+                if (downlinkMsg.getQueueUpdateMsgCount() > 0) {
+                    for (QueueUpdateMsg queueUpdateMsg : downlinkMsg.getQueueUpdateMsgList()) {
+                        result.add(queueCloudProcessor.processQueueMsgFromCloud(tenantId, queueUpdateMsg));
+                    }
                 }
+                log.trace("Finished processing DownlinkMsg {}", downlinkMsg.getDownlinkMsgId());
+            } catch (Exception e) {
+                log.error("Can't process downlink message [{}]", downlinkMsg, e);
+                return Futures.immediateFailedFuture(new RuntimeException("Can't process downlink message", e));
             }
-            if (downlinkMsg.getQueueUpdateMsgCount() > 0) {
-                for (QueueUpdateMsg queueUpdateMsg : downlinkMsg.getQueueUpdateMsgList()) {
-                    result.add(queueCloudProcessor.processQueueMsgFromCloud(tenantId, queueUpdateMsg));
-                }
+            return Futures.allAsList(result);
+        }, MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<List<Void>> processDeviceAndAssetMsgs(TenantId tenantId,
+                                                                   CustomerId edgeCustomerId,
+                                                                   DownlinkMsg downlinkMsg,
+                                                                   Long queueStartTs) {
+        List<DeviceUpdateMsg> deviceUpdateMsgs = downlinkMsg.getDeviceUpdateMsgList();
+        List<AssetUpdateMsg> assetUpdateMsgs = downlinkMsg.getAssetUpdateMsgList();
+        if (downlinkParallelism <= 1 || deviceUpdateMsgs.size() + assetUpdateMsgs.size() <= 1
+                || !hasUniqueIds(deviceUpdateMsgs, DeviceUpdateMsg::getIdMSB, DeviceUpdateMsg::getIdLSB)
+                || !hasUniqueIds(assetUpdateMsgs, AssetUpdateMsg::getIdMSB, AssetUpdateMsg::getIdLSB)) {
+            List<ListenableFuture<Void>> result = new ArrayList<>();
+            for (DeviceUpdateMsg deviceUpdateMsg : deviceUpdateMsgs) {
+                result.add(deviceProcessor.processDeviceMsgFromCloud(tenantId, edgeCustomerId, deviceUpdateMsg, queueStartTs));
+            }
+            for (AssetUpdateMsg assetUpdateMsg : assetUpdateMsgs) {
+                result.add(assetProcessor.processAssetMsgFromCloud(tenantId, edgeCustomerId, assetUpdateMsg, queueStartTs));
+            }
+            return Futures.allAsList(result);
+        }
+        log.trace("[{}] Applying [{}] device and [{}] asset updates in bulk", tenantId, deviceUpdateMsgs.size(), assetUpdateMsgs.size());
+        List<DeviceId> deviceIds = deviceUpdateMsgs.stream()
+                .map(msg -> new DeviceId(new UUID(msg.getIdMSB(), msg.getIdLSB())))
+                .collect(Collectors.toList());
+        List<AssetId> assetIds = assetUpdateMsgs.stream()
+                .map(msg -> new AssetId(new UUID(msg.getIdMSB(), msg.getIdLSB())))
+                .collect(Collectors.toList());
+        ListenableFuture<List<Device>> devicesFuture = deviceIds.isEmpty() ? Futures.immediateFuture(Collections.emptyList())
+                : deviceService.findDevicesByTenantIdAndIdsAsync(tenantId, deviceIds);
+        ListenableFuture<List<Asset>> assetsFuture = assetIds.isEmpty() ? Futures.immediateFuture(Collections.emptyList())
+                : assetService.findAssetsByTenantIdAndIdsAsync(tenantId, assetIds);
+        return Futures.transformAsync(Futures.allAsList(devicesFuture, assetsFuture), ignored -> {
+            Map<DeviceId, Device> devicesById = Futures.getDone(devicesFuture).stream()
+                    .collect(Collectors.toMap(Device::getId, Function.identity()));
+            Map<AssetId, Asset> assetsById = Futures.getDone(assetsFuture).stream()
+                    .collect(Collectors.toMap(Asset::getId, Function.identity()));
+            List<ListenableFuture<Void>> result = new ArrayList<>();
+            for (int i = 0; i < deviceUpdateMsgs.size(); i++) {
+                DeviceUpdateMsg deviceUpdateMsg = deviceUpdateMsgs.get(i);
+                DeviceId deviceId = deviceIds.get(i);
+                result.add(Futures.submitAsync(() -> deviceProcessor.processDeviceMsgFromCloud(tenantId, edgeCustomerId,
+                        deviceUpdateMsg, queueStartTs, () -> devicesById.get(deviceId)), downlinkExecutor));
+            }
+            for (int i = 0; i < assetUpdateMsgs.size(); i++) {
+                AssetUpdateMsg assetUpdateMsg = assetUpdateMsgs.get(i);
+                AssetId assetId = assetIds.get(i);
+                result.add(Futures.submitAsync(() -> assetProcessor.processAssetMsgFromCloud(tenantId, edgeCustomerId,
+                        assetUpdateMsg, queueStartTs, () -> assetsById.get(assetId)), downlinkExecutor));
+            }
+            return Futures.allAsList(result);
+        }, downlinkExecutor);
+    }
+
+    private <T> boolean hasUniqueIds(List<T> msgs, ToLongFunction<T> idMSB, ToLongFunction<T> idLSB) {
+        Set<UUID> ids = new HashSet<>();
+        for (T msg : msgs) {
+            if (!ids.add(new UUID(idMSB.applyAsLong(msg), idLSB.applyAsLong(msg)))) {
+                return false;
             }
-            log.trace("Finished processing DownlinkMsg {}", downlinkMsg.getDownlinkMsgId());
-        } catch (Exception e) {
-            log.error("Can't process downlink message [{}]", downlinkMsg, e);
-            return Futures.immediateFailedFuture(new RuntimeException("Can't process downlink message", e));
         }
-        return Futures.allAsList(result);
+        return true;
     }
 
     private ListenableFuture<Void> updateSyncRequiredState(TenantId tenantId, EdgeSettings currentEdgeSettings) {
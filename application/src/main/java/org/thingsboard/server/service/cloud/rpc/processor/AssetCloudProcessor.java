@@ -26,9 +26,12 @@ import org.thingsboard.server.common.data.id.AssetId;
 import org.thingsboard.server.common.data.id.AssetProfileId;
 import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.plugin.ComponentLifecycleEvent;
 import org.thingsboard.server.gen.edge.v1.AssetUpdateMsg;
 
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 
 @Component
 @Slf4j
@@ -39,13 +42,31 @@ public class AssetCloudProcessor extends BaseCloudProcessor {
                                                            AssetUpdateMsg assetUpdateMsg,
                                                            Long queueStartTs) {
         AssetId assetId = new AssetId(new UUID(assetUpdateMsg.getIdMSB(), assetUpdateMsg.getIdLSB()));
+        return processAssetMsgFromCloud(tenantId, edgeCustomerId, assetUpdateMsg, queueStartTs,
+                () -> assetService.findAssetById(tenantId, assetId));
+    }
+
+    /**
+     * Same as {@link #processAssetMsgFromCloud(TenantId, CustomerId, AssetUpdateMsg, Long)}, but the current asset
+     * is resolved by the provided supplier, e.g. from the result of a batch lookup for all assets of the downlink msg.
+     */
+    public ListenableFuture<Void> processAssetMsgFromCloud(TenantId tenantId,
+                                                           CustomerId edgeCustomerId,
+                                                           AssetUpdateMsg assetUpdateMsg,
+                                                           Long queueStartTs,
+                                                           Supplier<Asset> assetByIdSupplier) {
+        AssetId assetId = new AssetId(new UUID(assetUpdateMsg.getIdMSB(), assetUpdateMsg.getIdLSB()));
         switch (assetUpdateMsg.getMsgType()) {
             case ENTITY_CREATED_RPC_MESSAGE:
             case ENTITY_UPDATED_RPC_MESSAGE:
-                assetCreationLock.lock();
+                Lock assetNameLock = getAssetNameLock(assetUpdateMsg.getName());
+                assetCreationLock.readLock().lock();
+                assetNameLock.lock();
                 try {
-                    Asset asset = assetService.findAssetById(tenantId, assetId);
+                    Asset asset = assetByIdSupplier.get();
+                    boolean created = false;
                     if (asset == null) {
+                        created = true;
                         asset = new Asset();
                         asset.setTenantId(tenantId);
                         asset.setId(assetId);
@@ -62,15 +83,20 @@ public class AssetCloudProcessor extends BaseCloudProcessor {
                                         assetUpdateMsg.getAssetProfileIdLSB()));
                         asset.setAssetProfileId(assetProfileId);
                     }
-                    assetService.saveAsset(asset, false);
+                    Asset savedAsset = assetService.saveAsset(asset, false);
+
+                    tbClusterService.broadcastEntityStateChangeEvent(savedAsset.getTenantId(), savedAsset.getId(),
+                            created ? ComponentLifecycleEvent.CREATED : ComponentLifecycleEvent.UPDATED);
                 } finally {
-                    assetCreationLock.unlock();
+                    assetNameLock.unlock();
+                    assetCreationLock.readLock().unlock();
                 }
                 break;
             case ENTITY_DELETED_RPC_MESSAGE:
-                Asset assetById = assetService.findAssetById(tenantId, assetId);
+                Asset assetById = assetByIdSupplier.get();
                 if (assetById != null) {
                     assetService.deleteAsset(tenantId, assetId);
+                    tbClusterService.broadcastEntityStateChangeEvent(tenantId, assetId, ComponentLifecycleEvent.DELETED);
                 }
                 break;
             case UNRECOGNIZED:
@@ -52,7 +52,7 @@ public class AssetProfileCloudProcessor extends BaseCloudProcessor {
         switch (assetProfileUpdateMsg.getMsgType()) {
             case ENTITY_CREATED_RPC_MESSAGE:
             case ENTITY_UPDATED_RPC_MESSAGE:
-                assetCreationLock.lock();
+                assetCreationLock.writeLock().lock();
                 try {
                     AssetProfile assetProfileByName = assetProfileService.findAssetProfileByName(tenantId, assetProfileUpdateMsg.getName());
                     boolean removePreviousProfile = false;
@@ -98,7 +98,7 @@ public class AssetProfileCloudProcessor extends BaseCloudProcessor {
                         tbClusterService.broadcastEntityStateChangeEvent(tenantId, assetProfileByName.getId(), ComponentLifecycleEvent.DELETED);
                     }
                 } finally {
-                    assetCreationLock.unlock();
+                    assetCreationLock.writeLock().unlock();
                 }
                 break;
             case ENTITY_DELETED_RPC_MESSAGE:
@@ -17,6 +17,7 @@ package org.thingsboard.server.service.cloud.rpc.processor;
 
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Striped;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
@@ -79,14 +80,23 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Slf4j
 public abstract class BaseCloudProcessor {
 
-    protected static final Lock deviceCreationLock = new ReentrantLock();
+    // profiles are saved under the write lock, devices and assets are saved in parallel under the read lock and a per-name lock
+    protected static final ReadWriteLock deviceCreationLock = new ReentrantReadWriteLock();
 
-    protected static final Lock assetCreationLock = new ReentrantLock();
+    protected static final ReadWriteLock assetCreationLock = new ReentrantReadWriteLock();
+
+    private static final int NAME_LOCK_STRIPES = 256;
+
+    private static final Striped<Lock> deviceNameLocks = Striped.lock(NAME_LOCK_STRIPES);
+
+    private static final Striped<Lock> assetNameLocks = Striped.lock(NAME_LOCK_STRIPES);
 
     protected static final Lock widgetCreationLock = new ReentrantLock();
 
@@ -295,4 +305,12 @@ public abstract class BaseCloudProcessor {
                 return null;
         }
     }
+
+    protected Lock getDeviceNameLock(String deviceName) {
+        return deviceNameLocks.get(deviceName);
+    }
+
+    protected Lock getAssetNameLock(String assetName) {
+        return assetNameLocks.get(assetName);
+    }
 }
@@ -54,6 +54,8 @@ import org.thingsboard.server.service.security.model.SecurityUser;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 
 @Component
 @Slf4j
@@ -67,19 +69,33 @@ public class DeviceCloudProcessor extends BaseCloudProcessor {
                                                             DeviceUpdateMsg deviceUpdateMsg,
                                                             Long queueStartTs) {
         DeviceId deviceId = new DeviceId(new UUID(deviceUpdateMsg.getIdMSB(), deviceUpdateMsg.getIdLSB()));
+        return processDeviceMsgFromCloud(tenantId, edgeCustomerId, deviceUpdateMsg, queueStartTs,
+                () -> deviceService.findDeviceById(tenantId, deviceId));
+    }
+
+    /**
+     * Same as {@link #processDeviceMsgFromCloud(TenantId, CustomerId, DeviceUpdateMsg, Long)}, but the current device
+     * is resolved by the provided supplier, e.g. from the result of a batch lookup for all devices of the downlink msg.
+     */
+    public ListenableFuture<Void> processDeviceMsgFromCloud(TenantId tenantId,
+                                                            CustomerId edgeCustomerId,
+                                                            DeviceUpdateMsg deviceUpdateMsg,
+                                                            Long queueStartTs,
+                                                            Supplier<Device> deviceByIdSupplier) {
+        DeviceId deviceId = new DeviceId(new UUID(deviceUpdateMsg.getIdMSB(), deviceUpdateMsg.getIdLSB()));
         switch (deviceUpdateMsg.getMsgType()) {
             case ENTITY_CREATED_RPC_MESSAGE:
             case ENTITY_UPDATED_RPC_MESSAGE:
-                createDevice(tenantId, edgeCustomerId, deviceUpdateMsg);
+                createDevice(tenantId, edgeCustomerId, deviceUpdateMsg, deviceByIdSupplier);
                 break;
             case ENTITY_DELETED_RPC_MESSAGE:
-                Device deviceById = deviceService.findDeviceById(tenantId, deviceId);
+                Device deviceById = deviceByIdSupplier.get();
                 if (deviceById != null) {
                     deviceService.deleteDevice(tenantId, deviceId);
                 }
                 break;
             case ENTITY_MERGE_RPC_MESSAGE:
-                deviceCreationLock.lock();
+                deviceCreationLock.writeLock().lock();
                 try {
                     String deviceName = deviceUpdateMsg.getName();
                     if (deviceUpdateMsg.hasConflictName()) {
@@ -91,7 +107,7 @@ public class DeviceCloudProcessor extends BaseCloudProcessor {
                         deviceService.saveDevice(deviceByName);
                     }
                 } finally {
-                    deviceCreationLock.unlock();
+                    deviceCreationLock.writeLock().unlock();
                 }
                 break;
             case UNRECOGNIZED:
@@ -141,6 +157,7 @@ public class DeviceCloudProcessor extends BaseCloudProcessor {
                 deviceCredentials.setCredentialsValue(deviceCredentialsUpdateMsg.hasCredentialsValue()
                         ? deviceCredentialsUpdateMsg.getCredentialsValue() : null);
                 deviceCredentialsService.updateDeviceCredentials(tenantId, deviceCredentials);
+                tbClusterService.onDeviceCredentialsUpdated(tenantId, device.getId(), null);
             } catch (Exception e) {
                 String errMsg = String.format("Can't update device credentials for device [%s], deviceCredentialsUpdateMsg [%s]",
                         device.getName(), deviceCredentialsUpdateMsg);
@@ -151,12 +168,14 @@ public class DeviceCloudProcessor extends BaseCloudProcessor {
         return Futures.immediateFuture(null);
     }
 
-    private Device createDevice(TenantId tenantId, CustomerId edgeCustomerId, DeviceUpdateMsg deviceUpdateMsg) {
+    private Device createDevice(TenantId tenantId, CustomerId edgeCustomerId, DeviceUpdateMsg deviceUpdateMsg, Supplier<Device> deviceByIdSupplier) {
         Device device;
-        deviceCreationLock.lock();
+        Lock deviceNameLock = getDeviceNameLock(deviceUpdateMsg.getName());
+        deviceCreationLock.readLock().lock();
+        deviceNameLock.lock();
         try {
             DeviceId deviceId = new DeviceId(new UUID(deviceUpdateMsg.getIdMSB(), deviceUpdateMsg.getIdLSB()));
-            device = deviceService.findDeviceById(tenantId, deviceId);
+            device = deviceByIdSupplier.get();
             boolean created = false;
             String deviceName = deviceUpdateMsg.getName();
             if (device == null) {
@@ -208,7 +227,8 @@ public class DeviceCloudProcessor extends BaseCloudProcessor {
             }
             tbClusterService.onDeviceUpdated(savedDevice, created ? null : device, false, false);
         } finally {
-            deviceCreationLock.unlock();
+            deviceNameLock.unlock();
+            deviceCreationLock.readLock().unlock();
         }
         return device;
     }
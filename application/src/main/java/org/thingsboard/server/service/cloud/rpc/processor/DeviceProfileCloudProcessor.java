@@ -56,7 +56,7 @@ public class DeviceProfileCloudProcessor extends BaseCloudProcessor {
         switch (deviceProfileUpdateMsg.getMsgType()) {
             case ENTITY_CREATED_RPC_MESSAGE:
             case ENTITY_UPDATED_RPC_MESSAGE:
-                deviceCreationLock.lock();
+                deviceCreationLock.writeLock().lock();
                 try {
                     DeviceProfile deviceProfile = deviceProfileService.findDeviceProfileById(tenantId, deviceProfileId);
                     String deviceProfileName = deviceProfileUpdateMsg.getName();
@@ -111,7 +111,7 @@ public class DeviceProfileCloudProcessor extends BaseCloudProcessor {
 
                     break;
                 } finally {
-                    deviceCreationLock.unlock();
+                    deviceCreationLock.writeLock().unlock();
                 }
             case ENTITY_DELETED_RPC_MESSAGE:
                 DeviceProfile deviceProfile = deviceProfileService.findDeviceProfileById(tenantId, deviceProfileId);
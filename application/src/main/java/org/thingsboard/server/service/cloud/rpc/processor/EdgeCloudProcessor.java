@@ -18,6 +18,7 @@ package org.thingsboard.server.service.cloud.rpc.processor;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.thingsboard.common.util.JacksonUtil;
 import org.thingsboard.server.common.data.edge.Edge;
@@ -25,6 +26,7 @@ import org.thingsboard.server.common.data.id.CustomerId;
 import org.thingsboard.server.common.data.id.EdgeId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.gen.edge.v1.EdgeConfiguration;
+import org.thingsboard.server.service.security.ownership.TbEntityOwnershipCache;
 
 import java.util.UUID;
 import java.util.concurrent.locks.Lock;
@@ -36,6 +38,9 @@ public class EdgeCloudProcessor extends BaseCloudProcessor {
 
     private final Lock edgeCreationLock = new ReentrantLock();
 
+    @Autowired
+    private TbEntityOwnershipCache entityOwnershipCache;
+
     public ListenableFuture<Void> processEdgeConfigurationMsgFromCloud(TenantId tenantId, EdgeConfiguration edgeConfiguration) {
         EdgeId edgeId = new EdgeId(new UUID(edgeConfiguration.getEdgeIdMSB(), edgeConfiguration.getEdgeIdLSB()));
         try {
@@ -58,6 +63,8 @@ public class EdgeCloudProcessor extends BaseCloudProcessor {
             edge.setSecret(edgeConfiguration.getSecret());
             edge.setAdditionalInfo(JacksonUtil.toJsonNode(edgeConfiguration.getAdditionalInfo()));
             edgeService.saveEdge(edge, false);
+            // edge lifecycle events are not broadcast on edge, evict the local ownership of the edge directly
+            entityOwnershipCache.evict(edgeId);
         } finally {
             edgeCreationLock.unlock();
         }
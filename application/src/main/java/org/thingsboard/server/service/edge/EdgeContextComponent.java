@@ -40,6 +40,7 @@ import org.thingsboard.server.dao.widget.WidgetsBundleService;
 import org.thingsboard.server.queue.util.TbCoreComponent;
 import org.thingsboard.server.service.edge.rpc.EdgeEventStorageSettings;
 import org.thingsboard.server.service.edge.rpc.constructor.EdgeMsgConstructor;
+import org.thingsboard.server.service.edge.rpc.constructor.EntityVersionMsgConstructor;
 import org.thingsboard.server.service.edge.rpc.processor.AdminSettingsEdgeProcessor;
 import org.thingsboard.server.service.edge.rpc.processor.AlarmEdgeProcessor;
 import org.thingsboard.server.service.edge.rpc.processor.AssetEdgeProcessor;
@@ -182,6 +183,9 @@ public class EdgeContextComponent {
     @Autowired
     private EdgeMsgConstructor edgeMsgConstructor;
 
+    @Autowired
+    private EntityVersionMsgConstructor entityVersionMsgConstructor;
+
     @Autowired
     private EdgeEventStorageSettings edgeEventStorageSettings;
 
@@ -29,4 +29,6 @@ public class EdgeEventStorageSettings {
     private long noRecordsSleepInterval;
     @Value("${edges.storage.sleep_between_batches}")
     private long sleepIntervalBetweenBatches;
+    @Value("${edges.storage.sync_downlink_batch_size:50}")
+    private int syncDownlinkBatchSize;
 }
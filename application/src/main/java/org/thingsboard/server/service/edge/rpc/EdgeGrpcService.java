@@ -100,6 +100,9 @@ public class EdgeGrpcService extends EdgeRpcServiceGrpc.EdgeRpcServiceImplBase i
     @Value("${edges.send_scheduler_pool_size}")
     private int sendSchedulerPoolSize;
 
+    @Value("${edges.rpc.session_resume_timeout:600000}")
+    private long sessionResumeTimeoutMs;
+
     @Autowired
     private EdgeContextComponent ctx;
 
@@ -117,6 +120,8 @@ public class EdgeGrpcService extends EdgeRpcServiceGrpc.EdgeRpcServiceImplBase i
 
     private ScheduledExecutorService executorService;
 
+    private EdgeResumeTokens resumeTokens;
+
     @PostConstruct
     public void init() {
         log.info("Initializing Edge RPC service!");
@@ -145,6 +150,7 @@ public class EdgeGrpcService extends EdgeRpcServiceGrpc.EdgeRpcServiceImplBase i
         this.edgeEventProcessingExecutorService = Executors.newScheduledThreadPool(schedulerPoolSize, ThingsBoardThreadFactory.forName("edge-event-check-scheduler"));
         this.sendDownlinkExecutorService = Executors.newScheduledThreadPool(sendSchedulerPoolSize, ThingsBoardThreadFactory.forName("edge-send-scheduler"));
         this.executorService = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("edge-service"));
+        this.resumeTokens = new EdgeResumeTokens(sessionResumeTimeoutMs);
         log.info("Edge RPC service initialized!");
     }
 
@@ -174,7 +180,7 @@ public class EdgeGrpcService extends EdgeRpcServiceGrpc.EdgeRpcServiceImplBase i
 
     @Override
     public StreamObserver<RequestMsg> handleMsgs(StreamObserver<ResponseMsg> outputStream) {
-        return new EdgeGrpcSession(ctx, outputStream, this::onEdgeConnect, this::onEdgeDisconnect, sendDownlinkExecutorService).getInputStream();
+        return new EdgeGrpcSession(ctx, outputStream, this::onEdgeConnect, this::onEdgeDisconnect, sendDownlinkExecutorService, resumeTokens).getInputStream();
     }
 
     @Override
@@ -202,6 +208,8 @@ public class EdgeGrpcService extends EdgeRpcServiceGrpc.EdgeRpcServiceImplBase i
 
     @Override
     public void updateEdge(TenantId tenantId, Edge edge) {
+        // edge configuration changed - the next connect must not resume the previous session
+        resumeTokens.invalidate(edge.getId());
         executorService.execute(() -> {
             EdgeGrpcSession session = sessions.get(edge.getId());
             if (session != null && session.isConnected()) {
@@ -215,6 +223,7 @@ public class EdgeGrpcService extends EdgeRpcServiceGrpc.EdgeRpcServiceImplBase i
 
     @Override
     public void deleteEdge(TenantId tenantId, EdgeId edgeId) {
+        resumeTokens.invalidate(edgeId);
         executorService.execute(() -> {
             EdgeGrpcSession session = sessions.get(edgeId);
             if (session != null && session.isConnected()) {
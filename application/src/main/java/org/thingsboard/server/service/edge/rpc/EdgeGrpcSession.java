@@ -36,12 +36,14 @@ import org.thingsboard.server.common.data.kv.LongDataEntry;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.PageLink;
 import org.thingsboard.server.gen.edge.v1.AlarmUpdateMsg;
+import org.thingsboard.server.gen.edge.v1.AssetProfileUpdateMsg;
 import org.thingsboard.server.gen.edge.v1.AttributesRequestMsg;
 import org.thingsboard.server.gen.edge.v1.ConnectRequestMsg;
 import org.thingsboard.server.gen.edge.v1.ConnectResponseCode;
 import org.thingsboard.server.gen.edge.v1.ConnectResponseMsg;
 import org.thingsboard.server.gen.edge.v1.DeviceCredentialsRequestMsg;
 import org.thingsboard.server.gen.edge.v1.DeviceCredentialsUpdateMsg;
+import org.thingsboard.server.gen.edge.v1.DeviceProfileUpdateMsg;
 import org.thingsboard.server.gen.edge.v1.DeviceRpcCallMsg;
 import org.thingsboard.server.gen.edge.v1.DeviceUpdateMsg;
 import org.thingsboard.server.gen.edge.v1.DownlinkMsg;
@@ -50,6 +52,7 @@ import org.thingsboard.server.gen.edge.v1.EdgeConfiguration;
 import org.thingsboard.server.gen.edge.v1.EdgeUpdateMsg;
 import org.thingsboard.server.gen.edge.v1.EdgeVersion;
 import org.thingsboard.server.gen.edge.v1.EntityDataProto;
+import org.thingsboard.server.gen.edge.v1.EntityVersionProto;
 import org.thingsboard.server.gen.edge.v1.EntityViewsRequestMsg;
 import org.thingsboard.server.gen.edge.v1.RelationRequestMsg;
 import org.thingsboard.server.gen.edge.v1.RelationUpdateMsg;
@@ -58,6 +61,7 @@ import org.thingsboard.server.gen.edge.v1.RequestMsgType;
 import org.thingsboard.server.gen.edge.v1.ResponseMsg;
 import org.thingsboard.server.gen.edge.v1.RuleChainMetadataRequestMsg;
 import org.thingsboard.server.gen.edge.v1.SyncCompletedMsg;
+import org.thingsboard.server.gen.edge.v1.SyncRequestMsg;
 import org.thingsboard.server.gen.edge.v1.UplinkMsg;
 import org.thingsboard.server.gen.edge.v1.UplinkResponseMsg;
 import org.thingsboard.server.gen.edge.v1.UserCredentialsRequestMsg;
@@ -101,20 +105,24 @@ public final class EdgeGrpcSession implements Closeable {
     private StreamObserver<RequestMsg> inputStream;
     private StreamObserver<ResponseMsg> outputStream;
     private boolean connected;
-    private boolean syncCompleted;
+    private volatile boolean syncCompleted;
+    private List<EntityVersionProto> pendingEntityVersions;
+    private final EdgeResumeTokens resumeTokens;
+    private String resumeToken;
 
     private EdgeVersion edgeVersion;
 
     private ScheduledExecutorService sendDownlinkExecutorService;
 
     EdgeGrpcSession(EdgeContextComponent ctx, StreamObserver<ResponseMsg> outputStream, BiConsumer<EdgeId, EdgeGrpcSession> sessionOpenListener,
-                    Consumer<EdgeId> sessionCloseListener, ScheduledExecutorService sendDownlinkExecutorService) {
+                    Consumer<EdgeId> sessionCloseListener, ScheduledExecutorService sendDownlinkExecutorService, EdgeResumeTokens resumeTokens) {
         this.sessionId = UUID.randomUUID();
         this.ctx = ctx;
         this.outputStream = outputStream;
         this.sessionOpenListener = sessionOpenListener;
         this.sessionCloseListener = sessionCloseListener;
         this.sendDownlinkExecutorService = sendDownlinkExecutorService;
+        this.resumeTokens = resumeTokens;
         initInputStream();
     }
 
@@ -136,11 +144,25 @@ public final class EdgeGrpcSession implements Closeable {
                 if (connected) {
                     if (requestMsg.getMsgType().equals(RequestMsgType.SYNC_REQUEST_RPC_MESSAGE)) {
                         if (requestMsg.hasSyncRequestMsg() && requestMsg.getSyncRequestMsg().getSyncRequired()) {
+                            SyncRequestMsg syncRequestMsg = requestMsg.getSyncRequestMsg();
+                            if (pendingEntityVersions == null) {
+                                pendingEntityVersions = new ArrayList<>();
+                            }
+                            pendingEntityVersions.addAll(syncRequestMsg.getEntityVersionsList());
+                            if (syncRequestMsg.getHasMoreEntityVersions()) {
+                                log.trace("[{}] Received sync manifest chunk, entity versions so far [{}]", sessionId, pendingEntityVersions.size());
+                                return;
+                            }
                             boolean fullSync = true;
-                            if (requestMsg.getSyncRequestMsg().hasFullSync()) {
-                                fullSync = requestMsg.getSyncRequestMsg().getFullSync();
+                            if (syncRequestMsg.hasFullSync()) {
+                                fullSync = syncRequestMsg.getFullSync();
                             }
-                            startSyncProcess(edge.getTenantId(), edge.getId(), fullSync);
+                            EdgeSyncManifest syncManifest = null;
+                            if (!pendingEntityVersions.isEmpty()) {
+                                syncManifest = EdgeSyncManifest.fromProto(pendingEntityVersions);
+                            }
+                            pendingEntityVersions = null;
+                            startSyncProcess(edge.getTenantId(), edge.getId(), fullSync, syncManifest);
                         } else {
                             syncCompleted = true;
                         }
@@ -171,6 +193,10 @@ public final class EdgeGrpcSession implements Closeable {
             private void closeSession() {
                 connected = false;
                 if (edge != null) {
+                    if (resumeToken != null) {
+                        // only a completely synced session may be resumed
+                        resumeTokens.onDisconnect(edge.getId(), resumeToken, syncCompleted);
+                    }
                     try {
                         sessionCloseListener.accept(edge.getId());
                     } catch (Exception ignored) {
@@ -185,10 +211,14 @@ public final class EdgeGrpcSession implements Closeable {
     }
 
     public void startSyncProcess(TenantId tenantId, EdgeId edgeId, boolean fullSync) {
-        log.trace("[{}][{}] Staring edge sync process", tenantId, edgeId);
+        startSyncProcess(tenantId, edgeId, fullSync, null);
+    }
+
+    private void startSyncProcess(TenantId tenantId, EdgeId edgeId, boolean fullSync, EdgeSyncManifest syncManifest) {
+        log.trace("[{}][{}] Staring edge sync process, incremental [{}]", tenantId, edgeId, syncManifest != null);
         syncCompleted = false;
         interruptGeneralProcessingOnSync(tenantId, edgeId);
-        doSync(new EdgeSyncCursor(ctx, edge, fullSync));
+        doSync(new EdgeSyncCursor(ctx, edge, fullSync, syncManifest));
     }
 
     private void doSync(EdgeSyncCursor cursor) {
@@ -374,6 +404,9 @@ public final class EdgeGrpcSession implements Closeable {
                         result.setException(t);
                     }
                 }, ctx.getGrpcCallbackExecutorService());
+            } else if (isConnected() && pageData.hasNext()) {
+                log.trace("[{}] all event(s) of the page are already up to date on edge. Fetching next page", this.sessionId);
+                processEdgeEvents(fetcher, pageLink.nextPageLink(), result);
             } else {
                 log.trace("[{}] no event(s) found. Stop processing edge events", this.sessionId);
                 result.set(null);
@@ -476,11 +509,73 @@ public final class EdgeGrpcSession implements Closeable {
     }
 
     private List<DownlinkMsg> convertToDownlinkMsgsPack(List<EdgeEvent> edgeEvents) {
-        return edgeEvents
+        List<DownlinkMsg> downlinkMsgs = edgeEvents
                 .stream()
                 .map(this::convertToDownlinkMsg)
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+        if (!syncCompleted && ctx.getEdgeEventStorageSettings().getSyncDownlinkBatchSize() > 1) {
+            return mergeSyncDownlinkMsgs(downlinkMsgs, ctx.getEdgeEventStorageSettings().getSyncDownlinkBatchSize());
+        }
+        return downlinkMsgs;
+    }
+
+    // during sync device and asset updates are merged into bigger downlink msgs, so edge is able to apply them in bulk.
+    // pending batch is flushed before any other msg to keep the original order (e.g. devices before their credentials)
+    static List<DownlinkMsg> mergeSyncDownlinkMsgs(List<DownlinkMsg> downlinkMsgs, int batchSize) {
+        List<DownlinkMsg> result = new ArrayList<>();
+        DownlinkMsg.Builder batchBuilder = null;
+        int batchCount = 0;
+        for (DownlinkMsg downlinkMsg : downlinkMsgs) {
+            if (!isMergeableSyncDownlinkMsg(downlinkMsg)) {
+                if (batchBuilder != null) {
+                    result.add(batchBuilder.build());
+                    batchBuilder = null;
+                    batchCount = 0;
+                }
+                result.add(downlinkMsg);
+                continue;
+            }
+            if (batchBuilder == null) {
+                batchBuilder = DownlinkMsg.newBuilder().setDownlinkMsgId(EdgeUtils.nextPositiveInt());
+            }
+            batchBuilder.addAllDeviceUpdateMsg(downlinkMsg.getDeviceUpdateMsgList())
+                    .addAllAssetUpdateMsg(downlinkMsg.getAssetUpdateMsgList());
+            for (DeviceProfileUpdateMsg deviceProfileUpdateMsg : downlinkMsg.getDeviceProfileUpdateMsgList()) {
+                if (!batchBuilder.getDeviceProfileUpdateMsgList().contains(deviceProfileUpdateMsg)) {
+                    batchBuilder.addDeviceProfileUpdateMsg(deviceProfileUpdateMsg);
+                }
+            }
+            for (AssetProfileUpdateMsg assetProfileUpdateMsg : downlinkMsg.getAssetProfileUpdateMsgList()) {
+                if (!batchBuilder.getAssetProfileUpdateMsgList().contains(assetProfileUpdateMsg)) {
+                    batchBuilder.addAssetProfileUpdateMsg(assetProfileUpdateMsg);
+                }
+            }
+            batchCount++;
+            if (batchCount >= batchSize) {
+                result.add(batchBuilder.build());
+                batchBuilder = null;
+                batchCount = 0;
+            }
+        }
+        if (batchBuilder != null) {
+            result.add(batchBuilder.build());
+        }
+        return result;
+    }
+
+    private static boolean isMergeableSyncDownlinkMsg(DownlinkMsg downlinkMsg) {
+        if (downlinkMsg.getDeviceUpdateMsgCount() + downlinkMsg.getAssetUpdateMsgCount() == 0) {
+            return false;
+        }
+        DownlinkMsg otherContent = downlinkMsg.toBuilder()
+                .clearDownlinkMsgId()
+                .clearDeviceUpdateMsg()
+                .clearDeviceProfileUpdateMsg()
+                .clearAssetUpdateMsg()
+                .clearAssetProfileUpdateMsg()
+                .build();
+        return DownlinkMsg.getDefaultInstance().equals(otherContent);
     }
 
     private ListenableFuture<Long> getQueueStartTs() {
@@ -631,12 +726,21 @@ public final class EdgeGrpcSession implements Closeable {
             edge = optional.get();
             try {
                 if (edge.getSecret().equals(request.getEdgeSecret())) {
+                    boolean resumed = request.hasResumeToken() && resumeTokens.consume(edge.getId(), request.getResumeToken());
+                    this.resumeToken = resumeTokens.issue(edge.getId());
+                    if (resumed) {
+                        // edge state is consistent with the previous session - continue from the persisted queue offsets without sync
+                        log.debug("[{}][{}] Resuming edge session", edge.getTenantId(), edge.getId());
+                        syncCompleted = true;
+                    }
                     sessionOpenListener.accept(edge.getId(), this);
                     this.edgeVersion = request.getEdgeVersion();
                     return ConnectResponseMsg.newBuilder()
                             .setResponseCode(ConnectResponseCode.ACCEPTED)
                             .setErrorMsg("")
-                            .setConfiguration(ctx.getEdgeMsgConstructor().constructEdgeConfiguration(edge)).build();
+                            .setConfiguration(ctx.getEdgeMsgConstructor().constructEdgeConfiguration(edge))
+                            .setResumeToken(resumeToken)
+                            .setResumed(resumed).build();
                 }
                 return ConnectResponseMsg.newBuilder()
                         .setResponseCode(ConnectResponseCode.BAD_CREDENTIALS)
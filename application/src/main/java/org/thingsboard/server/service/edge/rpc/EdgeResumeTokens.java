@@ -0,0 +1,105 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.id.EdgeId;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Random single-use tokens that allow an edge to resume its previous session without sync.
+ * A token stays valid while its session is connected and for ttl after the disconnect of a synced session.
+ * It is invalidated once presented, when a new token is issued for the edge or when the edge is updated or deleted.
+ * The tokens are kept in the memory of the node only, so after a restart of the node, or when the edge reconnects
+ * to another node, the token is unknown and the edge does the full sync.
+ */
+@Slf4j
+class EdgeResumeTokens {
+
+    private static final int TOKEN_LENGTH = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentMap<EdgeId, ResumeToken> tokens = new ConcurrentHashMap<>();
+    private final long ttlMs;
+
+    EdgeResumeTokens(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    String issue(EdgeId edgeId) {
+        byte[] bytes = new byte[TOKEN_LENGTH];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tokens.put(edgeId, new ResumeToken(token));
+        return token;
+    }
+
+    boolean consume(EdgeId edgeId, String token) {
+        ResumeToken resumeToken = tokens.remove(edgeId);
+        if (resumeToken == null) {
+            log.info("[{}] Edge session can't be resumed: resume token is unknown to this node (e.g. the node was restarted), " +
+                    "edge will do the full sync", edgeId);
+            return false;
+        }
+        if (resumeToken.expirationTs <= System.currentTimeMillis()) {
+            log.info("[{}] Edge session can't be resumed: resume token is expired, edge will do the full sync", edgeId);
+            return false;
+        }
+        if (!MessageDigest.isEqual(resumeToken.token.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            log.info("[{}] Edge session can't be resumed: resume token doesn't match, edge will do the full sync", edgeId);
+            return false;
+        }
+        return true;
+    }
+
+    void onDisconnect(EdgeId edgeId, String token, boolean resumable) {
+        if (resumable) {
+            tokens.computeIfPresent(edgeId, (id, resumeToken) ->
+                    resumeToken.token.equals(token) ? resumeToken.expire(System.currentTimeMillis() + ttlMs) : resumeToken);
+        } else {
+            tokens.computeIfPresent(edgeId, (id, resumeToken) -> resumeToken.token.equals(token) ? null : resumeToken);
+        }
+    }
+
+    void invalidate(EdgeId edgeId) {
+        tokens.remove(edgeId);
+    }
+
+    private static class ResumeToken {
+
+        private final String token;
+        private final long expirationTs;
+
+        ResumeToken(String token) {
+            this(token, Long.MAX_VALUE);
+        }
+
+        ResumeToken(String token, long expirationTs) {
+            this.token = token;
+            this.expirationTs = expirationTs;
+        }
+
+        ResumeToken expire(long expirationTs) {
+            return new ResumeToken(token, expirationTs);
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.thingsboard.server.service.edge.rpc;
 import org.thingsboard.server.common.data.edge.Edge;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.service.edge.EdgeContextComponent;
+import org.thingsboard.server.service.edge.rpc.fetch.AbsentEntitiesEdgeEventFetcher;
 import org.thingsboard.server.service.edge.rpc.fetch.AdminSettingsEdgeEventFetcher;
 import org.thingsboard.server.service.edge.rpc.fetch.AssetProfilesEdgeEventFetcher;
 import org.thingsboard.server.service.edge.rpc.fetch.AssetsEdgeEventFetcher;
@@ -46,6 +47,10 @@ public class EdgeSyncCursor {
     int currentIdx = 0;
 
     public EdgeSyncCursor(EdgeContextComponent ctx, Edge edge, boolean fullSync) {
+        this(ctx, edge, fullSync, null);
+    }
+
+    public EdgeSyncCursor(EdgeContextComponent ctx, Edge edge, boolean fullSync, EdgeSyncManifest syncManifest) {
         if (fullSync) {
             fetchers.add(new QueuesEdgeEventFetcher(ctx.getQueueService()));
             fetchers.add(new RuleChainsEdgeEventFetcher(ctx.getRuleChainService()));
@@ -58,15 +63,18 @@ public class EdgeSyncCursor {
                 fetchers.add(new CustomerUsersEdgeEventFetcher(ctx.getUserService(), edge.getCustomerId()));
             }
         }
-        fetchers.add(new DevicesEdgeEventFetcher(ctx.getDeviceService()));
-        fetchers.add(new AssetsEdgeEventFetcher(ctx.getAssetService()));
-        fetchers.add(new EntityViewsEdgeEventFetcher(ctx.getEntityViewService()));
-        fetchers.add(new DashboardsEdgeEventFetcher(ctx.getDashboardService()));
+        fetchers.add(new DevicesEdgeEventFetcher(ctx.getDeviceService(), syncManifest, ctx.getEntityVersionMsgConstructor()));
+        fetchers.add(new AssetsEdgeEventFetcher(ctx.getAssetService(), syncManifest, ctx.getEntityVersionMsgConstructor()));
+        fetchers.add(new EntityViewsEdgeEventFetcher(ctx.getEntityViewService(), syncManifest, ctx.getEntityVersionMsgConstructor()));
+        fetchers.add(new DashboardsEdgeEventFetcher(ctx.getDashboardService(), syncManifest, ctx.getEntityVersionMsgConstructor()));
         if (fullSync) {
             fetchers.add(new SystemWidgetsBundlesEdgeEventFetcher(ctx.getWidgetsBundleService()));
             fetchers.add(new TenantWidgetsBundlesEdgeEventFetcher(ctx.getWidgetsBundleService()));
             fetchers.add(new OtaPackagesEdgeEventFetcher(ctx.getOtaPackageService()));
         }
+        if (syncManifest != null && !syncManifest.isEmpty()) {
+            fetchers.add(new AbsentEntitiesEdgeEventFetcher(syncManifest));
+        }
     }
 
     public boolean hasNext() {
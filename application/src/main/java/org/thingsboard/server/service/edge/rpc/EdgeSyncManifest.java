@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc;
+
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityIdFactory;
+import org.thingsboard.server.gen.edge.v1.EntityVersionProto;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Entities (with version hashes) that the edge already has, as reported in the sync request.
+ * Fetchers skip entities that are up to date on the edge; entities from the manifest that were not
+ * confirmed by any fetcher are absent on the cloud and must be deleted on the edge.
+ */
+public class EdgeSyncManifest {
+
+    private final Map<EntityId, Long> versionHashes;
+    private final Set<EntityId> confirmed = ConcurrentHashMap.newKeySet();
+
+    private EdgeSyncManifest(Map<EntityId, Long> versionHashes) {
+        this.versionHashes = versionHashes;
+    }
+
+    public static EdgeSyncManifest fromProto(List<EntityVersionProto> entityVersions) {
+        Map<EntityId, Long> versionHashes = new HashMap<>();
+        for (EntityVersionProto entityVersion : entityVersions) {
+            EntityId entityId = EntityIdFactory.getByTypeAndUuid(entityVersion.getEntityType(),
+                    new UUID(entityVersion.getEntityIdMSB(), entityVersion.getEntityIdLSB()));
+            versionHashes.put(entityId, entityVersion.getVersionHash());
+        }
+        return new EdgeSyncManifest(versionHashes);
+    }
+
+    public boolean isEmpty() {
+        return versionHashes.isEmpty();
+    }
+
+    public boolean contains(EntityId entityId) {
+        return versionHashes.containsKey(entityId);
+    }
+
+    public void confirm(EntityId entityId) {
+        confirmed.add(entityId);
+    }
+
+    public boolean isUpToDate(EntityId entityId, long versionHash) {
+        confirm(entityId);
+        Long edgeVersionHash = versionHashes.get(entityId);
+        return edgeVersionHash != null && edgeVersionHash == versionHash;
+    }
+
+    public List<EntityId> getAbsentEntityIds(EntityType entityType) {
+        return versionHashes.keySet().stream()
+                .filter(entityId -> entityType.equals(entityId.getEntityType()))
+                .filter(entityId -> !confirmed.contains(entityId))
+                .collect(Collectors.toList());
+    }
+}
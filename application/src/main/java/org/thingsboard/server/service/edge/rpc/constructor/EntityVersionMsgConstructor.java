@@ -0,0 +1,96 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc.constructor;
+
+import com.google.common.hash.Hashing;
+import com.google.protobuf.MessageLite;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.thingsboard.server.common.data.Dashboard;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.EntityView;
+import org.thingsboard.server.common.data.asset.Asset;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.gen.edge.v1.EntityVersionProto;
+import org.thingsboard.server.gen.edge.v1.UpdateMsgType;
+import org.thingsboard.server.queue.util.TbCoreComponent;
+
+/**
+ * Computes entity version hashes used by the incremental edge sync.
+ * Both cloud and edge hash the update message that would be sent downlink for the entity,
+ * so the hashes match whenever the synced content of the entity is the same on both sides.
+ */
+@Component
+@TbCoreComponent
+public class EntityVersionMsgConstructor {
+
+    @Autowired
+    private DeviceMsgConstructor deviceMsgConstructor;
+
+    @Autowired
+    private AssetMsgConstructor assetMsgConstructor;
+
+    @Autowired
+    private EntityViewMsgConstructor entityViewMsgConstructor;
+
+    @Autowired
+    private DashboardMsgConstructor dashboardMsgConstructor;
+
+    public EntityVersionProto constructEntityVersion(Device device) {
+        return constructEntityVersion(device.getId(), getVersionHash(device));
+    }
+
+    public EntityVersionProto constructEntityVersion(Asset asset) {
+        return constructEntityVersion(asset.getId(), getVersionHash(asset));
+    }
+
+    public EntityVersionProto constructEntityVersion(EntityView entityView) {
+        return constructEntityVersion(entityView.getId(), getVersionHash(entityView));
+    }
+
+    public EntityVersionProto constructEntityVersion(Dashboard dashboard) {
+        return constructEntityVersion(dashboard.getId(), getVersionHash(dashboard));
+    }
+
+    public long getVersionHash(Device device) {
+        return hash(deviceMsgConstructor.constructDeviceUpdatedMsg(UpdateMsgType.ENTITY_UPDATED_RPC_MESSAGE, device));
+    }
+
+    public long getVersionHash(Asset asset) {
+        return hash(assetMsgConstructor.constructAssetUpdatedMsg(UpdateMsgType.ENTITY_UPDATED_RPC_MESSAGE, asset));
+    }
+
+    public long getVersionHash(EntityView entityView) {
+        return hash(entityViewMsgConstructor.constructEntityViewUpdatedMsg(UpdateMsgType.ENTITY_UPDATED_RPC_MESSAGE, entityView));
+    }
+
+    public long getVersionHash(Dashboard dashboard) {
+        return hash(dashboardMsgConstructor.constructDashboardUpdatedMsg(UpdateMsgType.ENTITY_UPDATED_RPC_MESSAGE, dashboard));
+    }
+
+    private EntityVersionProto constructEntityVersion(EntityId entityId, long versionHash) {
+        return EntityVersionProto.newBuilder()
+                .setEntityType(entityId.getEntityType().name())
+                .setEntityIdMSB(entityId.getId().getMostSignificantBits())
+                .setEntityIdLSB(entityId.getId().getLeastSignificantBits())
+                .setVersionHash(versionHash)
+                .build();
+    }
+
+    private long hash(MessageLite msg) {
+        return Hashing.murmur3_128().hashBytes(msg.toByteArray()).asLong();
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc.fetch;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.EdgeUtils;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.edge.Edge;
+import org.thingsboard.server.common.data.edge.EdgeEvent;
+import org.thingsboard.server.common.data.edge.EdgeEventActionType;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.PageLink;
+import org.thingsboard.server.service.edge.rpc.EdgeSyncManifest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@AllArgsConstructor
+@Slf4j
+public class AbsentEntitiesEdgeEventFetcher implements EdgeEventFetcher {
+
+    private static final List<EntityType> SYNC_MANIFEST_ENTITY_TYPES = Arrays.asList(
+            EntityType.ENTITY_VIEW, EntityType.DASHBOARD, EntityType.DEVICE, EntityType.ASSET);
+
+    private final EdgeSyncManifest syncManifest;
+
+    @Override
+    public PageLink getPageLink(int pageSize) {
+        return new PageLink(pageSize);
+    }
+
+    @Override
+    public PageData<EdgeEvent> fetchEdgeEvents(TenantId tenantId, Edge edge, PageLink pageLink) {
+        List<EdgeEvent> absentEntityEvents = new ArrayList<>();
+        for (EntityType entityType : SYNC_MANIFEST_ENTITY_TYPES) {
+            for (EntityId entityId : syncManifest.getAbsentEntityIds(entityType)) {
+                absentEntityEvents.add(EdgeUtils.constructEdgeEvent(tenantId, edge.getId(),
+                        EdgeUtils.getEdgeEventTypeByEntityType(entityType), EdgeEventActionType.DELETED, entityId, null));
+            }
+        }
+        log.trace("[{}] found [{}] entities absent on cloud for edge [{}]", tenantId, absentEntityEvents.size(), edge.getId());
+        int totalElements = absentEntityEvents.size();
+        int fromIndex = Math.min(pageLink.getPage() * pageLink.getPageSize(), totalElements);
+        int toIndex = Math.min(fromIndex + pageLink.getPageSize(), totalElements);
+        int totalPages = (int) Math.ceil((double) totalElements / pageLink.getPageSize());
+        return new PageData<>(new ArrayList<>(absentEntityEvents.subList(fromIndex, toIndex)), totalPages, totalElements, toIndex < totalElements);
+    }
+}
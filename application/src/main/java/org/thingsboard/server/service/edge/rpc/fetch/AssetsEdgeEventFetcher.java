@@ -27,18 +27,27 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.PageLink;
 import org.thingsboard.server.dao.asset.AssetService;
+import org.thingsboard.server.service.edge.rpc.EdgeSyncManifest;
+import org.thingsboard.server.service.edge.rpc.constructor.EntityVersionMsgConstructor;
 
 @AllArgsConstructor
 @Slf4j
 public class AssetsEdgeEventFetcher extends BasePageableEdgeEventFetcher<Asset> {
 
     private final AssetService assetService;
+    private final EdgeSyncManifest syncManifest;
+    private final EntityVersionMsgConstructor entityVersionMsgConstructor;
 
     @Override
     PageData<Asset> fetchPageData(TenantId tenantId, Edge edge, PageLink pageLink) {
         return assetService.findAssetsByTenantIdAndEdgeId(tenantId, edge.getId(), pageLink);
     }
 
+    @Override
+    boolean isUpToDateOnEdge(TenantId tenantId, Asset asset) {
+        return syncManifest != null && syncManifest.isUpToDate(asset.getId(), entityVersionMsgConstructor.getVersionHash(asset));
+    }
+
     @Override
     EdgeEvent constructEdgeEvent(TenantId tenantId, Edge edge, Asset asset) {
         return EdgeUtils.constructEdgeEvent(tenantId, edge.getId(), EdgeEventType.ASSET,
@@ -40,12 +40,19 @@ public abstract class BasePageableEdgeEventFetcher<T> implements EdgeEventFetche
         List<EdgeEvent> result = new ArrayList<>();
         if (!pageData.getData().isEmpty()) {
             for (T entity : pageData.getData()) {
+                if (isUpToDateOnEdge(tenantId, entity)) {
+                    continue;
+                }
                 result.add(constructEdgeEvent(tenantId, edge, entity));
             }
         }
         return new PageData<>(result, pageData.getTotalPages(), pageData.getTotalElements(), pageData.hasNext());
     }
 
+    boolean isUpToDateOnEdge(TenantId tenantId, T entity) {
+        return false;
+    }
+
     abstract PageData<T> fetchPageData(TenantId tenantId, Edge edge, PageLink pageLink);
 
     abstract EdgeEvent constructEdgeEvent(TenantId tenantId, Edge edge, T entity);
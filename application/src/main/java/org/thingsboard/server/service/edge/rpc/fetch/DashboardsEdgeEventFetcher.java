@@ -17,6 +17,7 @@ package org.thingsboard.server.service.edge.rpc.fetch;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.Dashboard;
 import org.thingsboard.server.common.data.DashboardInfo;
 import org.thingsboard.server.common.data.EdgeUtils;
 import org.thingsboard.server.common.data.edge.Edge;
@@ -27,18 +28,31 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.PageLink;
 import org.thingsboard.server.dao.dashboard.DashboardService;
+import org.thingsboard.server.service.edge.rpc.EdgeSyncManifest;
+import org.thingsboard.server.service.edge.rpc.constructor.EntityVersionMsgConstructor;
 
 @AllArgsConstructor
 @Slf4j
 public class DashboardsEdgeEventFetcher extends BasePageableEdgeEventFetcher<DashboardInfo> {
 
     private final DashboardService dashboardService;
+    private final EdgeSyncManifest syncManifest;
+    private final EntityVersionMsgConstructor entityVersionMsgConstructor;
 
     @Override
     PageData<DashboardInfo> fetchPageData(TenantId tenantId, Edge edge, PageLink pageLink) {
         return dashboardService.findDashboardsByTenantIdAndEdgeId(tenantId, edge.getId(), pageLink);
     }
 
+    @Override
+    boolean isUpToDateOnEdge(TenantId tenantId, DashboardInfo dashboardInfo) {
+        if (syncManifest == null || !syncManifest.contains(dashboardInfo.getId())) {
+            return false;
+        }
+        Dashboard dashboard = dashboardService.findDashboardById(tenantId, dashboardInfo.getId());
+        return dashboard != null && syncManifest.isUpToDate(dashboard.getId(), entityVersionMsgConstructor.getVersionHash(dashboard));
+    }
+
     @Override
     EdgeEvent constructEdgeEvent(TenantId tenantId, Edge edge, DashboardInfo dashboardInfo) {
         return EdgeUtils.constructEdgeEvent(tenantId, edge.getId(), EdgeEventType.DASHBOARD,
@@ -27,18 +27,27 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.PageLink;
 import org.thingsboard.server.dao.device.DeviceService;
+import org.thingsboard.server.service.edge.rpc.EdgeSyncManifest;
+import org.thingsboard.server.service.edge.rpc.constructor.EntityVersionMsgConstructor;
 
 @AllArgsConstructor
 @Slf4j
 public class DevicesEdgeEventFetcher extends BasePageableEdgeEventFetcher<Device> {
 
     private final DeviceService deviceService;
+    private final EdgeSyncManifest syncManifest;
+    private final EntityVersionMsgConstructor entityVersionMsgConstructor;
 
     @Override
     PageData<Device> fetchPageData(TenantId tenantId, Edge edge, PageLink pageLink) {
         return deviceService.findDevicesByTenantIdAndEdgeId(tenantId, edge.getId(), pageLink);
     }
 
+    @Override
+    boolean isUpToDateOnEdge(TenantId tenantId, Device device) {
+        return syncManifest != null && syncManifest.isUpToDate(device.getId(), entityVersionMsgConstructor.getVersionHash(device));
+    }
+
     @Override
     EdgeEvent constructEdgeEvent(TenantId tenantId, Edge edge, Device device) {
         return EdgeUtils.constructEdgeEvent(tenantId, edge.getId(), EdgeEventType.DEVICE,
@@ -27,18 +27,27 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.PageLink;
 import org.thingsboard.server.dao.entityview.EntityViewService;
+import org.thingsboard.server.service.edge.rpc.EdgeSyncManifest;
+import org.thingsboard.server.service.edge.rpc.constructor.EntityVersionMsgConstructor;
 
 @AllArgsConstructor
 @Slf4j
 public class EntityViewsEdgeEventFetcher extends BasePageableEdgeEventFetcher<EntityView> {
 
     private final EntityViewService entityViewService;
+    private final EdgeSyncManifest syncManifest;
+    private final EntityVersionMsgConstructor entityVersionMsgConstructor;
 
     @Override
     PageData<EntityView> fetchPageData(TenantId tenantId, Edge edge, PageLink pageLink) {
         return entityViewService.findEntityViewsByTenantIdAndEdgeId(tenantId, edge.getId(), pageLink);
     }
 
+    @Override
+    boolean isUpToDateOnEdge(TenantId tenantId, EntityView entityView) {
+        return syncManifest != null && syncManifest.isUpToDate(entityView.getId(), entityVersionMsgConstructor.getVersionHash(entityView));
+    }
+
     @Override
     EdgeEvent constructEdgeEvent(TenantId tenantId, Edge edge, EntityView entityView) {
         return EdgeUtils.constructEdgeEvent(tenantId, edge.getId(), EdgeEventType.ENTITY_VIEW,
@@ -50,6 +50,7 @@ import org.thingsboard.server.common.msg.TbMsgDataType;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
 import org.thingsboard.server.service.action.EntityActionService;
 import org.thingsboard.server.service.gateway_device.GatewayNotificationsService;
+import org.thingsboard.server.service.security.ownership.TbEntityOwnershipCache;
 
 import java.util.List;
 
@@ -61,6 +62,7 @@ public class DefaultTbNotificationEntityService implements TbNotificationEntityS
     private final EntityActionService entityActionService;
     private final TbClusterService tbClusterService;
     private final GatewayNotificationsService gatewayNotificationsService;
+    private final TbEntityOwnershipCache entityOwnershipCache;
 
     @Override
     public <I extends EntityId> void logEntityAction(TenantId tenantId, I entityId, ActionType actionType,
@@ -135,6 +137,7 @@ public class DefaultTbNotificationEntityService implements TbNotificationEntityS
                                                                                                ActionType actionType,
                                                                                                User user, boolean sendToEdge,
                                                                                                Object... additionalInfo) {
+        entityOwnershipCache.evict(entityId);
         logEntityAction(tenantId, entityId, entity, customerId, actionType, user, additionalInfo);
 
         if (sendToEdge) {
@@ -184,6 +187,7 @@ public class DefaultTbNotificationEntityService implements TbNotificationEntityS
     public void notifyUpdateDeviceCredentials(TenantId tenantId, DeviceId deviceId, CustomerId customerId, Device device,
                                               DeviceCredentials deviceCredentials, User user, boolean notifyCloud) {
         tbClusterService.pushMsgToCore(new DeviceCredentialsUpdateNotificationMsg(tenantId, deviceCredentials.getDeviceId(), deviceCredentials), null);
+        tbClusterService.onDeviceCredentialsUpdated(tenantId, deviceCredentials.getDeviceId(), null);
         sendEntityNotificationMsg(tenantId, deviceId, EdgeEventActionType.CREDENTIALS_UPDATED, notifyCloud);
         logEntityAction(tenantId, deviceId, device, customerId, ActionType.CREDENTIALS_UPDATED, user, deviceCredentials);
     }
@@ -191,6 +195,7 @@ public class DefaultTbNotificationEntityService implements TbNotificationEntityS
     @Override
     public void notifyAssignDeviceToTenant(TenantId tenantId, TenantId newTenantId, DeviceId deviceId, CustomerId customerId,
                                            Device device, Tenant tenant, User user, Object... additionalInfo) {
+        entityOwnershipCache.evict(deviceId);
         logEntityAction(tenantId, deviceId, device, customerId, ActionType.ASSIGNED_TO_TENANT, user, additionalInfo);
         pushAssignedFromNotification(tenant, newTenantId, device);
     }
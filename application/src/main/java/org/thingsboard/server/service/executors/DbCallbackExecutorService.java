@@ -24,10 +24,19 @@ public class DbCallbackExecutorService extends AbstractListeningExecutor {
 
     @Value("${actors.rule.db_callback_thread_pool_size}")
     private int dbCallbackExecutorThreadPoolSize;
+    @Value("${actors.rule.db_callback_executor_type:work_stealing}")
+    private String executorType;
+    @Value("${spring.datasource.hikari.maximumPoolSize:16}")
+    private int dbPoolSize;
 
     @Override
     protected int getThreadPollSize() {
         return dbCallbackExecutorThreadPoolSize;
     }
 
+    @Override
+    protected int getBlockingTaskPermits() {
+        return getBlockingTaskPermits(executorType, dbPoolSize);
+    }
+
 }
@@ -340,6 +340,17 @@ public class DefaultTbClusterService implements TbClusterService {
         broadcast(transportMsg, callback);
     }
 
+    @Override
+    public void onDeviceCredentialsUpdated(TenantId tenantId, DeviceId deviceId, TbQueueCallback callback) {
+        log.trace("[{}][{}] Processing device credentials update", tenantId, deviceId);
+        TransportProtos.ToTransportUpdateCredentialsProto updateCredentialsMsg = TransportProtos.ToTransportUpdateCredentialsProto.newBuilder()
+                .setDeviceIdMSB(deviceId.getId().getMostSignificantBits())
+                .setDeviceIdLSB(deviceId.getId().getLeastSignificantBits())
+                .build();
+        ToTransportMsg transportMsg = ToTransportMsg.newBuilder().setToTransportUpdateCredentialsNotification(updateCredentialsMsg).build();
+        broadcast(transportMsg, callback);
+    }
+
     public <T> void broadcastEntityChangeToTransport(TenantId tenantId, EntityId entityid, T entity, TbQueueCallback callback) {
         String entityName = (entity instanceof HasName) ? ((HasName) entity).getName() : entity.getClass().getName();
         log.trace("[{}][{}][{}] Processing [{}] change event", tenantId, entityid.getEntityType(), entityid.getId(), entityName);
@@ -31,6 +31,7 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.rpc.RpcError;
 import org.thingsboard.server.common.msg.MsgType;
 import org.thingsboard.server.common.msg.TbActorMsg;
+import org.thingsboard.server.common.msg.plugin.ComponentLifecycleMsg;
 import org.thingsboard.server.common.msg.queue.ServiceType;
 import org.thingsboard.server.common.msg.queue.TbCallback;
 import org.thingsboard.server.common.msg.rpc.FromDeviceRpcResponse;
@@ -49,6 +50,7 @@ import org.thingsboard.server.gen.transport.TransportProtos.TbAlarmUpdateProto;
 import org.thingsboard.server.gen.transport.TransportProtos.TbAttributeDeleteProto;
 import org.thingsboard.server.gen.transport.TransportProtos.TbAttributeUpdateProto;
 import org.thingsboard.server.gen.transport.TransportProtos.TbSubscriptionCloseProto;
+import org.thingsboard.server.gen.transport.TransportProtos.TbSubscriptionUpdateProto;
 import org.thingsboard.server.gen.transport.TransportProtos.TbTimeSeriesDeleteProto;
 import org.thingsboard.server.gen.transport.TransportProtos.TbTimeSeriesUpdateProto;
 import org.thingsboard.server.gen.transport.TransportProtos.ToCoreMsg;
@@ -73,6 +75,7 @@ import org.thingsboard.server.service.queue.processing.AbstractConsumerService;
 import org.thingsboard.server.service.queue.processing.IdMsgPair;
 import org.thingsboard.server.service.rpc.TbCoreDeviceRpcService;
 import org.thingsboard.server.service.rpc.ToDeviceRpcRequestActorMsg;
+import org.thingsboard.server.service.security.ownership.TbEntityOwnershipCache;
 import org.thingsboard.server.service.state.DeviceStateService;
 import org.thingsboard.server.service.subscription.SubscriptionManagerService;
 import org.thingsboard.server.service.subscription.TbLocalSubscriptionService;
@@ -122,6 +125,7 @@ public class DefaultTbCoreConsumerService extends AbstractConsumerService<ToCore
     private final CloudNotificationService cloudNotificationService;
     private final OtaPackageStateService firmwareStateService;
     private final GitVersionControlQueueService vcQueueService;
+    private final TbEntityOwnershipCache entityOwnershipCache;
     private final TbCoreConsumerStats stats;
     protected final TbQueueConsumer<TbProtoQueueMsg<ToUsageStatsServiceMsg>> usageStatsConsumer;
     private final TbQueueConsumer<TbProtoQueueMsg<ToOtaPackageStateServiceMsg>> firmwareStatesConsumer;
@@ -147,6 +151,7 @@ public class DefaultTbCoreConsumerService extends AbstractConsumerService<ToCore
                                         OtaPackageStateService firmwareStateService,
                                         GitVersionControlQueueService vcQueueService,
                                         CloudNotificationService cloudNotificationService,
+                                        TbEntityOwnershipCache entityOwnershipCache,
                                         PartitionService partitionService,
                                         Optional<JwtSettingsService> jwtSettingsService) {
         super(actorContext, encodingService, tenantProfileCache, deviceProfileCache, assetProfileCache, apiUsageStateService, partitionService, tbCoreQueueFactory.createToCoreNotificationsMsgConsumer(), jwtSettingsService);
@@ -163,6 +168,7 @@ public class DefaultTbCoreConsumerService extends AbstractConsumerService<ToCore
         this.statsService = statsService;
         this.firmwareStateService = firmwareStateService;
         this.vcQueueService = vcQueueService;
+        this.entityOwnershipCache = entityOwnershipCache;
     }
 
     @PostConstruct
@@ -313,6 +319,19 @@ public class DefaultTbCoreConsumerService extends AbstractConsumerService<ToCore
         return packProcessingTimeout;
     }
 
+    @Override
+    protected void onComponentLifecycleMsg(ComponentLifecycleMsg componentLifecycleMsg) {
+        switch (componentLifecycleMsg.getEntityId().getEntityType()) {
+            case DEVICE:
+            case ASSET:
+            case ENTITY_VIEW:
+            case EDGE:
+            case CUSTOMER:
+                entityOwnershipCache.evict(componentLifecycleMsg.getEntityId());
+                break;
+        }
+    }
+
     @Override
     protected void handleNotification(UUID id, TbProtoQueueMsg<ToCoreNotificationMsg> msg, TbCallback callback) {
         ToCoreNotificationMsg toCoreNotification = msg.getValue();
@@ -460,11 +479,16 @@ public class DefaultTbCoreConsumerService extends AbstractConsumerService<ToCore
         }
     }
 
-    private void forwardToLocalSubMgrService(LocalSubscriptionServiceMsgProto msg, TbCallback callback) {
+    void forwardToLocalSubMgrService(LocalSubscriptionServiceMsgProto msg, TbCallback callback) {
         if (msg.hasSubUpdate()) {
             localSubscriptionService.onSubscriptionUpdate(msg.getSubUpdate().getSessionId(), TbSubscriptionUtils.fromProto(msg.getSubUpdate()), callback);
         } else if (msg.hasAlarmSubUpdate()) {
             localSubscriptionService.onSubscriptionUpdate(msg.getAlarmSubUpdate().getSessionId(), TbSubscriptionUtils.fromProto(msg.getAlarmSubUpdate()), callback);
+        } else if (msg.getSubUpdatesCount() > 0) {
+            for (TbSubscriptionUpdateProto subUpdate : msg.getSubUpdatesList()) {
+                localSubscriptionService.onSubscriptionUpdate(subUpdate.getSessionId(), TbSubscriptionUtils.fromProto(subUpdate), TbCallback.EMPTY);
+            }
+            callback.onSuccess();
         } else {
             throwNotHandled(msg, callback);
         }
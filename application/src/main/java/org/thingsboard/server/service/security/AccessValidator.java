@@ -26,28 +26,18 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.async.DeferredResult;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.common.data.ApiUsageState;
-import org.thingsboard.server.common.data.Customer;
-import org.thingsboard.server.common.data.Device;
 import org.thingsboard.server.common.data.DeviceProfile;
-import org.thingsboard.server.common.data.EntityView;
 import org.thingsboard.server.common.data.OtaPackageInfo;
 import org.thingsboard.server.common.data.TbResourceInfo;
 import org.thingsboard.server.common.data.Tenant;
 import org.thingsboard.server.common.data.User;
-import org.thingsboard.server.common.data.asset.Asset;
 import org.thingsboard.server.common.data.asset.AssetProfile;
-import org.thingsboard.server.common.data.edge.Edge;
 import org.thingsboard.server.common.data.exception.ThingsboardException;
 import org.thingsboard.server.common.data.id.ApiUsageStateId;
-import org.thingsboard.server.common.data.id.AssetId;
 import org.thingsboard.server.common.data.id.AssetProfileId;
-import org.thingsboard.server.common.data.id.CustomerId;
-import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.DeviceProfileId;
-import org.thingsboard.server.common.data.id.EdgeId;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.EntityIdFactory;
-import org.thingsboard.server.common.data.id.EntityViewId;
 import org.thingsboard.server.common.data.id.OtaPackageId;
 import org.thingsboard.server.common.data.id.RpcId;
 import org.thingsboard.server.common.data.id.RuleChainId;
@@ -76,6 +66,8 @@ import org.thingsboard.server.dao.tenant.TenantService;
 import org.thingsboard.server.dao.usagerecord.ApiUsageStateService;
 import org.thingsboard.server.dao.user.UserService;
 import org.thingsboard.server.service.security.model.SecurityUser;
+import org.thingsboard.server.service.security.ownership.EntityOwnership;
+import org.thingsboard.server.service.security.ownership.TbEntityOwnershipCache;
 import org.thingsboard.server.service.security.permission.AccessControlService;
 import org.thingsboard.server.service.security.permission.Operation;
 import org.thingsboard.server.service.security.permission.Resource;
@@ -149,6 +141,9 @@ public class AccessValidator {
     @Autowired
     protected RpcService rpcService;
 
+    @Autowired
+    protected TbEntityOwnershipCache entityOwnershipCache;
+
     private ExecutorService executor;
 
     @PostConstruct
@@ -263,9 +258,9 @@ public class AccessValidator {
         if (currentUser.isSystemAdmin()) {
             callback.onSuccess(ValidationResult.accessDenied(SYSTEM_ADMINISTRATOR_IS_NOT_ALLOWED_TO_PERFORM_THIS_OPERATION));
         } else {
-            ListenableFuture<Device> deviceFuture = deviceService.findDeviceByIdAsync(currentUser.getTenantId(), new DeviceId(entityId.getId()));
+            ListenableFuture<EntityOwnership> deviceFuture = entityOwnershipCache.get(entityId);
             Futures.addCallback(deviceFuture, getCallback(callback, device -> {
-                if (device == null) {
+                if (device == null || !currentUser.getTenantId().equals(device.getTenantId())) {
                     return ValidationResult.entityNotFound(DEVICE_WITH_REQUESTED_ID_NOT_FOUND);
                 } else {
                     try {
@@ -390,9 +385,9 @@ public class AccessValidator {
         if (currentUser.isSystemAdmin()) {
             callback.onSuccess(ValidationResult.accessDenied(SYSTEM_ADMINISTRATOR_IS_NOT_ALLOWED_TO_PERFORM_THIS_OPERATION));
         } else {
-            ListenableFuture<Asset> assetFuture = assetService.findAssetByIdAsync(currentUser.getTenantId(), new AssetId(entityId.getId()));
+            ListenableFuture<EntityOwnership> assetFuture = entityOwnershipCache.get(entityId);
             Futures.addCallback(assetFuture, getCallback(callback, asset -> {
-                if (asset == null) {
+                if (asset == null || !currentUser.getTenantId().equals(asset.getTenantId())) {
                     return ValidationResult.entityNotFound("Asset with requested id wasn't found!");
                 } else {
                     try {
@@ -455,9 +450,9 @@ public class AccessValidator {
         if (currentUser.isSystemAdmin()) {
             callback.onSuccess(ValidationResult.accessDenied(SYSTEM_ADMINISTRATOR_IS_NOT_ALLOWED_TO_PERFORM_THIS_OPERATION));
         } else {
-            ListenableFuture<Customer> customerFuture = customerService.findCustomerByIdAsync(currentUser.getTenantId(), new CustomerId(entityId.getId()));
+            ListenableFuture<EntityOwnership> customerFuture = entityOwnershipCache.get(entityId);
             Futures.addCallback(customerFuture, getCallback(callback, customer -> {
-                if (customer == null) {
+                if (customer == null || !currentUser.getTenantId().equals(customer.getTenantId())) {
                     return ValidationResult.entityNotFound("Customer with requested id wasn't found!");
                 } else {
                     try {
@@ -521,9 +516,9 @@ public class AccessValidator {
         if (currentUser.isSystemAdmin()) {
             callback.onSuccess(ValidationResult.accessDenied(SYSTEM_ADMINISTRATOR_IS_NOT_ALLOWED_TO_PERFORM_THIS_OPERATION));
         } else {
-            ListenableFuture<EntityView> entityViewFuture = entityViewService.findEntityViewByIdAsync(currentUser.getTenantId(), new EntityViewId(entityId.getId()));
+            ListenableFuture<EntityOwnership> entityViewFuture = entityOwnershipCache.get(entityId);
             Futures.addCallback(entityViewFuture, getCallback(callback, entityView -> {
-                if (entityView == null) {
+                if (entityView == null || !currentUser.getTenantId().equals(entityView.getTenantId())) {
                     return ValidationResult.entityNotFound(ENTITY_VIEW_WITH_REQUESTED_ID_NOT_FOUND);
                 } else {
                     try {
@@ -541,9 +536,9 @@ public class AccessValidator {
         if (currentUser.isSystemAdmin()) {
             callback.onSuccess(ValidationResult.accessDenied(SYSTEM_ADMINISTRATOR_IS_NOT_ALLOWED_TO_PERFORM_THIS_OPERATION));
         } else {
-            ListenableFuture<Edge> edgeFuture = edgeService.findEdgeByIdAsync(currentUser.getTenantId(), new EdgeId(entityId.getId()));
+            ListenableFuture<EntityOwnership> edgeFuture = entityOwnershipCache.get(entityId);
             Futures.addCallback(edgeFuture, getCallback(callback, edge -> {
-                if (edge == null) {
+                if (edge == null || !currentUser.getTenantId().equals(edge.getTenantId())) {
                     return ValidationResult.entityNotFound(EDGE_WITH_REQUESTED_ID_NOT_FOUND);
                 } else {
                     try {
@@ -0,0 +1,141 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.security.ownership;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thingsboard.server.common.data.id.AssetId;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EdgeId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityViewId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.dao.asset.AssetService;
+import org.thingsboard.server.dao.customer.CustomerService;
+import org.thingsboard.server.dao.device.DeviceService;
+import org.thingsboard.server.dao.edge.EdgeService;
+import org.thingsboard.server.dao.entityview.EntityViewService;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class DefaultTbEntityOwnershipCache implements TbEntityOwnershipCache {
+
+    @Value("${security.ownership_cache.max_size:100000}")
+    private long maxSize;
+    @Value("${security.ownership_cache.ttl:5}")
+    private long ttlInSec;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private AssetService assetService;
+
+    @Autowired
+    private EntityViewService entityViewService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired(required = false)
+    private EdgeService edgeService;
+
+    private AsyncLoadingCache<EntityId, EntityOwnership> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlInSec, TimeUnit.SECONDS)
+                .buildAsync((entityId, executor) -> toCompletableFuture(load(entityId)));
+    }
+
+    @Override
+    public ListenableFuture<EntityOwnership> get(EntityId entityId) {
+        SettableFuture<EntityOwnership> result = SettableFuture.create();
+        cache.get(entityId).whenComplete((ownership, t) -> {
+            if (t != null) {
+                result.setException(t);
+            } else {
+                result.set(ownership);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void evict(EntityId entityId) {
+        log.trace("[{}] Evict entity ownership", entityId);
+        cache.synchronous().invalidate(entityId);
+    }
+
+    private ListenableFuture<EntityOwnership> load(EntityId entityId) {
+        log.trace("[{}] Fetch entity ownership", entityId);
+        switch (entityId.getEntityType()) {
+            case DEVICE:
+                return Futures.transform(deviceService.findDeviceByIdAsync(TenantId.SYS_TENANT_ID, new DeviceId(entityId.getId())),
+                        device -> device != null ? new EntityOwnership(device.getTenantId(), device.getCustomerId()) : null, MoreExecutors.directExecutor());
+            case ASSET:
+                return Futures.transform(assetService.findAssetByIdAsync(TenantId.SYS_TENANT_ID, new AssetId(entityId.getId())),
+                        asset -> asset != null ? new EntityOwnership(asset.getTenantId(), asset.getCustomerId()) : null, MoreExecutors.directExecutor());
+            case ENTITY_VIEW:
+                return Futures.transform(entityViewService.findEntityViewByIdAsync(TenantId.SYS_TENANT_ID, new EntityViewId(entityId.getId())),
+                        entityView -> entityView != null ? new EntityOwnership(entityView.getTenantId(), entityView.getCustomerId()) : null, MoreExecutors.directExecutor());
+            case EDGE:
+                if (edgeService == null) {
+                    return Futures.immediateFuture(null);
+                }
+                return Futures.transform(edgeService.findEdgeByIdAsync(TenantId.SYS_TENANT_ID, new EdgeId(entityId.getId())),
+                        edge -> edge != null ? new EntityOwnership(edge.getTenantId(), edge.getCustomerId()) : null, MoreExecutors.directExecutor());
+            case CUSTOMER:
+                return Futures.transform(customerService.findCustomerByIdAsync(TenantId.SYS_TENANT_ID, new CustomerId(entityId.getId())),
+                        customer -> customer != null ? new EntityOwnership(customer.getTenantId(), customer.getId()) : null, MoreExecutors.directExecutor());
+            default:
+                return Futures.immediateFailedFuture(new IllegalArgumentException("Unsupported entity type: " + entityId.getEntityType()));
+        }
+    }
+
+    private static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Futures.addCallback(future, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+
+}
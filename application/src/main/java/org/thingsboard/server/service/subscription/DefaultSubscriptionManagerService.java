@@ -17,6 +17,7 @@ package org.thingsboard.server.service.subscription;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.thingsboard.common.util.DonAsynchron;
 import org.thingsboard.common.util.JacksonUtil;
@@ -65,10 +66,11 @@ import org.thingsboard.server.service.telemetry.sub.TelemetrySubscriptionUpdate;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
@@ -110,7 +112,10 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
     @Autowired
     private TbClusterService clusterService;
 
-    private final Map<EntityId, Set<TbSubscription>> subscriptionsByEntityId = new ConcurrentHashMap<>();
+    @Value("${server.ws.merge_remote_sub_updates:false}")
+    private boolean mergeRemoteSubUpdates;
+
+    private final Map<EntityId, TbEntitySubscriptions> subscriptionsByEntityId = new ConcurrentHashMap<>();
     private final Map<String, Map<Integer, TbSubscription>> subscriptionsByWsSessionId = new ConcurrentHashMap<>();
     private final ConcurrentMap<TopicPartitionInfo, Set<TbSubscription>> partitionedSubscriptions = new ConcurrentHashMap<>();
     private final Set<TopicPartitionInfo> currentPartitions = ConcurrentHashMap.newKeySet();
@@ -147,7 +152,7 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
             callback.onFailure(new RuntimeException("Entity belongs to external partition " + tpi.getFullTopicName() + "!"));
         }
         boolean newSubscription = subscriptionsByEntityId
-                .computeIfAbsent(subscription.getEntityId(), k -> ConcurrentHashMap.newKeySet()).add(subscription);
+                .computeIfAbsent(subscription.getEntityId(), k -> new TbEntitySubscriptions()).add(subscription);
         subscriptionsByWsSessionId.computeIfAbsent(subscription.getSessionId(), k -> new ConcurrentHashMap<>()).put(subscription.getSubscriptionId(), subscription);
         if (newSubscription) {
             switch (subscription.getType()) {
@@ -210,25 +215,7 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
 
     @Override
     public void onTimeSeriesUpdate(TenantId tenantId, EntityId entityId, List<TsKvEntry> ts, TbCallback callback) {
-        onLocalTelemetrySubUpdate(entityId,
-                s -> {
-                    if (TbSubscriptionType.TIMESERIES.equals(s.getType())) {
-                        return (TbTimeseriesSubscription) s;
-                    } else {
-                        return null;
-                    }
-                }, s -> true, s -> {
-                    List<TsKvEntry> subscriptionUpdate = null;
-                    for (TsKvEntry kv : ts) {
-                        if ((s.isAllKeys() || s.getKeyStates().containsKey((kv.getKey())))) {
-                            if (subscriptionUpdate == null) {
-                                subscriptionUpdate = new ArrayList<>();
-                            }
-                            subscriptionUpdate.add(kv);
-                        }
-                    }
-                    return subscriptionUpdate;
-                }, true);
+        onLocalTelemetrySubUpdate(entityId, subs -> subs.getTimeseriesUpdates(ts), true);
         if (entityId.getEntityType() == EntityType.DEVICE) {
             updateDeviceInactivityTimeout(tenantId, entityId, ts);
         }
@@ -243,25 +230,12 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
     @Override
     public void onAttributesUpdate(TenantId tenantId, EntityId entityId, String scope, List<AttributeKvEntry> attributes, boolean notifyDevice, TbCallback callback) {
         onLocalTelemetrySubUpdate(entityId,
-                s -> {
-                    if (TbSubscriptionType.ATTRIBUTES.equals(s.getType())) {
-                        return (TbAttributeSubscription) s;
-                    } else {
-                        return null;
-                    }
-                },
-                s -> (TbAttributeSubscriptionScope.ANY_SCOPE.equals(s.getScope()) || scope.equals(s.getScope().name())),
-                s -> {
-                    List<TsKvEntry> subscriptionUpdate = null;
+                subs -> {
+                    List<TsKvEntry> entries = new ArrayList<>(attributes.size());
                     for (AttributeKvEntry kv : attributes) {
-                        if (s.isAllKeys() || s.getKeyStates().containsKey(kv.getKey())) {
-                            if (subscriptionUpdate == null) {
-                                subscriptionUpdate = new ArrayList<>();
-                            }
-                            subscriptionUpdate.add(new BasicTsKvEntry(kv.getLastUpdateTs(), kv));
-                        }
+                        entries.add(new BasicTsKvEntry(kv.getLastUpdateTs(), kv));
                     }
-                    return subscriptionUpdate;
+                    return subs.getAttributesUpdates(entries, s -> isScopeMatches(s, scope));
                 }, true);
         if (entityId.getEntityType() == EntityType.DEVICE) {
             if (TbAttributeSubscriptionScope.SERVER_SCOPE.name().equalsIgnoreCase(scope)) {
@@ -294,13 +268,6 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
     @Override
     public void onAlarmUpdate(TenantId tenantId, EntityId entityId, Alarm alarm, TbCallback callback) {
         onLocalAlarmSubUpdate(entityId,
-                s -> {
-                    if (TbSubscriptionType.ALARMS.equals(s.getType())) {
-                        return (TbAlarmsSubscription) s;
-                    } else {
-                        return null;
-                    }
-                },
                 s -> alarm.getCreatedTime() >= s.getTs(),
                 s -> alarm,
                 false
@@ -311,13 +278,6 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
     @Override
     public void onAlarmDeleted(TenantId tenantId, EntityId entityId, Alarm alarm, TbCallback callback) {
         onLocalAlarmSubUpdate(entityId,
-                s -> {
-                    if (TbSubscriptionType.ALARMS.equals(s.getType())) {
-                        return (TbAlarmsSubscription) s;
-                    } else {
-                        return null;
-                    }
-                },
                 s -> alarm.getCreatedTime() >= s.getTs(),
                 s -> alarm,
                 true
@@ -328,26 +288,7 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
     @Override
     public void onAttributesDelete(TenantId tenantId, EntityId entityId, String scope, List<String> keys, boolean notifyDevice, TbCallback callback) {
         onLocalTelemetrySubUpdate(entityId,
-                s -> {
-                    if (TbSubscriptionType.ATTRIBUTES.equals(s.getType())) {
-                        return (TbAttributeSubscription) s;
-                    } else {
-                        return null;
-                    }
-                },
-                s -> (TbAttributeSubscriptionScope.ANY_SCOPE.equals(s.getScope()) || scope.equals(s.getScope().name())),
-                s -> {
-                    List<TsKvEntry> subscriptionUpdate = null;
-                    for (String key : keys) {
-                        if (s.isAllKeys() || s.getKeyStates().containsKey(key)) {
-                            if (subscriptionUpdate == null) {
-                                subscriptionUpdate = new ArrayList<>();
-                            }
-                            subscriptionUpdate.add(new BasicTsKvEntry(0, new StringDataEntry(key, "")));
-                        }
-                    }
-                    return subscriptionUpdate;
-                }, false);
+                subs -> subs.getAttributesUpdates(toDeletedEntries(keys), s -> isScopeMatches(s, scope)), false);
         if (entityId.getEntityType() == EntityType.DEVICE) {
             if (TbAttributeSubscriptionScope.SERVER_SCOPE.name().equalsIgnoreCase(scope)
                     || TbAttributeSubscriptionScope.ANY_SCOPE.name().equalsIgnoreCase(scope)) {
@@ -362,62 +303,58 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
 
     @Override
     public void onTimeSeriesDelete(TenantId tenantId, EntityId entityId, List<String> keys, TbCallback callback) {
-        onLocalTelemetrySubUpdate(entityId,
-                s -> {
-                    if (TbSubscriptionType.TIMESERIES.equals(s.getType())) {
-                        return (TbTimeseriesSubscription) s;
-                    } else {
-                        return null;
-                    }
-                }, s -> true, s -> {
-                    List<TsKvEntry> subscriptionUpdate = null;
-                    for (String key : keys) {
-                        if (s.isAllKeys() || s.getKeyStates().containsKey(key)) {
-                            if (subscriptionUpdate == null) {
-                                subscriptionUpdate = new ArrayList<>();
-                            }
-                            subscriptionUpdate.add(new BasicTsKvEntry(0, new StringDataEntry(key, "")));
-                        }
-                    }
-                    return subscriptionUpdate;
-                }, false);
+        onLocalTelemetrySubUpdate(entityId, subs -> subs.getTimeseriesUpdates(toDeletedEntries(keys)), false);
         if (entityId.getEntityType() == EntityType.DEVICE) {
             deleteDeviceInactivityTimeout(tenantId, entityId, keys);
         }
         callback.onSuccess();
     }
 
-    private <T extends TbSubscription> void onLocalTelemetrySubUpdate(EntityId entityId,
-                                                                      Function<TbSubscription, T> castFunction,
-                                                                      Predicate<T> filterFunction,
-                                                                      Function<T, List<TsKvEntry>> processFunction,
-                                                                      boolean ignoreEmptyUpdates) {
-        Set<TbSubscription> entitySubscriptions = subscriptionsByEntityId.get(entityId);
+    private void onLocalTelemetrySubUpdate(EntityId entityId,
+                                           Function<TbEntitySubscriptions, Map<? extends TbSubscription, List<TsKvEntry>>> updatesFunction,
+                                           boolean ignoreEmptyUpdates) {
+        TbEntitySubscriptions entitySubscriptions = subscriptionsByEntityId.get(entityId);
         if (entitySubscriptions != null) {
-            entitySubscriptions.stream().map(castFunction).filter(Objects::nonNull).filter(filterFunction).forEach(s -> {
-                List<TsKvEntry> subscriptionUpdate = processFunction.apply(s);
-                if (subscriptionUpdate != null && !subscriptionUpdate.isEmpty()) {
-                    if (serviceId.equals(s.getServiceId())) {
-                        TelemetrySubscriptionUpdate update = new TelemetrySubscriptionUpdate(s.getSubscriptionId(), subscriptionUpdate);
-                        localSubscriptionService.onSubscriptionUpdate(s.getSessionId(), update, TbCallback.EMPTY);
-                    } else {
-                        TopicPartitionInfo tpi = notificationsTopicService.getNotificationsTopic(ServiceType.TB_CORE, s.getServiceId());
-                        toCoreNotificationsProducer.send(tpi, toProto(s, subscriptionUpdate, ignoreEmptyUpdates), null);
+            Map<String, List<TbSubscriptionUpdateProto>> remoteUpdates = null;
+            for (Map.Entry<? extends TbSubscription, List<TsKvEntry>> entry : updatesFunction.apply(entitySubscriptions).entrySet()) {
+                TbSubscription s = entry.getKey();
+                List<TsKvEntry> subscriptionUpdate = entry.getValue();
+                if (serviceId.equals(s.getServiceId())) {
+                    TelemetrySubscriptionUpdate update = new TelemetrySubscriptionUpdate(s.getSubscriptionId(), subscriptionUpdate);
+                    localSubscriptionService.onSubscriptionUpdate(s.getSessionId(), update, TbCallback.EMPTY);
+                } else {
+                    if (remoteUpdates == null) {
+                        remoteUpdates = new HashMap<>();
                     }
+                    remoteUpdates.computeIfAbsent(s.getServiceId(), id -> new ArrayList<>())
+                            .add(toSubscriptionUpdateProto(s, subscriptionUpdate, ignoreEmptyUpdates));
                 }
-            });
+            }
+            if (remoteUpdates != null) {
+                remoteUpdates.forEach((remoteServiceId, updates) -> {
+                    TopicPartitionInfo tpi = notificationsTopicService.getNotificationsTopic(ServiceType.TB_CORE, remoteServiceId);
+                    if (mergeRemoteSubUpdates) {
+                        // one notification per remote service, no matter how many of its subscriptions are affected
+                        toCoreNotificationsProducer.send(tpi, toProto(entityId, updates), null);
+                    } else {
+                        // nodes without support of the merged format reject it, so keep one notification per subscription
+                        for (TbSubscriptionUpdateProto update : updates) {
+                            toCoreNotificationsProducer.send(tpi, toProto(entityId, Collections.singletonList(update)), null);
+                        }
+                    }
+                });
+            }
         } else {
             log.debug("[{}] No device subscriptions to process!", entityId);
         }
     }
 
     private void onLocalAlarmSubUpdate(EntityId entityId,
-                                       Function<TbSubscription, TbAlarmsSubscription> castFunction,
                                        Predicate<TbAlarmsSubscription> filterFunction,
                                        Function<TbAlarmsSubscription, Alarm> processFunction, boolean deleted) {
-        Set<TbSubscription> entitySubscriptions = subscriptionsByEntityId.get(entityId);
+        TbEntitySubscriptions entitySubscriptions = subscriptionsByEntityId.get(entityId);
         if (entitySubscriptions != null) {
-            entitySubscriptions.stream().map(castFunction).filter(Objects::nonNull).filter(filterFunction).forEach(s -> {
+            entitySubscriptions.getAlarmsSubscriptions().stream().filter(filterFunction).forEach(s -> {
                 Alarm alarm = processFunction.apply(s);
                 if (alarm != null) {
                     if (serviceId.equals(s.getServiceId())) {
@@ -434,14 +371,23 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
         }
     }
 
-    private void removeSubscriptionFromEntityMap(TbSubscription sub) {
-        Set<TbSubscription> entitySubSet = subscriptionsByEntityId.get(sub.getEntityId());
-        if (entitySubSet != null) {
-            entitySubSet.remove(sub);
-            if (entitySubSet.isEmpty()) {
-                subscriptionsByEntityId.remove(sub.getEntityId());
-            }
+    private static boolean isScopeMatches(TbAttributeSubscription subscription, String scope) {
+        return TbAttributeSubscriptionScope.ANY_SCOPE.equals(subscription.getScope()) || scope.equals(subscription.getScope().name());
+    }
+
+    private static List<TsKvEntry> toDeletedEntries(List<String> keys) {
+        List<TsKvEntry> entries = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            entries.add(new BasicTsKvEntry(0, new StringDataEntry(key, "")));
         }
+        return entries;
+    }
+
+    private void removeSubscriptionFromEntityMap(TbSubscription sub) {
+        subscriptionsByEntityId.computeIfPresent(sub.getEntityId(), (entityId, entitySubscriptions) -> {
+            entitySubscriptions.remove(sub);
+            return entitySubscriptions.isEmpty() ? null : entitySubscriptions;
+        });
     }
 
     private void removeSubscriptionFromPartitionMap(TbSubscription sub) {
@@ -522,6 +468,21 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
     }
 
     private TbProtoQueueMsg<ToCoreNotificationMsg> toProto(TbSubscription subscription, List<TsKvEntry> updates, boolean ignoreEmptyUpdates) {
+        return toProto(subscription.getEntityId(), Collections.singletonList(toSubscriptionUpdateProto(subscription, updates, ignoreEmptyUpdates)));
+    }
+
+    private TbProtoQueueMsg<ToCoreNotificationMsg> toProto(EntityId entityId, List<TbSubscriptionUpdateProto> updates) {
+        LocalSubscriptionServiceMsgProto.Builder builder = LocalSubscriptionServiceMsgProto.newBuilder();
+        if (updates.size() == 1) {
+            builder.setSubUpdate(updates.get(0));
+        } else {
+            builder.addAllSubUpdates(updates);
+        }
+        ToCoreNotificationMsg toCoreMsg = ToCoreNotificationMsg.newBuilder().setToLocalSubscriptionServiceMsg(builder.build()).build();
+        return new TbProtoQueueMsg<>(entityId.getId(), toCoreMsg);
+    }
+
+    private TbSubscriptionUpdateProto toSubscriptionUpdateProto(TbSubscription subscription, List<TsKvEntry> updates, boolean ignoreEmptyUpdates) {
         TbSubscriptionUpdateProto.Builder builder = TbSubscriptionUpdateProto.newBuilder();
 
         builder.setSessionId(subscription.getSessionId());
@@ -555,11 +516,7 @@ public class DefaultSubscriptionManagerService extends TbApplicationEventListene
                 builder.addData(dataBuilder.build());
             }
         });
-
-        ToCoreNotificationMsg toCoreMsg = ToCoreNotificationMsg.newBuilder().setToLocalSubscriptionServiceMsg(
-                        LocalSubscriptionServiceMsgProto.newBuilder().setSubUpdate(builder.build()).build())
-                .build();
-        return new TbProtoQueueMsg<>(subscription.getEntityId().getId(), toCoreMsg);
+        return builder.build();
     }
 
     private TbProtoQueueMsg<ToCoreNotificationMsg> toProto(TbSubscription subscription, Alarm alarm, boolean deleted) {
@@ -0,0 +1,156 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.subscription;
+
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Subscriptions of a single entity, indexed by subscription type and by key.
+ * Telemetry updates only visit the subscriptions of the keys they contain and the subscriptions to all keys.
+ */
+class TbEntitySubscriptions {
+
+    private final Set<TbSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final KeyIndex<TbTimeseriesSubscription> timeseries = new KeyIndex<>(TbTimeseriesSubscription::isAllKeys, s -> s.getKeyStates().keySet());
+    private final KeyIndex<TbAttributeSubscription> attributes = new KeyIndex<>(TbAttributeSubscription::isAllKeys, s -> s.getKeyStates().keySet());
+    private final Set<TbAlarmsSubscription> alarms = ConcurrentHashMap.newKeySet();
+
+    boolean add(TbSubscription subscription) {
+        if (!subscriptions.add(subscription)) {
+            return false;
+        }
+        switch (subscription.getType()) {
+            case TIMESERIES:
+                timeseries.add((TbTimeseriesSubscription) subscription);
+                break;
+            case ATTRIBUTES:
+                attributes.add((TbAttributeSubscription) subscription);
+                break;
+            case ALARMS:
+                alarms.add((TbAlarmsSubscription) subscription);
+                break;
+        }
+        return true;
+    }
+
+    void remove(TbSubscription subscription) {
+        if (!subscriptions.remove(subscription)) {
+            return;
+        }
+        switch (subscription.getType()) {
+            case TIMESERIES:
+                timeseries.remove((TbTimeseriesSubscription) subscription);
+                break;
+            case ATTRIBUTES:
+                attributes.remove((TbAttributeSubscription) subscription);
+                break;
+            case ALARMS:
+                alarms.remove(subscription);
+                break;
+        }
+    }
+
+    boolean isEmpty() {
+        return subscriptions.isEmpty();
+    }
+
+    Map<TbTimeseriesSubscription, List<TsKvEntry>> getTimeseriesUpdates(List<TsKvEntry> entries) {
+        return timeseries.getUpdates(entries, s -> true);
+    }
+
+    Map<TbAttributeSubscription, List<TsKvEntry>> getAttributesUpdates(List<TsKvEntry> entries, Predicate<TbAttributeSubscription> filter) {
+        return attributes.getUpdates(entries, filter);
+    }
+
+    Set<TbAlarmsSubscription> getAlarmsSubscriptions() {
+        return alarms;
+    }
+
+    private static class KeyIndex<T extends TbSubscription> {
+
+        private final Predicate<T> allKeysFunction;
+        private final Function<T, Set<String>> keysFunction;
+        private final Set<T> allKeysSubscriptions = ConcurrentHashMap.newKeySet();
+        private final Map<String, Set<T>> subscriptionsByKey = new ConcurrentHashMap<>();
+
+        KeyIndex(Predicate<T> allKeysFunction, Function<T, Set<String>> keysFunction) {
+            this.allKeysFunction = allKeysFunction;
+            this.keysFunction = keysFunction;
+        }
+
+        void add(T subscription) {
+            if (allKeysFunction.test(subscription)) {
+                allKeysSubscriptions.add(subscription);
+            } else {
+                for (String key : keysFunction.apply(subscription)) {
+                    subscriptionsByKey.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscription);
+                }
+            }
+        }
+
+        void remove(T subscription) {
+            if (allKeysFunction.test(subscription)) {
+                allKeysSubscriptions.remove(subscription);
+            } else {
+                for (String key : keysFunction.apply(subscription)) {
+                    subscriptionsByKey.computeIfPresent(key, (k, subs) -> {
+                        subs.remove(subscription);
+                        return subs.isEmpty() ? null : subs;
+                    });
+                }
+            }
+        }
+
+        Map<T, List<TsKvEntry>> getUpdates(List<TsKvEntry> entries, Predicate<T> filter) {
+            Map<T, List<TsKvEntry>> updates = null;
+            for (T subscription : allKeysSubscriptions) {
+                if (filter.test(subscription)) {
+                    if (updates == null) {
+                        updates = new HashMap<>();
+                    }
+                    updates.put(subscription, entries);
+                }
+            }
+            if (!subscriptionsByKey.isEmpty()) {
+                for (TsKvEntry entry : entries) {
+                    Set<T> keySubscriptions = subscriptionsByKey.get(entry.getKey());
+                    if (keySubscriptions == null) {
+                        continue;
+                    }
+                    for (T subscription : keySubscriptions) {
+                        if (filter.test(subscription)) {
+                            if (updates == null) {
+                                updates = new HashMap<>();
+                            }
+                            updates.computeIfAbsent(subscription, s -> new ArrayList<>()).add(entry);
+                        }
+                    }
+                }
+            }
+            return updates != null ? updates : Collections.emptyMap();
+        }
+    }
+}
@@ -176,12 +176,12 @@ public class DefaultTelemetrySubscriptionService extends AbstractSubscriptionSer
 
     @Override
     public void saveAndNotifyInternal(TenantId tenantId, EntityId entityId, List<TsKvEntry> ts, long ttl, FutureCallback<Integer> callback) {
-        ListenableFuture<Integer> saveFuture = tsService.save(tenantId, entityId, ts, ttl);
+        ListenableFuture<Integer> saveFuture = tsService.saveAll(tenantId, Collections.singletonMap(entityId, ts), ttl, true);
         addCallbacks(tenantId, entityId, ts, callback, saveFuture);
     }
 
     private void saveWithoutLatestAndNotifyInternal(TenantId tenantId, EntityId entityId, List<TsKvEntry> ts, long ttl, FutureCallback<Integer> callback) {
-        ListenableFuture<Integer> saveFuture = tsService.saveWithoutLatest(tenantId, entityId, ts, ttl);
+        ListenableFuture<Integer> saveFuture = tsService.saveAll(tenantId, Collections.singletonMap(entityId, ts), ttl, false);
         addCallbacks(tenantId, entityId, ts, callback, saveFuture);
     }
 
@@ -289,7 +289,10 @@ public class DefaultTelemetryWebSocketService implements TelemetryWebSocketServi
 
     @Override
     public void sendWsMsg(String sessionId, TelemetrySubscriptionUpdate update) {
-        sendWsMsg(sessionId, update.getSubscriptionId(), update);
+        WsSessionMetaData md = wsSessionsMap.get(sessionId);
+        if (md != null) {
+            sendWsMsg(md.getSessionRef(), update);
+        }
     }
 
     @Override
@@ -788,7 +791,18 @@ public class DefaultTelemetryWebSocketService implements TelemetryWebSocketServi
     }
 
     private void sendWsMsg(TelemetryWebSocketSessionRef sessionRef, TelemetrySubscriptionUpdate update) {
-        sendWsMsg(sessionRef, update.getSubscriptionId(), update);
+        if (update.getErrorCode() != SubscriptionErrorCode.NO_ERROR.getCode() || update.getData() == null) {
+            sendWsMsg(sessionRef, update.getSubscriptionId(), update);
+            return;
+        }
+        // data updates are serialized by the endpoint, so updates queued for a slow session can be merged
+        executor.submit(() -> {
+            try {
+                msgEndpoint.send(sessionRef, update);
+            } catch (IOException e) {
+                log.warn("[{}] Failed to send reply: {}", sessionRef.getSessionId(), update, e);
+            }
+        });
     }
 
     private void sendWsMsg(TelemetryWebSocketSessionRef sessionRef, int cmdId, Object update) {
@@ -16,6 +16,7 @@
 package org.thingsboard.server.service.telemetry;
 
 import org.springframework.web.socket.CloseStatus;
+import org.thingsboard.server.service.telemetry.sub.TelemetrySubscriptionUpdate;
 
 import java.io.IOException;
 
@@ -26,6 +27,11 @@ public interface TelemetryWebSocketMsgEndpoint {
 
     void send(TelemetryWebSocketSessionRef sessionRef, int subscriptionId, String msg) throws IOException;
 
+    /**
+     * Sends telemetry subscription update. Pending updates of the same subscription may be merged before they are sent.
+     */
+    void send(TelemetryWebSocketSessionRef sessionRef, TelemetrySubscriptionUpdate update) throws IOException;
+
     void sendPing(TelemetryWebSocketSessionRef sessionRef, long currentTime) throws IOException;
 
     void close(TelemetryWebSocketSessionRef sessionRef, CloseStatus withReason) throws IOException;
@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors.ruleChain;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.RuleChainId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleNodeRoutesTest {
+
+    private final RuleNodeId from = new RuleNodeId(UUID.randomUUID());
+    private final RuleNodeId isolated = new RuleNodeId(UUID.randomUUID());
+    private final RuleNodeRelation success = new RuleNodeRelation(from, new RuleNodeId(UUID.randomUUID()), "Success");
+    private final RuleNodeRelation failure = new RuleNodeRelation(from, new RuleNodeId(UUID.randomUUID()), "Failure");
+    private final RuleNodeRelation successToChain = new RuleNodeRelation(from, new RuleChainId(UUID.randomUUID()), "success");
+
+    private final RuleNodeRoutes routes = new RuleNodeRoutes(Map.of(
+            from, List.of(success, failure, successToChain),
+            isolated, Collections.emptyList()));
+
+    @Test
+    void givenSingleType_whenGetRelations_thenMatchedCaseInsensitively() {
+        assertThat(routes.getRelations(from, Set.of("Success"))).containsExactly(success, successToChain);
+        assertThat(routes.getRelations(from, Set.of("SUCCESS"))).containsExactly(success, successToChain);
+        assertThat(routes.getRelations(from, Set.of("Failure"))).containsExactly(failure);
+        assertThat(routes.getRelations(from, Set.of("Other"))).isEmpty();
+    }
+
+    @Test
+    void givenMultipleTypes_whenGetRelations_thenRelationOrderKept() {
+        assertThat(routes.getRelations(from, Set.of("Failure", "Success"))).containsExactly(success, failure, successToChain);
+        assertThat(routes.getRelations(from, null)).containsExactly(success, failure, successToChain);
+    }
+
+    @Test
+    void givenUnknownNode_whenGetRelations_thenNull() {
+        assertThat(routes.getRelations(isolated, Set.of("Success"))).isEmpty();
+        assertThat(routes.getRelations(new RuleNodeId(UUID.randomUUID()), Set.of("Success"))).isNull();
+        assertThat(RuleNodeRoutes.EMPTY.getRelations(from, Set.of("Success"))).isNull();
+    }
+
+}
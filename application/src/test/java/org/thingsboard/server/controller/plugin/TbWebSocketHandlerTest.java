@@ -0,0 +1,209 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.controller.plugin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.service.security.model.SecurityUser;
+import org.thingsboard.server.service.telemetry.TelemetryWebSocketSessionRef;
+import org.thingsboard.server.service.telemetry.sub.TelemetrySubscriptionUpdate;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TbWebSocketHandlerTest {
+
+    private static final int MAX_MSG_QUEUE_SIZE = 3;
+    private static final long TS = 1000L;
+
+    private TbWebSocketHandler webSocketHandler;
+    private DefaultCounter conflatedUpdatesCounter;
+    private DefaultCounter queueOverflowsCounter;
+    private NativeWebSocketSession session;
+    private RemoteEndpoint.Async asyncRemote;
+    private TelemetryWebSocketSessionRef sessionRef;
+    private TbWebSocketHandler.SessionMetaData sessionMd;
+    private List<String> sentMsgs;
+    private List<SendHandler> sendHandlers;
+
+    @BeforeEach
+    void setUp() {
+        StatsFactory statsFactory = mock(StatsFactory.class);
+        conflatedUpdatesCounter = mock(DefaultCounter.class);
+        queueOverflowsCounter = mock(DefaultCounter.class);
+        when(statsFactory.createDefaultCounter(eq("ws.conflatedUpdates"))).thenReturn(conflatedUpdatesCounter);
+        when(statsFactory.createDefaultCounter(eq("ws.queueOverflows"))).thenReturn(queueOverflowsCounter);
+        webSocketHandler = new TbWebSocketHandler();
+        ReflectionTestUtils.setField(webSocketHandler, "statsFactory", statsFactory);
+        webSocketHandler.init();
+
+        session = mock(NativeWebSocketSession.class);
+        when(session.getId()).thenReturn(UUID.randomUUID().toString());
+        Session nativeSession = mock(Session.class);
+        asyncRemote = mock(RemoteEndpoint.Async.class);
+        when(session.getNativeSession(Session.class)).thenReturn(nativeSession);
+        when(nativeSession.getAsyncRemote()).thenReturn(asyncRemote);
+        sentMsgs = new ArrayList<>();
+        sendHandlers = new ArrayList<>();
+        doAnswer(invocation -> {
+            sentMsgs.add(invocation.getArgument(0));
+            sendHandlers.add(invocation.getArgument(1));
+            return null;
+        }).when(asyncRemote).sendText(anyString(), any(SendHandler.class));
+        SecurityUser securityUser = new SecurityUser();
+        securityUser.setTenantId(TenantId.fromUUID(UUID.randomUUID()));
+        sessionRef = new TelemetryWebSocketSessionRef(UUID.randomUUID().toString(), securityUser, null, null);
+
+        sessionMd = webSocketHandler.new SessionMetaData(session, sessionRef, MAX_MSG_QUEUE_SIZE);
+        getInternalSessionMap().put(session.getId(), sessionMd);
+        getExternalSessionMap().put(sessionRef.getSessionId(), session.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        getInternalSessionMap().remove(session.getId());
+        getExternalSessionMap().remove(sessionRef.getSessionId());
+    }
+
+    @Test
+    void givenQueuedUpdate_whenSameSubscriptionUpdated_thenMergedIntoQueuedUpdate() {
+        sessionMd.sendMsg("in flight");
+        sessionMd.sendUpdate(newUpdate(1, Map.of("temperature", "old", "humidity", "50")));
+        sessionMd.sendUpdate(newUpdate(2, Map.of("temperature", "other")));
+        sessionMd.sendUpdate(newUpdate(1, Map.of("temperature", "new")));
+
+        assertThat(sessionMd.getMsgQueueSize()).isEqualTo(2);
+        assertThat(sessionMd.getConflatedUpdates()).isEqualTo(1);
+        verify(conflatedUpdatesCounter).add(1);
+
+        List<String> sent = completeAllSends();
+
+        assertThat(sent).hasSize(3);
+        JsonNode first = JacksonUtil.toJsonNode(sent.get(1));
+        assertThat(first.get("subscriptionId").asInt()).isEqualTo(1);
+        assertThat(first.get("data").size()).isEqualTo(2);
+        assertThat(first.get("data").get("temperature").get(0).get(1).asText()).isEqualTo("new");
+        assertThat(first.get("data").get("humidity").get(0).get(1).asText()).isEqualTo("50");
+        assertThat(JacksonUtil.toJsonNode(sent.get(2)).get("subscriptionId").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void givenUpdateTakenForSending_whenSameSubscriptionUpdated_thenQueuedSeparately() {
+        sessionMd.sendUpdate(newUpdate(1, Map.of("temperature", "old")));
+        sessionMd.sendUpdate(newUpdate(1, Map.of("temperature", "new")));
+
+        assertThat(sessionMd.getConflatedUpdates()).isZero();
+        assertThat(completeAllSends()).hasSize(2);
+    }
+
+    @Test
+    void givenTextMsgs_whenQueued_thenSentInOrder() {
+        sessionMd.sendMsg("1");
+        sessionMd.sendMsg("2");
+        sessionMd.sendMsg("3");
+
+        // only one frame is in flight at a time
+        assertThat(sentMsgs).containsExactly("1");
+        assertThat(completeAllSends()).containsExactly("1", "2", "3");
+        assertThat(sessionMd.getMsgQueueSize()).isZero();
+    }
+
+    @Test
+    void givenFullQueue_whenMsgSent_thenSessionClosed() throws Exception {
+        sessionMd.sendMsg("in flight");
+        for (int i = 0; i < MAX_MSG_QUEUE_SIZE; i++) {
+            assertThat(sessionMd.sendMsg(new TbWebSocketTextMsg("queued " + i))).isTrue();
+        }
+        verify(session, never()).close(any());
+
+        assertThat(sessionMd.sendMsg(new TbWebSocketTextMsg("overflow"))).isFalse();
+
+        ArgumentCaptor<CloseStatus> closeStatus = ArgumentCaptor.forClass(CloseStatus.class);
+        verify(session).close(closeStatus.capture());
+        assertThat(closeStatus.getValue().getCode()).isEqualTo(CloseStatus.POLICY_VIOLATION.getCode());
+        verify(queueOverflowsCounter).increment();
+        assertThat(sessionMd.getMsgQueueSize()).isEqualTo(MAX_MSG_QUEUE_SIZE);
+    }
+
+    @Test
+    void givenFullQueue_whenUpdateDropped_thenNotMergedIntoLater() {
+        sessionMd.sendMsg("in flight");
+        for (int i = 0; i < MAX_MSG_QUEUE_SIZE; i++) {
+            sessionMd.sendMsg("queued " + i);
+        }
+
+        sessionMd.sendUpdate(newUpdate(1, Map.of("temperature", "old")));
+        sessionMd.clearMsgQueue();
+        sessionMd.sendUpdate(newUpdate(1, Map.of("temperature", "new")));
+
+        // the dropped update is not pending, so the new one is queued on its own
+        assertThat(sessionMd.getConflatedUpdates()).isZero();
+        assertThat(sessionMd.getMsgQueueSize()).isEqualTo(1);
+    }
+
+    private List<String> completeAllSends() {
+        // completion of a send starts the next one, so the handlers list grows while it is iterated
+        for (int i = 0; i < sendHandlers.size(); i++) {
+            sendHandlers.get(i).onResult(new SendResult());
+        }
+        return sentMsgs;
+    }
+
+    private static TelemetrySubscriptionUpdate newUpdate(int subscriptionId, Map<String, Object> values) {
+        Map<String, List<Object>> data = new TreeMap<>();
+        values.forEach((key, value) -> data.put(key, List.of(List.of(TS, value))));
+        return new TelemetrySubscriptionUpdate(subscriptionId, data);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<String, TbWebSocketHandler.SessionMetaData> getInternalSessionMap() {
+        return (ConcurrentMap<String, TbWebSocketHandler.SessionMetaData>) ReflectionTestUtils.getField(TbWebSocketHandler.class, "internalSessionMap");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<String, String> getExternalSessionMap() {
+        return (ConcurrentMap<String, String>) ReflectionTestUtils.getField(TbWebSocketHandler.class, "externalSessionMap");
+    }
+
+}
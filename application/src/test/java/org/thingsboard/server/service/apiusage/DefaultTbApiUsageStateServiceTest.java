@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.service.apiusage;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -38,7 +39,9 @@ import org.thingsboard.server.service.executors.DbCallbackExecutorService;
 import java.util.UUID;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.willReturn;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -83,4 +86,20 @@ public class DefaultTbApiUsageStateServiceTest {
         Mockito.verify(service, never()).getOrFetchState(tenantId, tenantId);
     }
 
+    @Test
+    public void givenStateNotCached_whenGetOrFetchStateAsyncConcurrently_thenFetchedOnce() {
+        ListenableFuture<BaseApiUsageState> first = service.getOrFetchStateAsync(tenantId, tenantId);
+        ListenableFuture<BaseApiUsageState> second = service.getOrFetchStateAsync(tenantId, tenantId);
+        assertThat(second, sameInstance(first));
+        Mockito.verify(dbExecutor, times(1)).execute(any());
+    }
+
+    @Test
+    public void givenStateCached_whenGetOrFetchStateAsync_thenNoFetch() throws Exception {
+        service.myUsageStates.put(tenantId, tenantUsageStateMock);
+        ListenableFuture<BaseApiUsageState> future = service.getOrFetchStateAsync(tenantId, tenantId);
+        assertThat(future.get(), is(tenantUsageStateMock));
+        Mockito.verify(dbExecutor, never()).execute(any());
+    }
+
 }
\ No newline at end of file
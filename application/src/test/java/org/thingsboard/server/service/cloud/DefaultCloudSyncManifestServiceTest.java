@@ -0,0 +1,224 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.cloud;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.Dashboard;
+import org.thingsboard.server.common.data.DashboardInfo;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.id.DashboardId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.dao.asset.AssetService;
+import org.thingsboard.server.dao.dashboard.DashboardService;
+import org.thingsboard.server.dao.device.DeviceService;
+import org.thingsboard.server.dao.entityview.EntityViewService;
+import org.thingsboard.server.gen.edge.v1.EntityVersionProto;
+import org.thingsboard.server.service.edge.rpc.constructor.EntityVersionMsgConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultCloudSyncManifestServiceTest {
+
+    private static final long QUEUE_START_TS = 1000L;
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+
+    private DefaultCloudSyncManifestService syncManifestService;
+    private DeviceService deviceService;
+    private DashboardService dashboardService;
+
+    private final List<List<EntityVersionProto>> chunks = new ArrayList<>();
+    private final List<Boolean> hasMoreFlags = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        deviceService = mock(DeviceService.class);
+        dashboardService = mock(DashboardService.class);
+        AssetService assetService = mock(AssetService.class);
+        EntityViewService entityViewService = mock(EntityViewService.class);
+        when(deviceService.findDevicesByTenantId(eq(tenantId), any())).thenReturn(emptyPage());
+        when(dashboardService.findDashboardsByTenantId(eq(tenantId), any())).thenReturn(emptyPage());
+        when(assetService.findAssetsByTenantId(eq(tenantId), any())).thenReturn(emptyPage());
+        when(entityViewService.findEntityViewByTenantId(eq(tenantId), any())).thenReturn(emptyPage());
+
+        EntityVersionMsgConstructor entityVersionMsgConstructor = mock(EntityVersionMsgConstructor.class);
+        when(entityVersionMsgConstructor.constructEntityVersion(any(Device.class)))
+                .thenAnswer(invocation -> entityVersion(invocation.<Device>getArgument(0).getId()));
+        when(entityVersionMsgConstructor.constructEntityVersion(any(Dashboard.class)))
+                .thenAnswer(invocation -> entityVersion(invocation.<Dashboard>getArgument(0).getId()));
+
+        syncManifestService = new DefaultCloudSyncManifestService();
+        ReflectionTestUtils.setField(syncManifestService, "deviceService", deviceService);
+        ReflectionTestUtils.setField(syncManifestService, "assetService", assetService);
+        ReflectionTestUtils.setField(syncManifestService, "entityViewService", entityViewService);
+        ReflectionTestUtils.setField(syncManifestService, "dashboardService", dashboardService);
+        ReflectionTestUtils.setField(syncManifestService, "entityVersionMsgConstructor", entityVersionMsgConstructor);
+        syncManifestService.init();
+    }
+
+    @After
+    public void tearDown() {
+        syncManifestService.destroy();
+    }
+
+    @Test
+    public void testEmptyManifestIsSentAsSingleLastChunk() throws Exception {
+        buildSyncManifest(2);
+
+        Assert.assertEquals(List.of(0), chunkSizes());
+        Assert.assertEquals(List.of(false), hasMoreFlags);
+    }
+
+    @Test
+    public void testManifestIsChunkedAtChunkSizeBoundary() throws Exception {
+        List<Device> devices = mockDevices(4);
+
+        buildSyncManifest(2);
+
+        Assert.assertEquals(List.of(2, 2, 0), chunkSizes());
+        Assert.assertEquals(List.of(true, true, false), hasMoreFlags);
+        Assert.assertEquals(toIds(devices), reportedIds());
+    }
+
+    @Test
+    public void testLastChunkContainsRemainder() throws Exception {
+        List<Device> devices = mockDevices(5);
+
+        buildSyncManifest(2);
+
+        Assert.assertEquals(List.of(2, 2, 1), chunkSizes());
+        Assert.assertEquals(List.of(true, true, false), hasMoreFlags);
+        Assert.assertEquals(toIds(devices), reportedIds());
+    }
+
+    @Test
+    public void testNonPositiveChunkSizeSendsOneEntityPerChunk() throws Exception {
+        mockDevices(2);
+
+        buildSyncManifest(0);
+
+        Assert.assertEquals(List.of(1, 1, 0), chunkSizes());
+        Assert.assertEquals(List.of(true, true, false), hasMoreFlags);
+    }
+
+    @Test
+    public void testEntitiesCreatedAfterQueueStartAreNotReported() throws Exception {
+        List<Device> devices = mockDevices(2);
+        devices.get(1).setCreatedTime(QUEUE_START_TS);
+
+        buildSyncManifest(10);
+
+        Assert.assertEquals(toIds(devices.subList(0, 1)), reportedIds());
+    }
+
+    @Test
+    public void testRemovedDashboardIsNotReported() throws Exception {
+        Dashboard dashboard = createDashboard();
+        Dashboard removedDashboard = createDashboard();
+        when(dashboardService.findDashboardsByTenantId(eq(tenantId), any()))
+                .thenReturn(new PageData<>(List.of(new DashboardInfo(dashboard), new DashboardInfo(removedDashboard)), 1, 2, false));
+        when(dashboardService.findDashboardById(tenantId, dashboard.getId())).thenReturn(dashboard);
+
+        buildSyncManifest(10);
+
+        Assert.assertEquals(List.of(dashboard.getId().getId()), reportedIds());
+    }
+
+    @Test
+    public void testFailedChunkConsumerStopsManifest() throws Exception {
+        mockDevices(4);
+
+        try {
+            syncManifestService.buildSyncManifest(tenantId, QUEUE_START_TS, 2, (entityVersions, hasMore) -> {
+                chunks.add(entityVersions);
+                throw new IllegalStateException("Connection to cloud was lost");
+            }).get(10, TimeUnit.SECONDS);
+            Assert.fail("Failure of the chunk consumer must fail the manifest");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertEquals(1, chunks.size());
+    }
+
+    private void buildSyncManifest(int chunkSize) throws Exception {
+        syncManifestService.buildSyncManifest(tenantId, QUEUE_START_TS, chunkSize, (entityVersions, hasMore) -> {
+            chunks.add(entityVersions);
+            hasMoreFlags.add(hasMore);
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    private List<Device> mockDevices(int count) {
+        List<Device> devices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Device device = new Device(new DeviceId(UUID.randomUUID()));
+            device.setCreatedTime(QUEUE_START_TS - 1);
+            devices.add(device);
+        }
+        when(deviceService.findDevicesByTenantId(eq(tenantId), any())).thenReturn(new PageData<>(devices, 1, count, false));
+        return devices;
+    }
+
+    private Dashboard createDashboard() {
+        Dashboard dashboard = new Dashboard(new DashboardId(UUID.randomUUID()));
+        dashboard.setCreatedTime(QUEUE_START_TS - 1);
+        return dashboard;
+    }
+
+    private List<Integer> chunkSizes() {
+        return chunks.stream().map(List::size).collect(Collectors.toList());
+    }
+
+    private List<UUID> reportedIds() {
+        return chunks.stream().flatMap(List::stream)
+                .map(entityVersion -> new UUID(entityVersion.getEntityIdMSB(), entityVersion.getEntityIdLSB()))
+                .collect(Collectors.toList());
+    }
+
+    private List<UUID> toIds(List<Device> devices) {
+        return devices.stream().map(device -> device.getId().getId()).collect(Collectors.toList());
+    }
+
+    private static <T> PageData<T> emptyPage() {
+        return new PageData<>(Collections.emptyList(), 0, 0, false);
+    }
+
+    private static EntityVersionProto entityVersion(EntityId entityId) {
+        return EntityVersionProto.newBuilder()
+                .setEntityType(entityId.getEntityType().name())
+                .setEntityIdMSB(entityId.getId().getMostSignificantBits())
+                .setEntityIdLSB(entityId.getId().getLeastSignificantBits())
+                .setVersionHash(1L)
+                .build();
+    }
+}
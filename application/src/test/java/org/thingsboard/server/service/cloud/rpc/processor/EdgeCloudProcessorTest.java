@@ -0,0 +1,118 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.cloud.rpc.processor;
+
+import com.google.common.util.concurrent.Futures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.edge.Edge;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.EdgeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.dao.edge.EdgeService;
+import org.thingsboard.server.gen.edge.v1.EdgeConfiguration;
+import org.thingsboard.server.service.security.ownership.DefaultTbEntityOwnershipCache;
+import org.thingsboard.server.service.security.ownership.EntityOwnership;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EdgeCloudProcessorTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final EdgeId edgeId = new EdgeId(UUID.randomUUID());
+    private final AtomicReference<Edge> storedEdge = new AtomicReference<>();
+
+    private EdgeService edgeService;
+    private DefaultTbEntityOwnershipCache ownershipCache;
+    private EdgeCloudProcessor edgeCloudProcessor;
+
+    @BeforeEach
+    void setUp() {
+        edgeService = mock(EdgeService.class);
+        when(edgeService.findEdgeById(any(), eq(edgeId))).thenAnswer(invocation -> storedEdge.get());
+        when(edgeService.findEdgeByIdAsync(any(), eq(edgeId))).thenAnswer(invocation -> Futures.immediateFuture(storedEdge.get()));
+        when(edgeService.saveEdge(any(), anyBoolean())).thenAnswer(invocation -> {
+            Edge edge = invocation.getArgument(0);
+            storedEdge.set(new Edge(edge));
+            return edge;
+        });
+
+        ownershipCache = new DefaultTbEntityOwnershipCache();
+        ReflectionTestUtils.setField(ownershipCache, "maxSize", 1000L);
+        ReflectionTestUtils.setField(ownershipCache, "ttlInSec", 60L);
+        ReflectionTestUtils.setField(ownershipCache, "edgeService", edgeService);
+        ownershipCache.init();
+
+        edgeCloudProcessor = new EdgeCloudProcessor();
+        ReflectionTestUtils.setField(edgeCloudProcessor, "edgeService", edgeService);
+        ReflectionTestUtils.setField(edgeCloudProcessor, "entityOwnershipCache", ownershipCache);
+    }
+
+    @Test
+    void givenCachedEdgeOwnership_whenEdgeAssignedToCustomerFromCloud_thenOwnershipReloaded() throws Exception {
+        edgeCloudProcessor.processEdgeConfigurationMsgFromCloud(tenantId, newEdgeConfiguration(null)).get(10, TimeUnit.SECONDS);
+        assertThat(getOwnership()).isEqualTo(new EntityOwnership(tenantId, null));
+
+        CustomerId customerId = new CustomerId(UUID.randomUUID());
+        edgeCloudProcessor.processEdgeConfigurationMsgFromCloud(tenantId, newEdgeConfiguration(customerId)).get(10, TimeUnit.SECONDS);
+
+        assertThat(getOwnership()).isEqualTo(new EntityOwnership(tenantId, customerId));
+        verify(edgeService, times(2)).findEdgeByIdAsync(any(), eq(edgeId));
+    }
+
+    @Test
+    void givenCachedEdgeOwnership_whenEdgeUnassignedFromCustomerFromCloud_thenOwnershipReloaded() throws Exception {
+        CustomerId customerId = new CustomerId(UUID.randomUUID());
+        edgeCloudProcessor.processEdgeConfigurationMsgFromCloud(tenantId, newEdgeConfiguration(customerId)).get(10, TimeUnit.SECONDS);
+        assertThat(getOwnership()).isEqualTo(new EntityOwnership(tenantId, customerId));
+
+        edgeCloudProcessor.processEdgeConfigurationMsgFromCloud(tenantId, newEdgeConfiguration(null)).get(10, TimeUnit.SECONDS);
+
+        assertThat(getOwnership()).isEqualTo(new EntityOwnership(tenantId, null));
+    }
+
+    private EntityOwnership getOwnership() throws Exception {
+        return ownershipCache.get(edgeId).get(10, TimeUnit.SECONDS);
+    }
+
+    private EdgeConfiguration newEdgeConfiguration(CustomerId customerId) {
+        EdgeConfiguration.Builder builder = EdgeConfiguration.newBuilder()
+                .setEdgeIdMSB(edgeId.getId().getMostSignificantBits())
+                .setEdgeIdLSB(edgeId.getId().getLeastSignificantBits())
+                .setName("Edge")
+                .setType("default")
+                .setRoutingKey("routingKey")
+                .setSecret("secret")
+                .setAdditionalInfo("{}");
+        if (customerId != null) {
+            builder.setCustomerIdMSB(customerId.getId().getMostSignificantBits())
+                    .setCustomerIdLSB(customerId.getId().getLeastSignificantBits());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.thingsboard.server.gen.edge.v1.AssetUpdateMsg;
+import org.thingsboard.server.gen.edge.v1.DeviceCredentialsUpdateMsg;
+import org.thingsboard.server.gen.edge.v1.DeviceProfileUpdateMsg;
+import org.thingsboard.server.gen.edge.v1.DeviceUpdateMsg;
+import org.thingsboard.server.gen.edge.v1.DownlinkMsg;
+import org.thingsboard.server.gen.edge.v1.RelationUpdateMsg;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class EdgeGrpcSessionTest {
+
+    @Test
+    public void testMergeSyncDownlinkMsgsKeepsOrder() {
+        DownlinkMsg device1 = deviceMsg(1);
+        DownlinkMsg device2 = deviceMsg(2);
+        DownlinkMsg credentials2 = DownlinkMsg.newBuilder().setDownlinkMsgId(3)
+                .addDeviceCredentialsUpdateMsg(DeviceCredentialsUpdateMsg.newBuilder().setDeviceIdMSB(2).setDeviceIdLSB(2).build())
+                .build();
+        DownlinkMsg asset3 = DownlinkMsg.newBuilder().setDownlinkMsgId(4)
+                .addAssetUpdateMsg(AssetUpdateMsg.newBuilder().setIdMSB(3).setIdLSB(3).build())
+                .build();
+        DownlinkMsg relation = DownlinkMsg.newBuilder().setDownlinkMsgId(5)
+                .addRelationUpdateMsg(RelationUpdateMsg.newBuilder().setFromIdMSB(1).setToIdMSB(3).build())
+                .build();
+
+        List<DownlinkMsg> result = EdgeGrpcSession.mergeSyncDownlinkMsgs(Arrays.asList(device1, device2, credentials2, asset3, relation), 10);
+
+        Assert.assertEquals(4, result.size());
+        Assert.assertEquals(2, result.get(0).getDeviceUpdateMsgCount());
+        Assert.assertEquals(1, result.get(0).getDeviceUpdateMsg(0).getIdMSB());
+        Assert.assertEquals(2, result.get(0).getDeviceUpdateMsg(1).getIdMSB());
+        Assert.assertEquals(1, result.get(0).getDeviceProfileUpdateMsgCount());
+        Assert.assertEquals(credentials2, result.get(1));
+        Assert.assertEquals(1, result.get(2).getAssetUpdateMsgCount());
+        Assert.assertEquals(relation, result.get(3));
+    }
+
+    @Test
+    public void testMergeSyncDownlinkMsgsSplitsByBatchSize() {
+        List<DownlinkMsg> result = EdgeGrpcSession.mergeSyncDownlinkMsgs(
+                Arrays.asList(deviceMsg(1), deviceMsg(2), deviceMsg(3), deviceMsg(4), deviceMsg(5)), 2);
+
+        Assert.assertEquals(3, result.size());
+        Assert.assertEquals(2, result.get(0).getDeviceUpdateMsgCount());
+        Assert.assertEquals(2, result.get(1).getDeviceUpdateMsgCount());
+        Assert.assertEquals(1, result.get(2).getDeviceUpdateMsgCount());
+        Assert.assertEquals(5, result.get(2).getDeviceUpdateMsg(0).getIdMSB());
+    }
+
+    private DownlinkMsg deviceMsg(long id) {
+        return DownlinkMsg.newBuilder().setDownlinkMsgId((int) id)
+                .addDeviceUpdateMsg(DeviceUpdateMsg.newBuilder().setIdMSB(id).setIdLSB(id).build())
+                .addDeviceProfileUpdateMsg(DeviceProfileUpdateMsg.newBuilder().setIdMSB(100).setIdLSB(100).build())
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.thingsboard.server.common.data.id.EdgeId;
+
+import java.util.UUID;
+
+public class EdgeResumeTokensTest {
+
+    private final EdgeId edgeId = new EdgeId(UUID.randomUUID());
+
+    @Test
+    public void testTokenIsSingleUse() {
+        EdgeResumeTokens resumeTokens = new EdgeResumeTokens(60000);
+        String token = resumeTokens.issue(edgeId);
+        Assert.assertNotEquals(token, resumeTokens.issue(new EdgeId(UUID.randomUUID())));
+
+        resumeTokens.onDisconnect(edgeId, token, true);
+        Assert.assertTrue(resumeTokens.consume(edgeId, token));
+        Assert.assertFalse(resumeTokens.consume(edgeId, token));
+    }
+
+    @Test
+    public void testTokenIsRejectedAfterTtl() throws InterruptedException {
+        EdgeResumeTokens resumeTokens = new EdgeResumeTokens(1);
+        String token = resumeTokens.issue(edgeId);
+        resumeTokens.onDisconnect(edgeId, token, true);
+        Thread.sleep(10);
+        Assert.assertFalse(resumeTokens.consume(edgeId, token));
+    }
+
+    @Test
+    public void testTokenIsInvalidated() {
+        EdgeResumeTokens resumeTokens = new EdgeResumeTokens(60000);
+        String token = resumeTokens.issue(edgeId);
+        resumeTokens.invalidate(edgeId);
+        Assert.assertFalse(resumeTokens.consume(edgeId, token));
+
+        token = resumeTokens.issue(edgeId);
+        resumeTokens.onDisconnect(edgeId, token, false);
+        Assert.assertFalse(resumeTokens.consume(edgeId, token));
+
+        String oldToken = resumeTokens.issue(edgeId);
+        String newToken = resumeTokens.issue(edgeId);
+        // close of a stale session must not affect the token of the current one
+        resumeTokens.onDisconnect(edgeId, oldToken, false);
+        Assert.assertTrue(resumeTokens.consume(edgeId, newToken));
+    }
+
+    @Test
+    public void testWrongTokenIsRejected() {
+        EdgeResumeTokens resumeTokens = new EdgeResumeTokens(60000);
+        resumeTokens.issue(edgeId);
+        Assert.assertFalse(resumeTokens.consume(edgeId, "forged"));
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.edge.Edge;
+import org.thingsboard.server.common.data.edge.EdgeEvent;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EdgeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.PageLink;
+import org.thingsboard.server.dao.device.DeviceService;
+import org.thingsboard.server.service.edge.EdgeContextComponent;
+import org.thingsboard.server.service.edge.rpc.constructor.EntityVersionMsgConstructor;
+import org.thingsboard.server.service.edge.rpc.fetch.AbsentEntitiesEdgeEventFetcher;
+import org.thingsboard.server.service.edge.rpc.fetch.DevicesEdgeEventFetcher;
+import org.thingsboard.server.service.edge.rpc.fetch.EdgeEventFetcher;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EdgeSyncCursorTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final Device device = new Device(new DeviceId(UUID.randomUUID()));
+
+    private EdgeContextComponent ctx;
+    private Edge edge;
+
+    @Before
+    public void setUp() {
+        ctx = mock(EdgeContextComponent.class);
+        DeviceService deviceService = mock(DeviceService.class);
+        when(deviceService.findDevicesByTenantIdAndEdgeId(any(), any(), any()))
+                .thenReturn(new PageData<>(List.of(device), 1, 1, false));
+        when(ctx.getDeviceService()).thenReturn(deviceService);
+        EntityVersionMsgConstructor entityVersionMsgConstructor = mock(EntityVersionMsgConstructor.class);
+        when(entityVersionMsgConstructor.getVersionHash(any(Device.class))).thenReturn(42L);
+        when(ctx.getEntityVersionMsgConstructor()).thenReturn(entityVersionMsgConstructor);
+
+        edge = new Edge(new EdgeId(UUID.randomUUID()));
+        edge.setTenantId(tenantId);
+    }
+
+    @Test
+    public void testSyncWithoutManifestPushesAllEntities() {
+        EdgeSyncCursor cursor = new EdgeSyncCursor(ctx, edge, false, null);
+
+        assertNoAbsentEntitiesFetcher(cursor);
+        Assert.assertEquals(1, fetchDeviceEvents(cursor).size());
+    }
+
+    @Test
+    public void testSyncWithEmptyManifestFallsBackToFullPush() {
+        EdgeSyncCursor cursor = new EdgeSyncCursor(ctx, edge, false, EdgeSyncManifest.fromProto(Collections.emptyList()));
+
+        assertNoAbsentEntitiesFetcher(cursor);
+        Assert.assertEquals(1, fetchDeviceEvents(cursor).size());
+    }
+
+    @Test
+    public void testSyncWithIncompleteManifestPushesUnreportedEntities() {
+        // the manifest sent so far does not mention the device, so it is pushed as if the edge did not have it
+        DeviceId reportedDeviceId = new DeviceId(UUID.randomUUID());
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(List.of(EdgeSyncManifestTest.entityVersion(reportedDeviceId, 42L)));
+        EdgeSyncCursor cursor = new EdgeSyncCursor(ctx, edge, false, syncManifest);
+
+        Assert.assertEquals(1, fetchDeviceEvents(cursor).size());
+        Assert.assertTrue(cursor.fetchers.get(cursor.fetchers.size() - 1) instanceof AbsentEntitiesEdgeEventFetcher);
+    }
+
+    @Test
+    public void testSyncWithManifestSkipsUpToDateEntities() {
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(List.of(EdgeSyncManifestTest.entityVersion(device.getId(), 42L)));
+        EdgeSyncCursor cursor = new EdgeSyncCursor(ctx, edge, false, syncManifest);
+
+        Assert.assertTrue(fetchDeviceEvents(cursor).isEmpty());
+    }
+
+    private List<EdgeEvent> fetchDeviceEvents(EdgeSyncCursor cursor) {
+        EdgeEventFetcher fetcher = cursor.fetchers.stream()
+                .filter(f -> f instanceof DevicesEdgeEventFetcher)
+                .findFirst().orElseThrow();
+        PageLink pageLink = fetcher.getPageLink(100);
+        return fetcher.fetchEdgeEvents(tenantId, edge, pageLink).getData();
+    }
+
+    private void assertNoAbsentEntitiesFetcher(EdgeSyncCursor cursor) {
+        Assert.assertTrue(cursor.fetchers.stream().noneMatch(f -> f instanceof AbsentEntitiesEdgeEventFetcher));
+    }
+}
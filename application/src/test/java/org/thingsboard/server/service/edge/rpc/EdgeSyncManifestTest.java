@@ -0,0 +1,94 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.id.AssetId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.gen.edge.v1.EntityVersionProto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class EdgeSyncManifestTest {
+
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+    private final AssetId assetId = new AssetId(UUID.randomUUID());
+
+    @Test
+    public void testMatchingHashIsUpToDate() {
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(List.of(entityVersion(deviceId, 42L)));
+
+        Assert.assertFalse(syncManifest.isEmpty());
+        Assert.assertTrue(syncManifest.contains(deviceId));
+        Assert.assertTrue(syncManifest.isUpToDate(deviceId, 42L));
+    }
+
+    @Test
+    public void testMismatchingHashIsNotUpToDate() {
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(List.of(entityVersion(deviceId, 42L)));
+
+        Assert.assertFalse(syncManifest.isUpToDate(deviceId, 43L));
+        // the entity exists on both sides, so it is updated on edge and not deleted
+        Assert.assertTrue(syncManifest.getAbsentEntityIds(EntityType.DEVICE).isEmpty());
+    }
+
+    @Test
+    public void testEntityAbsentOnEdgeIsNotUpToDate() {
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(List.of(entityVersion(deviceId, 42L)));
+
+        Assert.assertFalse(syncManifest.contains(assetId));
+        Assert.assertFalse(syncManifest.isUpToDate(assetId, 42L));
+        Assert.assertTrue(syncManifest.getAbsentEntityIds(EntityType.ASSET).isEmpty());
+    }
+
+    @Test
+    public void testEntityAbsentOnCloudIsReported() {
+        DeviceId removedDeviceId = new DeviceId(UUID.randomUUID());
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(List.of(
+                entityVersion(deviceId, 42L), entityVersion(removedDeviceId, 43L), entityVersion(assetId, 44L)));
+
+        syncManifest.isUpToDate(deviceId, 42L);
+
+        Assert.assertEquals(List.of(removedDeviceId), syncManifest.getAbsentEntityIds(EntityType.DEVICE));
+        Assert.assertEquals(List.of(assetId), syncManifest.getAbsentEntityIds(EntityType.ASSET));
+
+        syncManifest.confirm(assetId);
+        Assert.assertTrue(syncManifest.getAbsentEntityIds(EntityType.ASSET).isEmpty());
+    }
+
+    @Test
+    public void testEmptyManifest() {
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(Collections.emptyList());
+
+        Assert.assertTrue(syncManifest.isEmpty());
+        Assert.assertFalse(syncManifest.isUpToDate(deviceId, 42L));
+        Assert.assertTrue(syncManifest.getAbsentEntityIds(EntityType.DEVICE).isEmpty());
+    }
+
+    static EntityVersionProto entityVersion(EntityId entityId, long versionHash) {
+        return EntityVersionProto.newBuilder()
+                .setEntityType(entityId.getEntityType().name())
+                .setEntityIdMSB(entityId.getId().getMostSignificantBits())
+                .setEntityIdLSB(entityId.getId().getLeastSignificantBits())
+                .setVersionHash(versionHash)
+                .build();
+    }
+}
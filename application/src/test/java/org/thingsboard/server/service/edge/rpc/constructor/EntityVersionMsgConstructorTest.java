@@ -0,0 +1,97 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc.constructor;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.Dashboard;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.id.DashboardId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.gen.edge.v1.EntityVersionProto;
+
+import java.util.UUID;
+
+public class EntityVersionMsgConstructorTest {
+
+    private EntityVersionMsgConstructor constructor;
+
+    @Before
+    public void setUp() {
+        constructor = new EntityVersionMsgConstructor();
+        ReflectionTestUtils.setField(constructor, "deviceMsgConstructor", new DeviceMsgConstructor());
+        ReflectionTestUtils.setField(constructor, "dashboardMsgConstructor", new DashboardMsgConstructor());
+    }
+
+    @Test
+    public void testSameContentHasSameHash() {
+        Device device = createDevice();
+        Device copy = new Device(device);
+        // fields that are not synced to edge must not change the hash
+        copy.setCreatedTime(device.getCreatedTime() + 1000);
+
+        Assert.assertEquals(constructor.getVersionHash(device), constructor.getVersionHash(copy));
+    }
+
+    @Test
+    public void testChangedContentHasDifferentHash() {
+        Device device = createDevice();
+        Device renamed = new Device(device);
+        renamed.setName("Renamed device");
+        Device relabeled = new Device(device);
+        relabeled.setLabel("New label");
+
+        long versionHash = constructor.getVersionHash(device);
+        Assert.assertNotEquals(versionHash, constructor.getVersionHash(renamed));
+        Assert.assertNotEquals(versionHash, constructor.getVersionHash(relabeled));
+    }
+
+    @Test
+    public void testDashboardConfigurationChangesHash() {
+        Dashboard dashboard = new Dashboard(new DashboardId(UUID.randomUUID()));
+        dashboard.setTitle("Dashboard");
+        dashboard.setConfiguration(JacksonUtil.toJsonNode("{\"widgets\":{}}"));
+        Dashboard updated = new Dashboard(dashboard);
+        updated.setConfiguration(JacksonUtil.toJsonNode("{\"widgets\":{\"w1\":{}}}"));
+
+        Assert.assertEquals(constructor.getVersionHash(dashboard), constructor.getVersionHash(new Dashboard(dashboard)));
+        Assert.assertNotEquals(constructor.getVersionHash(dashboard), constructor.getVersionHash(updated));
+    }
+
+    @Test
+    public void testConstructEntityVersion() {
+        Device device = createDevice();
+
+        EntityVersionProto entityVersion = constructor.constructEntityVersion(device);
+
+        Assert.assertEquals(device.getId().getEntityType().name(), entityVersion.getEntityType());
+        Assert.assertEquals(device.getId().getId(), new UUID(entityVersion.getEntityIdMSB(), entityVersion.getEntityIdLSB()));
+        Assert.assertEquals(constructor.getVersionHash(device), entityVersion.getVersionHash());
+    }
+
+    private Device createDevice() {
+        Device device = new Device(new DeviceId(UUID.randomUUID()));
+        device.setCreatedTime(System.currentTimeMillis());
+        device.setName("Device");
+        device.setType("default");
+        device.setDeviceProfileId(new DeviceProfileId(UUID.randomUUID()));
+        return device;
+    }
+}
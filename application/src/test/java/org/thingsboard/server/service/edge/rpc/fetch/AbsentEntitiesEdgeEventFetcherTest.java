@@ -0,0 +1,117 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc.fetch;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.thingsboard.server.common.data.edge.Edge;
+import org.thingsboard.server.common.data.edge.EdgeEvent;
+import org.thingsboard.server.common.data.edge.EdgeEventActionType;
+import org.thingsboard.server.common.data.edge.EdgeEventType;
+import org.thingsboard.server.common.data.id.DashboardId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EdgeId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.PageLink;
+import org.thingsboard.server.gen.edge.v1.EntityVersionProto;
+import org.thingsboard.server.service.edge.rpc.EdgeSyncManifest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+public class AbsentEntitiesEdgeEventFetcherTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final Edge edge = new Edge(new EdgeId(UUID.randomUUID()));
+
+    @Test
+    public void testDeletedEventsForEntitiesAbsentOnCloud() {
+        DeviceId presentDeviceId = new DeviceId(UUID.randomUUID());
+        DeviceId removedDeviceId = new DeviceId(UUID.randomUUID());
+        DashboardId removedDashboardId = new DashboardId(UUID.randomUUID());
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(List.of(
+                entityVersion(presentDeviceId), entityVersion(removedDeviceId), entityVersion(removedDashboardId)));
+        syncManifest.isUpToDate(presentDeviceId, 1L);
+
+        AbsentEntitiesEdgeEventFetcher fetcher = new AbsentEntitiesEdgeEventFetcher(syncManifest);
+        PageData<EdgeEvent> pageData = fetcher.fetchEdgeEvents(tenantId, edge, fetcher.getPageLink(100));
+
+        Assert.assertEquals(2, pageData.getData().size());
+        Assert.assertFalse(pageData.hasNext());
+        EdgeEvent dashboardEvent = pageData.getData().get(0);
+        Assert.assertEquals(EdgeEventType.DASHBOARD, dashboardEvent.getType());
+        Assert.assertEquals(EdgeEventActionType.DELETED, dashboardEvent.getAction());
+        Assert.assertEquals(removedDashboardId.getId(), dashboardEvent.getEntityId());
+        EdgeEvent deviceEvent = pageData.getData().get(1);
+        Assert.assertEquals(EdgeEventType.DEVICE, deviceEvent.getType());
+        Assert.assertEquals(EdgeEventActionType.DELETED, deviceEvent.getAction());
+        Assert.assertEquals(removedDeviceId.getId(), deviceEvent.getEntityId());
+    }
+
+    @Test
+    public void testNoEventsWhenAllEntitiesConfirmed() {
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(List.of(entityVersion(deviceId)));
+        syncManifest.confirm(deviceId);
+
+        AbsentEntitiesEdgeEventFetcher fetcher = new AbsentEntitiesEdgeEventFetcher(syncManifest);
+        PageData<EdgeEvent> pageData = fetcher.fetchEdgeEvents(tenantId, edge, fetcher.getPageLink(100));
+
+        Assert.assertTrue(pageData.getData().isEmpty());
+        Assert.assertFalse(pageData.hasNext());
+    }
+
+    @Test
+    public void testAbsentEntitiesArePaged() {
+        List<EntityVersionProto> entityVersions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entityVersions.add(entityVersion(new DeviceId(UUID.randomUUID())));
+        }
+        AbsentEntitiesEdgeEventFetcher fetcher = new AbsentEntitiesEdgeEventFetcher(EdgeSyncManifest.fromProto(entityVersions));
+
+        List<EdgeEvent> events = new ArrayList<>();
+        PageLink pageLink = fetcher.getPageLink(2);
+        PageData<EdgeEvent> pageData;
+        do {
+            pageData = fetcher.fetchEdgeEvents(tenantId, edge, pageLink);
+            Assert.assertEquals(3, pageData.getTotalPages());
+            Assert.assertEquals(5, pageData.getTotalElements());
+            events.addAll(pageData.getData());
+            pageLink = pageLink.nextPageLink();
+        } while (pageData.hasNext());
+
+        Assert.assertEquals(5, events.size());
+        Set<UUID> expectedIds = entityVersions.stream()
+                .map(v -> new UUID(v.getEntityIdMSB(), v.getEntityIdLSB()))
+                .collect(Collectors.toSet());
+        Assert.assertEquals(expectedIds, events.stream().map(EdgeEvent::getEntityId).collect(Collectors.toSet()));
+        Assert.assertTrue(fetcher.fetchEdgeEvents(tenantId, edge, pageLink).getData().isEmpty());
+    }
+
+    private EntityVersionProto entityVersion(EntityId entityId) {
+        return EntityVersionProto.newBuilder()
+                .setEntityType(entityId.getEntityType().name())
+                .setEntityIdMSB(entityId.getId().getMostSignificantBits())
+                .setEntityIdLSB(entityId.getId().getLeastSignificantBits())
+                .setVersionHash(1L)
+                .build();
+    }
+}
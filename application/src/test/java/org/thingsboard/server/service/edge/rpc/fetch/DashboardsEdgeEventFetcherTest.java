@@ -0,0 +1,127 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.edge.rpc.fetch;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.thingsboard.server.common.data.Dashboard;
+import org.thingsboard.server.common.data.DashboardInfo;
+import org.thingsboard.server.common.data.edge.Edge;
+import org.thingsboard.server.common.data.edge.EdgeEvent;
+import org.thingsboard.server.common.data.id.DashboardId;
+import org.thingsboard.server.common.data.id.EdgeId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.PageLink;
+import org.thingsboard.server.dao.dashboard.DashboardService;
+import org.thingsboard.server.gen.edge.v1.EntityVersionProto;
+import org.thingsboard.server.service.edge.rpc.EdgeSyncManifest;
+import org.thingsboard.server.service.edge.rpc.constructor.EntityVersionMsgConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DashboardsEdgeEventFetcherTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final Edge edge = new Edge(new EdgeId(UUID.randomUUID()));
+    private final Dashboard dashboard = new Dashboard(new DashboardId(UUID.randomUUID()));
+
+    private DashboardService dashboardService;
+    private EntityVersionMsgConstructor entityVersionMsgConstructor;
+
+    @Before
+    public void setUp() {
+        dashboardService = mock(DashboardService.class);
+        when(dashboardService.findDashboardsByTenantIdAndEdgeId(eq(tenantId), eq(edge.getId()), any()))
+                .thenReturn(new PageData<>(List.of(new DashboardInfo(dashboard)), 1, 1, false));
+        entityVersionMsgConstructor = mock(EntityVersionMsgConstructor.class);
+        when(entityVersionMsgConstructor.getVersionHash(any(Dashboard.class))).thenReturn(42L);
+    }
+
+    @Test
+    public void testUpToDateDashboardIsSkipped() {
+        when(dashboardService.findDashboardById(tenantId, dashboard.getId())).thenReturn(dashboard);
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(List.of(entityVersion(42L)));
+
+        Assert.assertTrue(fetch(syncManifest).isEmpty());
+        Assert.assertTrue(syncManifest.getAbsentEntityIds(dashboard.getId().getEntityType()).isEmpty());
+    }
+
+    @Test
+    public void testChangedDashboardIsPushed() {
+        when(dashboardService.findDashboardById(tenantId, dashboard.getId())).thenReturn(dashboard);
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(List.of(entityVersion(43L)));
+
+        List<EdgeEvent> events = fetch(syncManifest);
+
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(dashboard.getId().getId(), events.get(0).getEntityId());
+        Assert.assertTrue(syncManifest.getAbsentEntityIds(dashboard.getId().getEntityType()).isEmpty());
+    }
+
+    @Test
+    public void testDashboardAbsentOnEdgeIsPushedWithoutLoading() {
+        DashboardId otherDashboardId = new DashboardId(UUID.randomUUID());
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(List.of(EntityVersionProto.newBuilder()
+                .setEntityType(otherDashboardId.getEntityType().name())
+                .setEntityIdMSB(otherDashboardId.getId().getMostSignificantBits())
+                .setEntityIdLSB(otherDashboardId.getId().getLeastSignificantBits())
+                .setVersionHash(42L)
+                .build()));
+
+        Assert.assertEquals(1, fetch(syncManifest).size());
+        verify(dashboardService, never()).findDashboardById(any(), any());
+        Assert.assertEquals(List.of(otherDashboardId), syncManifest.getAbsentEntityIds(otherDashboardId.getEntityType()));
+    }
+
+    @Test
+    public void testDashboardRemovedDuringSyncIsPushed() {
+        EdgeSyncManifest syncManifest = EdgeSyncManifest.fromProto(List.of(entityVersion(42L)));
+
+        Assert.assertEquals(1, fetch(syncManifest).size());
+        Assert.assertEquals(List.of(dashboard.getId()), syncManifest.getAbsentEntityIds(dashboard.getId().getEntityType()));
+    }
+
+    @Test
+    public void testAllDashboardsArePushedWithoutManifest() {
+        Assert.assertEquals(1, fetch(null).size());
+        verify(dashboardService, never()).findDashboardById(any(), any());
+    }
+
+    private List<EdgeEvent> fetch(EdgeSyncManifest syncManifest) {
+        DashboardsEdgeEventFetcher fetcher = new DashboardsEdgeEventFetcher(dashboardService, syncManifest, entityVersionMsgConstructor);
+        PageLink pageLink = fetcher.getPageLink(100);
+        return fetcher.fetchEdgeEvents(tenantId, edge, pageLink).getData();
+    }
+
+    private EntityVersionProto entityVersion(long versionHash) {
+        return EntityVersionProto.newBuilder()
+                .setEntityType(dashboard.getId().getEntityType().name())
+                .setEntityIdMSB(dashboard.getId().getId().getMostSignificantBits())
+                .setEntityIdLSB(dashboard.getId().getId().getLeastSignificantBits())
+                .setVersionHash(versionHash)
+                .build();
+    }
+}
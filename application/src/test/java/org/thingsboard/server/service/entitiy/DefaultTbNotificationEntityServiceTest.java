@@ -0,0 +1,122 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.entitiy;
+
+import com.google.common.util.concurrent.Futures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.cluster.TbClusterService;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.Tenant;
+import org.thingsboard.server.common.data.audit.ActionType;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.dao.device.DeviceService;
+import org.thingsboard.server.service.action.EntityActionService;
+import org.thingsboard.server.service.gateway_device.GatewayNotificationsService;
+import org.thingsboard.server.service.security.ownership.DefaultTbEntityOwnershipCache;
+import org.thingsboard.server.service.security.ownership.EntityOwnership;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultTbNotificationEntityServiceTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+    private final AtomicReference<Device> storedDevice = new AtomicReference<>();
+
+    private DefaultTbEntityOwnershipCache ownershipCache;
+    private DefaultTbNotificationEntityService notificationEntityService;
+
+    @BeforeEach
+    void setUp() {
+        DeviceService deviceService = mock(DeviceService.class);
+        when(deviceService.findDeviceByIdAsync(any(), eq(deviceId))).thenAnswer(invocation -> Futures.immediateFuture(storedDevice.get()));
+
+        ownershipCache = new DefaultTbEntityOwnershipCache();
+        ReflectionTestUtils.setField(ownershipCache, "maxSize", 1000L);
+        ReflectionTestUtils.setField(ownershipCache, "ttlInSec", 60L);
+        ReflectionTestUtils.setField(ownershipCache, "deviceService", deviceService);
+        ownershipCache.init();
+
+        notificationEntityService = new DefaultTbNotificationEntityService(mock(EntityActionService.class),
+                mock(TbClusterService.class), mock(GatewayNotificationsService.class), ownershipCache);
+    }
+
+    @Test
+    void givenCachedOwnership_whenDeviceAssignedToCustomer_thenOwnershipReloaded() throws Exception {
+        storedDevice.set(newDevice(tenantId, null));
+        assertThat(getOwnership()).isEqualTo(new EntityOwnership(tenantId, null));
+
+        CustomerId customerId = new CustomerId(UUID.randomUUID());
+        Device device = newDevice(tenantId, customerId);
+        storedDevice.set(device);
+        notificationEntityService.notifyAssignOrUnassignEntityToCustomer(tenantId, deviceId, customerId, device,
+                ActionType.ASSIGNED_TO_CUSTOMER, null, false);
+
+        assertThat(getOwnership()).isEqualTo(new EntityOwnership(tenantId, customerId));
+    }
+
+    @Test
+    void givenCachedOwnership_whenDeviceUnassignedFromCustomer_thenOwnershipReloaded() throws Exception {
+        CustomerId customerId = new CustomerId(UUID.randomUUID());
+        storedDevice.set(newDevice(tenantId, customerId));
+        assertThat(getOwnership()).isEqualTo(new EntityOwnership(tenantId, customerId));
+
+        Device device = newDevice(tenantId, null);
+        storedDevice.set(device);
+        notificationEntityService.notifyAssignOrUnassignEntityToCustomer(tenantId, deviceId, customerId, device,
+                ActionType.UNASSIGNED_FROM_CUSTOMER, null, false);
+
+        assertThat(getOwnership()).isEqualTo(new EntityOwnership(tenantId, null));
+    }
+
+    @Test
+    void givenCachedOwnership_whenDeviceAssignedToTenant_thenOwnershipReloaded() throws Exception {
+        storedDevice.set(newDevice(tenantId, null));
+        assertThat(getOwnership()).isEqualTo(new EntityOwnership(tenantId, null));
+
+        TenantId newTenantId = TenantId.fromUUID(UUID.randomUUID());
+        Tenant tenant = new Tenant(tenantId);
+        tenant.setTitle("Tenant");
+        Device device = newDevice(newTenantId, null);
+        storedDevice.set(device);
+        notificationEntityService.notifyAssignDeviceToTenant(tenantId, newTenantId, deviceId, null, device, tenant, null);
+
+        assertThat(getOwnership()).isEqualTo(new EntityOwnership(newTenantId, null));
+    }
+
+    private EntityOwnership getOwnership() throws Exception {
+        return ownershipCache.get(deviceId).get(10, TimeUnit.SECONDS);
+    }
+
+    private Device newDevice(TenantId tenantId, CustomerId customerId) {
+        Device device = new Device(deviceId);
+        device.setTenantId(tenantId);
+        device.setCustomerId(customerId);
+        return device;
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.queue;
+
+import com.google.common.util.concurrent.Futures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.actors.ActorSystemContext;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.id.AssetId;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DashboardId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EdgeId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityViewId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.plugin.ComponentLifecycleEvent;
+import org.thingsboard.server.common.msg.plugin.ComponentLifecycleMsg;
+import org.thingsboard.server.common.msg.queue.TbCallback;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.device.DeviceService;
+import org.thingsboard.server.dao.tenant.TbTenantProfileCache;
+import org.thingsboard.server.gen.transport.TransportProtos.LocalSubscriptionServiceMsgProto;
+import org.thingsboard.server.gen.transport.TransportProtos.TbSubscriptionUpdateProto;
+import org.thingsboard.server.queue.discovery.PartitionService;
+import org.thingsboard.server.queue.provider.TbCoreQueueFactory;
+import org.thingsboard.server.queue.util.DataDecodingEncodingService;
+import org.thingsboard.server.service.apiusage.TbApiUsageStateService;
+import org.thingsboard.server.service.cloud.CloudNotificationService;
+import org.thingsboard.server.service.edge.EdgeNotificationService;
+import org.thingsboard.server.service.ota.OtaPackageStateService;
+import org.thingsboard.server.service.profile.TbAssetProfileCache;
+import org.thingsboard.server.service.profile.TbDeviceProfileCache;
+import org.thingsboard.server.service.rpc.TbCoreDeviceRpcService;
+import org.thingsboard.server.service.security.ownership.DefaultTbEntityOwnershipCache;
+import org.thingsboard.server.service.security.ownership.TbEntityOwnershipCache;
+import org.thingsboard.server.service.state.DeviceStateService;
+import org.thingsboard.server.service.subscription.SubscriptionManagerService;
+import org.thingsboard.server.service.subscription.TbLocalSubscriptionService;
+import org.thingsboard.server.service.sync.vc.GitVersionControlQueueService;
+import org.thingsboard.server.service.telemetry.sub.TelemetrySubscriptionUpdate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DefaultTbCoreConsumerServiceTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+
+    private TbLocalSubscriptionService localSubscriptionService;
+    private TbEntityOwnershipCache entityOwnershipCache;
+    private DefaultTbCoreConsumerService consumerService;
+
+    @BeforeEach
+    void setUp() {
+        localSubscriptionService = mock(TbLocalSubscriptionService.class);
+        entityOwnershipCache = mock(TbEntityOwnershipCache.class);
+        consumerService = newConsumerService(entityOwnershipCache);
+    }
+
+    @Test
+    void givenSingleSubUpdate_whenForwarded_thenCallbackPassedToSubscriptionService() {
+        TbCallback callback = mock(TbCallback.class);
+        LocalSubscriptionServiceMsgProto msg = LocalSubscriptionServiceMsgProto.newBuilder()
+                .setSubUpdate(newSubUpdate("session", 1))
+                .build();
+
+        consumerService.forwardToLocalSubMgrService(msg, callback);
+
+        verify(localSubscriptionService).onSubscriptionUpdate(eq("session"), any(TelemetrySubscriptionUpdate.class), eq(callback));
+    }
+
+    @Test
+    void givenMergedSubUpdates_whenForwarded_thenEachUpdateDeliveredAndCallbackCompletedOnce() {
+        TbCallback callback = mock(TbCallback.class);
+        LocalSubscriptionServiceMsgProto msg = LocalSubscriptionServiceMsgProto.newBuilder()
+                .addSubUpdates(newSubUpdate("first", 1))
+                .addSubUpdates(newSubUpdate("second", 2))
+                .build();
+
+        consumerService.forwardToLocalSubMgrService(msg, callback);
+
+        ArgumentCaptor<TelemetrySubscriptionUpdate> updateCaptor = ArgumentCaptor.forClass(TelemetrySubscriptionUpdate.class);
+        verify(localSubscriptionService).onSubscriptionUpdate(eq("first"), updateCaptor.capture(), eq(TbCallback.EMPTY));
+        verify(localSubscriptionService).onSubscriptionUpdate(eq("second"), updateCaptor.capture(), eq(TbCallback.EMPTY));
+        assertThat(updateCaptor.getAllValues().stream().map(TelemetrySubscriptionUpdate::getSubscriptionId).collect(Collectors.toList()))
+                .containsExactly(1, 2);
+        verify(callback, times(1)).onSuccess();
+    }
+
+    @Test
+    void givenEmptyMsg_whenForwarded_thenFailed() {
+        TbCallback callback = mock(TbCallback.class);
+
+        consumerService.forwardToLocalSubMgrService(LocalSubscriptionServiceMsgProto.getDefaultInstance(), callback);
+
+        verify(callback).onFailure(any());
+    }
+
+    @Test
+    void givenOwnedEntityLifecycleMsg_whenHandled_thenOwnershipEvicted() {
+        List<EntityId> entityIds = List.of(new DeviceId(UUID.randomUUID()), new AssetId(UUID.randomUUID()),
+                new EntityViewId(UUID.randomUUID()), new EdgeId(UUID.randomUUID()), new CustomerId(UUID.randomUUID()));
+        for (EntityId entityId : entityIds) {
+            for (ComponentLifecycleEvent event : List.of(ComponentLifecycleEvent.CREATED, ComponentLifecycleEvent.UPDATED, ComponentLifecycleEvent.DELETED)) {
+                consumerService.onComponentLifecycleMsg(new ComponentLifecycleMsg(tenantId, entityId, event));
+            }
+            verify(entityOwnershipCache, times(3)).evict(entityId);
+        }
+
+        DashboardId dashboardId = new DashboardId(UUID.randomUUID());
+        consumerService.onComponentLifecycleMsg(new ComponentLifecycleMsg(tenantId, dashboardId, ComponentLifecycleEvent.UPDATED));
+        verify(entityOwnershipCache, never()).evict(dashboardId);
+    }
+
+    @Test
+    void givenCachedOwnership_whenLifecycleMsgHandled_thenOwnershipReloaded() throws Exception {
+        DeviceService deviceService = mock(DeviceService.class);
+        DefaultTbEntityOwnershipCache ownershipCache = new DefaultTbEntityOwnershipCache();
+        ReflectionTestUtils.setField(ownershipCache, "maxSize", 1000L);
+        ReflectionTestUtils.setField(ownershipCache, "ttlInSec", 60L);
+        ReflectionTestUtils.setField(ownershipCache, "deviceService", deviceService);
+        ownershipCache.init();
+        DefaultTbCoreConsumerService consumerService = newConsumerService(ownershipCache);
+        DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+        for (ComponentLifecycleEvent event : List.of(ComponentLifecycleEvent.CREATED, ComponentLifecycleEvent.UPDATED)) {
+            CustomerId oldCustomerId = new CustomerId(UUID.randomUUID());
+            CustomerId newCustomerId = new CustomerId(UUID.randomUUID());
+            when(deviceService.findDeviceByIdAsync(any(), eq(deviceId))).thenReturn(Futures.immediateFuture(newDevice(deviceId, oldCustomerId)));
+            ownershipCache.evict(deviceId);
+            assertThat(ownershipCache.get(deviceId).get(10, TimeUnit.SECONDS).getCustomerId()).isEqualTo(oldCustomerId);
+
+            when(deviceService.findDeviceByIdAsync(any(), eq(deviceId))).thenReturn(Futures.immediateFuture(newDevice(deviceId, newCustomerId)));
+            consumerService.onComponentLifecycleMsg(new ComponentLifecycleMsg(tenantId, deviceId, event));
+
+            assertThat(ownershipCache.get(deviceId).get(10, TimeUnit.SECONDS).getCustomerId()).as(event.name()).isEqualTo(newCustomerId);
+        }
+
+        when(deviceService.findDeviceByIdAsync(any(), eq(deviceId))).thenReturn(Futures.immediateFuture(null));
+        consumerService.onComponentLifecycleMsg(new ComponentLifecycleMsg(tenantId, deviceId, ComponentLifecycleEvent.DELETED));
+
+        assertThat(ownershipCache.get(deviceId).get(10, TimeUnit.SECONDS)).isNull();
+    }
+
+    private DefaultTbCoreConsumerService newConsumerService(TbEntityOwnershipCache entityOwnershipCache) {
+        TbApiUsageStateService apiUsageStateService = mock(TbApiUsageStateService.class);
+        return new DefaultTbCoreConsumerService(mock(TbCoreQueueFactory.class), mock(ActorSystemContext.class),
+                mock(DeviceStateService.class), localSubscriptionService, mock(SubscriptionManagerService.class),
+                mock(DataDecodingEncodingService.class), mock(TbCoreDeviceRpcService.class), mock(StatsFactory.class),
+                mock(TbDeviceProfileCache.class), mock(TbAssetProfileCache.class), apiUsageStateService,
+                mock(TbTenantProfileCache.class), apiUsageStateService, mock(EdgeNotificationService.class),
+                mock(OtaPackageStateService.class), mock(GitVersionControlQueueService.class), mock(CloudNotificationService.class),
+                entityOwnershipCache, mock(PartitionService.class), Optional.empty());
+    }
+
+    private Device newDevice(DeviceId deviceId, CustomerId customerId) {
+        Device device = new Device(deviceId);
+        device.setTenantId(tenantId);
+        device.setCustomerId(customerId);
+        return device;
+    }
+
+    private static TbSubscriptionUpdateProto newSubUpdate(String sessionId, int subscriptionId) {
+        return TbSubscriptionUpdateProto.newBuilder()
+                .setSessionId(sessionId)
+                .setSubscriptionId(subscriptionId)
+                .build();
+    }
+
+}
@@ -0,0 +1,292 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.security;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.Customer;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.EntityView;
+import org.thingsboard.server.common.data.asset.Asset;
+import org.thingsboard.server.common.data.edge.Edge;
+import org.thingsboard.server.common.data.id.AssetId;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EdgeId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityViewId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.id.UserId;
+import org.thingsboard.server.common.data.security.Authority;
+import org.thingsboard.server.dao.asset.AssetService;
+import org.thingsboard.server.dao.customer.CustomerService;
+import org.thingsboard.server.dao.device.DeviceService;
+import org.thingsboard.server.dao.edge.EdgeService;
+import org.thingsboard.server.dao.entityview.EntityViewService;
+import org.thingsboard.server.service.security.model.SecurityUser;
+import org.thingsboard.server.service.security.ownership.DefaultTbEntityOwnershipCache;
+import org.thingsboard.server.service.security.ownership.EntityOwnership;
+import org.thingsboard.server.service.security.permission.CustomerUserPermissions;
+import org.thingsboard.server.service.security.permission.DefaultAccessControlService;
+import org.thingsboard.server.service.security.permission.Operation;
+import org.thingsboard.server.service.security.permission.SysAdminPermissions;
+import org.thingsboard.server.service.security.permission.TenantAdminPermissions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AccessValidatorTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final CustomerId customerId = new CustomerId(UUID.randomUUID());
+    private final CustomerId otherCustomerId = new CustomerId(UUID.randomUUID());
+
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+    private final AssetId assetId = new AssetId(UUID.randomUUID());
+    private final EntityViewId entityViewId = new EntityViewId(UUID.randomUUID());
+    private final EdgeId edgeId = new EdgeId(UUID.randomUUID());
+    private final List<EntityId> customerEntityIds = List.of(deviceId, assetId, entityViewId, edgeId);
+
+    // ownership of the entities as stored in the database, a customer is owned by itself
+    private final Map<EntityId, EntityOwnership> owners = new ConcurrentHashMap<>();
+
+    private DeviceService deviceService;
+    private AssetService assetService;
+    private EntityViewService entityViewService;
+    private EdgeService edgeService;
+    private CustomerService customerService;
+    private DefaultTbEntityOwnershipCache ownershipCache;
+    private AccessValidator accessValidator;
+
+    @BeforeEach
+    void setUp() {
+        deviceService = mock(DeviceService.class);
+        when(deviceService.findDeviceByIdAsync(any(), any())).thenAnswer(invocation -> {
+            DeviceId id = invocation.getArgument(1);
+            return findEntity(id, owner -> {
+                Device device = new Device(id);
+                device.setTenantId(owner.getTenantId());
+                device.setCustomerId(owner.getCustomerId());
+                return device;
+            });
+        });
+        assetService = mock(AssetService.class);
+        when(assetService.findAssetByIdAsync(any(), any())).thenAnswer(invocation -> {
+            AssetId id = invocation.getArgument(1);
+            return findEntity(id, owner -> {
+                Asset asset = new Asset(id);
+                asset.setTenantId(owner.getTenantId());
+                asset.setCustomerId(owner.getCustomerId());
+                return asset;
+            });
+        });
+        entityViewService = mock(EntityViewService.class);
+        when(entityViewService.findEntityViewByIdAsync(any(), any())).thenAnswer(invocation -> {
+            EntityViewId id = invocation.getArgument(1);
+            return findEntity(id, owner -> {
+                EntityView entityView = new EntityView(id);
+                entityView.setTenantId(owner.getTenantId());
+                entityView.setCustomerId(owner.getCustomerId());
+                return entityView;
+            });
+        });
+        edgeService = mock(EdgeService.class);
+        when(edgeService.findEdgeByIdAsync(any(), any())).thenAnswer(invocation -> {
+            EdgeId id = invocation.getArgument(1);
+            return findEntity(id, owner -> {
+                Edge edge = new Edge(id);
+                edge.setTenantId(owner.getTenantId());
+                edge.setCustomerId(owner.getCustomerId());
+                return edge;
+            });
+        });
+        customerService = mock(CustomerService.class);
+        when(customerService.findCustomerByIdAsync(any(), any())).thenAnswer(invocation -> {
+            CustomerId id = invocation.getArgument(1);
+            return findEntity(id, owner -> {
+                Customer customer = new Customer(id);
+                customer.setTenantId(owner.getTenantId());
+                return customer;
+            });
+        });
+
+        ownershipCache = new DefaultTbEntityOwnershipCache();
+        ReflectionTestUtils.setField(ownershipCache, "maxSize", 1000L);
+        ReflectionTestUtils.setField(ownershipCache, "ttlInSec", 60L);
+        ReflectionTestUtils.setField(ownershipCache, "deviceService", deviceService);
+        ReflectionTestUtils.setField(ownershipCache, "assetService", assetService);
+        ReflectionTestUtils.setField(ownershipCache, "entityViewService", entityViewService);
+        ReflectionTestUtils.setField(ownershipCache, "edgeService", edgeService);
+        ReflectionTestUtils.setField(ownershipCache, "customerService", customerService);
+        ownershipCache.init();
+
+        accessValidator = new AccessValidator();
+        ReflectionTestUtils.setField(accessValidator, "entityOwnershipCache", ownershipCache);
+        ReflectionTestUtils.setField(accessValidator, "accessControlService", new DefaultAccessControlService(
+                new SysAdminPermissions(), new TenantAdminPermissions(), new CustomerUserPermissions()));
+        accessValidator.initExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessValidator.shutdownExecutor();
+    }
+
+    @Test
+    void givenOwnershipCached_whenValidatedByOtherTenant_thenNotFound() throws Exception {
+        TenantId otherTenantId = TenantId.fromUUID(UUID.randomUUID());
+        for (EntityId entityId : allEntityIds()) {
+            owners.put(entityId, new EntityOwnership(tenantId, customerId));
+
+            assertThat(validate(tenantAdmin(tenantId), entityId)).as(entityId.toString()).isEqualTo(ValidationResultCode.OK);
+            assertThat(validate(tenantAdmin(otherTenantId), entityId)).as(entityId.toString()).isEqualTo(ValidationResultCode.ENTITY_NOT_FOUND);
+            assertThat(validate(customerUser(otherTenantId, customerId), entityId)).as(entityId.toString())
+                    .isEqualTo(ValidationResultCode.ENTITY_NOT_FOUND);
+        }
+        verifyLoadedTimes(1);
+    }
+
+    @Test
+    void givenOwnershipCached_whenValidatedByOtherCustomer_thenAccessDenied() throws Exception {
+        for (EntityId entityId : allEntityIds()) {
+            owners.put(entityId, new EntityOwnership(tenantId, customerId));
+
+            assertThat(validate(customerUser(tenantId, customerId), entityId)).as(entityId.toString()).isEqualTo(ValidationResultCode.OK);
+            assertThat(validate(customerUser(tenantId, otherCustomerId), entityId)).as(entityId.toString())
+                    .isEqualTo(ValidationResultCode.ACCESS_DENIED);
+        }
+        verifyLoadedTimes(1);
+    }
+
+    @Test
+    void givenMissingEntity_whenValidated_thenNotFoundAndNotCached() throws Exception {
+        for (EntityId entityId : allEntityIds()) {
+            assertThat(validate(tenantAdmin(tenantId), entityId)).as(entityId.toString()).isEqualTo(ValidationResultCode.ENTITY_NOT_FOUND);
+
+            owners.put(entityId, new EntityOwnership(tenantId, customerId));
+
+            assertThat(validate(tenantAdmin(tenantId), entityId)).as(entityId.toString()).isEqualTo(ValidationResultCode.OK);
+        }
+        verifyLoadedTimes(2);
+    }
+
+    @Test
+    void givenEntityReassigned_whenOwnershipEvicted_thenNewOwnershipValidated() throws Exception {
+        for (EntityId entityId : customerEntityIds) {
+            owners.put(entityId, new EntityOwnership(tenantId, customerId));
+            assertThat(validate(customerUser(tenantId, customerId), entityId)).as(entityId.toString()).isEqualTo(ValidationResultCode.OK);
+
+            owners.put(entityId, new EntityOwnership(tenantId, otherCustomerId));
+            ownershipCache.evict(entityId);
+
+            assertThat(validate(customerUser(tenantId, customerId), entityId)).as(entityId.toString())
+                    .isEqualTo(ValidationResultCode.ACCESS_DENIED);
+            assertThat(validate(customerUser(tenantId, otherCustomerId), entityId)).as(entityId.toString()).isEqualTo(ValidationResultCode.OK);
+        }
+    }
+
+    @Test
+    void givenEntityDeleted_whenOwnershipEvicted_thenNotFound() throws Exception {
+        for (EntityId entityId : allEntityIds()) {
+            owners.put(entityId, new EntityOwnership(tenantId, customerId));
+            assertThat(validate(tenantAdmin(tenantId), entityId)).as(entityId.toString()).isEqualTo(ValidationResultCode.OK);
+
+            owners.remove(entityId);
+            ownershipCache.evict(entityId);
+
+            assertThat(validate(tenantAdmin(tenantId), entityId)).as(entityId.toString()).isEqualTo(ValidationResultCode.ENTITY_NOT_FOUND);
+        }
+    }
+
+    @Test
+    void givenSystemAdmin_whenValidated_thenAccessDeniedWithoutLoading() throws Exception {
+        SecurityUser sysAdmin = new SecurityUser(new UserId(UUID.randomUUID()));
+        sysAdmin.setTenantId(TenantId.SYS_TENANT_ID);
+        sysAdmin.setAuthority(Authority.SYS_ADMIN);
+        for (EntityId entityId : allEntityIds()) {
+            owners.put(entityId, new EntityOwnership(tenantId, customerId));
+
+            assertThat(validate(sysAdmin, entityId)).as(entityId.toString()).isEqualTo(ValidationResultCode.ACCESS_DENIED);
+        }
+        verifyLoadedTimes(0);
+    }
+
+    private List<EntityId> allEntityIds() {
+        return List.of(deviceId, assetId, entityViewId, edgeId, customerId);
+    }
+
+    private ValidationResultCode validate(SecurityUser user, EntityId entityId) throws Exception {
+        SettableFuture<ValidationResult> result = SettableFuture.create();
+        accessValidator.validate(user, Operation.READ, entityId, new FutureCallback<>() {
+            @Override
+            public void onSuccess(ValidationResult validationResult) {
+                result.set(validationResult);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                result.setException(t);
+            }
+        });
+        return result.get(10, TimeUnit.SECONDS).getResultCode();
+    }
+
+    private void verifyLoadedTimes(int times) {
+        verify(deviceService, times(times)).findDeviceByIdAsync(any(), any());
+        verify(assetService, times(times)).findAssetByIdAsync(any(), any());
+        verify(entityViewService, times(times)).findEntityViewByIdAsync(any(), any());
+        verify(edgeService, times(times)).findEdgeByIdAsync(any(), any());
+        verify(customerService, times(times)).findCustomerByIdAsync(any(), any());
+    }
+
+    private ListenableFuture<Object> findEntity(EntityId entityId, Function<EntityOwnership, Object> entityBuilder) {
+        EntityOwnership owner = owners.get(entityId);
+        return Futures.immediateFuture(owner != null ? entityBuilder.apply(owner) : null);
+    }
+
+    private static SecurityUser tenantAdmin(TenantId tenantId) {
+        SecurityUser user = new SecurityUser(new UserId(UUID.randomUUID()));
+        user.setTenantId(tenantId);
+        user.setAuthority(Authority.TENANT_ADMIN);
+        return user;
+    }
+
+    private static SecurityUser customerUser(TenantId tenantId, CustomerId customerId) {
+        SecurityUser user = new SecurityUser(new UserId(UUID.randomUUID()));
+        user.setTenantId(tenantId);
+        user.setCustomerId(customerId);
+        user.setAuthority(Authority.CUSTOMER_USER);
+        return user;
+    }
+}
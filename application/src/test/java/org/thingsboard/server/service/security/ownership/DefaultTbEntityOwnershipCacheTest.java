@@ -0,0 +1,179 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.security.ownership;
+
+import com.google.common.util.concurrent.Futures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.Customer;
+import org.thingsboard.server.common.data.Device;
+import org.thingsboard.server.common.data.EntityView;
+import org.thingsboard.server.common.data.asset.Asset;
+import org.thingsboard.server.common.data.edge.Edge;
+import org.thingsboard.server.common.data.id.AssetId;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.DashboardId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EdgeId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityViewId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.dao.asset.AssetService;
+import org.thingsboard.server.dao.customer.CustomerService;
+import org.thingsboard.server.dao.device.DeviceService;
+import org.thingsboard.server.dao.edge.EdgeService;
+import org.thingsboard.server.dao.entityview.EntityViewService;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DefaultTbEntityOwnershipCacheTest {
+
+    private final TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+    private final CustomerId customerId = new CustomerId(UUID.randomUUID());
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+
+    private DeviceService deviceService;
+    private AssetService assetService;
+    private EntityViewService entityViewService;
+    private CustomerService customerService;
+    private EdgeService edgeService;
+    private DefaultTbEntityOwnershipCache ownershipCache;
+
+    @BeforeEach
+    void setUp() {
+        deviceService = mock(DeviceService.class);
+        assetService = mock(AssetService.class);
+        entityViewService = mock(EntityViewService.class);
+        customerService = mock(CustomerService.class);
+        edgeService = mock(EdgeService.class);
+
+        ownershipCache = new DefaultTbEntityOwnershipCache();
+        ReflectionTestUtils.setField(ownershipCache, "maxSize", 1000L);
+        ReflectionTestUtils.setField(ownershipCache, "ttlInSec", 60L);
+        ReflectionTestUtils.setField(ownershipCache, "deviceService", deviceService);
+        ReflectionTestUtils.setField(ownershipCache, "assetService", assetService);
+        ReflectionTestUtils.setField(ownershipCache, "entityViewService", entityViewService);
+        ReflectionTestUtils.setField(ownershipCache, "customerService", customerService);
+        ReflectionTestUtils.setField(ownershipCache, "edgeService", edgeService);
+        ownershipCache.init();
+    }
+
+    @Test
+    void givenCachedOwnership_whenGetAgain_thenNotLoadedAgain() throws Exception {
+        when(deviceService.findDeviceByIdAsync(any(), any())).thenReturn(Futures.immediateFuture(newDevice(customerId)));
+
+        assertThat(get(deviceId)).isEqualTo(new EntityOwnership(tenantId, customerId));
+        assertThat(get(deviceId)).isEqualTo(new EntityOwnership(tenantId, customerId));
+
+        verify(deviceService, times(1)).findDeviceByIdAsync(any(), any());
+    }
+
+    @Test
+    void givenOwnershipChanged_whenEvicted_thenReloaded() throws Exception {
+        CustomerId newCustomerId = new CustomerId(UUID.randomUUID());
+        when(deviceService.findDeviceByIdAsync(any(), any()))
+                .thenReturn(Futures.immediateFuture(newDevice(customerId)))
+                .thenReturn(Futures.immediateFuture(newDevice(newCustomerId)));
+        assertThat(get(deviceId).getCustomerId()).isEqualTo(customerId);
+
+        ownershipCache.evict(deviceId);
+
+        assertThat(get(deviceId).getCustomerId()).isEqualTo(newCustomerId);
+        verify(deviceService, times(2)).findDeviceByIdAsync(any(), any());
+    }
+
+    @Test
+    void givenMissingEntity_whenGet_thenNullIsNotCached() throws Exception {
+        when(deviceService.findDeviceByIdAsync(any(), any()))
+                .thenReturn(Futures.immediateFuture(null))
+                .thenReturn(Futures.immediateFuture(newDevice(customerId)));
+
+        assertThat(get(deviceId)).isNull();
+        assertThat(get(deviceId)).isEqualTo(new EntityOwnership(tenantId, customerId));
+        verify(deviceService, times(2)).findDeviceByIdAsync(any(), any());
+    }
+
+    @Test
+    void givenFailedLoad_whenGet_thenFailureIsNotCached() throws Exception {
+        when(deviceService.findDeviceByIdAsync(any(), any()))
+                .thenReturn(Futures.immediateFailedFuture(new RuntimeException("DB is not available")))
+                .thenReturn(Futures.immediateFuture(newDevice(customerId)));
+
+        assertThatThrownBy(() -> get(deviceId)).isInstanceOf(ExecutionException.class);
+        assertThat(get(deviceId)).isEqualTo(new EntityOwnership(tenantId, customerId));
+    }
+
+    @Test
+    void givenEachSupportedEntity_whenGet_thenOwnershipOfEntityReturned() throws Exception {
+        Asset asset = new Asset(new AssetId(UUID.randomUUID()));
+        asset.setTenantId(tenantId);
+        asset.setCustomerId(customerId);
+        when(assetService.findAssetByIdAsync(any(), any())).thenReturn(Futures.immediateFuture(asset));
+        EntityView entityView = new EntityView(new EntityViewId(UUID.randomUUID()));
+        entityView.setTenantId(tenantId);
+        entityView.setCustomerId(customerId);
+        when(entityViewService.findEntityViewByIdAsync(any(), any())).thenReturn(Futures.immediateFuture(entityView));
+        Edge edge = new Edge(new EdgeId(UUID.randomUUID()));
+        edge.setTenantId(tenantId);
+        edge.setCustomerId(customerId);
+        when(edgeService.findEdgeByIdAsync(any(), any())).thenReturn(Futures.immediateFuture(edge));
+        Customer customer = new Customer(customerId);
+        customer.setTenantId(tenantId);
+        when(customerService.findCustomerByIdAsync(any(), any())).thenReturn(Futures.immediateFuture(customer));
+
+        EntityOwnership expected = new EntityOwnership(tenantId, customerId);
+        assertThat(get(asset.getId())).isEqualTo(expected);
+        assertThat(get(entityView.getId())).isEqualTo(expected);
+        assertThat(get(edge.getId())).isEqualTo(expected);
+        assertThat(get(customerId)).isEqualTo(expected);
+    }
+
+    @Test
+    void givenNoEdgeService_whenGetEdge_thenNull() throws Exception {
+        ReflectionTestUtils.setField(ownershipCache, "edgeService", null);
+
+        assertThat(get(new EdgeId(UUID.randomUUID()))).isNull();
+    }
+
+    @Test
+    void givenUnsupportedEntity_whenGet_thenFailed() {
+        assertThatThrownBy(() -> get(new DashboardId(UUID.randomUUID())))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    private EntityOwnership get(EntityId entityId) throws Exception {
+        return ownershipCache.get(entityId).get(10, TimeUnit.SECONDS);
+    }
+
+    private Device newDevice(CustomerId customerId) {
+        Device device = new Device(deviceId);
+        device.setTenantId(tenantId);
+        device.setCustomerId(customerId);
+        return device;
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.subscription;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.AssetId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.queue.TbCallback;
+import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.gen.transport.TransportProtos.LocalSubscriptionServiceMsgProto;
+import org.thingsboard.server.gen.transport.TransportProtos.TbSubscriptionUpdateProto;
+import org.thingsboard.server.gen.transport.TransportProtos.ToCoreNotificationMsg;
+import org.thingsboard.server.queue.TbQueueProducer;
+import org.thingsboard.server.queue.common.TbProtoQueueMsg;
+import org.thingsboard.server.queue.discovery.NotificationsTopicService;
+import org.thingsboard.server.service.telemetry.sub.TelemetrySubscriptionUpdate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DefaultSubscriptionManagerServiceTest {
+
+    private static final String LOCAL_SERVICE_ID = "local";
+    private static final String REMOTE_SERVICE_ID = "remote";
+    private static final TenantId TENANT_ID = TenantId.fromUUID(UUID.randomUUID());
+    private static final EntityId ENTITY_ID = new AssetId(UUID.randomUUID());
+
+    private DefaultSubscriptionManagerService subscriptionManagerService;
+    private TbLocalSubscriptionService localSubscriptionService;
+    private TbQueueProducer<TbProtoQueueMsg<ToCoreNotificationMsg>> producer;
+    private TopicPartitionInfo remoteTpi;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        localSubscriptionService = mock(TbLocalSubscriptionService.class);
+        producer = mock(TbQueueProducer.class);
+        NotificationsTopicService notificationsTopicService = mock(NotificationsTopicService.class);
+        remoteTpi = new TopicPartitionInfo("tb_core.notifications." + REMOTE_SERVICE_ID, null, null, false);
+        when(notificationsTopicService.getNotificationsTopic(ServiceType.TB_CORE, REMOTE_SERVICE_ID)).thenReturn(remoteTpi);
+
+        subscriptionManagerService = new DefaultSubscriptionManagerService();
+        ReflectionTestUtils.setField(subscriptionManagerService, "localSubscriptionService", localSubscriptionService);
+        ReflectionTestUtils.setField(subscriptionManagerService, "notificationsTopicService", notificationsTopicService);
+        ReflectionTestUtils.setField(subscriptionManagerService, "toCoreNotificationsProducer", producer);
+        ReflectionTestUtils.setField(subscriptionManagerService, "serviceId", LOCAL_SERVICE_ID);
+
+        TbEntitySubscriptions entitySubscriptions = new TbEntitySubscriptions();
+        entitySubscriptions.add(newSubscription(LOCAL_SERVICE_ID, "local-session", 1));
+        entitySubscriptions.add(newSubscription(REMOTE_SERVICE_ID, "remote-session", 2));
+        entitySubscriptions.add(newSubscription(REMOTE_SERVICE_ID, "remote-session", 3));
+        Map<EntityId, TbEntitySubscriptions> subscriptionsByEntityId = getSubscriptionsByEntityId();
+        subscriptionsByEntityId.put(ENTITY_ID, entitySubscriptions);
+    }
+
+    @Test
+    void givenMergeDisabled_whenTimeSeriesUpdated_thenSingleUpdatePerRemoteNotification() {
+        subscriptionManagerService.onTimeSeriesUpdate(TENANT_ID, ENTITY_ID, List.of(newEntry()), TbCallback.EMPTY);
+
+        verify(localSubscriptionService).onSubscriptionUpdate(eq("local-session"), any(TelemetrySubscriptionUpdate.class), eq(TbCallback.EMPTY));
+        List<LocalSubscriptionServiceMsgProto> notifications = captureNotifications(2);
+        for (LocalSubscriptionServiceMsgProto notification : notifications) {
+            // the format every node understands
+            assertThat(notification.hasSubUpdate()).isTrue();
+            assertThat(notification.getSubUpdatesCount()).isZero();
+        }
+        assertThat(notifications.stream().map(n -> n.getSubUpdate().getSubscriptionId()).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(2, 3);
+    }
+
+    @Test
+    void givenMergeEnabled_whenTimeSeriesUpdated_thenOneNotificationPerRemoteService() {
+        ReflectionTestUtils.setField(subscriptionManagerService, "mergeRemoteSubUpdates", true);
+
+        subscriptionManagerService.onTimeSeriesUpdate(TENANT_ID, ENTITY_ID, List.of(newEntry()), TbCallback.EMPTY);
+
+        verify(localSubscriptionService).onSubscriptionUpdate(eq("local-session"), any(TelemetrySubscriptionUpdate.class), eq(TbCallback.EMPTY));
+        LocalSubscriptionServiceMsgProto notification = captureNotifications(1).get(0);
+        assertThat(notification.hasSubUpdate()).isFalse();
+        assertThat(notification.getSubUpdatesList().stream().map(TbSubscriptionUpdateProto::getSubscriptionId).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(2, 3);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<EntityId, TbEntitySubscriptions> getSubscriptionsByEntityId() {
+        return (Map<EntityId, TbEntitySubscriptions>) ReflectionTestUtils.getField(subscriptionManagerService, "subscriptionsByEntityId");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LocalSubscriptionServiceMsgProto> captureNotifications(int count) {
+        ArgumentCaptor<TbProtoQueueMsg<ToCoreNotificationMsg>> captor = ArgumentCaptor.forClass(TbProtoQueueMsg.class);
+        verify(producer, times(count)).send(eq(remoteTpi), captor.capture(), isNull());
+        return captor.getAllValues().stream()
+                .map(msg -> msg.getValue().getToLocalSubscriptionServiceMsg())
+                .collect(Collectors.toList());
+    }
+
+    private static TbTimeseriesSubscription newSubscription(String serviceId, String sessionId, int subscriptionId) {
+        return TbTimeseriesSubscription.builder()
+                .serviceId(serviceId).sessionId(sessionId).subscriptionId(subscriptionId).tenantId(TENANT_ID).entityId(ENTITY_ID)
+                .allKeys(true).latestValues(true).build();
+    }
+
+    private static TsKvEntry newEntry() {
+        return new BasicTsKvEntry(System.currentTimeMillis(), new LongDataEntry("temperature", 25L));
+    }
+
+}
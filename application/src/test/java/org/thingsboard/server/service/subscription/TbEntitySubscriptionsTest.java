@@ -0,0 +1,131 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.service.subscription;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.kv.BasicTsKvEntry;
+import org.thingsboard.server.common.data.kv.LongDataEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TbEntitySubscriptionsTest {
+
+    private static final TenantId TENANT_ID = TenantId.fromUUID(UUID.randomUUID());
+    private static final EntityId ENTITY_ID = new DeviceId(UUID.randomUUID());
+
+    private final TbEntitySubscriptions subscriptions = new TbEntitySubscriptions();
+
+    @Test
+    void givenKeySubscriptions_whenUpdated_thenOnlyMatchingKeysReturned() {
+        TbTimeseriesSubscription temperature = newTimeseriesSubscription(1, false, "temperature");
+        TbTimeseriesSubscription both = newTimeseriesSubscription(2, false, "temperature", "humidity");
+        TbTimeseriesSubscription pressure = newTimeseriesSubscription(3, false, "pressure");
+        subscriptions.add(temperature);
+        subscriptions.add(both);
+        subscriptions.add(pressure);
+
+        TsKvEntry temperatureEntry = newEntry("temperature", 25);
+        TsKvEntry humidityEntry = newEntry("humidity", 60);
+        Map<TbTimeseriesSubscription, List<TsKvEntry>> updates = subscriptions.getTimeseriesUpdates(List.of(temperatureEntry, humidityEntry));
+
+        assertThat(updates).containsOnlyKeys(temperature, both);
+        assertThat(updates.get(temperature)).containsExactly(temperatureEntry);
+        assertThat(updates.get(both)).containsExactly(temperatureEntry, humidityEntry);
+    }
+
+    @Test
+    void givenAllKeysSubscription_whenUpdated_thenAllEntriesReturned() {
+        TbTimeseriesSubscription allKeys = newTimeseriesSubscription(1, true);
+        subscriptions.add(allKeys);
+
+        List<TsKvEntry> entries = List.of(newEntry("temperature", 25), newEntry("humidity", 60));
+        Map<TbTimeseriesSubscription, List<TsKvEntry>> updates = subscriptions.getTimeseriesUpdates(entries);
+
+        assertThat(updates).containsOnlyKeys(allKeys);
+        assertThat(updates.get(allKeys)).containsExactlyElementsOf(entries);
+    }
+
+    @Test
+    void givenAttributeSubscriptions_whenUpdatedWithFilter_thenFilteredByScope() {
+        TbAttributeSubscription clientScope = newAttributeSubscription(1, TbAttributeSubscriptionScope.CLIENT_SCOPE, "config");
+        TbAttributeSubscription sharedScope = newAttributeSubscription(2, TbAttributeSubscriptionScope.SHARED_SCOPE, "config");
+        subscriptions.add(clientScope);
+        subscriptions.add(sharedScope);
+        // timeseries subscriptions to the same key must not get attribute updates
+        subscriptions.add(newTimeseriesSubscription(3, false, "config"));
+
+        Map<TbAttributeSubscription, List<TsKvEntry>> updates = subscriptions.getAttributesUpdates(List.of(newEntry("config", 1)),
+                s -> s.getScope() == TbAttributeSubscriptionScope.SHARED_SCOPE);
+
+        assertThat(updates).containsOnlyKeys(sharedScope);
+    }
+
+    @Test
+    void givenRemovedSubscriptions_whenUpdated_thenNotReturned() {
+        TbTimeseriesSubscription temperature = newTimeseriesSubscription(1, false, "temperature");
+        TbTimeseriesSubscription allKeys = newTimeseriesSubscription(2, true);
+        TbAlarmsSubscription alarms = TbAlarmsSubscription.builder()
+                .serviceId("service").sessionId("session").subscriptionId(3).tenantId(TENANT_ID).entityId(ENTITY_ID).build();
+        assertThat(subscriptions.add(temperature)).isTrue();
+        assertThat(subscriptions.add(temperature)).isFalse();
+        subscriptions.add(allKeys);
+        subscriptions.add(alarms);
+        assertThat(subscriptions.getAlarmsSubscriptions()).containsExactly(alarms);
+
+        subscriptions.remove(temperature);
+        subscriptions.remove(allKeys);
+        assertThat(subscriptions.getTimeseriesUpdates(List.of(newEntry("temperature", 25)))).isEmpty();
+        assertThat(subscriptions.isEmpty()).isFalse();
+
+        subscriptions.remove(alarms);
+        assertThat(subscriptions.getAlarmsSubscriptions()).isEmpty();
+        assertThat(subscriptions.isEmpty()).isTrue();
+    }
+
+    private static TbTimeseriesSubscription newTimeseriesSubscription(int subscriptionId, boolean allKeys, String... keys) {
+        return TbTimeseriesSubscription.builder()
+                .serviceId("service").sessionId("session").subscriptionId(subscriptionId).tenantId(TENANT_ID).entityId(ENTITY_ID)
+                .allKeys(allKeys).keyStates(toKeyStates(keys)).latestValues(true).build();
+    }
+
+    private static TbAttributeSubscription newAttributeSubscription(int subscriptionId, TbAttributeSubscriptionScope scope, String... keys) {
+        return TbAttributeSubscription.builder()
+                .serviceId("service").sessionId("session").subscriptionId(subscriptionId).tenantId(TENANT_ID).entityId(ENTITY_ID)
+                .keyStates(toKeyStates(keys)).scope(scope).build();
+    }
+
+    private static Map<String, Long> toKeyStates(String... keys) {
+        Map<String, Long> keyStates = new HashMap<>();
+        for (String key : keys) {
+            keyStates.put(key, 0L);
+        }
+        return keyStates;
+    }
+
+    private static TsKvEntry newEntry(String key, long value) {
+        return new BasicTsKvEntry(System.currentTimeMillis(), new LongDataEntry(key, value));
+    }
+
+}
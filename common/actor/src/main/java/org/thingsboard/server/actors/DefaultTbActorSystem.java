@@ -21,6 +21,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.common.msg.TbActorMsg;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -29,6 +30,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -43,6 +45,7 @@ public class DefaultTbActorSystem implements TbActorSystem {
     private final ConcurrentMap<TbActorId, TbActorMailbox> actors = new ConcurrentHashMap<>();
     private final ConcurrentMap<TbActorId, ReentrantLock> actorCreationLocks = new ConcurrentHashMap<>();
     private final ConcurrentMap<TbActorId, Set<TbActorId>> parentChildMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TbActorMailboxStats> mailboxStats = new ConcurrentHashMap<>();
 
     @Getter
     private final TbActorSystemSettings settings;
@@ -113,7 +116,11 @@ public class DefaultTbActorSystem implements TbActorSystem {
                             throw new TbActorNotRegisteredException(parent, "Parent Actor with id [" + parent + "] is not registered!");
                         }
                     }
-                    TbActorMailbox mailbox = new TbActorMailbox(this, settings, actorId, parentRef, actor, dispatcher);
+                    String actorType = getActorType(actorId);
+                    Integer capacity = settings.getMailboxCapacity().get(actorType);
+                    TbActorMailbox mailbox = new TbActorMailbox(this, settings, actorId, parentRef, actor, dispatcher,
+                            mailboxStats.computeIfAbsent(actorType, type -> new TbActorMailboxStats(type, settings.getMailboxStatsListenerFactory())),
+                            capacity != null && capacity > 0 ? new Semaphore(capacity) : null);
                     actors.put(actorId, mailbox);
                     mailbox.initActor();
                     actorMailbox = mailbox;
@@ -131,6 +138,15 @@ public class DefaultTbActorSystem implements TbActorSystem {
         return actorMailbox;
     }
 
+    private static String getActorType(TbActorId actorId) {
+        return actorId.getEntityType() != null ? actorId.getEntityType().name() : SYSTEM_ACTOR_TYPE;
+    }
+
+    @Override
+    public Collection<TbActorMailboxStats> getMailboxStats() {
+        return mailboxStats.values();
+    }
+
     @Override
     public void tellWithHighPriority(TbActorId target, TbActorMsg actorMsg) {
         tell(target, actorMsg, true);
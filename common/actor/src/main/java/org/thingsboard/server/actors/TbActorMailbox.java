@@ -16,6 +16,7 @@
 package org.thingsboard.server.actors;
 
 import lombok.Data;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.msg.MsgType;
@@ -24,6 +25,7 @@ import org.thingsboard.server.common.msg.TbActorStopReason;
 
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
@@ -47,8 +49,11 @@ public final class TbActorMailbox implements TbActorCtx {
     private final TbActorRef parentRef;
     private final TbActor actor;
     private final Dispatcher dispatcher;
-    private final ConcurrentLinkedQueue<TbActorMsg> highPriorityMsgs = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<TbActorMsg> normalPriorityMsgs = new ConcurrentLinkedQueue<>();
+    private final TbActorMailboxStats stats;
+    // permits for the normal priority messages, null if the mailbox is unbounded
+    private final Semaphore capacity;
+    private final ConcurrentLinkedQueue<MailboxMsg> highPriorityMsgs = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<MailboxMsg> normalPriorityMsgs = new ConcurrentLinkedQueue<>();
     private final AtomicBoolean busy = new AtomicBoolean(FREE);
     private final AtomicBoolean ready = new AtomicBoolean(NOT_READY);
     private final AtomicBoolean destroyInProgress = new AtomicBoolean();
@@ -91,10 +96,16 @@ public final class TbActorMailbox implements TbActorCtx {
     private void enqueue(TbActorMsg msg, boolean highPriority) {
         if (!destroyInProgress.get()) {
             if (highPriority) {
-                highPriorityMsgs.add(msg);
+                highPriorityMsgs.add(new MailboxMsg(msg));
+            } else if (tryAcquireCapacity()) {
+                normalPriorityMsgs.add(new MailboxMsg(msg));
             } else {
-                normalPriorityMsgs.add(msg);
+                log.debug("[{}] Mailbox is full, rejecting message: {}", selfId, msg);
+                stats.onRejected();
+                msg.onTbActorMailboxOverflow();
+                return;
             }
+            stats.onEnqueued();
             tryProcessQueue(true);
         } else {
             if (highPriority && msg.getMsgType().equals(MsgType.RULE_NODE_UPDATED_MSG)) {
@@ -113,6 +124,51 @@ public final class TbActorMailbox implements TbActorCtx {
         }
     }
 
+    private boolean tryAcquireCapacity() {
+        if (capacity == null || capacity.tryAcquire()) {
+            return true;
+        }
+        switch (settings.getMailboxOverflowPolicy()) {
+            case DROP_OLDEST:
+                while (true) {
+                    MailboxMsg oldest = normalPriorityMsgs.poll();
+                    if (oldest != null) {
+                        // the new message takes the permit of the dropped one
+                        log.debug("[{}] Mailbox is full, dropping the oldest message: {}", selfId, oldest.getMsg());
+                        stats.onDequeued();
+                        stats.onDropped();
+                        oldest.getMsg().onTbActorMailboxOverflow();
+                        return true;
+                    } else if (capacity.tryAcquire()) {
+                        return true;
+                    }
+                }
+            case BLOCK:
+                try {
+                    return capacity.tryAcquire(settings.getMailboxBlockTimeoutMs(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            default:
+                return false;
+        }
+    }
+
+    private MailboxMsg pollMsg() {
+        MailboxMsg mailboxMsg = highPriorityMsgs.poll();
+        if (mailboxMsg == null) {
+            mailboxMsg = normalPriorityMsgs.poll();
+            if (mailboxMsg != null && capacity != null) {
+                capacity.release();
+            }
+        }
+        if (mailboxMsg != null) {
+            stats.onDequeued();
+        }
+        return mailboxMsg;
+    }
+
     private void tryProcessQueue(boolean newMsg) {
         if (ready.get() == READY) {
             if (newMsg || !highPriorityMsgs.isEmpty() || !normalPriorityMsgs.isEmpty()) {
@@ -132,11 +188,10 @@ public final class TbActorMailbox implements TbActorCtx {
     private void processMailbox() {
         boolean noMoreElements = false;
         for (int i = 0; i < settings.getActorThroughput(); i++) {
-            TbActorMsg msg = highPriorityMsgs.poll();
-            if (msg == null) {
-                msg = normalPriorityMsgs.poll();
-            }
-            if (msg != null) {
+            MailboxMsg mailboxMsg = pollMsg();
+            if (mailboxMsg != null) {
+                TbActorMsg msg = mailboxMsg.getMsg();
+                stats.onProcessed(System.nanoTime() - mailboxMsg.getEnqueueTs());
                 try {
                     log.debug("[{}] Going to process message: {}", selfId, msg);
                     actor.process(msg);
@@ -217,8 +272,10 @@ public final class TbActorMailbox implements TbActorCtx {
             try {
                 ready.set(NOT_READY);
                 actor.destroy();
-                highPriorityMsgs.forEach(msg -> msg.onTbActorStopped(stopReason));
-                normalPriorityMsgs.forEach(msg -> msg.onTbActorStopped(stopReason));
+                MailboxMsg mailboxMsg;
+                while ((mailboxMsg = pollMsg()) != null) {
+                    mailboxMsg.getMsg().onTbActorStopped(stopReason);
+                }
             } catch (Throwable t) {
                 log.warn("[{}] Failed to destroy actor: {}", selfId, t);
             }
@@ -240,4 +297,15 @@ public final class TbActorMailbox implements TbActorCtx {
         enqueue(actorMsg, HIGH_PRIORITY);
     }
 
+    @Getter
+    private static final class MailboxMsg {
+        private final TbActorMsg msg;
+        private final long enqueueTs;
+
+        MailboxMsg(TbActorMsg msg) {
+            this.msg = msg;
+            this.enqueueTs = System.nanoTime();
+        }
+    }
+
 }
@@ -0,0 +1,34 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+public enum TbActorMailboxOverflowPolicy {
+
+    /**
+     * The new message is not queued and fails with {@link org.thingsboard.server.common.msg.TbActorMsg#onTbActorMailboxOverflow()}.
+     */
+    REJECT,
+    /**
+     * The oldest queued message fails with {@link org.thingsboard.server.common.msg.TbActorMsg#onTbActorMailboxOverflow()}
+     * and the new message is queued instead.
+     */
+    DROP_OLDEST,
+    /**
+     * The producer waits for the free space in the mailbox up to the configured timeout, then the message is rejected.
+     */
+    BLOCK
+
+}
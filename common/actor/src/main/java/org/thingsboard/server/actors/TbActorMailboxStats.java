@@ -0,0 +1,95 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.actors;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Mailbox statistics of all actors of the same type.
+ */
+@Getter
+public class TbActorMailboxStats {
+
+    private final String actorType;
+    private final AtomicLong queueSize = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong intervalProcessed = new AtomicLong();
+    private final AtomicLong intervalWaitNs = new AtomicLong();
+    private final AtomicLong intervalMaxWaitNs = new AtomicLong();
+    private final TbActorMailboxStatsListener listener;
+
+    public TbActorMailboxStats(String actorType) {
+        this(actorType, null);
+    }
+
+    /**
+     * @param listenerFactory creates the listener of the mailbox events of this actor type, may be null
+     */
+    public TbActorMailboxStats(String actorType, Function<TbActorMailboxStats, TbActorMailboxStatsListener> listenerFactory) {
+        this.actorType = actorType;
+        this.listener = listenerFactory != null ? listenerFactory.apply(this) : null;
+    }
+
+    void onEnqueued() {
+        queueSize.incrementAndGet();
+    }
+
+    void onDequeued() {
+        queueSize.decrementAndGet();
+    }
+
+    void onProcessed(long waitNs) {
+        processed.incrementAndGet();
+        intervalProcessed.incrementAndGet();
+        intervalWaitNs.addAndGet(waitNs);
+        intervalMaxWaitNs.accumulateAndGet(waitNs, Math::max);
+        if (listener != null) {
+            listener.onProcessed(waitNs);
+        }
+    }
+
+    void onRejected() {
+        rejected.incrementAndGet();
+        if (listener != null) {
+            listener.onRejected();
+        }
+    }
+
+    void onDropped() {
+        dropped.incrementAndGet();
+        if (listener != null) {
+            listener.onDropped();
+        }
+    }
+
+    public long getAndResetIntervalProcessed() {
+        return intervalProcessed.getAndSet(0);
+    }
+
+    public long getAndResetIntervalWaitNs() {
+        return intervalWaitNs.getAndSet(0);
+    }
+
+    public long getAndResetIntervalMaxWaitNs() {
+        return intervalMaxWaitNs.getAndSet(0);
+    }
+
+}
@@ -17,6 +17,7 @@ package org.thingsboard.server.actors;
 
 import org.thingsboard.server.common.msg.TbActorMsg;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -24,6 +25,11 @@ import java.util.function.Predicate;
 
 public interface TbActorSystem {
 
+    /**
+     * Type of the actors that are not bound to an entity, e.g. the app actor.
+     */
+    String SYSTEM_ACTOR_TYPE = "SYSTEM";
+
     ScheduledExecutorService getScheduler();
 
     void createDispatcher(String dispatcherId, ExecutorService executor);
@@ -51,4 +57,9 @@ public interface TbActorSystem {
     void broadcastToChildren(TbActorId parent, Predicate<TbActorId> childFilter, TbActorMsg msg);
 
     List<TbActorId> filterChildren(TbActorId parent, Predicate<TbActorId> childFilter);
+
+    /**
+     * @return mailbox statistics per actor type. Actor type is the entity type of the actor id, or {@link #SYSTEM_ACTOR_TYPE}
+     */
+    Collection<TbActorMailboxStats> getMailboxStats();
 }
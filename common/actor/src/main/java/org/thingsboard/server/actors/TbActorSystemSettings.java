@@ -17,6 +17,10 @@ package org.thingsboard.server.actors;
 
 import lombok.Data;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
 @Data
 public class TbActorSystemSettings {
 
@@ -24,4 +28,15 @@ public class TbActorSystemSettings {
     private final int schedulerPoolSize;
     private final int maxActorInitAttempts;
 
+    /**
+     * Max number of normal priority messages queued per actor, by actor type. Mailboxes of other actor types are unbounded.
+     */
+    private Map<String, Integer> mailboxCapacity = Collections.emptyMap();
+    private TbActorMailboxOverflowPolicy mailboxOverflowPolicy = TbActorMailboxOverflowPolicy.REJECT;
+    private long mailboxBlockTimeoutMs = 1000;
+    /**
+     * Creates the listener of the mailbox events per actor type. No listeners are created if null.
+     */
+    private Function<TbActorMailboxStats, TbActorMailboxStatsListener> mailboxStatsListenerFactory;
+
 }
@@ -24,9 +24,11 @@ import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.thingsboard.common.util.ThingsBoardExecutors;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.common.data.EntityType;
 import org.thingsboard.server.common.data.id.DeviceId;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
@@ -202,6 +204,143 @@ public class ActorSystemTest {
         Assert.assertTrue(testCtx1.getLatch().await(3, TimeUnit.SECONDS));
     }
 
+    @Test
+    public void testMailboxOverflow() throws InterruptedException {
+        TbActorSystemSettings settings = new TbActorSystemSettings(5, parallelism, 42);
+        settings.setMailboxCapacity(Collections.singletonMap(EntityType.DEVICE.name(), 3));
+        restartActorSystem(settings);
+        ActorTestCtx testCtx = getActorTestCtx(3);
+        List<Integer> overflowed = Collections.synchronizedList(new ArrayList<>());
+
+        TbActorRef actorRef = actorSystem.createRootActor(ROOT_DISPATCHER, new SlowInitActor.SlowInitActorCreator(
+                new TbEntityActorId(new DeviceId(UUID.randomUUID())), testCtx));
+        for (int i = 1; i <= 5; i++) {
+            actorRef.tell(newOverflowAwareMsg(i, overflowed));
+        }
+
+        // the new messages are rejected
+        Assert.assertEquals(List.of(4, 5), overflowed);
+        Assert.assertTrue(testCtx.getLatch().await(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS));
+        Assert.assertEquals(6, testCtx.getActual().get());
+        TbActorMailboxStats stats = actorSystem.getMailboxStats().iterator().next();
+        Assert.assertEquals(EntityType.DEVICE.name(), stats.getActorType());
+        Assert.assertEquals(2, stats.getRejected().get());
+        Assert.assertEquals(3, stats.getProcessed().get());
+        Assert.assertEquals(0, stats.getQueueSize().get());
+    }
+
+    @Test
+    public void testMailboxOverflowDropOldest() throws InterruptedException {
+        TbActorSystemSettings settings = new TbActorSystemSettings(5, parallelism, 42);
+        settings.setMailboxCapacity(Collections.singletonMap(EntityType.DEVICE.name(), 3));
+        settings.setMailboxOverflowPolicy(TbActorMailboxOverflowPolicy.DROP_OLDEST);
+        AtomicInteger listenerProcessed = new AtomicInteger();
+        AtomicInteger listenerDropped = new AtomicInteger();
+        settings.setMailboxStatsListenerFactory(mailboxStats -> new TbActorMailboxStatsListener() {
+            @Override
+            public void onProcessed(long waitNs) {
+                listenerProcessed.incrementAndGet();
+            }
+
+            @Override
+            public void onRejected() {
+            }
+
+            @Override
+            public void onDropped() {
+                listenerDropped.incrementAndGet();
+            }
+        });
+        restartActorSystem(settings);
+        ActorTestCtx testCtx = getActorTestCtx(3);
+        List<Integer> overflowed = Collections.synchronizedList(new ArrayList<>());
+
+        TbActorRef actorRef = actorSystem.createRootActor(ROOT_DISPATCHER, new SlowInitActor.SlowInitActorCreator(
+                new TbEntityActorId(new DeviceId(UUID.randomUUID())), testCtx));
+        for (int i = 1; i <= 5; i++) {
+            actorRef.tell(newOverflowAwareMsg(i, overflowed));
+        }
+
+        // the oldest messages are dropped in favor of the new ones
+        Assert.assertEquals(List.of(1, 2), overflowed);
+        Assert.assertTrue(testCtx.getLatch().await(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS));
+        Assert.assertEquals(12, testCtx.getActual().get());
+        TbActorMailboxStats stats = actorSystem.getMailboxStats().iterator().next();
+        Assert.assertEquals(2, stats.getDropped().get());
+        Assert.assertEquals(0, stats.getRejected().get());
+        Assert.assertEquals(3, stats.getProcessed().get());
+        Assert.assertEquals(0, stats.getQueueSize().get());
+        Assert.assertEquals(3, listenerProcessed.get());
+        Assert.assertEquals(2, listenerDropped.get());
+    }
+
+    @Test
+    public void testMailboxOverflowBlock() throws InterruptedException {
+        TbActorSystemSettings settings = new TbActorSystemSettings(5, parallelism, 42);
+        settings.setMailboxCapacity(Collections.singletonMap(EntityType.DEVICE.name(), 3));
+        settings.setMailboxOverflowPolicy(TbActorMailboxOverflowPolicy.BLOCK);
+        settings.setMailboxBlockTimeoutMs(TimeUnit.SECONDS.toMillis(TIMEOUT_AWAIT_MAX_SEC));
+        restartActorSystem(settings);
+        ActorTestCtx testCtx = getActorTestCtx(5);
+        List<Integer> overflowed = Collections.synchronizedList(new ArrayList<>());
+
+        TbActorRef actorRef = actorSystem.createRootActor(ROOT_DISPATCHER, new SlowInitActor.SlowInitActorCreator(
+                new TbEntityActorId(new DeviceId(UUID.randomUUID())), testCtx));
+        long startTs = System.currentTimeMillis();
+        for (int i = 1; i <= 5; i++) {
+            actorRef.tell(newOverflowAwareMsg(i, overflowed));
+        }
+
+        // the producer waits until the actor is initialized and frees the mailbox
+        Assert.assertTrue(System.currentTimeMillis() - startTs >= 100);
+        Assert.assertTrue(overflowed.isEmpty());
+        Assert.assertTrue(testCtx.getLatch().await(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS));
+        Assert.assertEquals(15, testCtx.getActual().get());
+        TbActorMailboxStats stats = actorSystem.getMailboxStats().iterator().next();
+        Assert.assertEquals(0, stats.getRejected().get());
+        Assert.assertEquals(5, stats.getProcessed().get());
+    }
+
+    @Test
+    public void testMailboxOverflowBlockTimeout() throws InterruptedException {
+        TbActorSystemSettings settings = new TbActorSystemSettings(5, parallelism, 42);
+        settings.setMailboxCapacity(Collections.singletonMap(EntityType.DEVICE.name(), 3));
+        settings.setMailboxOverflowPolicy(TbActorMailboxOverflowPolicy.BLOCK);
+        settings.setMailboxBlockTimeoutMs(10);
+        restartActorSystem(settings);
+        ActorTestCtx testCtx = getActorTestCtx(3);
+        List<Integer> overflowed = Collections.synchronizedList(new ArrayList<>());
+
+        TbActorRef actorRef = actorSystem.createRootActor(ROOT_DISPATCHER, new SlowInitActor.SlowInitActorCreator(
+                new TbEntityActorId(new DeviceId(UUID.randomUUID())), testCtx));
+        for (int i = 1; i <= 5; i++) {
+            actorRef.tell(newOverflowAwareMsg(i, overflowed));
+        }
+
+        // the actor is still initializing when the timeout expires
+        Assert.assertEquals(List.of(4, 5), overflowed);
+        Assert.assertTrue(testCtx.getLatch().await(TIMEOUT_AWAIT_MAX_SEC, TimeUnit.SECONDS));
+        Assert.assertEquals(6, testCtx.getActual().get());
+        Assert.assertEquals(2, actorSystem.getMailboxStats().iterator().next().getRejected().get());
+    }
+
+    private void restartActorSystem(TbActorSystemSettings settings) {
+        actorSystem.stop();
+        executor.shutdownNow();
+        actorSystem = new DefaultTbActorSystem(settings);
+        executor = ThingsBoardExecutors.newWorkStealingPool(parallelism, getClass());
+        actorSystem.createDispatcher(ROOT_DISPATCHER, executor);
+    }
+
+    private static IntTbActorMsg newOverflowAwareMsg(int value, List<Integer> overflowed) {
+        return new IntTbActorMsg(value) {
+            @Override
+            public void onTbActorMailboxOverflow() {
+                overflowed.add(value);
+            }
+        };
+    }
+
 
     public void testActorsAndMessages(int actorsCount, int msgNumber, int times) throws InterruptedException {
         Random random = new Random();
@@ -47,6 +47,18 @@ public abstract class CaffeineTbTransactionalCache<K extends Serializable, V ext
         return SimpleTbCacheValueWrapper.wrap(cacheManager.getCache(cacheName).get(key));
     }
 
+    @Override
+    public Map<K, TbCacheValueWrapper<V>> getAll(Collection<K> keys) {
+        Map<K, TbCacheValueWrapper<V>> result = new HashMap<>();
+        for (K key : keys) {
+            TbCacheValueWrapper<V> value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
     @Override
     public void put(K key, V value) {
         lock.lock();
@@ -28,13 +28,18 @@ import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.util.JedisClusterCRC16;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
@@ -74,15 +79,55 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         try (var connection = connectionFactory.getConnection()) {
             byte[] rawKey = getRawKey(key);
             byte[] rawValue = connection.get(rawKey);
-            if (rawValue == null) {
-                return null;
-            } else if (Arrays.equals(rawValue, BINARY_NULL_VALUE)) {
-                return SimpleTbCacheValueWrapper.empty();
-            } else {
-                V value = valueSerializer.deserialize(key, rawValue);
-                return SimpleTbCacheValueWrapper.wrap(value);
+            return toValueWrapper(key, rawValue);
+        }
+    }
+
+    @Override
+    public Map<K, TbCacheValueWrapper<V>> getAll(Collection<K> keys) {
+        Map<K, TbCacheValueWrapper<V>> result = new HashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        if (!connectionFactory.isRedisClusterAware()) {
+            List<K> keysList = new ArrayList<>(keys);
+            try (var connection = connectionFactory.getConnection()) {
+                addValues(result, keysList, connection.mGet(toRawKeys(keysList)));
             }
+            return result;
         }
+        // MGET is allowed in the cluster mode only for the keys of the same slot,
+        // so the MGETs of all the slots served by the same node are pipelined into a single round trip
+        Map<String, List<List<K>>> slotKeysByNode = new LinkedHashMap<>();
+        Map<String, RedisConnection> nodeConnections = new HashMap<>();
+        try {
+            JedisCluster cluster = ((JedisClusterConnection) connectionFactory.getClusterConnection()).getNativeConnection();
+            for (Map.Entry<Integer, List<K>> slotKeys : groupBySlot(keys).entrySet()) {
+                Jedis jedis = cluster.getConnectionFromSlot(slotKeys.getKey());
+                String node = jedis.getClient().getHost() + ":" + jedis.getClient().getPort();
+                if (nodeConnections.containsKey(node)) {
+                    jedis.close();
+                } else {
+                    nodeConnections.put(node, toRedisConnection(jedis));
+                }
+                slotKeysByNode.computeIfAbsent(node, n -> new ArrayList<>()).add(slotKeys.getValue());
+            }
+            for (Map.Entry<String, List<List<K>>> nodeSlotKeys : slotKeysByNode.entrySet()) {
+                RedisConnection connection = nodeConnections.get(nodeSlotKeys.getKey());
+                List<List<K>> slotKeysList = nodeSlotKeys.getValue();
+                connection.openPipeline();
+                for (List<K> slotKeys : slotKeysList) {
+                    connection.mGet(toRawKeys(slotKeys));
+                }
+                List<Object> rawValues = connection.closePipeline();
+                for (int i = 0; i < slotKeysList.size(); i++) {
+                    addValues(result, slotKeysList.get(i), castRawValues(rawValues.get(i)));
+                }
+            }
+        } finally {
+            nodeConnections.values().forEach(RedisConnection::close);
+        }
+        return result;
     }
 
     @Override
@@ -147,12 +192,65 @@ public abstract class RedisTbTransactionalCache<K extends Serializable, V extend
         int slotNum = JedisClusterCRC16.getSlot(rawKey);
         Jedis jedis = ((JedisClusterConnection) connection).getNativeConnection().getConnectionFromSlot(slotNum);
 
+        return toRedisConnection(jedis);
+    }
+
+    /**
+     * Wraps the connection to the cluster node, closing the returned connection returns the jedis to the node pool.
+     */
+    RedisConnection toRedisConnection(Jedis jedis) {
         JedisConnection jedisConnection = new JedisConnection(jedis, MOCK_POOL, jedis.getDB());
         jedisConnection.setConvertPipelineAndTxResults(connectionFactory.getConvertPipelineAndTxResults());
-
         return jedisConnection;
     }
 
+    /**
+     * Groups keys by the cluster slot, so each group may be served by a single node connection.
+     * For the standalone Redis all keys belong to a single group.
+     */
+    private Map<Integer, List<K>> groupBySlot(Collection<K> keys) {
+        Map<Integer, List<K>> result = new LinkedHashMap<>();
+        boolean clusterAware = connectionFactory.isRedisClusterAware();
+        for (K key : keys) {
+            int slot = clusterAware ? JedisClusterCRC16.getSlot(getRawKey(key)) : 0;
+            result.computeIfAbsent(slot, s -> new ArrayList<>()).add(key);
+        }
+        return result;
+    }
+
+    private byte[][] toRawKeys(List<K> keys) {
+        return keys.stream().map(this::getRawKey).toArray(byte[][]::new);
+    }
+
+    private void addValues(Map<K, TbCacheValueWrapper<V>> result, List<K> keys, List<byte[]> rawValues) {
+        if (rawValues == null) {
+            return;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            K key = keys.get(i);
+            TbCacheValueWrapper<V> value = toValueWrapper(key, rawValues.get(i));
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<byte[]> castRawValues(Object rawValues) {
+        return (List<byte[]>) rawValues;
+    }
+
+    private TbCacheValueWrapper<V> toValueWrapper(K key, byte[] rawValue) {
+        if (rawValue == null) {
+            return null;
+        } else if (Arrays.equals(rawValue, BINARY_NULL_VALUE)) {
+            return SimpleTbCacheValueWrapper.empty();
+        } else {
+            V value = valueSerializer.deserialize(key, rawValue);
+            return SimpleTbCacheValueWrapper.wrap(value);
+        }
+    }
+
     private RedisConnection watch(byte[][] rawKeysList) {
         RedisConnection connection = getConnection(rawKeysList[0]);
         try {
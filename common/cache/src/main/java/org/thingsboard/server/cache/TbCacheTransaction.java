@@ -15,10 +15,16 @@
  */
 package org.thingsboard.server.cache;
 
+import java.util.Map;
+
 public interface TbCacheTransaction<K, V> {
 
     void putIfAbsent(K key, V value);
 
+    default void putAllIfAbsent(Map<K, V> entries) {
+        entries.forEach(this::putIfAbsent);
+    }
+
     boolean commit();
 
     void rollback();
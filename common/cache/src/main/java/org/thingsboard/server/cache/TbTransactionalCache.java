@@ -18,6 +18,7 @@ package org.thingsboard.server.cache;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -27,6 +28,13 @@ public interface TbTransactionalCache<K extends Serializable, V extends Serializ
 
     TbCacheValueWrapper<V> get(K key);
 
+    /**
+     * Fetches multiple keys with as few cache round trips as possible.
+     * @param keys - keys to fetch
+     * @return cached values by key; keys that are not present in the cache are absent in the result map
+     */
+    Map<K, TbCacheValueWrapper<V>> getAll(Collection<K> keys);
+
     void put(K key, V value);
 
     void putIfAbsent(K key, V value);
@@ -15,18 +15,37 @@
  */
 package org.thingsboard.server.cache.ota;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 import static org.thingsboard.server.common.data.CacheConstants.OTA_PACKAGE_DATA_CACHE;
 
+/**
+ * Keeps OTA package data in read-only memory-mapped files instead of the heap.
+ * The backing file is unlinked right after it is mapped, so no file is left on disk, but the mapping (and the disk
+ * space of the unlinked file) is released only when the buffer is garbage collected, not when the entry is evicted.
+ * The chunks returned to the transports are slices of the same mapping and keep it alive as well.
+ */
+@Slf4j
 @Service
 @ConditionalOnProperty(prefix = "cache", value = "type", havingValue = "caffeine", matchIfMissing = true)
 @RequiredArgsConstructor
 public class CaffeineOtaPackageCache implements OtaPackageDataCache {
 
+    private static final ByteBuffer EMPTY_DATA = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
     private final CacheManager cacheManager;
 
     @Override
@@ -36,33 +55,79 @@ public class CaffeineOtaPackageCache implements OtaPackageDataCache {
 
     @Override
     public byte[] get(String key, int chunkSize, int chunk) {
-        byte[] data = cacheManager.getCache(OTA_PACKAGE_DATA_CACHE).get(key, byte[].class);
+        ByteBuffer data = getChunk(key, chunkSize, chunk);
+        byte[] result = new byte[data.remaining()];
+        data.get(result);
+        return result;
+    }
+
+    @Override
+    public ByteBuffer getChunk(String key, int chunkSize, int chunk) {
+        ByteBuffer data = getData(key);
+        if (data == null) {
+            return EMPTY_DATA.duplicate();
+        }
 
         if (chunkSize < 1) {
             return data;
         }
 
-        if (data != null && data.length > 0) {
-            int startIndex = chunkSize * chunk;
-
-            int size = Math.min(data.length - startIndex, chunkSize);
+        int startIndex = chunkSize * chunk;
+        int size = Math.min(data.capacity() - startIndex, chunkSize);
 
-            if (startIndex < data.length && size > 0) {
-                byte[] result = new byte[size];
-                System.arraycopy(data, startIndex, result, 0, size);
-                return result;
-            }
+        if (startIndex < data.capacity() && size > 0) {
+            data.position(startIndex).limit(startIndex + size);
+            return data.slice();
         }
-        return new byte[0];
+        return EMPTY_DATA.duplicate();
+    }
+
+    @Override
+    public boolean has(String otaPackageId) {
+        ByteBuffer data = getData(otaPackageId);
+        return data != null && data.capacity() > 0;
     }
 
     @Override
     public void put(String key, byte[] value) {
-        cacheManager.getCache(OTA_PACKAGE_DATA_CACHE).putIfAbsent(key, value);
+        // the data is mapped at most once per key, concurrent puts of the same package wait for the first one
+        getNativeCache().asMap().computeIfAbsent(key, k -> {
+            try {
+                return map(value);
+            } catch (IOException e) {
+                log.warn("[{}] Failed to map OTA package data to a local file, keeping it on heap", key, e);
+                return ByteBuffer.wrap(value).asReadOnlyBuffer();
+            }
+        });
     }
 
     @Override
     public void evict(String key) {
         cacheManager.getCache(OTA_PACKAGE_DATA_CACHE).evict(key);
     }
+
+    private ByteBuffer getData(String key) {
+        ByteBuffer data = cacheManager.getCache(OTA_PACKAGE_DATA_CACHE).get(key, ByteBuffer.class);
+        return data != null ? data.duplicate() : null;
+    }
+
+    private Cache<Object, Object> getNativeCache() {
+        return ((CaffeineCache) cacheManager.getCache(OTA_PACKAGE_DATA_CACHE)).getNativeCache();
+    }
+
+    ByteBuffer map(byte[] value) throws IOException {
+        Path file = Files.createTempFile("tb-ota-", ".bin");
+        try {
+            Files.write(file, value);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, value.length);
+            }
+        } finally {
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
 }
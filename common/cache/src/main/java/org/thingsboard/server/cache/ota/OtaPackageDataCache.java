@@ -15,12 +15,24 @@
  */
 package org.thingsboard.server.cache.ota;
 
+import java.nio.ByteBuffer;
+
 public interface OtaPackageDataCache {
 
     byte[] get(String key);
 
     byte[] get(String key, int chunkSize, int chunk);
 
+    /**
+     * Returns the requested chunk as a read-only buffer. Implementations that keep the package data off-heap
+     * return a slice of the cached data instead of copying the chunk. A missing package or chunk is returned as an empty
+     * buffer, never as null.
+     */
+    default ByteBuffer getChunk(String key, int chunkSize, int chunk) {
+        byte[] data = get(key, chunkSize, chunk);
+        return ByteBuffer.wrap(data != null ? data : new byte[0]).asReadOnlyBuffer();
+    }
+
     void put(String key, byte[] value);
 
     void evict(String key);
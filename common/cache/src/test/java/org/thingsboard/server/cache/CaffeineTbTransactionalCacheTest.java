@@ -0,0 +1,84 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CaffeineTbTransactionalCacheTest {
+
+    private static final String CACHE_NAME = "test";
+
+    private CaffeineTbTransactionalCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(new CaffeineCache(CACHE_NAME, Caffeine.newBuilder().build())));
+        cacheManager.initializeCaches();
+        cache = new CaffeineTbTransactionalCache<>(cacheManager, CACHE_NAME) {
+        };
+    }
+
+    @Test
+    void givenCachedValues_whenGetAll_thenOnlyCachedKeysReturned() {
+        cache.put("k1", "v1");
+        cache.put("k2", null);
+
+        Map<String, TbCacheValueWrapper<String>> result = cache.getAll(List.of("k1", "k2", "k3"));
+
+        assertThat(result).containsOnlyKeys("k1", "k2");
+        assertThat(result.get("k1").get()).isEqualTo("v1");
+        assertThat(result.get("k2").get()).isNull();
+        assertThat(cache.getAll(List.of())).isEmpty();
+    }
+
+    @Test
+    void givenEvictedValues_whenGetAll_thenMissing() {
+        cache.put("k1", "v1");
+        cache.put("k2", "v2");
+
+        cache.evict(List.of("k1"));
+
+        assertThat(cache.getAll(List.of("k1", "k2"))).containsOnlyKeys("k2");
+    }
+
+    @Test
+    void givenTransactionForMissingKeys_whenOtherKeyPut_thenCommittedValuesReturnedByGetAll() {
+        TbCacheTransaction<String, String> transaction = cache.newTransactionForKeys(List.of("k1", "k2"));
+        transaction.putAllIfAbsent(Map.of("k1", "v1", "k2", "v2"));
+        assertThat(transaction.commit()).isTrue();
+
+        assertThat(cache.getAll(List.of("k1", "k2"))).containsOnlyKeys("k1", "k2");
+
+        TbCacheTransaction<String, String> failedTransaction = cache.newTransactionForKeys(List.of("k3"));
+        failedTransaction.putAllIfAbsent(Map.of("k3", "stale"));
+        // a concurrent eviction fails the transaction, so its values are not put into the cache
+        cache.evict("k3");
+        assertThat(failedTransaction.commit()).isFalse();
+
+        assertThat(cache.getAll(List.of("k3"))).isEmpty();
+    }
+
+}
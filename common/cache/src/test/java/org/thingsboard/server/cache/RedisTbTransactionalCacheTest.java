@@ -0,0 +1,191 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.jedis.JedisClusterConnection;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RedisTbTransactionalCacheTest {
+
+    private static final String CACHE_NAME = "test";
+
+    private JedisConnectionFactory connectionFactory;
+    private RedisTbTransactionalCache<String, String> cache;
+    private Map<String, byte[]> redis;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = mock(JedisConnectionFactory.class);
+        TbRedisSerializer<String, String> valueSerializer = new TbRedisSerializer<>() {
+            @Override
+            public byte[] serialize(String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String deserialize(String key, byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+        cache = spy(new RedisTbTransactionalCache<>(CACHE_NAME, null, connectionFactory,
+                mock(TBRedisCacheConfiguration.class), valueSerializer) {
+        });
+        redis = new HashMap<>();
+    }
+
+    @Test
+    void givenStandaloneRedis_whenGetAll_thenSingleMGet() {
+        RedisConnection connection = mockConnection(new ArrayList<>());
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        redis.put(CACHE_NAME + "k1", "v1".getBytes(StandardCharsets.UTF_8));
+        redis.put(CACHE_NAME + "k2", RedisSerializer.java().serialize(NullValue.INSTANCE));
+
+        Map<String, TbCacheValueWrapper<String>> result = cache.getAll(List.of("k1", "k2", "k3"));
+
+        assertThat(result).containsOnlyKeys("k1", "k2");
+        assertThat(result.get("k1").get()).isEqualTo("v1");
+        // the cached null value is returned as an empty wrapper, unlike the miss
+        assertThat(result.get("k2").get()).isNull();
+        verify(connection, times(1)).mGet(any());
+        verify(connection).close();
+    }
+
+    @Test
+    void givenNoKeys_whenGetAll_thenNoRedisCalls() {
+        assertThat(cache.getAll(List.of())).isEmpty();
+        verify(connectionFactory, never()).getConnection();
+    }
+
+    @Test
+    void givenRedisCluster_whenGetAll_thenMGetPerSlotPipelinedPerNode() {
+        List<String> keys = List.of("{a}1", "{a}2", "{b}1", "{c}1", "{d}1", "{d}2");
+        keys.forEach(key -> redis.put(CACHE_NAME + key, ("v" + key).getBytes(StandardCharsets.UTF_8)));
+        Set<Integer> slots = keys.stream().map(RedisTbTransactionalCacheTest::getSlot).collect(Collectors.toSet());
+
+        when(connectionFactory.isRedisClusterAware()).thenReturn(true);
+        JedisClusterConnection clusterConnection = mock(JedisClusterConnection.class);
+        JedisCluster cluster = mock(JedisCluster.class);
+        when(connectionFactory.getClusterConnection()).thenReturn(clusterConnection);
+        when(clusterConnection.getNativeConnection()).thenReturn(cluster);
+        List<Jedis> borrowed = new ArrayList<>();
+        when(cluster.getConnectionFromSlot(anyInt())).thenAnswer(invocation -> {
+            Jedis jedis = mockJedis(getNode(invocation.getArgument(0)));
+            borrowed.add(jedis);
+            return jedis;
+        });
+        Map<String, List<List<String>>> mGetsByNode = new HashMap<>();
+        Map<String, RedisConnection> nodeConnections = new HashMap<>();
+        doAnswer(invocation -> {
+            String node = invocation.getArgument(0, Jedis.class).getClient().getHost();
+            List<List<String>> nodeMGets = mGetsByNode.computeIfAbsent(node, n -> new ArrayList<>());
+            return nodeConnections.computeIfAbsent(node, n -> mockConnection(nodeMGets));
+        }).when(cache).toRedisConnection(any());
+
+        Map<String, TbCacheValueWrapper<String>> result = cache.getAll(keys);
+
+        assertThat(result).hasSize(keys.size());
+        keys.forEach(key -> assertThat(result.get(key).get()).isEqualTo("v" + key));
+        verify(cluster, times(slots.size())).getConnectionFromSlot(anyInt());
+        List<List<String>> allMGets = new ArrayList<>();
+        mGetsByNode.forEach((node, nodeMGets) -> {
+            // every MGET holds the keys of a single slot served by the node
+            for (List<String> mGetKeys : nodeMGets) {
+                assertThat(mGetKeys.stream().map(key -> getSlot(key.substring(CACHE_NAME.length()))).distinct())
+                        .singleElement().satisfies(slot -> assertThat(getNode(slot)).isEqualTo(node));
+            }
+            allMGets.addAll(nodeMGets);
+            RedisConnection connection = nodeConnections.get(node);
+            verify(connection).openPipeline();
+            verify(connection).closePipeline();
+            verify(connection).close();
+        });
+        assertThat(allMGets).hasSize(slots.size());
+        // the extra connections borrowed for the node that already has one are returned to the pool right away
+        Map<String, Jedis> usedConnections = new HashMap<>();
+        for (Jedis jedis : borrowed) {
+            if (usedConnections.putIfAbsent(jedis.getClient().getHost(), jedis) != null) {
+                verify(jedis).close();
+            } else {
+                verify(jedis, never()).close();
+            }
+        }
+    }
+
+    private RedisConnection mockConnection(List<List<String>> mGets) {
+        RedisConnection connection = mock(RedisConnection.class);
+        List<List<byte[]>> pipelined = new ArrayList<>();
+        when(connection.mGet(any())).thenAnswer(invocation -> {
+            List<String> keys = new ArrayList<>();
+            List<byte[]> values = new ArrayList<>();
+            for (Object rawKey : invocation.getArguments()) {
+                String key = new String((byte[]) rawKey, StandardCharsets.UTF_8);
+                keys.add(key);
+                values.add(redis.get(key));
+            }
+            mGets.add(keys);
+            pipelined.add(values);
+            return values;
+        });
+        when(connection.closePipeline()).thenAnswer(invocation -> new ArrayList<Object>(pipelined));
+        return connection;
+    }
+
+    private static Jedis mockJedis(String node) {
+        Client client = mock(Client.class);
+        when(client.getHost()).thenReturn(node);
+        when(client.getPort()).thenReturn(6379);
+        Jedis jedis = mock(Jedis.class);
+        when(jedis.getClient()).thenReturn(client);
+        return jedis;
+    }
+
+    private static int getSlot(String key) {
+        return JedisClusterCRC16.getSlot((CACHE_NAME + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String getNode(int slot) {
+        return slot < 8192 ? "node1" : "node2";
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.cache.ota;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.thingsboard.server.common.data.CacheConstants.OTA_PACKAGE_DATA_CACHE;
+
+public class CaffeineOtaPackageCacheTest {
+
+    private static final byte[] DATA = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+    private CaffeineOtaPackageCache cache;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(new CaffeineCache(OTA_PACKAGE_DATA_CACHE, Caffeine.newBuilder().build())));
+        cacheManager.initializeCaches();
+        cache = spy(new CaffeineOtaPackageCache(cacheManager));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void givenPutData_whenGet_thenDataAndChunksReturned() {
+        cache.put("ota", DATA);
+
+        assertThat(cache.has("ota")).isTrue();
+        assertThat(cache.get("ota")).isEqualTo(DATA);
+        assertThat(cache.get("ota", 4, 1)).isEqualTo("4567".getBytes(StandardCharsets.UTF_8));
+        assertThat(cache.get("ota", 4, 2)).isEqualTo("89".getBytes(StandardCharsets.UTF_8));
+        assertThat(cache.get("ota", 4, 3)).isEmpty();
+    }
+
+    @Test
+    void givenMissingData_whenGet_thenEmptyReadOnlyDataReturned() {
+        assertThat(cache.has("missing")).isFalse();
+        assertThat(cache.get("missing")).isEmpty();
+        assertThat(cache.get("missing", 4, 0)).isEmpty();
+        ByteBuffer chunk = cache.getChunk("missing", 4, 0);
+        assertThat(chunk.remaining()).isZero();
+        assertThat(chunk.isReadOnly()).isTrue();
+        assertThat(cache.getChunk("missing", 0, 0).remaining()).isZero();
+    }
+
+    @Test
+    void givenCachedData_whenPutAgain_thenNotMappedAgain() throws Exception {
+        cache.put("ota", DATA);
+        cache.put("ota", "other".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(cache.get("ota")).isEqualTo(DATA);
+        verify(cache, times(1)).map(any());
+    }
+
+    @Test
+    void givenConcurrentPuts_whenSameKey_thenMappedOnce() throws Exception {
+        int threads = 8;
+        executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                cache.put("ota", DATA);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertThat(cache.get("ota")).isEqualTo(DATA);
+        verify(cache, times(1)).map(any());
+    }
+
+    @Test
+    void givenEvictedData_whenGet_thenNull() {
+        cache.put("ota", DATA);
+        cache.evict("ota");
+
+        assertThat(cache.has("ota")).isFalse();
+        assertThat(cache.getChunk("ota", 4, 0).remaining()).isZero();
+    }
+
+}
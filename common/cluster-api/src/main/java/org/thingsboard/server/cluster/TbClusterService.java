@@ -24,6 +24,7 @@ import org.thingsboard.server.common.data.TenantProfile;
 import org.thingsboard.server.common.data.cloud.CloudEventType;
 import org.thingsboard.server.common.data.edge.EdgeEventActionType;
 import org.thingsboard.server.common.data.edge.EdgeEventType;
+import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.EdgeId;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
@@ -87,6 +88,8 @@ public interface TbClusterService extends TbQueueClusterService {
 
     void onDeviceDeleted(Device device, TbQueueCallback callback);
 
+    void onDeviceCredentialsUpdated(TenantId tenantId, DeviceId deviceId, TbQueueCallback callback);
+
     void onResourceChange(TbResource resource, TbQueueCallback callback);
 
     void onResourceDeleted(TbResource resource, TbQueueCallback callback);
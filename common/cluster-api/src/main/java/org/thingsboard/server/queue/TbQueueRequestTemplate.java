@@ -17,6 +17,7 @@ package org.thingsboard.server.queue;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import org.thingsboard.server.common.stats.MessagesStats;
+import org.thingsboard.server.common.stats.StatsFactory;
 
 public interface TbQueueRequestTemplate<Request extends TbQueueMsg, Response extends TbQueueMsg> {
 
@@ -29,4 +30,9 @@ public interface TbQueueRequestTemplate<Request extends TbQueueMsg, Response ext
     void stop();
 
     void setMessagesStats(MessagesStats messagesStats);
+
+    /**
+     * Registers the pending requests gauge, the timeouts counter and the response latency timer with the given key prefix.
+     */
+    void setStatsFactory(StatsFactory statsFactory, String statsKey);
 }
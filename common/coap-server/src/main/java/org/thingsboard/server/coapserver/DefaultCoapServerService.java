@@ -21,6 +21,7 @@ import org.eclipse.californium.core.network.CoapEndpoint;
 import org.eclipse.californium.core.config.CoapConfig;
 import org.eclipse.californium.core.server.resources.Resource;
 import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.util.ClockUtil;
 import org.eclipse.californium.scandium.DTLSConnector;
 import org.eclipse.californium.scandium.config.DtlsConnectorConfig;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,9 +30,17 @@ import org.thingsboard.common.util.ThingsBoardThreadFactory;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
@@ -54,6 +63,12 @@ public class DefaultCoapServerService implements CoapServerService {
 
     private ScheduledExecutorService dtlsSessionsExecutor;
 
+    private DTLSConnector dtlsConnector;
+
+    private TbCoapDtlsStateStore dtlsStateStore;
+
+    private TbCoapDtlsStateCodec dtlsStateCodec;
+
     @PostConstruct
     public void init() throws UnknownHostException {
         createCoapServer();
@@ -65,6 +80,10 @@ public class DefaultCoapServerService implements CoapServerService {
             dtlsSessionsExecutor.shutdownNow();
         }
         log.info("Stopping CoAP server!");
+        if (dtlsStateStore != null) {
+            server.stop();
+            saveDtlsState();
+        }
         server.destroy();
         log.info("CoAP server stopped!");
     }
@@ -125,6 +144,12 @@ public class DefaultCoapServerService implements CoapServerService {
             CoapEndpoint dtlsCoapEndpoint = dtlsCoapEndpointBuilder.build();
             server.addEndpoint(dtlsCoapEndpoint);
             tbDtlsCertificateVerifier = (TbCoapDtlsCertificateVerifier) dtlsConnectorConfig.getAdvancedCertificateVerifier();
+            dtlsConnector = connector;
+            dtlsStateStore = dtlsSettings.createStateStore();
+            if (dtlsStateStore != null) {
+                dtlsStateCodec = dtlsSettings.createStateCodec();
+                restoreDtlsState();
+            }
             dtlsSessionsExecutor = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName(getClass().getSimpleName()));
             dtlsSessionsExecutor.scheduleAtFixedRate(this::evictTimeoutSessions, new Random().nextInt((int) getDtlsSessionReportTimeout()), getDtlsSessionReportTimeout(), TimeUnit.MILLISECONDS);
         }
@@ -148,4 +173,63 @@ public class DefaultCoapServerService implements CoapServerService {
         return tbDtlsCertificateVerifier.getDtlsSessionReportTimeout();
     }
 
+    /**
+     * Saves the DTLS connections (including their sessions) and the device credentials of the X.509 sessions.
+     * The state is encrypted since it contains the master secrets of the sessions.
+     * The connector must be stopped at this point.
+     */
+    void saveDtlsState() {
+        try {
+            Map<InetSocketAddress, TbCoapDtlsSessionInfo> sessions = new HashMap<>(tbDtlsCertificateVerifier.getTbCoapDtlsSessionsMap());
+            byte[] sessionsData = TbCoapDtlsStateCodec.encodeSessions(sessions);
+
+            ByteArrayOutputStream state = new ByteArrayOutputStream();
+            int connectionsCount;
+            try (DataOutputStream out = new DataOutputStream(dtlsStateCodec.encrypt(state))) {
+                out.writeLong(System.currentTimeMillis());
+                out.writeLong(ClockUtil.nanoRealtime());
+                out.writeInt(sessionsData.length);
+                out.write(sessionsData);
+                connectionsCount = dtlsConnector.saveConnections(out, coapServerContext.getDtlsSettings().getPersistenceMaxQuietPeriodSec());
+            }
+            dtlsStateStore.save(state.toByteArray());
+            log.info("Saved {} DTLS connections and {} DTLS sessions", connectionsCount, sessions.size());
+        } catch (Exception e) {
+            log.warn("Failed to save DTLS state", e);
+        }
+    }
+
+    void restoreDtlsState() {
+        try {
+            byte[] state = dtlsStateStore.load();
+            if (state == null) {
+                return;
+            }
+            try (InputStream decrypted = dtlsStateCodec.decrypt(new ByteArrayInputStream(state));
+                 DataInputStream in = new DataInputStream(decrypted)) {
+                long savedTime = in.readLong();
+                long savedNanos = in.readLong();
+                long downtime = System.currentTimeMillis() - savedTime;
+                if (downtime > TimeUnit.SECONDS.toMillis(coapServerContext.getDtlsSettings().getPersistenceMaxQuietPeriodSec())) {
+                    log.info("Saved DTLS state is expired, skipping restore");
+                    return;
+                }
+                int sessionsDataLength = in.readInt();
+                if (sessionsDataLength < 0 || sessionsDataLength > state.length) {
+                    throw new IOException("Invalid DTLS sessions data length: " + sessionsDataLength);
+                }
+                byte[] sessionsData = new byte[sessionsDataLength];
+                in.readFully(sessionsData);
+                Map<InetSocketAddress, TbCoapDtlsSessionInfo> sessions = TbCoapDtlsStateCodec.decodeSessions(sessionsData);
+                tbDtlsCertificateVerifier.restoreSessions(sessions);
+                // connection timestamps are based on the uptime nanos of the previous run
+                long delta = ClockUtil.nanoRealtime() - TimeUnit.MILLISECONDS.toNanos(downtime) - savedNanos;
+                int connectionsCount = dtlsConnector.loadConnections(in, delta);
+                log.info("Restored {} DTLS connections and {} DTLS sessions", connectionsCount, sessions.size());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to restore DTLS state, devices will do the full handshake", e);
+        }
+    }
+
 }
@@ -47,6 +47,7 @@ import java.security.cert.CertificateNotYetValidException;
 import java.security.cert.X509Certificate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -61,11 +62,11 @@ public class TbCoapDtlsCertificateVerifier implements NewAdvancedCertificateVeri
     private TbServiceInfoProvider serviceInfoProvider;
     private boolean skipValidityCheckForClientCert;
 
-    public TbCoapDtlsCertificateVerifier(TransportService transportService, TbServiceInfoProvider serviceInfoProvider, long dtlsSessionInactivityTimeout, long dtlsSessionReportTimeout, boolean skipValidityCheckForClientCert) {
+    public TbCoapDtlsCertificateVerifier(TransportService transportService, TbServiceInfoProvider serviceInfoProvider, long dtlsSessionInactivityTimeout, long dtlsSessionReportTimeout, int maxDtlsSessions, boolean skipValidityCheckForClientCert) {
         this.transportService = transportService;
         this.serviceInfoProvider = serviceInfoProvider;
         this.skipValidityCheckForClientCert = skipValidityCheckForClientCert;
-        this.tbCoapDtlsSessionInMemoryStorage = new TbCoapDtlsSessionInMemoryStorage(dtlsSessionInactivityTimeout, dtlsSessionReportTimeout);
+        this.tbCoapDtlsSessionInMemoryStorage = new TbCoapDtlsSessionInMemoryStorage(dtlsSessionInactivityTimeout, dtlsSessionReportTimeout, maxDtlsSessions);
     }
 
     @Override
@@ -146,6 +147,10 @@ public class TbCoapDtlsCertificateVerifier implements NewAdvancedCertificateVeri
         tbCoapDtlsSessionInMemoryStorage.evictTimeoutSessions();
     }
 
+    public void restoreSessions(Map<InetSocketAddress, TbCoapDtlsSessionInfo> sessions) {
+        tbCoapDtlsSessionInMemoryStorage.restore(sessions);
+    }
+
     public long getDtlsSessionReportTimeout() {
         return tbCoapDtlsSessionInMemoryStorage.getDtlsSessionReportTimeout();
     }
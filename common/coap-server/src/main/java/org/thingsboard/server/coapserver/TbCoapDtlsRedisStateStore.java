@@ -0,0 +1,53 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.coapserver;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.nio.charset.StandardCharsets;
+
+public class TbCoapDtlsRedisStateStore implements TbCoapDtlsStateStore {
+
+    private static final String DTLS_STATE = "COAP#DTLS#STATE#";
+
+    private final RedisConnectionFactory connectionFactory;
+    private final byte[] key;
+    private final long ttlInSec;
+
+    public TbCoapDtlsRedisStateStore(RedisConnectionFactory connectionFactory, String serviceId, long ttlInSec) {
+        this.connectionFactory = connectionFactory;
+        this.key = (DTLS_STATE + serviceId).getBytes(StandardCharsets.UTF_8);
+        this.ttlInSec = ttlInSec;
+    }
+
+    @Override
+    public void save(byte[] state) {
+        try (var c = connectionFactory.getConnection()) {
+            c.setEx(key, ttlInSec, state);
+        }
+    }
+
+    @Override
+    public byte[] load() {
+        try (var c = connectionFactory.getConnection()) {
+            byte[] state = c.get(key);
+            if (state != null) {
+                c.del(key);
+            }
+            return state;
+        }
+    }
+}
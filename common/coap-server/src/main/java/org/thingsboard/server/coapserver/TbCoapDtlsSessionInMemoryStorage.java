@@ -19,6 +19,7 @@ import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
 import java.net.InetSocketAddress;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -29,18 +30,53 @@ public class TbCoapDtlsSessionInMemoryStorage {
     private final ConcurrentMap<InetSocketAddress, TbCoapDtlsSessionInfo> dtlsSessionsMap = new ConcurrentHashMap<>();
     private long dtlsSessionInactivityTimeout;
     private long dtlsSessionReportTimeout;
+    private int maxDtlsSessions;
 
 
-    public TbCoapDtlsSessionInMemoryStorage(long dtlsSessionInactivityTimeout, long dtlsSessionReportTimeout) {
+    public TbCoapDtlsSessionInMemoryStorage(long dtlsSessionInactivityTimeout, long dtlsSessionReportTimeout, int maxDtlsSessions) {
         this.dtlsSessionInactivityTimeout = dtlsSessionInactivityTimeout;
         this.dtlsSessionReportTimeout = dtlsSessionReportTimeout;
+        this.maxDtlsSessions = maxDtlsSessions;
     }
 
     public void put(InetSocketAddress remotePeer, TbCoapDtlsSessionInfo dtlsSessionInfo) {
         log.trace("DTLS session added to in-memory store: [{}] timestamp: [{}]", remotePeer, dtlsSessionInfo.getLastActivityTime());
+        if (maxDtlsSessions > 0 && dtlsSessionsMap.size() >= maxDtlsSessions && !dtlsSessionsMap.containsKey(remotePeer)) {
+            evictTimeoutSessions();
+            if (dtlsSessionsMap.size() >= maxDtlsSessions) {
+                evictLeastRecentlyActiveSession();
+            }
+        }
         dtlsSessionsMap.putIfAbsent(remotePeer, dtlsSessionInfo);
     }
 
+    /**
+     * Restores the sessions saved before the restart, skipping the expired ones.
+     */
+    public void restore(Map<InetSocketAddress, TbCoapDtlsSessionInfo> sessions) {
+        long expTime = System.currentTimeMillis() - dtlsSessionInactivityTimeout;
+        sessions.forEach((remotePeer, dtlsSessionInfo) -> {
+            if (dtlsSessionInfo.getLastActivityTime() >= expTime && (maxDtlsSessions <= 0 || dtlsSessionsMap.size() < maxDtlsSessions)) {
+                dtlsSessionsMap.putIfAbsent(remotePeer, dtlsSessionInfo);
+            }
+        });
+    }
+
+    private void evictLeastRecentlyActiveSession() {
+        InetSocketAddress oldest = null;
+        long oldestActivityTime = Long.MAX_VALUE;
+        for (Map.Entry<InetSocketAddress, TbCoapDtlsSessionInfo> entry : dtlsSessionsMap.entrySet()) {
+            if (entry.getValue().getLastActivityTime() < oldestActivityTime) {
+                oldestActivityTime = entry.getValue().getLastActivityTime();
+                oldest = entry.getKey();
+            }
+        }
+        if (oldest != null) {
+            log.trace("DTLS session was removed from in-memory store due to the size limit: [{}]", oldest);
+            dtlsSessionsMap.remove(oldest);
+        }
+    }
+
     public void evictTimeoutSessions() {
         long expTime = System.currentTimeMillis() - dtlsSessionInactivityTimeout;
         dtlsSessionsMap.entrySet().removeIf(entry -> {
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.coapserver;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.elements.util.SslContextUtil;
@@ -28,6 +29,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
+import org.thingsboard.server.cache.TBRedisCacheConfiguration;
 import org.thingsboard.server.common.transport.TransportService;
 import org.thingsboard.server.common.transport.config.ssl.SslCredentials;
 import org.thingsboard.server.common.transport.config.ssl.SslCredentialsConfig;
@@ -37,10 +39,12 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.util.Collections;
+import java.util.Optional;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.eclipse.californium.elements.config.CertificateAuthenticationMode.WANTED;
 import static org.eclipse.californium.scandium.config.DtlsConfig.DTLS_CLIENT_AUTHENTICATION_MODE;
+import static org.eclipse.californium.scandium.config.DtlsConfig.DTLS_MAX_CONNECTIONS;
 import static org.eclipse.californium.scandium.config.DtlsConfig.DTLS_RETRANSMISSION_TIMEOUT;
 import static org.eclipse.californium.scandium.config.DtlsConfig.DTLS_ROLE;
 import static org.eclipse.californium.scandium.config.DtlsConfig.DtlsRole.SERVER_ONLY;
@@ -78,6 +82,31 @@ public class TbCoapDtlsSettings {
     @Value("${transport.coap.dtls.x509.dtls_session_report_timeout:1800000}")
     private long dtlsSessionReportTimeout;
 
+    @Value("${transport.coap.dtls.x509.max_dtls_sessions:100000}")
+    private int maxDtlsSessions;
+
+    @Value("${transport.coap.dtls.max_connections:150000}")
+    private int dtlsMaxConnections;
+
+    @Value("${transport.coap.dtls.persistence.enabled:false}")
+    private boolean persistenceEnabled;
+
+    @Value("${transport.coap.dtls.persistence.type:file}")
+    private String persistenceType;
+
+    @Value("${transport.coap.dtls.persistence.file:}")
+    private String persistenceFile;
+
+    @Value("${transport.coap.dtls.persistence.password:}")
+    private String persistencePassword;
+
+    @Getter
+    @Value("${transport.coap.dtls.persistence.max_quiet_period_sec:86400}")
+    private long persistenceMaxQuietPeriodSec;
+
+    @Autowired
+    private Optional<TBRedisCacheConfiguration> redisConfiguration;
+
     @Autowired
     private TransportService transportService;
 
@@ -93,12 +122,14 @@ public class TbCoapDtlsSettings {
         configBuilder.set(DTLS_CLIENT_AUTHENTICATION_MODE, WANTED);
         configBuilder.set(DTLS_RETRANSMISSION_TIMEOUT, dtlsRetransmissionTimeout, MILLISECONDS);
         configBuilder.set(DTLS_ROLE, SERVER_ONLY);
+        configBuilder.set(DTLS_MAX_CONNECTIONS, dtlsMaxConnections);
         configBuilder.setAdvancedCertificateVerifier(
                 new TbCoapDtlsCertificateVerifier(
                         transportService,
                         serviceInfoProvider,
                         dtlsSessionInactivityTimeout,
                         dtlsSessionReportTimeout,
+                        maxDtlsSessions,
                         skipValidityCheckForClientCert
                 )
         );
@@ -107,6 +138,30 @@ public class TbCoapDtlsSettings {
         return configBuilder.build();
     }
 
+    /**
+     * @return store used to save the DTLS state on shutdown and restore it on startup, or null if the persistence is disabled
+     */
+    public TbCoapDtlsStateStore createStateStore() {
+        if (!persistenceEnabled) {
+            return null;
+        }
+        if ("redis".equalsIgnoreCase(persistenceType)) {
+            if (redisConfiguration.isPresent()) {
+                return new TbCoapDtlsRedisStateStore(redisConfiguration.get().redisConnectionFactory(),
+                        serviceInfoProvider.getServiceId(), persistenceMaxQuietPeriodSec);
+            }
+            log.warn("Redis DTLS state persistence requires the redis cache to be configured, falling back to the file [{}]", persistenceFile);
+        }
+        return new TbCoapDtlsFileStateStore(persistenceFile);
+    }
+
+    /**
+     * @return codec that encrypts the saved DTLS state with the configured password
+     */
+    public TbCoapDtlsStateCodec createStateCodec() {
+        return new TbCoapDtlsStateCodec(persistencePassword);
+    }
+
     private InetSocketAddress getInetSocketAddress() throws UnknownHostException {
         InetAddress addr = InetAddress.getByName(host);
         return new InetSocketAddress(addr, port);
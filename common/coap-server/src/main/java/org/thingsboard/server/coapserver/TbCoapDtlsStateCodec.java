@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.coapserver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.eclipse.californium.elements.util.EncryptedStreamUtil;
+import org.eclipse.californium.elements.util.SecretUtil;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.DeviceProfile;
+import org.thingsboard.server.common.transport.auth.TransportDeviceInfo;
+import org.thingsboard.server.common.transport.auth.ValidateDeviceCredentialsResponse;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encrypts the saved DTLS state with the configured password and converts the X.509 sessions to and from JSON.
+ * The sessions are written field by field, so restoring them never instantiates classes named by the stored data.
+ */
+class TbCoapDtlsStateCodec {
+
+    private final EncryptedStreamUtil encryptedStreamUtil = new EncryptedStreamUtil();
+    private final SecretKey password;
+
+    TbCoapDtlsStateCodec(String password) {
+        if (password == null || password.isEmpty()) {
+            throw new IllegalArgumentException("DTLS state password is not set");
+        }
+        this.password = SecretUtil.create(password.getBytes(StandardCharsets.UTF_8), "PW");
+    }
+
+    OutputStream encrypt(OutputStream out) {
+        return encryptedStreamUtil.prepare(out, password);
+    }
+
+    InputStream decrypt(InputStream in) throws IOException {
+        InputStream decrypted = encryptedStreamUtil.prepare(in, password);
+        if (decrypted == null) {
+            throw new IOException("Unsupported DTLS state encryption");
+        }
+        return decrypted;
+    }
+
+    static byte[] encodeSessions(Map<InetSocketAddress, TbCoapDtlsSessionInfo> sessions) {
+        ArrayNode sessionsNode = JacksonUtil.OBJECT_MAPPER.createArrayNode();
+        sessions.forEach((remotePeer, sessionInfo) -> {
+            ValidateDeviceCredentialsResponse msg = sessionInfo.getMsg();
+            ObjectNode sessionNode = sessionsNode.addObject();
+            sessionNode.put("address", remotePeer.getAddress().getAddress());
+            sessionNode.put("port", remotePeer.getPort());
+            sessionNode.put("lastActivityTime", sessionInfo.getLastActivityTime());
+            sessionNode.put("credentials", msg.getCredentials());
+            sessionNode.set("deviceInfo", JacksonUtil.valueToTree(msg.getDeviceInfo()));
+            sessionNode.set("deviceProfile", JacksonUtil.valueToTree(sessionInfo.getDeviceProfile()));
+        });
+        return JacksonUtil.writeValueAsBytes(sessionsNode);
+    }
+
+    static Map<InetSocketAddress, TbCoapDtlsSessionInfo> decodeSessions(byte[] data) throws IOException {
+        JsonNode sessionsNode = JacksonUtil.OBJECT_MAPPER.readTree(data);
+        if (sessionsNode == null || !sessionsNode.isArray()) {
+            throw new IOException("Invalid DTLS sessions data");
+        }
+        Map<InetSocketAddress, TbCoapDtlsSessionInfo> sessions = new HashMap<>();
+        for (JsonNode sessionNode : sessionsNode) {
+            InetAddress address = InetAddress.getByAddress(sessionNode.get("address").binaryValue());
+            InetSocketAddress remotePeer = new InetSocketAddress(address, sessionNode.get("port").asInt());
+            DeviceProfile deviceProfile = JacksonUtil.treeToValue(sessionNode.get("deviceProfile"), DeviceProfile.class);
+            ValidateDeviceCredentialsResponse msg = ValidateDeviceCredentialsResponse.builder()
+                    .deviceInfo(JacksonUtil.treeToValue(sessionNode.get("deviceInfo"), TransportDeviceInfo.class))
+                    .deviceProfile(deviceProfile)
+                    .credentials(sessionNode.get("credentials").asText())
+                    .build();
+            TbCoapDtlsSessionInfo sessionInfo = new TbCoapDtlsSessionInfo(msg, deviceProfile);
+            sessionInfo.setLastActivityTime(sessionNode.get("lastActivityTime").asLong());
+            sessions.put(remotePeer, sessionInfo);
+        }
+        return sessions;
+    }
+
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.coapserver;
+
+/**
+ * Durable storage of the CoAP DTLS state (DTLS connections with their sessions and the device credentials of
+ * X.509 sessions), so devices can resume their DTLS sessions with an abbreviated handshake after a restart.
+ */
+public interface TbCoapDtlsStateStore {
+
+    void save(byte[] state);
+
+    /**
+     * Returns the saved state and removes it from the store.
+     * The same state must never be restored twice, otherwise DTLS record sequence numbers would be reused.
+     */
+    byte[] load();
+
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.coapserver;
+
+import org.eclipse.californium.scandium.DTLSConnector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DefaultCoapServerServiceTest {
+
+    private static final byte[] CONNECTIONS = "connections".getBytes(StandardCharsets.UTF_8);
+    private static final long MAX_QUIET_PERIOD_SEC = 60;
+
+    private DefaultCoapServerService coapServerService;
+    private TbCoapDtlsSettings dtlsSettings;
+    private TbCoapDtlsCertificateVerifier certificateVerifier;
+    private DTLSConnector dtlsConnector;
+    private InMemoryStateStore stateStore;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dtlsSettings = mock(TbCoapDtlsSettings.class);
+        when(dtlsSettings.getPersistenceMaxQuietPeriodSec()).thenReturn(MAX_QUIET_PERIOD_SEC);
+        CoapServerContext coapServerContext = mock(CoapServerContext.class);
+        when(coapServerContext.getDtlsSettings()).thenReturn(dtlsSettings);
+        certificateVerifier = mock(TbCoapDtlsCertificateVerifier.class);
+        dtlsConnector = mock(DTLSConnector.class);
+        when(dtlsConnector.saveConnections(any(), anyLong())).thenAnswer(invocation -> {
+            invocation.getArgument(0, OutputStream.class).write(CONNECTIONS);
+            return 1;
+        });
+        when(dtlsConnector.loadConnections(any(), anyLong())).thenAnswer(invocation -> {
+            assertThat(invocation.getArgument(0, InputStream.class).readAllBytes()).isEqualTo(CONNECTIONS);
+            return 1;
+        });
+        stateStore = new InMemoryStateStore();
+
+        coapServerService = new DefaultCoapServerService();
+        ReflectionTestUtils.setField(coapServerService, "coapServerContext", coapServerContext);
+        ReflectionTestUtils.setField(coapServerService, "tbDtlsCertificateVerifier", certificateVerifier);
+        ReflectionTestUtils.setField(coapServerService, "dtlsConnector", dtlsConnector);
+        ReflectionTestUtils.setField(coapServerService, "dtlsStateStore", stateStore);
+        ReflectionTestUtils.setField(coapServerService, "dtlsStateCodec", new TbCoapDtlsStateCodec("secret"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenSavedState_whenRestored_thenConnectionsAndSessionsLoaded() throws Exception {
+        InetSocketAddress remotePeer = new InetSocketAddress(InetAddress.getByAddress(new byte[]{10, 0, 0, 1}), 5684);
+        TbCoapDtlsSessionInfo sessionInfo = TbCoapDtlsStateCodecTest.newSessionInfo();
+        ConcurrentMap<InetSocketAddress, TbCoapDtlsSessionInfo> sessions = new ConcurrentHashMap<>(Map.of(remotePeer, sessionInfo));
+        when(certificateVerifier.getTbCoapDtlsSessionsMap()).thenReturn(sessions);
+
+        coapServerService.saveDtlsState();
+
+        verify(dtlsConnector).saveConnections(any(), eq(MAX_QUIET_PERIOD_SEC));
+        assertThat(stateStore.state).isNotNull();
+        assertThat(new String(stateStore.state, StandardCharsets.ISO_8859_1)).doesNotContain("certificate");
+
+        coapServerService.restoreDtlsState();
+
+        ArgumentCaptor<Map<InetSocketAddress, TbCoapDtlsSessionInfo>> restored = ArgumentCaptor.forClass(Map.class);
+        verify(certificateVerifier).restoreSessions(restored.capture());
+        assertThat(restored.getValue()).containsOnlyKeys(remotePeer);
+        assertThat(restored.getValue().get(remotePeer).getMsg().getCredentials()).isEqualTo("certificate");
+        verify(dtlsConnector).loadConnections(any(), anyLong());
+        // the state is removed from the store on load
+        assertThat(stateStore.state).isNull();
+    }
+
+    @Test
+    void givenStateSavedLongerThanMaxQuietPeriodAgo_whenRestored_thenSkipped() throws Exception {
+        when(certificateVerifier.getTbCoapDtlsSessionsMap()).thenReturn(new ConcurrentHashMap<>());
+        coapServerService.saveDtlsState();
+        when(dtlsSettings.getPersistenceMaxQuietPeriodSec()).thenReturn(0L);
+        Thread.sleep(10);
+
+        coapServerService.restoreDtlsState();
+
+        verify(certificateVerifier, never()).restoreSessions(any());
+        verify(dtlsConnector, never()).loadConnections(any(), anyLong());
+    }
+
+    @Test
+    void givenNoSavedState_whenRestored_thenNothingLoaded() throws Exception {
+        coapServerService.restoreDtlsState();
+
+        verify(certificateVerifier, never()).restoreSessions(any());
+        verify(dtlsConnector, never()).loadConnections(any(), anyLong());
+    }
+
+    @Test
+    void givenStateEncryptedWithOtherPassword_whenRestored_thenNothingLoaded() throws Exception {
+        when(certificateVerifier.getTbCoapDtlsSessionsMap()).thenReturn(new ConcurrentHashMap<>());
+        coapServerService.saveDtlsState();
+        ReflectionTestUtils.setField(coapServerService, "dtlsStateCodec", new TbCoapDtlsStateCodec("other"));
+
+        coapServerService.restoreDtlsState();
+
+        verify(certificateVerifier, never()).restoreSessions(any());
+        verify(dtlsConnector, never()).loadConnections(any(), anyLong());
+    }
+
+    private static class InMemoryStateStore implements TbCoapDtlsStateStore {
+
+        private byte[] state;
+
+        @Override
+        public void save(byte[] state) {
+            this.state = state;
+        }
+
+        @Override
+        public byte[] load() {
+            byte[] result = state;
+            state = null;
+            return result;
+        }
+
+    }
+
+}
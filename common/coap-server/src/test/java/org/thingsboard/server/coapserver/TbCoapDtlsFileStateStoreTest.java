@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.coapserver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class TbCoapDtlsFileStateStoreTest {
+
+    private static final byte[] STATE = "state".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void givenRelativeOrEmptyPath_whenCreated_thenException() {
+        assertThatThrownBy(() -> new TbCoapDtlsFileStateStore("coap-dtls-state.bin")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TbCoapDtlsFileStateStore("")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void givenSavedState_whenLoaded_thenReturnedOnce() {
+        TbCoapDtlsFileStateStore store = new TbCoapDtlsFileStateStore(tempDir.resolve("dtls/state.bin").toString());
+
+        store.save(STATE);
+
+        assertThat(store.load()).isEqualTo(STATE);
+        assertThat(store.load()).isNull();
+    }
+
+    @Test
+    void givenPosixFileSystem_whenSaved_thenFileReadableByOwnerOnly() throws Exception {
+        assumeTrue(tempDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path file = tempDir.resolve("state.bin");
+        TbCoapDtlsFileStateStore store = new TbCoapDtlsFileStateStore(file.toString());
+
+        store.save(STATE);
+        // the previous state is replaced by the new file with the same permissions
+        store.save(STATE);
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file))).isEqualTo("rw-------");
+        assertThat(Files.exists(tempDir.resolve("state.bin.tmp"))).isFalse();
+    }
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.coapserver;
+
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.DeviceProfile;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.transport.auth.TransportDeviceInfo;
+import org.thingsboard.server.common.transport.auth.ValidateDeviceCredentialsResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TbCoapDtlsStateCodecTest {
+
+    private static final byte[] STATE = "connections with master secrets".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void givenEmptyPassword_whenCreated_thenException() {
+        assertThatThrownBy(() -> new TbCoapDtlsStateCodec("")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TbCoapDtlsStateCodec(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void givenEncryptedState_whenDecryptedWithSamePassword_thenRestored() throws Exception {
+        byte[] encrypted = encrypt(new TbCoapDtlsStateCodec("secret"), STATE);
+
+        assertThat(new String(encrypted, StandardCharsets.ISO_8859_1)).doesNotContain("master secrets");
+        assertThat(decrypt(new TbCoapDtlsStateCodec("secret"), encrypted)).isEqualTo(STATE);
+    }
+
+    @Test
+    void givenEncryptedState_whenDecryptedWithOtherPassword_thenException() throws Exception {
+        byte[] encrypted = encrypt(new TbCoapDtlsStateCodec("secret"), STATE);
+
+        assertThatThrownBy(() -> decrypt(new TbCoapDtlsStateCodec("other"), encrypted)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void givenSessions_whenEncodedAndDecoded_thenEqual() throws Exception {
+        InetSocketAddress remotePeer = new InetSocketAddress(InetAddress.getByAddress(new byte[]{10, 0, 0, 1}), 5684);
+        TbCoapDtlsSessionInfo sessionInfo = newSessionInfo();
+        sessionInfo.setLastActivityTime(12345L);
+
+        Map<InetSocketAddress, TbCoapDtlsSessionInfo> sessions = TbCoapDtlsStateCodec.decodeSessions(
+                TbCoapDtlsStateCodec.encodeSessions(Map.of(remotePeer, sessionInfo)));
+
+        assertThat(sessions).containsOnlyKeys(remotePeer);
+        TbCoapDtlsSessionInfo restored = sessions.get(remotePeer);
+        assertThat(restored.getLastActivityTime()).isEqualTo(12345L);
+        assertThat(restored.getMsg().getCredentials()).isEqualTo("certificate");
+        assertThat(restored.getMsg().getDeviceInfo()).isEqualTo(sessionInfo.getMsg().getDeviceInfo());
+        assertThat(restored.getDeviceProfile().getId()).isEqualTo(sessionInfo.getDeviceProfile().getId());
+        assertThat(restored.getDeviceProfile().getName()).isEqualTo("profile");
+    }
+
+    @Test
+    void givenNotSessionsJson_whenDecoded_thenRejected() {
+        byte[] binary = new byte[]{(byte) 0xac, (byte) 0xed, 0x00, 0x05, 0x73, 0x72, 0x00, 0x11};
+
+        assertThatThrownBy(() -> TbCoapDtlsStateCodec.decodeSessions(binary)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> TbCoapDtlsStateCodec.decodeSessions("{}".getBytes(StandardCharsets.UTF_8))).isInstanceOf(IOException.class);
+    }
+
+    static TbCoapDtlsSessionInfo newSessionInfo() {
+        TransportDeviceInfo deviceInfo = new TransportDeviceInfo();
+        deviceInfo.setTenantId(TenantId.fromUUID(UUID.randomUUID()));
+        deviceInfo.setDeviceId(new DeviceId(UUID.randomUUID()));
+        deviceInfo.setDeviceProfileId(new DeviceProfileId(UUID.randomUUID()));
+        deviceInfo.setDeviceName("device");
+        deviceInfo.setDeviceType("default");
+        DeviceProfile deviceProfile = new DeviceProfile(deviceInfo.getDeviceProfileId());
+        deviceProfile.setName("profile");
+        ValidateDeviceCredentialsResponse msg = ValidateDeviceCredentialsResponse.builder()
+                .deviceInfo(deviceInfo)
+                .deviceProfile(deviceProfile)
+                .credentials("certificate")
+                .build();
+        return new TbCoapDtlsSessionInfo(msg, deviceProfile);
+    }
+
+    private static byte[] encrypt(TbCoapDtlsStateCodec codec, byte[] data) throws IOException {
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        try (OutputStream out = codec.encrypt(encrypted)) {
+            out.write(data);
+        }
+        return encrypted.toByteArray();
+    }
+
+    private static byte[] decrypt(TbCoapDtlsStateCodec codec, byte[] data) throws IOException {
+        try (InputStream in = codec.decrypt(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        }
+    }
+
+}
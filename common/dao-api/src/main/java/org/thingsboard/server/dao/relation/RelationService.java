@@ -29,6 +29,7 @@ import org.thingsboard.server.common.data.rule.RuleChainType;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Created by ashvayka on 27.04.17.
@@ -81,6 +82,12 @@ public interface RelationService {
 
     ListenableFuture<List<EntityRelationInfo>> findInfoByQuery(TenantId tenantId, EntityRelationsQuery query);
 
+    /**
+     * Finds all entities the given entity is reachable from via common relations, optionally limited to the given relation types.
+     * Results are cached and the cache is cleared on any relation change.
+     */
+    ListenableFuture<Set<EntityId>> findAncestors(TenantId tenantId, EntityId entityId, List<String> relationTypes);
+
     void removeRelations(TenantId tenantId, EntityId entityId);
 
     List<EntityRelation> findRuleNodeToRuleChainRelations(TenantId tenantId, RuleChainType ruleChainType, int limit);
@@ -27,6 +27,7 @@ import org.thingsboard.server.common.data.kv.TsKvEntry;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -50,6 +51,13 @@ public interface TimeseriesService {
 
     ListenableFuture<Integer> saveWithoutLatest(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntry, long ttl);
 
+    /**
+     * Saves the entries of one or many entities, enqueueing each DAO write as one unit.
+     *
+     * @return the total number of data point days
+     */
+    ListenableFuture<Integer> saveAll(TenantId tenantId, Map<EntityId, List<TsKvEntry>> tsKvEntries, long ttl, boolean saveLatest);
+
     ListenableFuture<List<Void>> saveLatest(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntry);
 
     ListenableFuture<List<TsKvLatestRemovingResult>> remove(TenantId tenantId, EntityId entityId, List<DeleteTsKvQuery> queries);
@@ -34,6 +34,7 @@ import org.thingsboard.server.gen.edge.v1.DownlinkResponseMsg;
 import org.thingsboard.server.gen.edge.v1.EdgeConfiguration;
 import org.thingsboard.server.gen.edge.v1.EdgeRpcServiceGrpc;
 import org.thingsboard.server.gen.edge.v1.EdgeVersion;
+import org.thingsboard.server.gen.edge.v1.EntityVersionProto;
 import org.thingsboard.server.gen.edge.v1.RequestMsg;
 import org.thingsboard.server.gen.edge.v1.RequestMsgType;
 import org.thingsboard.server.gen.edge.v1.ResponseMsg;
@@ -42,6 +43,8 @@ import org.thingsboard.server.gen.edge.v1.UplinkMsg;
 import org.thingsboard.server.gen.edge.v1.UplinkResponseMsg;
 
 import javax.net.ssl.SSLException;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
@@ -67,6 +70,9 @@ public class EdgeGrpcClient implements EdgeRpcClient {
 
     private StreamObserver<RequestMsg> inputStream;
 
+    private volatile String resumeToken;
+    private volatile boolean sessionResumed;
+
     private static final ReentrantLock uplinkMsgLock = new ReentrantLock();
 
     @Override
@@ -96,13 +102,16 @@ public class EdgeGrpcClient implements EdgeRpcClient {
         EdgeRpcServiceGrpc.EdgeRpcServiceStub stub = EdgeRpcServiceGrpc.newStub(channel);
         log.info("[{}] Sending a connect request to the TB!", edgeKey);
         this.inputStream = stub.withCompression("gzip").handleMsgs(initOutputStream(edgeKey, onUplinkResponse, onEdgeUpdate, onDownlink, onError));
+        ConnectRequestMsg.Builder connectRequestMsg = ConnectRequestMsg.newBuilder()
+                .setEdgeRoutingKey(edgeKey)
+                .setEdgeSecret(edgeSecret)
+                .setEdgeVersion(EdgeVersion.V_3_4_0);
+        if (resumeToken != null) {
+            connectRequestMsg.setResumeToken(resumeToken);
+        }
         this.inputStream.onNext(RequestMsg.newBuilder()
                 .setMsgType(RequestMsgType.CONNECT_RPC_MESSAGE)
-                .setConnectRequestMsg(ConnectRequestMsg.newBuilder()
-                        .setEdgeRoutingKey(edgeKey)
-                        .setEdgeSecret(edgeSecret)
-                        .setEdgeVersion(EdgeVersion.V_3_4_0)
-                        .build())
+                .setConnectRequestMsg(connectRequestMsg.build())
                 .build());
     }
 
@@ -117,10 +126,13 @@ public class EdgeGrpcClient implements EdgeRpcClient {
                 if (responseMsg.hasConnectResponseMsg()) {
                     ConnectResponseMsg connectResponseMsg = responseMsg.getConnectResponseMsg();
                     if (connectResponseMsg.getResponseCode().equals(ConnectResponseCode.ACCEPTED)) {
-                        log.info("[{}] Configuration received: {}", edgeKey, connectResponseMsg.getConfiguration());
+                        log.info("[{}] Configuration received: {}, session resumed: {}", edgeKey, connectResponseMsg.getConfiguration(), connectResponseMsg.getResumed());
+                        resumeToken = connectResponseMsg.hasResumeToken() ? connectResponseMsg.getResumeToken() : null;
+                        sessionResumed = connectResponseMsg.getResumed();
                         onEdgeUpdate.accept(connectResponseMsg.getConfiguration());
                     } else {
                         log.error("[{}] Failed to establish the connection! Code: {}. Error message: {}.", edgeKey, connectResponseMsg.getResponseCode(), connectResponseMsg.getErrorMsg());
+                        resumeToken = null;
                         try {
                             EdgeGrpcClient.this.disconnect(true);
                         } catch (InterruptedException e) {
@@ -169,29 +181,38 @@ public class EdgeGrpcClient implements EdgeRpcClient {
                 log.error("Exception during onCompleted", e);
             }
         }
-        if (channel != null) {
-            channel.shutdown();
-            int attempt = 0;
-            do {
-                try {
-                    channel.awaitTermination(timeoutSecs, TimeUnit.SECONDS);
-                } catch (Exception e) {
-                    log.error("Channel await termination was interrupted", e);
-                }
-                if (attempt > 5) {
-                    log.warn("We had reached maximum of termination attempts. Force closing channel");
-                    try {
-                        channel.shutdownNow();
-                    } catch (Exception e) {
-                        log.error("Exception during shutdownNow", e);
-                    }
-                    break;
+        ManagedChannel channelToClose = channel;
+        channel = null;
+        if (channelToClose != null) {
+            if (onError) {
+                // the stream is already broken, there is nothing to flush - release the channel without waiting
+                channelToClose.shutdownNow();
+                return;
+            }
+            channelToClose.shutdown();
+            try {
+                if (!channelToClose.awaitTermination(timeoutSecs, TimeUnit.SECONDS)) {
+                    log.warn("Channel was not terminated in {} seconds. Force closing channel", timeoutSecs);
+                    channelToClose.shutdownNow();
                 }
-                attempt++;
-            } while (!channel.isTerminated());
+            } catch (Exception e) {
+                log.error("Channel await termination was interrupted", e);
+                channelToClose.shutdownNow();
+            }
         }
     }
 
+    @Override
+    public boolean isSessionResumed() {
+        return sessionResumed;
+    }
+
+    @Override
+    public void clearResumeToken() {
+        resumeToken = null;
+        sessionResumed = false;
+    }
+
     @Override
     public void sendUplinkMsg(UplinkMsg msg) {
         uplinkMsgLock.lock();
@@ -212,11 +233,23 @@ public class EdgeGrpcClient implements EdgeRpcClient {
 
     @Override
     public void sendSyncRequestMsg(boolean syncRequired, boolean fullSync) {
+        sendSyncRequestMsg(syncRequired, fullSync, Collections.emptyList());
+    }
+
+    @Override
+    public void sendSyncRequestMsg(boolean syncRequired, boolean fullSync, List<EntityVersionProto> entityVersions) {
+        sendSyncRequestMsg(syncRequired, fullSync, entityVersions, false);
+    }
+
+    @Override
+    public void sendSyncRequestMsg(boolean syncRequired, boolean fullSync, List<EntityVersionProto> entityVersions, boolean hasMoreEntityVersions) {
         uplinkMsgLock.lock();
         try {
             SyncRequestMsg syncRequestMsg = SyncRequestMsg.newBuilder()
                     .setSyncRequired(syncRequired)
                     .setFullSync(fullSync)
+                    .addAllEntityVersions(entityVersions)
+                    .setHasMoreEntityVersions(hasMoreEntityVersions)
                     .build();
             this.inputStream.onNext(RequestMsg.newBuilder()
                     .setMsgType(RequestMsgType.SYNC_REQUEST_RPC_MESSAGE)
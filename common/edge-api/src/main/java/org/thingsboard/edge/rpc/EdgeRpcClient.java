@@ -18,9 +18,11 @@ package org.thingsboard.edge.rpc;
 import org.thingsboard.server.gen.edge.v1.DownlinkMsg;
 import org.thingsboard.server.gen.edge.v1.DownlinkResponseMsg;
 import org.thingsboard.server.gen.edge.v1.EdgeConfiguration;
+import org.thingsboard.server.gen.edge.v1.EntityVersionProto;
 import org.thingsboard.server.gen.edge.v1.UplinkMsg;
 import org.thingsboard.server.gen.edge.v1.UplinkResponseMsg;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 public interface EdgeRpcClient {
@@ -34,10 +36,24 @@ public interface EdgeRpcClient {
 
     void disconnect(boolean onError) throws InterruptedException;
 
+    /**
+     * @return true if the last established session was resumed by the cloud and no sync is required
+     */
+    boolean isSessionResumed();
+
+    /**
+     * Forces the next connection to start a new session instead of resuming the previous one.
+     */
+    void clearResumeToken();
+
     void sendSyncRequestMsg(boolean syncRequired);
 
     void sendSyncRequestMsg(boolean syncRequired, boolean fullSync);
 
+    void sendSyncRequestMsg(boolean syncRequired, boolean fullSync, List<EntityVersionProto> entityVersions);
+
+    void sendSyncRequestMsg(boolean syncRequired, boolean fullSync, List<EntityVersionProto> entityVersions, boolean hasMoreEntityVersions);
+
     void sendUplinkMsg(UplinkMsg uplinkMsg);
 
     void sendDownlinkResponseMsg(DownlinkResponseMsg downlinkResponseMsg);
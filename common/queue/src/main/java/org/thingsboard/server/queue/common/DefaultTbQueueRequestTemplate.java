@@ -18,12 +18,16 @@ package org.thingsboard.server.queue.common;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import io.micrometer.core.instrument.Timer;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.common.util.TbStopWatch;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.common.msg.queue.TopicPartitionInfo;
+import org.thingsboard.server.common.stats.DefaultCounter;
+import org.thingsboard.server.common.stats.MessagesStats;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.queue.TbQueueAdmin;
 import org.thingsboard.server.queue.TbQueueCallback;
 import org.thingsboard.server.queue.TbQueueConsumer;
@@ -31,16 +35,19 @@ import org.thingsboard.server.queue.TbQueueMsg;
 import org.thingsboard.server.queue.TbQueueMsgMetadata;
 import org.thingsboard.server.queue.TbQueueProducer;
 import org.thingsboard.server.queue.TbQueueRequestTemplate;
-import org.thingsboard.server.common.stats.MessagesStats;
 
 import javax.annotation.Nullable;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
@@ -53,6 +60,9 @@ public class DefaultTbQueueRequestTemplate<Request extends TbQueueMsg, Response
     private final TbQueueProducer<Request> requestTemplate;
     private final TbQueueConsumer<Response> responseTemplate;
     final ConcurrentHashMap<UUID, DefaultTbQueueRequestTemplate.ResponseMetaData<Response>> pendingRequests = new ConcurrentHashMap<>();
+    // pending requests ordered by the expiration time, so the cleanup visits the expired requests only
+    final ConcurrentSkipListSet<DefaultTbQueueRequestTemplate.ResponseMetaData<Response>> pendingRequestsByExpTime =
+            new ConcurrentSkipListSet<>(Comparator.<ResponseMetaData<Response>>comparingLong(ResponseMetaData::getExpTime).thenComparing(ResponseMetaData::getRequestId));
     final boolean internalExecutor;
     final ExecutorService executor;
     final long maxRequestTimeoutNs;
@@ -60,10 +70,12 @@ public class DefaultTbQueueRequestTemplate<Request extends TbQueueMsg, Response
     final long maxPendingRequests;
     final long pollInterval;
     volatile boolean stopped = false;
-    long nextCleanupNs = 0L;
     private final Lock cleanerLock = new ReentrantLock();
 
     private MessagesStats messagesStats;
+    private AtomicLong pendingRequestsGauge;
+    private DefaultCounter timeoutsCounter;
+    private Timer responseTimer;
 
     @Builder
     public DefaultTbQueueRequestTemplate(TbQueueAdmin queueAdmin,
@@ -117,6 +129,9 @@ public class DefaultTbQueueRequestTemplate<Request extends TbQueueMsg, Response
         responses.forEach(this::processResponse); //this can take a long time
         responseTemplate.commit();
         tryCleanStaleRequests();
+        if (pendingRequestsGauge != null) {
+            pendingRequestsGauge.set(pendingRequests.mappingCount());
+        }
     }
 
     private boolean tryCleanStaleRequests() {
@@ -126,16 +141,16 @@ public class DefaultTbQueueRequestTemplate<Request extends TbQueueMsg, Response
         try {
             log.trace("tryCleanStaleRequest...");
             final long currentNs = getCurrentClockNs();
-            if (nextCleanupNs < currentNs) {
-                pendingRequests.forEach((key, value) -> {
-                    if (value.expTime < currentNs) {
-                        ResponseMetaData<Response> staleRequest = pendingRequests.remove(key);
-                        if (staleRequest != null) {
-                            setTimeoutException(key, staleRequest, currentNs);
-                        }
-                    }
-                });
-                setupNextCleanup();
+            Iterator<ResponseMetaData<Response>> iterator = pendingRequestsByExpTime.iterator();
+            while (iterator.hasNext()) {
+                ResponseMetaData<Response> staleRequest = iterator.next();
+                if (staleRequest.expTime >= currentNs) {
+                    break;
+                }
+                iterator.remove();
+                if (pendingRequests.remove(staleRequest.requestId, staleRequest)) {
+                    setTimeoutException(staleRequest.requestId, staleRequest, currentNs);
+                }
             }
         } finally {
             cleanerLock.unlock();
@@ -143,11 +158,6 @@ public class DefaultTbQueueRequestTemplate<Request extends TbQueueMsg, Response
         return true;
     }
 
-    void setupNextCleanup() {
-        nextCleanupNs = getCurrentClockNs() + maxRequestTimeoutNs;
-        log.trace("setupNextCleanup {}", nextCleanupNs);
-    }
-
     List<Response> doPoll() {
         return responseTemplate.poll(pollInterval);
     }
@@ -162,6 +172,9 @@ public class DefaultTbQueueRequestTemplate<Request extends TbQueueMsg, Response
         } else {
             log.info("Request timeout detected, currentNs [{}], {}, key [{}]", currentNs, staleRequest, key);
         }
+        if (timeoutsCounter != null) {
+            timeoutsCounter.increment();
+        }
         staleRequest.future.setException(new TimeoutException());
     }
 
@@ -177,6 +190,10 @@ public class DefaultTbQueueRequestTemplate<Request extends TbQueueMsg, Response
             if (expectedResponse == null) {
                 log.debug("[{}] Invalid or stale request, response: {}", requestId, String.valueOf(response).replace("\n", " "));
             } else {
+                pendingRequestsByExpTime.remove(expectedResponse);
+                if (responseTimer != null) {
+                    responseTimer.record(getCurrentClockNs() - expectedResponse.submitTime, TimeUnit.NANOSECONDS);
+                }
                 expectedResponse.future.set(response);
             }
         }
@@ -204,6 +221,13 @@ public class DefaultTbQueueRequestTemplate<Request extends TbQueueMsg, Response
         this.messagesStats = messagesStats;
     }
 
+    @Override
+    public void setStatsFactory(StatsFactory statsFactory, String statsKey) {
+        this.pendingRequestsGauge = statsFactory.createGauge(statsKey + ".pending", new AtomicLong());
+        this.timeoutsCounter = statsFactory.createDefaultCounter(statsKey + ".timeouts");
+        this.responseTimer = statsFactory.createTimer(statsKey + ".latency");
+    }
+
     @Override
     public ListenableFuture<Response> send(Request request) {
         return send(request, this.maxRequestTimeoutNs);
@@ -221,12 +245,13 @@ public class DefaultTbQueueRequestTemplate<Request extends TbQueueMsg, Response
         request.getHeaders().put(EXPIRE_TS_HEADER, longToBytes(getCurrentTimeMs() + maxRequestTimeout));
         long currentClockNs = getCurrentClockNs();
         SettableFuture<Response> future = SettableFuture.create();
-        ResponseMetaData<Response> responseMetaData = new ResponseMetaData<>(currentClockNs + requestTimeoutNs, future, currentClockNs, requestTimeoutNs);
+        ResponseMetaData<Response> responseMetaData = new ResponseMetaData<>(requestId, currentClockNs + requestTimeoutNs, future, currentClockNs, requestTimeoutNs);
         log.trace("pending {}", responseMetaData);
         if (pendingRequests.putIfAbsent(requestId, responseMetaData) != null) {
             log.warn("Pending request already exists [{}]!", maxPendingRequests);
             return Futures.immediateFailedFuture(new RuntimeException("Pending request already exists !" + requestId));
         }
+        pendingRequestsByExpTime.add(responseMetaData);
         sendToRequestTemplate(request, requestId, future, responseMetaData);
         return future;
     }
@@ -265,7 +290,9 @@ public class DefaultTbQueueRequestTemplate<Request extends TbQueueMsg, Response
                 if (messagesStats != null) {
                     messagesStats.incrementFailed();
                 }
-                pendingRequests.remove(requestId);
+                if (pendingRequests.remove(requestId, responseMetaData)) {
+                    pendingRequestsByExpTime.remove(responseMetaData);
+                }
                 future.setException(t);
             }
         });
@@ -273,12 +300,14 @@ public class DefaultTbQueueRequestTemplate<Request extends TbQueueMsg, Response
 
     @Getter
     static class ResponseMetaData<T> {
+        private final UUID requestId;
         private final long submitTime;
         private final long timeout;
         private final long expTime;
         private final SettableFuture<T> future;
 
-        ResponseMetaData(long ts, SettableFuture<T> future, long submitTime, long timeout) {
+        ResponseMetaData(UUID requestId, long ts, SettableFuture<T> future, long submitTime, long timeout) {
+            this.requestId = requestId;
             this.submitTime = submitTime;
             this.timeout = timeout;
             this.expTime = ts;
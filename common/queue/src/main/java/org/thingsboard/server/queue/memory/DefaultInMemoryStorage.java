@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @Slf4j
@@ -52,22 +53,29 @@ public final class DefaultInMemoryStorage implements InMemoryStorage {
         return storage.computeIfAbsent(topic, (t) -> new LinkedBlockingQueue<>()).add(msg);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public <T extends TbQueueMsg> List<T> get(String topic) throws InterruptedException {
         final BlockingQueue<TbQueueMsg> queue = storage.get(topic);
-        if (queue != null) {
-            final TbQueueMsg firstMsg = queue.poll();
-            if (firstMsg != null) {
-                final int queueSize = queue.size();
-                if (queueSize > 0) {
-                    final List<TbQueueMsg> entities = new ArrayList<>(Math.min(queueSize, 999) + 1);
-                    entities.add(firstMsg);
-                    queue.drainTo(entities, 999);
-                    return (List<T>) entities;
-                }
-                return Collections.singletonList((T) firstMsg);
+        return queue != null ? drain(queue, queue.poll()) : Collections.emptyList();
+    }
+
+    @Override
+    public <T extends TbQueueMsg> List<T> get(String topic, long timeoutMs) throws InterruptedException {
+        final BlockingQueue<TbQueueMsg> queue = storage.computeIfAbsent(topic, (t) -> new LinkedBlockingQueue<>());
+        return drain(queue, queue.poll(timeoutMs, TimeUnit.MILLISECONDS));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends TbQueueMsg> List<T> drain(BlockingQueue<TbQueueMsg> queue, TbQueueMsg firstMsg) {
+        if (firstMsg != null) {
+            final int queueSize = queue.size();
+            if (queueSize > 0) {
+                final List<TbQueueMsg> entities = new ArrayList<>(Math.min(queueSize, 999) + 1);
+                entities.add(firstMsg);
+                queue.drainTo(entities, 999);
+                return (List<T>) entities;
             }
+            return Collections.singletonList((T) firstMsg);
         }
         return Collections.emptyList();
     }
@@ -29,4 +29,9 @@ public interface InMemoryStorage {
 
     <T extends TbQueueMsg> List<T> get(String topic) throws InterruptedException;
 
+    /**
+     * Same as {@link #get(String)}, but waits up to the given timeout for the first message to arrive.
+     */
+    <T extends TbQueueMsg> List<T> get(String topic, long timeoutMs) throws InterruptedException;
+
 }
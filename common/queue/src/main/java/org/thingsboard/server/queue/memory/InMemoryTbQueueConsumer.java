@@ -64,6 +64,17 @@ public class InMemoryTbQueueConsumer<T extends TbQueueMsg> implements TbQueueCon
 
     @Override
     public List<T> poll(long durationInMillis) {
+        if (subscribed && partitions.size() == 1) {
+            // single partition: wait for the messages instead of sleeping, so they are delivered as soon as they arrive
+            try {
+                return storage.get(partitions.iterator().next().getFullTopicName(), durationInMillis);
+            } catch (InterruptedException e) {
+                if (!stopped) {
+                    log.error("Queue was interrupted.", e);
+                }
+                return Collections.emptyList();
+            }
+        }
         if (subscribed) {
             @SuppressWarnings("unchecked")
             List<T> messages = partitions
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.queue.common;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.After;
 import org.junit.Before;
@@ -106,7 +107,6 @@ public class DefaultTbQueueRequestTemplateTest {
     @Test
     public void givenExternalExecutor_whenInitStop_thenOK() {
         inst.init();
-        assertThat(inst.nextCleanupNs, equalTo(0L));
         verify(queueAdmin, times(1)).createTopicIfNotExists(topic);
         verify(requestTemplate, times(1)).init();
         verify(responseTemplate, times(1)).subscribe();
@@ -180,7 +180,6 @@ public class DefaultTbQueueRequestTemplateTest {
             return currentTime.get();
         }).given(inst).getCurrentClockNs();
         inst.init();
-        inst.setupNextCleanup();
         willReturn(Collections.emptyList()).given(inst).doPoll();
 
         //when
@@ -206,6 +205,33 @@ public class DefaultTbQueueRequestTemplateTest {
         }
     }
 
+    @Test
+    public void givenPendingRequests_whenResponseReceivedAndTimeoutPassed_thenOnlyNotRespondedRequestExpired() {
+        AtomicLong currentTime = new AtomicLong();
+        willAnswer(x -> currentTime.get()).given(inst).getCurrentClockNs();
+        willDoNothing().given(inst).sendToRequestTemplate(any(), any(), any(), any());
+        willReturn(Collections.emptyList()).given(inst).doPoll();
+        inst.init();
+
+        ListenableFuture<TbQueueMsg> respondedFuture = inst.send(getRequestMsgMock());
+        currentTime.incrementAndGet();
+        ListenableFuture<TbQueueMsg> expiredFuture = inst.send(getRequestMsgMock());
+        assertThat(inst.pendingRequestsByExpTime.size(), equalTo(2));
+
+        TbQueueMsg response = getRequestMsgMock();
+        UUID respondedRequestId = inst.pendingRequestsByExpTime.first().getRequestId();
+        willReturn(inst.uuidToBytes(respondedRequestId)).given(response.getHeaders()).get(AbstractTbQueueTemplate.REQUEST_ID_HEADER);
+        inst.processResponse(response);
+
+        currentTime.addAndGet(inst.maxRequestTimeoutNs + 1);
+        inst.fetchAndProcessResponses();
+
+        assertThat(inst.pendingRequests.isEmpty(), is(true));
+        assertThat(inst.pendingRequestsByExpTime.isEmpty(), is(true));
+        assertThat(respondedFuture.isDone() && expiredFuture.isDone(), is(true));
+        verify(inst, times(1)).setTimeoutException(any(), any(), anyLong());
+    }
+
     TbQueueMsg getRequestMsgMock() {
         return mock(TbQueueMsg.class, RETURNS_DEEP_STUBS);
     }
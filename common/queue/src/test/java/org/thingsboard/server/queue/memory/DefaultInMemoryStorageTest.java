@@ -24,6 +24,9 @@ import org.thingsboard.server.queue.common.DefaultTbQueueMsg;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -112,4 +115,19 @@ public class DefaultInMemoryStorageTest {
         testPollOnce(10);
     }
 
+    @Test
+    public void givenEmptyQueue_whenPollWithTimeout_thenReturnMessagePutWhileWaiting() throws InterruptedException {
+        assertThat(storage.get(topic, 10)).as("poll empty queue with timeout").isEmpty();
+
+        DefaultTbQueueMsg msg = gson.fromJson("{\"key\": \"" + UUID.randomUUID() + "\"}", DefaultTbQueueMsg.class);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            executor.schedule(() -> storage.put(topic, msg), 50, TimeUnit.MILLISECONDS);
+
+            assertThat(storage.get(topic, TimeUnit.SECONDS.toMillis(10))).as("poll message put while waiting").containsExactly(msg);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 }
@@ -15,6 +15,10 @@
  */
 package org.thingsboard.server.transport.lwm2m.server;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.leshan.core.model.DefaultDDFFileValidator;
 import org.eclipse.leshan.core.model.LwM2mModel;
@@ -29,6 +33,7 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.queue.util.TbLwM2mTransportComponent;
 import org.thingsboard.server.transport.lwm2m.server.client.LwM2mClientContext;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
@@ -36,8 +41,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.thingsboard.server.common.data.ResourceType.LWM2M_MODEL;
 import static org.thingsboard.server.common.data.lwm2m.LwM2mConstants.LWM2M_SEPARATOR_KEY;
@@ -51,12 +56,23 @@ public class LwM2mVersionedModelProvider implements LwM2mModelProvider {
     private final LwM2mTransportServerHelper helper;
     private final LwM2mTransportContext context;
     private final ConcurrentMap<TenantId, ConcurrentMap<String, ObjectModel>> models;
+    /**
+     * Parsed models by object id, version and content of the resource, so tenants with the identical resource share one instance.
+     * Values are weak: a model is dropped once no tenant references it, e.g. after the resource is updated.
+     */
+    private final Cache<String, ObjectModel> parsedModels;
+    /**
+     * Number of evictions per model key, used to drop a model loaded from the resource that was updated during the load.
+     */
+    private final ConcurrentMap<String, AtomicLong> evictions;
 
     public LwM2mVersionedModelProvider(@Lazy LwM2mClientContext lwM2mClientContext, LwM2mTransportServerHelper helper, LwM2mTransportContext context) {
         this.lwM2mClientContext = lwM2mClientContext;
         this.helper = helper;
         this.context = context;
         this.models = new ConcurrentHashMap<>();
+        this.parsedModels = CacheBuilder.newBuilder().weakValues().build();
+        this.evictions = new ConcurrentHashMap<>();
     }
 
     private String getKeyIdVer(Integer objectId, String version) {
@@ -69,25 +85,70 @@ public class LwM2mVersionedModelProvider implements LwM2mModelProvider {
     }
 
     public void evict(TenantId tenantId, String key) {
+        getEvictions(key).incrementAndGet();
         if (tenantId.isNullUid()) {
             models.values().forEach(m -> m.remove(key));
         } else {
-            models.get(tenantId).remove(key);
+            ConcurrentMap<String, ObjectModel> tenantModels = models.get(tenantId);
+            if (tenantModels != null) {
+                tenantModels.remove(key);
+            }
+        }
+    }
+
+    ObjectModel getObjectModel(TenantId tenantId, String key) {
+        ConcurrentMap<String, ObjectModel> tenantModels = models.computeIfAbsent(tenantId, t -> new ConcurrentHashMap<>());
+        ObjectModel objectModel = tenantModels.get(key);
+        if (objectModel == null) {
+            AtomicLong keyEvictions = getEvictions(key);
+            long evictionsBeforeLoad = keyEvictions.get();
+            objectModel = loadObjectModel(tenantId, key);
+            if (objectModel != null) {
+                ObjectModel existing = tenantModels.putIfAbsent(key, objectModel);
+                if (existing != null) {
+                    objectModel = existing;
+                } else if (keyEvictions.get() != evictionsBeforeLoad) {
+                    // the resource might be updated after it was read, the next call loads it again
+                    tenantModels.remove(key, objectModel);
+                }
+            }
+        }
+        return objectModel;
+    }
+
+    private AtomicLong getEvictions(String key) {
+        return evictions.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    private ObjectModel loadObjectModel(TenantId tenantId, String key) {
+        Optional<TbResource> tbResource = context.getTransportResourceCache().get(tenantId, LWM2M_MODEL, key);
+        if (tbResource.isEmpty()) {
+            return null;
+        }
+        String data = tbResource.get().getData();
+        String contentKey = key + LWM2M_SEPARATOR_KEY + Hashing.sha256().hashString(data, StandardCharsets.UTF_8);
+        try {
+            // only the loads of the same model wait for each other
+            return parsedModels.get(contentKey, () -> {
+                ObjectModel objectModel = helper.parseFromXmlToObjectModel(Base64.getDecoder().decode(data), key + ".xml", new DefaultDDFFileValidator());
+                if (objectModel == null) {
+                    throw new IllegalArgumentException("Failed to parse the object model " + key);
+                }
+                return objectModel;
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            log.trace("[{}] Failed to load the object model [{}]", tenantId, key, e);
+            return null;
         }
     }
 
     private class DynamicModel implements LwM2mModel {
         private final Registration registration;
         private final TenantId tenantId;
-        private final Lock modelsLock;
 
         public DynamicModel(Registration registration) {
             this.registration = registration;
             this.tenantId = lwM2mClientContext.getClientByEndpoint(registration.getEndpoint()).getTenantId();
-            this.modelsLock = new ReentrantLock();
-            if (tenantId != null) {
-                models.computeIfAbsent(tenantId, t -> new ConcurrentHashMap<>());
-            }
         }
 
         @Override
@@ -128,34 +189,14 @@ public class LwM2mVersionedModelProvider implements LwM2mModelProvider {
         }
 
         private ObjectModel getObjectModelDynamic(Integer objectId, String version) {
-            String key = getKeyIdVer(objectId, version);
-            ObjectModel objectModel = tenantId != null ? models.get(tenantId).get(key) : null;
-            if (tenantId != null && objectModel == null) {
-                modelsLock.lock();
-                try {
-                    objectModel = models.get(tenantId).get(key);
-                    if (objectModel == null) {
-                        objectModel = getObjectModel(key);
-                    }
-                    if (objectModel != null) {
-                        models.get(tenantId).put(key, objectModel);
-                    } else {
-                        log.error("Tenant hasn't such the resource: Object model with id [{}] version [{}].", objectId, version);
-                    }
-                } finally {
-                    modelsLock.unlock();
-                }
+            if (tenantId == null) {
+                return null;
+            }
+            ObjectModel objectModel = LwM2mVersionedModelProvider.this.getObjectModel(tenantId, getKeyIdVer(objectId, version));
+            if (objectModel == null) {
+                log.error("Tenant hasn't such the resource: Object model with id [{}] version [{}].", objectId, version);
             }
-
             return objectModel;
         }
-
-        private ObjectModel getObjectModel(String key) {
-            Optional<TbResource> tbResource = context.getTransportResourceCache().get(this.tenantId, LWM2M_MODEL, key);
-            return tbResource.map(resource -> helper.parseFromXmlToObjectModel(
-                    Base64.getDecoder().decode(resource.getData()),
-                    key + ".xml",
-                    new DefaultDDFFileValidator())).orElse(null);
-        }
     }
 }
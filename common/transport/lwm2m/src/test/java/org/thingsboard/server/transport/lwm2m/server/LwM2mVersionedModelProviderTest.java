@@ -0,0 +1,196 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.lwm2m.server;
+
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.TbResource;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.transport.TransportResourceCache;
+import org.thingsboard.server.transport.lwm2m.server.client.LwM2mClientContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.thingsboard.server.common.data.ResourceType.LWM2M_MODEL;
+
+public class LwM2mVersionedModelProviderTest {
+
+    private static final String KEY = "3_1.0";
+
+    private TransportResourceCache resourceCache;
+    private LwM2mTransportServerHelper helper;
+    private LwM2mVersionedModelProvider modelProvider;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        resourceCache = mock(TransportResourceCache.class);
+        LwM2mTransportContext context = mock(LwM2mTransportContext.class);
+        when(context.getTransportResourceCache()).thenReturn(resourceCache);
+        helper = mock(LwM2mTransportServerHelper.class);
+        when(helper.parseFromXmlToObjectModel(any(), any(), any())).thenAnswer(invocation -> mock(ObjectModel.class));
+        modelProvider = new LwM2mVersionedModelProvider(mock(LwM2mClientContext.class), helper, context);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void givenTenantsWithIdenticalResource_whenGetObjectModel_thenSameInstance() {
+        TenantId tenantA = TenantId.fromUUID(UUID.randomUUID());
+        TenantId tenantB = TenantId.fromUUID(UUID.randomUUID());
+        mockResource(tenantA, "<model/>");
+        mockResource(tenantB, "<model/>");
+
+        ObjectModel modelA = modelProvider.getObjectModel(tenantA, KEY);
+        ObjectModel modelB = modelProvider.getObjectModel(tenantB, KEY);
+
+        assertThat(modelA).isNotNull().isSameAs(modelB);
+        verify(helper, times(1)).parseFromXmlToObjectModel(any(), any(), any());
+    }
+
+    @Test
+    void givenTenantsWithDifferentResources_whenGetObjectModel_thenParsedSeparately() {
+        TenantId tenantA = TenantId.fromUUID(UUID.randomUUID());
+        TenantId tenantB = TenantId.fromUUID(UUID.randomUUID());
+        mockResource(tenantA, "<model/>");
+        mockResource(tenantB, "<custom-model/>");
+
+        assertThat(modelProvider.getObjectModel(tenantA, KEY)).isNotSameAs(modelProvider.getObjectModel(tenantB, KEY));
+        verify(helper, times(2)).parseFromXmlToObjectModel(any(), any(), any());
+    }
+
+    @Test
+    void givenConcurrentFirstLoads_whenGetObjectModel_thenParsedOnce() throws Exception {
+        TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+        mockResource(tenantId, "<model/>");
+        CountDownLatch parseStarted = new CountDownLatch(1);
+        when(helper.parseFromXmlToObjectModel(any(), any(), any())).thenAnswer(invocation -> {
+            parseStarted.countDown();
+            Thread.sleep(100);
+            return mock(ObjectModel.class);
+        });
+        int threads = 8;
+        executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ObjectModel>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return modelProvider.getObjectModel(tenantId, KEY);
+            }));
+        }
+
+        start.countDown();
+        assertThat(parseStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        ObjectModel objectModel = futures.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<ObjectModel> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(objectModel);
+        }
+        verify(helper, times(1)).parseFromXmlToObjectModel(any(), any(), any());
+    }
+
+    @Test
+    void givenUnknownTenant_whenEvict_thenNoException() {
+        modelProvider.evict(TenantId.fromUUID(UUID.randomUUID()), KEY);
+        modelProvider.evict(TenantId.SYS_TENANT_ID, KEY);
+    }
+
+    @Test
+    void givenUpdatedResource_whenEvicted_thenParsedAgain() {
+        TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+        mockResource(tenantId, "<model/>");
+        ObjectModel oldModel = modelProvider.getObjectModel(tenantId, KEY);
+        mockResource(tenantId, "<updated-model/>");
+        assertThat(modelProvider.getObjectModel(tenantId, KEY)).isSameAs(oldModel);
+
+        modelProvider.evict(tenantId, KEY);
+
+        ObjectModel newModel = modelProvider.getObjectModel(tenantId, KEY);
+        assertThat(newModel).isNotNull().isNotSameAs(oldModel);
+        verify(helper, times(2)).parseFromXmlToObjectModel(any(), any(), any());
+    }
+
+    @Test
+    void givenResourceUpdatedDuringLoad_whenEvicted_thenStaleModelNotCached() {
+        TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+        AtomicReference<String> data = new AtomicReference<>(encode("<model/>"));
+        when(resourceCache.get(eq(tenantId), eq(LWM2M_MODEL), eq(KEY))).thenAnswer(invocation -> {
+            String loaded = data.get();
+            if (loaded.equals(encode("<model/>"))) {
+                // the resource is updated and evicted right after the old version was read
+                data.set(encode("<updated-model/>"));
+                modelProvider.evict(tenantId, KEY);
+            }
+            return Optional.of(newResource(loaded));
+        });
+
+        ObjectModel staleModel = modelProvider.getObjectModel(tenantId, KEY);
+        ObjectModel newModel = modelProvider.getObjectModel(tenantId, KEY);
+
+        assertThat(staleModel).isNotNull();
+        assertThat(newModel).isNotNull().isNotSameAs(staleModel);
+        assertThat(modelProvider.getObjectModel(tenantId, KEY)).isSameAs(newModel);
+        verify(helper, times(2)).parseFromXmlToObjectModel(any(), any(), any());
+    }
+
+    @Test
+    void givenMissingResource_whenGetObjectModel_thenNull() {
+        TenantId tenantId = TenantId.fromUUID(UUID.randomUUID());
+        when(resourceCache.get(eq(tenantId), eq(LWM2M_MODEL), eq(KEY))).thenReturn(Optional.empty());
+
+        assertThat(modelProvider.getObjectModel(tenantId, KEY)).isNull();
+    }
+
+    private void mockResource(TenantId tenantId, String xml) {
+        when(resourceCache.get(eq(tenantId), eq(LWM2M_MODEL), eq(KEY))).thenReturn(Optional.of(newResource(encode(xml))));
+    }
+
+    private static TbResource newResource(String data) {
+        TbResource resource = new TbResource();
+        resource.setData(data);
+        return resource;
+    }
+
+    private static String encode(String xml) {
+        return Base64.getEncoder().encodeToString(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -25,6 +25,8 @@ import org.snmp4j.smi.OID;
 import org.snmp4j.smi.OctetString;
 import org.snmp4j.smi.Variable;
 import org.snmp4j.smi.VariableBinding;
+import org.snmp4j.util.DefaultPDUFactory;
+import org.snmp4j.util.PDUFactory;
 import org.springframework.stereotype.Service;
 import org.thingsboard.server.common.data.device.data.SnmpDeviceTransportConfiguration;
 import org.thingsboard.server.common.data.kv.DataType;
@@ -48,10 +50,14 @@ import java.util.stream.IntStream;
 @Slf4j
 public class PduService {
     public PDU createPdu(DeviceSessionContext sessionContext, SnmpCommunicationConfig communicationConfig, Map<String, String> values) {
+        return createPdu(sessionContext, communicationConfig.getMethod(), communicationConfig.getAllMappings(), values);
+    }
+
+    public PDU createPdu(DeviceSessionContext sessionContext, SnmpMethod snmpMethod, List<SnmpMapping> mappings, Map<String, String> values) {
         PDU pdu = setUpPdu(sessionContext);
 
-        pdu.setType(communicationConfig.getMethod().getCode());
-        pdu.addAll(communicationConfig.getAllMappings().stream()
+        pdu.setType(snmpMethod.getCode());
+        pdu.addAll(mappings.stream()
                 .filter(mapping -> values.isEmpty() || values.containsKey(mapping.getKey()))
                 .map(mapping -> Optional.ofNullable(values.get(mapping.getKey()))
                         .map(value -> {
@@ -74,6 +80,15 @@ public class PduService {
         return pdu;
     }
 
+    public PDUFactory createBulkPduFactory(DeviceSessionContext sessionContext) {
+        SnmpDeviceTransportConfiguration deviceTransportConfiguration = sessionContext.getDeviceTransportConfiguration();
+        if (deviceTransportConfiguration.getProtocolVersion() == SnmpProtocolVersion.V3) {
+            return new DefaultPDUFactory(PDU.GETBULK, new OctetString(deviceTransportConfiguration.getEngineId()),
+                    new OctetString(deviceTransportConfiguration.getContextName()));
+        }
+        return new DefaultPDUFactory(PDU.GETBULK);
+    }
+
     private Variable toSnmpVariable(String value, DataType dataType) {
         dataType = dataType == null ? DataType.STRING : dataType;
         Variable variable;
@@ -0,0 +1,133 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.snmp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timer wheel shared by the repeating queries of all SNMP devices.
+ * A single thread advances the wheel and hands due tasks over to their actions, so the number of devices
+ * does not affect the number of scheduler entries or timer threads.
+ */
+@Slf4j
+public class SnmpPollingScheduler {
+
+    private final long tickDurationMs;
+    private final List<Deque<Task>> wheel;
+    private final Queue<Task> pendingTasks = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService timer;
+    private long tick;
+
+    public SnmpPollingScheduler(long tickDurationMs, int wheelSize) {
+        if (tickDurationMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        this.tickDurationMs = tickDurationMs;
+        this.wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.add(new ArrayDeque<>());
+        }
+    }
+
+    public void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("snmp-polling-timer"));
+        timer.scheduleAtFixedRate(this::onTick, tickDurationMs, tickDurationMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the action periodically on the timer thread, first time after one period.
+     * The action must not block; it is expected to hand the actual work over to another executor.
+     */
+    public Task schedule(Runnable action, long periodMs) {
+        Task task = new Task(action, Math.max(1, (periodMs + tickDurationMs - 1) / tickDurationMs));
+        pendingTasks.add(task);
+        return task;
+    }
+
+    void onTick() {
+        try {
+            Deque<Task> slot = wheel.get((int) (tick % wheel.size()));
+            int size = slot.size();
+            for (int i = 0; i < size; i++) {
+                Task task = slot.poll();
+                if (task.cancelled) {
+                    continue;
+                }
+                if (task.remainingRounds > 0) {
+                    task.remainingRounds--;
+                    slot.add(task);
+                    continue;
+                }
+                try {
+                    task.action.run();
+                } catch (Exception e) {
+                    log.error("Failed to run SNMP polling task", e);
+                }
+                place(task);
+            }
+            Task task;
+            while ((task = pendingTasks.poll()) != null) {
+                place(task);
+            }
+        } catch (Throwable t) {
+            log.error("Failed to process SNMP polling timer tick", t);
+        } finally {
+            tick++;
+        }
+    }
+
+    private void place(Task task) {
+        if (task.cancelled) {
+            return;
+        }
+        task.remainingRounds = (task.periodTicks - 1) / wheel.size();
+        wheel.get((int) ((tick + task.periodTicks) % wheel.size())).add(task);
+    }
+
+    public static final class Task {
+        private final Runnable action;
+        private final long periodTicks;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Task(Runnable action, long periodTicks) {
+            this.action = action;
+            this.periodTicks = periodTicks;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+}
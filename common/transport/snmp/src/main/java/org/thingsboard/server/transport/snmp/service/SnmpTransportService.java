@@ -24,14 +24,24 @@ import lombok.extern.slf4j.Slf4j;
 import org.snmp4j.PDU;
 import org.snmp4j.Snmp;
 import org.snmp4j.TransportMapping;
+import org.snmp4j.Target;
 import org.snmp4j.event.ResponseEvent;
 import org.snmp4j.mp.MPv3;
 import org.snmp4j.security.SecurityModels;
 import org.snmp4j.security.SecurityProtocols;
 import org.snmp4j.security.USM;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.IpAddress;
+import org.snmp4j.smi.Null;
+import org.snmp4j.smi.OID;
 import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.SMIConstants;
+import org.snmp4j.smi.VariableBinding;
 import org.snmp4j.transport.DefaultTcpTransportMapping;
 import org.snmp4j.transport.DefaultUdpTransportMapping;
+import org.snmp4j.util.TableEvent;
+import org.snmp4j.util.TableListener;
+import org.snmp4j.util.TableUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.thingsboard.common.util.ThingsBoardExecutors;
@@ -60,11 +70,12 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 @TbSnmpTransportComponent
@@ -77,8 +88,10 @@ public class SnmpTransportService implements TbTransportService {
 
     @Getter
     private Snmp snmp;
-    private ScheduledExecutorService queryingExecutor;
+    private SnmpPollingScheduler pollingScheduler;
+    private ExecutorService queryingExecutor;
     private ExecutorService responseProcessingExecutor;
+    private final ConcurrentMap<Object, Semaphore> inFlightRequests = new ConcurrentHashMap<>();
 
     private final Map<SnmpCommunicationSpec, ResponseDataMapper> responseDataMappers = new EnumMap<>(SnmpCommunicationSpec.class);
     private final Map<SnmpCommunicationSpec, ResponseProcessor> responseProcessors = new EnumMap<>(SnmpCommunicationSpec.class);
@@ -87,21 +100,37 @@ public class SnmpTransportService implements TbTransportService {
     private Integer responseProcessingParallelismLevel;
     @Value("${transport.snmp.underlying_protocol}")
     private String snmpUnderlyingProtocol;
+    @Value("${transport.snmp.polling.tick_duration_ms:100}")
+    private long pollingTickDurationMs;
+    @Value("${transport.snmp.polling.wheel_size:512}")
+    private int pollingWheelSize;
+    @Value("${transport.snmp.polling.parallelism_level:4}")
+    private int pollingParallelismLevel;
+    @Value("${transport.snmp.polling.max_in_flight_requests_per_host:8}")
+    private int maxInFlightRequestsPerHost;
+    @Value("${transport.snmp.polling.bulk_max_repetitions:10}")
+    private int bulkMaxRepetitions;
 
     @PostConstruct
     private void init() throws IOException {
-        queryingExecutor = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), ThingsBoardThreadFactory.forName("snmp-querying"));
+        queryingExecutor = Executors.newFixedThreadPool(pollingParallelismLevel, ThingsBoardThreadFactory.forName("snmp-querying"));
         responseProcessingExecutor = ThingsBoardExecutors.newWorkStealingPool(responseProcessingParallelismLevel, "snmp-response-processing");
 
         initializeSnmp();
         configureResponseDataMappers();
         configureResponseProcessors();
 
+        pollingScheduler = new SnmpPollingScheduler(pollingTickDurationMs, pollingWheelSize);
+        pollingScheduler.start();
+
         log.info("SNMP transport service initialized");
     }
 
     @PreDestroy
     public void stop() {
+        if (pollingScheduler != null) {
+            pollingScheduler.stop();
+        }
         if (queryingExecutor != null) {
             queryingExecutor.shutdownNow();
         }
@@ -130,34 +159,95 @@ public class SnmpTransportService implements TbTransportService {
     }
 
     public void createQueryingTasks(DeviceSessionContext sessionContext) {
-        List<ScheduledFuture<?>> queryingTasks = sessionContext.getProfileTransportConfiguration().getCommunicationConfigs().stream()
+        List<SnmpPollingScheduler.Task> queryingTasks = sessionContext.getProfileTransportConfiguration().getCommunicationConfigs().stream()
                 .filter(communicationConfig -> communicationConfig instanceof RepeatingQueryingSnmpCommunicationConfig)
                 .map(config -> {
                     RepeatingQueryingSnmpCommunicationConfig repeatingCommunicationConfig = (RepeatingQueryingSnmpCommunicationConfig) config;
                     Long queryingFrequency = repeatingCommunicationConfig.getQueryingFrequencyMs();
+                    Set<String> tableColumnOids = ConcurrentHashMap.newKeySet();
 
-                    return queryingExecutor.scheduleWithFixedDelay(() -> {
+                    return pollingScheduler.schedule(() -> queryingExecutor.execute(() -> {
                         try {
                             if (sessionContext.isActive()) {
-                                sendRequest(sessionContext, repeatingCommunicationConfig);
+                                sendQueryingRequest(sessionContext, repeatingCommunicationConfig, tableColumnOids);
                             }
                         } catch (Exception e) {
                             log.error("Failed to send SNMP request for device {}: {}", sessionContext.getDeviceId(), e.toString());
                         }
-                    }, queryingFrequency, queryingFrequency, TimeUnit.MILLISECONDS);
+                    }), queryingFrequency);
                 })
                 .collect(Collectors.toList());
         sessionContext.getQueryingTasks().addAll(queryingTasks);
     }
 
     public void cancelQueryingTasks(DeviceSessionContext sessionContext) {
-        sessionContext.getQueryingTasks().forEach(task -> task.cancel(true));
+        sessionContext.getQueryingTasks().forEach(SnmpPollingScheduler.Task::cancel);
         sessionContext.getQueryingTasks().clear();
     }
 
+    /*
+     * Scalar mappings are requested with a single PDU. Mappings that turned out to point to table columns
+     * (the device answered noSuchObject/noSuchInstance) are walked with GETBULK instead.
+     * */
+    private void sendQueryingRequest(DeviceSessionContext sessionContext, SnmpCommunicationConfig communicationConfig, Set<String> tableColumnOids) {
+        Map<Boolean, List<SnmpMapping>> mappings = communicationConfig.getAllMappings().stream()
+                .collect(Collectors.partitioningBy(mapping -> tableColumnOids.contains(mapping.getOid())));
+
+        List<SnmpMapping> scalarMappings = mappings.get(false);
+        if (!scalarMappings.isEmpty()) {
+            PDU request = pduService.createPdu(sessionContext, communicationConfig.getMethod(), scalarMappings, Collections.emptyMap());
+            RequestInfo requestInfo = new RequestInfo(communicationConfig.getSpec(), scalarMappings);
+            requestInfo.setTableColumnOids(tableColumnOids);
+            if (tryAcquireInFlightPermit(sessionContext, requestInfo)) {
+                sendRequest(sessionContext, request, requestInfo);
+            }
+        }
+
+        List<SnmpMapping> columnMappings = mappings.get(true);
+        if (!columnMappings.isEmpty()) {
+            walkTableColumns(sessionContext, communicationConfig.getSpec(), columnMappings);
+        }
+    }
+
+    private void walkTableColumns(DeviceSessionContext sessionContext, SnmpCommunicationSpec communicationSpec, List<SnmpMapping> columnMappings) {
+        RequestInfo requestInfo = new RequestInfo(communicationSpec, columnMappings);
+        if (!tryAcquireInFlightPermit(sessionContext, requestInfo)) {
+            return;
+        }
+        OID[] columns = columnMappings.stream()
+                .map(mapping -> new OID(mapping.getOid()))
+                .toArray(OID[]::new);
+
+        TableUtils tableUtils = new TableUtils(snmp, pduService.createBulkPduFactory(sessionContext));
+        tableUtils.setMaxNumRowsPerPDU(bulkMaxRepetitions);
+        log.trace("Walking SNMP table columns {} for device {}", columnMappings, sessionContext.getDeviceId());
+        tableUtils.getTable(sessionContext.getTarget(), columns, new TableWalkListener(sessionContext, requestInfo), requestInfo, null, null);
+    }
+
+    boolean tryAcquireInFlightPermit(DeviceSessionContext sessionContext, RequestInfo requestInfo) {
+        if (maxInFlightRequestsPerHost <= 0) {
+            return true;
+        }
+        Semaphore permits = inFlightRequests.computeIfAbsent(getHost(sessionContext.getTarget()), host -> new Semaphore(maxInFlightRequestsPerHost));
+        if (!permits.tryAcquire()) {
+            log.debug("Skipping SNMP polling of device {}: too many requests in flight to {}", sessionContext.getDeviceId(), sessionContext.getTarget().getAddress());
+            return false;
+        }
+        requestInfo.setInFlightPermits(permits);
+        return true;
+    }
+
+    void releaseInFlightPermit(RequestInfo requestInfo) {
+        Semaphore permits = requestInfo.getInFlightPermits();
+        if (permits != null) {
+            requestInfo.setInFlightPermits(null);
+            permits.release();
+        }
+    }
 
-    private void sendRequest(DeviceSessionContext sessionContext, SnmpCommunicationConfig communicationConfig) {
-        sendRequest(sessionContext, communicationConfig, Collections.emptyMap());
+    private static Object getHost(Target target) {
+        Address address = target.getAddress();
+        return address instanceof IpAddress ? ((IpAddress) address).getInetAddress() : address;
     }
 
     private void sendRequest(DeviceSessionContext sessionContext, SnmpCommunicationConfig communicationConfig, Map<String, String> values) {
@@ -173,7 +263,10 @@ public class SnmpTransportService implements TbTransportService {
                 snmp.send(request, sessionContext.getTarget(), requestInfo, sessionContext);
             } catch (IOException e) {
                 log.error("Failed to send SNMP request to device {}: {}", sessionContext.getDeviceId(), e.toString());
+                releaseInFlightPermit(requestInfo);
             }
+        } else {
+            releaseInFlightPermit(requestInfo);
         }
     }
 
@@ -222,6 +315,12 @@ public class SnmpTransportService implements TbTransportService {
 
     public void processResponseEvent(DeviceSessionContext sessionContext, ResponseEvent event) {
         ((Snmp) event.getSource()).cancel(event.getRequest(), sessionContext);
+        RequestInfo requestInfo = (RequestInfo) event.getUserObject();
+        releaseInFlightPermit(requestInfo);
+
+        if (!sessionContext.isActive()) {
+            return;
+        }
 
         if (event.getError() != null) {
             log.warn("SNMP response error: {}", event.getError().toString());
@@ -234,13 +333,16 @@ public class SnmpTransportService implements TbTransportService {
             return;
         }
 
-        RequestInfo requestInfo = (RequestInfo) event.getUserObject();
         responseProcessingExecutor.execute(() -> {
             processResponse(sessionContext, response, requestInfo);
         });
     }
 
     private void processResponse(DeviceSessionContext sessionContext, PDU response, RequestInfo requestInfo) {
+        if (requestInfo.getTableColumnOids() != null) {
+            detectTableColumns(sessionContext, response, requestInfo);
+        }
+
         ResponseProcessor responseProcessor = responseProcessors.get(requestInfo.getCommunicationSpec());
         if (responseProcessor == null) return;
 
@@ -251,10 +353,46 @@ public class SnmpTransportService implements TbTransportService {
             return;
         }
 
+        processResponseData(sessionContext, responseData, requestInfo);
+    }
+
+    private void processResponseData(DeviceSessionContext sessionContext, JsonObject responseData, RequestInfo requestInfo) {
+        ResponseProcessor responseProcessor = responseProcessors.get(requestInfo.getCommunicationSpec());
+        if (responseProcessor == null) return;
+
         responseProcessor.process(responseData, requestInfo, sessionContext);
         reportActivity(sessionContext.getSessionInfo());
     }
 
+    private void detectTableColumns(DeviceSessionContext sessionContext, PDU response, RequestInfo requestInfo) {
+        List<SnmpMapping> columnMappings = requestInfo.getResponseMappings().stream()
+                .filter(mapping -> {
+                    VariableBinding variableBinding = findVariableBinding(response, mapping.getOid());
+                    return variableBinding != null && isNoSuchObject(variableBinding);
+                })
+                .collect(Collectors.toList());
+        if (!columnMappings.isEmpty()) {
+            log.debug("SNMP mappings {} of device {} point to table columns, walking them with GETBULK", columnMappings, sessionContext.getDeviceId());
+            columnMappings.forEach(mapping -> requestInfo.getTableColumnOids().add(mapping.getOid()));
+            walkTableColumns(sessionContext, requestInfo.getCommunicationSpec(), columnMappings);
+        }
+    }
+
+    private static VariableBinding findVariableBinding(PDU pdu, String oid) {
+        OID target = new OID(oid);
+        for (VariableBinding variableBinding : pdu.getVariableBindings()) {
+            if (target.equals(variableBinding.getOid())) {
+                return variableBinding;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isNoSuchObject(VariableBinding variableBinding) {
+        int syntax = variableBinding.getSyntax();
+        return syntax == SMIConstants.EXCEPTION_NO_SUCH_OBJECT || syntax == SMIConstants.EXCEPTION_NO_SUCH_INSTANCE;
+    }
+
     private void configureResponseDataMappers() {
         responseDataMappers.put(SnmpCommunicationSpec.TO_DEVICE_RPC_REQUEST, (pdu, requestInfo) -> {
             JsonObject responseData = new JsonObject();
@@ -318,6 +456,9 @@ public class SnmpTransportService implements TbTransportService {
     @PreDestroy
     public void shutdown() {
         log.info("Stopping SNMP transport!");
+        if (pollingScheduler != null) {
+            pollingScheduler.stop();
+        }
         if (queryingExecutor != null) {
             queryingExecutor.shutdownNow();
         }
@@ -335,10 +476,12 @@ public class SnmpTransportService implements TbTransportService {
     }
 
     @Data
-    private static class RequestInfo {
+    static class RequestInfo {
         private Integer requestId;
         private SnmpCommunicationSpec communicationSpec;
         private List<SnmpMapping> responseMappings;
+        private Set<String> tableColumnOids;
+        private Semaphore inFlightPermits;
 
         public RequestInfo(Integer requestId, SnmpCommunicationSpec communicationSpec, List<SnmpMapping> responseMappings) {
             this.requestId = requestId;
@@ -352,6 +495,62 @@ public class SnmpTransportService implements TbTransportService {
         }
     }
 
+    /*
+     * Collects the rows of walked table columns into a single response. Values are reported under the mapping key
+     * suffixed with the row index, e.g. 'ifInOctets_1'.
+     * */
+    class TableWalkListener implements TableListener {
+        private final DeviceSessionContext sessionContext;
+        private final RequestInfo requestInfo;
+        private final JsonObject responseData = new JsonObject();
+        private volatile boolean finished;
+
+        TableWalkListener(DeviceSessionContext sessionContext, RequestInfo requestInfo) {
+            this.sessionContext = sessionContext;
+            this.requestInfo = requestInfo;
+        }
+
+        @Override
+        public boolean next(TableEvent event) {
+            VariableBinding[] columns = event.getColumns();
+            if (columns != null) {
+                String index = event.getIndex().toDottedString();
+                List<SnmpMapping> mappings = requestInfo.getResponseMappings();
+                synchronized (responseData) {
+                    for (int i = 0; i < columns.length && i < mappings.size(); i++) {
+                        VariableBinding column = columns[i];
+                        if (column != null && !(column.getVariable() instanceof Null)) {
+                            SnmpMapping mapping = mappings.get(i);
+                            pduService.processValue(mapping.getKey() + "_" + index, mapping.getDataType(), column.toValueString(), responseData);
+                        }
+                    }
+                }
+            }
+            return sessionContext.isActive();
+        }
+
+        @Override
+        public void finished(TableEvent event) {
+            finished = true;
+            releaseInFlightPermit(requestInfo);
+            if (event.isError()) {
+                log.warn("Failed to walk SNMP table columns of device {}: {}", sessionContext.getDeviceId(), event.getErrorMessage());
+            }
+            if (sessionContext.isActive() && !responseData.entrySet().isEmpty()) {
+                responseProcessingExecutor.execute(() -> {
+                    synchronized (responseData) {
+                        processResponseData(sessionContext, responseData, requestInfo);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+    }
+
     private interface ResponseDataMapper {
         JsonObject map(PDU pdu, RequestInfo requestInfo);
     }
@@ -37,11 +37,11 @@ import org.thingsboard.server.gen.transport.TransportProtos.SessionCloseNotifica
 import org.thingsboard.server.gen.transport.TransportProtos.ToDeviceRpcRequestMsg;
 import org.thingsboard.server.gen.transport.TransportProtos.ToServerRpcResponseMsg;
 import org.thingsboard.server.transport.snmp.SnmpTransportContext;
+import org.thingsboard.server.transport.snmp.service.SnmpPollingScheduler;
 
 import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
@@ -65,7 +65,7 @@ public class DeviceSessionContext extends DeviceAwareSessionContext implements S
     private boolean isActive = true;
 
     @Getter
-    private final List<ScheduledFuture<?>> queryingTasks = new LinkedList<>();
+    private final List<SnmpPollingScheduler.Task> queryingTasks = new LinkedList<>();
 
     public DeviceSessionContext(Device device, DeviceProfile deviceProfile, String token,
                                 SnmpDeviceProfileTransportConfiguration profileTransportConfiguration,
@@ -100,9 +100,7 @@ public class DeviceSessionContext extends DeviceAwareSessionContext implements S
 
     @Override
     public void onResponse(ResponseEvent event) {
-        if (isActive) {
-            snmpTransportContext.getSnmpTransportService().processResponseEvent(this, event);
-        }
+        snmpTransportContext.getSnmpTransportService().processResponseEvent(this, event);
     }
 
     public void initializeTarget(SnmpDeviceProfileTransportConfiguration profileTransportConfig, SnmpDeviceTransportConfiguration deviceTransportConfig) throws Exception {
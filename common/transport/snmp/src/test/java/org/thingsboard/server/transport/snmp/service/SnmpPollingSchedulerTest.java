@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.snmp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SnmpPollingSchedulerTest {
+
+    private static final long TICK_MS = 100;
+
+    @Test
+    void givenPeriodWithinWheel_whenTicking_thenRunsEveryPeriod() {
+        SnmpPollingScheduler scheduler = new SnmpPollingScheduler(TICK_MS, 8);
+        List<Integer> runs = new ArrayList<>();
+        int[] tick = new int[1];
+        scheduler.schedule(() -> runs.add(tick[0]), 3 * TICK_MS);
+
+        for (; tick[0] < 11; tick[0]++) {
+            scheduler.onTick();
+        }
+
+        // the task is placed on the first tick and is due one period later
+        assertThat(runs).containsExactly(3, 6, 9);
+    }
+
+    @Test
+    void givenPeriodLongerThanWheel_whenTicking_thenWaitsForRemainingRounds() {
+        SnmpPollingScheduler scheduler = new SnmpPollingScheduler(TICK_MS, 2);
+        List<Integer> runs = new ArrayList<>();
+        int[] tick = new int[1];
+        scheduler.schedule(() -> runs.add(tick[0]), 5 * TICK_MS);
+
+        for (; tick[0] < 16; tick[0]++) {
+            scheduler.onTick();
+        }
+
+        assertThat(runs).containsExactly(5, 10, 15);
+    }
+
+    @Test
+    void givenPeriodNotMultipleOfTick_whenScheduled_thenRoundedUp() {
+        SnmpPollingScheduler scheduler = new SnmpPollingScheduler(TICK_MS, 8);
+        List<Integer> runs = new ArrayList<>();
+        int[] tick = new int[1];
+        scheduler.schedule(() -> runs.add(tick[0]), 150);
+        scheduler.schedule(() -> runs.add(-tick[0]), 0);
+
+        for (; tick[0] < 5; tick[0]++) {
+            scheduler.onTick();
+        }
+
+        assertThat(runs).containsExactly(-1, 2, -2, -3, 4, -4);
+    }
+
+    @Test
+    void givenCancelledTask_whenTicking_thenNotRunAnymore() {
+        SnmpPollingScheduler scheduler = new SnmpPollingScheduler(TICK_MS, 4);
+        List<Integer> runs = new ArrayList<>();
+        int[] tick = new int[1];
+        SnmpPollingScheduler.Task task = scheduler.schedule(() -> runs.add(tick[0]), 2 * TICK_MS);
+
+        for (; tick[0] < 4; tick[0]++) {
+            scheduler.onTick();
+        }
+        task.cancel();
+        for (; tick[0] < 10; tick[0]++) {
+            scheduler.onTick();
+        }
+
+        assertThat(runs).containsExactly(2);
+    }
+
+    @Test
+    void givenFailingTask_whenTicking_thenRescheduledAndOthersRun() {
+        SnmpPollingScheduler scheduler = new SnmpPollingScheduler(TICK_MS, 4);
+        List<Integer> runs = new ArrayList<>();
+        int[] tick = new int[1];
+        scheduler.schedule(() -> {
+            runs.add(tick[0]);
+            throw new RuntimeException("test");
+        }, TICK_MS);
+        scheduler.schedule(() -> runs.add(-tick[0]), TICK_MS);
+
+        for (; tick[0] < 3; tick[0]++) {
+            scheduler.onTick();
+        }
+
+        assertThat(runs).containsExactly(1, -1, 2, -2);
+    }
+
+    @Test
+    void givenNonPositiveSettings_whenCreated_thenException() {
+        assertThatThrownBy(() -> new SnmpPollingScheduler(0, 8)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnmpPollingScheduler(TICK_MS, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.transport.snmp.service;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.snmp4j.CommunityTarget;
+import org.snmp4j.smi.Counter32;
+import org.snmp4j.smi.Null;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.UdpAddress;
+import org.snmp4j.smi.VariableBinding;
+import org.snmp4j.util.TableEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.kv.DataType;
+import org.thingsboard.server.common.data.transport.snmp.SnmpCommunicationSpec;
+import org.thingsboard.server.common.data.transport.snmp.SnmpMapping;
+import org.thingsboard.server.common.transport.TransportService;
+import org.thingsboard.server.gen.transport.TransportProtos;
+import org.thingsboard.server.transport.snmp.session.DeviceSessionContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SnmpTransportServiceTest {
+
+    private static final String IF_IN_OCTETS_OID = "1.3.6.1.2.1.2.2.1.10";
+    private static final String IF_DESCR_OID = "1.3.6.1.2.1.2.2.1.2";
+
+    private TransportService transportService;
+    private SnmpTransportService snmpTransportService;
+
+    @BeforeEach
+    void setUp() {
+        transportService = mock(TransportService.class);
+        snmpTransportService = new SnmpTransportService(transportService, new PduService());
+        ReflectionTestUtils.setField(snmpTransportService, "responseProcessingExecutor", MoreExecutors.newDirectExecutorService());
+        ReflectionTestUtils.setField(snmpTransportService, "maxInFlightRequestsPerHost", 2);
+        ReflectionTestUtils.invokeMethod(snmpTransportService, "configureResponseProcessors");
+    }
+
+    @Test
+    void givenWalkedTableRows_whenFinished_thenValuesPostedPerRowIndex() {
+        DeviceSessionContext sessionContext = mockSessionContext("127.0.0.1/161");
+        SnmpTransportService.RequestInfo requestInfo = new SnmpTransportService.RequestInfo(SnmpCommunicationSpec.TELEMETRY_QUERYING, List.of(
+                new SnmpMapping(IF_IN_OCTETS_OID, "ifInOctets", DataType.LONG),
+                new SnmpMapping(IF_DESCR_OID, "ifDescr", DataType.STRING)));
+        SnmpTransportService.TableWalkListener listener = snmpTransportService.new TableWalkListener(sessionContext, requestInfo);
+
+        assertThat(listener.next(mockRow("1", new VariableBinding(new OID(IF_IN_OCTETS_OID + ".1"), new Counter32(100)),
+                new VariableBinding(new OID(IF_DESCR_OID + ".1"), new OctetString("eth0"))))).isTrue();
+        assertThat(listener.next(mockRow("2", new VariableBinding(new OID(IF_IN_OCTETS_OID + ".2"), new Counter32(200)),
+                new VariableBinding(new OID(IF_DESCR_OID + ".2"), Null.instance)))).isTrue();
+        verify(transportService, never()).process(any(), any(TransportProtos.PostTelemetryMsg.class), any());
+
+        listener.finished(mockFinishedEvent(false));
+
+        assertThat(listener.isFinished()).isTrue();
+        ArgumentCaptor<TransportProtos.PostTelemetryMsg> telemetryCaptor = ArgumentCaptor.forClass(TransportProtos.PostTelemetryMsg.class);
+        verify(transportService).process(eq(sessionContext.getSessionInfo()), telemetryCaptor.capture(), isNull());
+        Map<String, TransportProtos.KeyValueProto> values = telemetryCaptor.getValue().getTsKvListList().stream()
+                .flatMap(tsKvList -> tsKvList.getKvList().stream())
+                .collect(Collectors.toMap(TransportProtos.KeyValueProto::getKey, kv -> kv));
+        assertThat(values).containsOnlyKeys("ifInOctets_1", "ifDescr_1", "ifInOctets_2");
+        assertThat(values.get("ifInOctets_1").getLongV()).isEqualTo(100);
+        assertThat(values.get("ifDescr_1").getStringV()).isEqualTo("eth0");
+        assertThat(values.get("ifInOctets_2").getLongV()).isEqualTo(200);
+    }
+
+    @Test
+    void givenInactiveSession_whenWalking_thenStoppedAndNothingPosted() {
+        DeviceSessionContext sessionContext = mockSessionContext("127.0.0.1/161");
+        SnmpTransportService.RequestInfo requestInfo = new SnmpTransportService.RequestInfo(SnmpCommunicationSpec.TELEMETRY_QUERYING, List.of(
+                new SnmpMapping(IF_IN_OCTETS_OID, "ifInOctets", DataType.LONG)));
+        assertThat(snmpTransportService.tryAcquireInFlightPermit(sessionContext, requestInfo)).isTrue();
+        SnmpTransportService.TableWalkListener listener = snmpTransportService.new TableWalkListener(sessionContext, requestInfo);
+
+        when(sessionContext.isActive()).thenReturn(false);
+        assertThat(listener.next(mockRow("1", new VariableBinding(new OID(IF_IN_OCTETS_OID + ".1"), new Counter32(100))))).isFalse();
+        listener.finished(mockFinishedEvent(true));
+
+        verify(transportService, never()).process(any(), any(TransportProtos.PostTelemetryMsg.class), any());
+        assertThat(requestInfo.getInFlightPermits()).isNull();
+    }
+
+    @Test
+    void givenMaxInFlightRequests_whenAcquiring_thenLimitedPerHost() {
+        DeviceSessionContext first = mockSessionContext("127.0.0.1/161");
+        DeviceSessionContext second = mockSessionContext("127.0.0.1/1161");
+        DeviceSessionContext otherHost = mockSessionContext("127.0.0.2/161");
+        SnmpTransportService.RequestInfo firstRequest = newRequestInfo();
+        SnmpTransportService.RequestInfo secondRequest = newRequestInfo();
+        SnmpTransportService.RequestInfo thirdRequest = newRequestInfo();
+
+        assertThat(snmpTransportService.tryAcquireInFlightPermit(first, firstRequest)).isTrue();
+        assertThat(snmpTransportService.tryAcquireInFlightPermit(second, secondRequest)).isTrue();
+        // the limit is shared by all devices of the same host
+        assertThat(snmpTransportService.tryAcquireInFlightPermit(first, thirdRequest)).isFalse();
+        assertThat(thirdRequest.getInFlightPermits()).isNull();
+        assertThat(snmpTransportService.tryAcquireInFlightPermit(otherHost, newRequestInfo())).isTrue();
+
+        snmpTransportService.releaseInFlightPermit(firstRequest);
+        // a repeated release of the same request must not add a permit
+        snmpTransportService.releaseInFlightPermit(firstRequest);
+        assertThat(snmpTransportService.tryAcquireInFlightPermit(second, thirdRequest)).isTrue();
+        assertThat(snmpTransportService.tryAcquireInFlightPermit(second, newRequestInfo())).isFalse();
+    }
+
+    @Test
+    void givenNoLimit_whenAcquiring_thenAlwaysAllowed() {
+        ReflectionTestUtils.setField(snmpTransportService, "maxInFlightRequestsPerHost", 0);
+        DeviceSessionContext sessionContext = mockSessionContext("127.0.0.1/161");
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(snmpTransportService.tryAcquireInFlightPermit(sessionContext, newRequestInfo())).isTrue();
+        }
+    }
+
+    private SnmpTransportService.RequestInfo newRequestInfo() {
+        return new SnmpTransportService.RequestInfo(SnmpCommunicationSpec.TELEMETRY_QUERYING, List.of());
+    }
+
+    private DeviceSessionContext mockSessionContext(String address) {
+        CommunityTarget target = new CommunityTarget();
+        target.setAddress(new UdpAddress(address));
+        DeviceSessionContext sessionContext = mock(DeviceSessionContext.class);
+        when(sessionContext.getTarget()).thenReturn(target);
+        when(sessionContext.isActive()).thenReturn(true);
+        when(sessionContext.getDeviceId()).thenReturn(new DeviceId(UUID.randomUUID()));
+        when(sessionContext.getSessionInfo()).thenReturn(TransportProtos.SessionInfoProto.getDefaultInstance());
+        return sessionContext;
+    }
+
+    private TableEvent mockRow(String index, VariableBinding... columns) {
+        TableEvent event = mock(TableEvent.class);
+        when(event.getIndex()).thenReturn(new OID(index));
+        when(event.getColumns()).thenReturn(columns);
+        return event;
+    }
+
+    private TableEvent mockFinishedEvent(boolean error) {
+        TableEvent event = mock(TableEvent.class);
+        when(event.isError()).thenReturn(error);
+        when(event.getErrorMessage()).thenReturn(error ? "Request timed out." : null);
+        return event;
+    }
+
+}
@@ -118,6 +118,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -155,6 +156,10 @@ public class DefaultTransportService implements TransportService {
     private int notificationsPollDuration;
     @Value("${transport.stats.enabled:false}")
     private boolean statsEnabled;
+    @Value("${transport.credentials_cache.max_size:100000}")
+    private int credentialsCacheMaxSize;
+    @Value("${transport.credentials_cache.ttl_sec:300}")
+    private long credentialsCacheTtlSec;
 
     @Autowired
     @Lazy
@@ -189,6 +194,7 @@ public class DefaultTransportService implements TransportService {
 
     protected ExecutorService transportCallbackExecutor;
     private ExecutorService mainConsumerExecutor;
+    private TransportCredentialsCache credentialsCache;
 
     public final ConcurrentMap<UUID, SessionMetaData> sessions = new ConcurrentHashMap<>();
     private final ConcurrentMap<UUID, SessionActivityData> sessionsActivity = new ConcurrentHashMap<>();
@@ -228,10 +234,14 @@ public class DefaultTransportService implements TransportService {
         this.tbCoreProducerStats = statsFactory.createMessagesStats(StatsType.CORE.getName() + ".producer");
         this.transportApiStats = statsFactory.createMessagesStats(StatsType.TRANSPORT.getName() + ".producer");
         this.transportCallbackExecutor = ThingsBoardExecutors.newWorkStealingPool(20, getClass());
+        if (credentialsCacheMaxSize > 0 && credentialsCacheTtlSec > 0) {
+            this.credentialsCache = new TransportCredentialsCache(credentialsCacheMaxSize, credentialsCacheTtlSec);
+        }
         this.scheduler.scheduleAtFixedRate(this::checkInactivityAndReportActivity, new Random().nextInt((int) sessionReportTimeout), sessionReportTimeout, TimeUnit.MILLISECONDS);
         this.scheduler.scheduleAtFixedRate(this::invalidateRateLimits, new Random().nextInt((int) sessionReportTimeout), sessionReportTimeout, TimeUnit.MILLISECONDS);
         transportApiRequestTemplate = queueProvider.createTransportApiRequestTemplate();
         transportApiRequestTemplate.setMessagesStats(transportApiStats);
+        transportApiRequestTemplate.setStatsFactory(statsFactory, StatsType.TRANSPORT.getName() + ".api");
         ruleEngineMsgProducer = producerProvider.getRuleEngineMsgProducer();
         tbCoreMsgProducer = producerProvider.getTbCoreMsgProducer();
         transportNotificationsConsumer = queueProvider.createTransportNotificationsConsumer();
@@ -409,7 +419,7 @@ public class DefaultTransportService implements TransportService {
     public void process(TransportProtos.ValidateDeviceLwM2MCredentialsRequestMsg requestMsg, TransportServiceCallback<ValidateDeviceCredentialsResponse> callback) {
         log.trace("Processing msg: {}", requestMsg);
         TbProtoQueueMsg<TransportApiRequestMsg> protoMsg = new TbProtoQueueMsg<>(UUID.randomUUID(), TransportApiRequestMsg.newBuilder().setValidateDeviceLwM2MCredentialsRequestMsg(requestMsg).build());
-        ListenableFuture<ValidateDeviceCredentialsResponse> response = Futures.transform(transportApiRequestTemplate.send(protoMsg), tmp -> {
+        ListenableFuture<ValidateDeviceCredentialsResponse> response = validateCredentials(DeviceTransportType.LWM2M, protoMsg, () -> Futures.transform(transportApiRequestTemplate.send(protoMsg), tmp -> {
             TransportProtos.ValidateDeviceCredentialsResponseMsg msg = tmp.getValue().getValidateCredResponseMsg();
             ValidateDeviceCredentialsResponse.ValidateDeviceCredentialsResponseBuilder result = ValidateDeviceCredentialsResponse.builder();
             if (msg.hasDeviceInfo()) {
@@ -423,7 +433,7 @@ public class DefaultTransportService implements TransportService {
                 }
             }
             return result.build();
-        }, MoreExecutors.directExecutor());
+        }, MoreExecutors.directExecutor()));
         AsyncCallbackTemplate.withCallback(response, callback::onSuccess, callback::onError, transportCallbackExecutor);
     }
 
@@ -436,7 +446,7 @@ public class DefaultTransportService implements TransportService {
 
     private void doProcess(DeviceTransportType transportType, TbProtoQueueMsg<TransportApiRequestMsg> protoMsg,
                            TransportServiceCallback<ValidateDeviceCredentialsResponse> callback) {
-        ListenableFuture<ValidateDeviceCredentialsResponse> response = Futures.transform(transportApiRequestTemplate.send(protoMsg), tmp -> {
+        ListenableFuture<ValidateDeviceCredentialsResponse> response = validateCredentials(transportType, protoMsg, () -> Futures.transform(transportApiRequestTemplate.send(protoMsg), tmp -> {
             TransportProtos.ValidateDeviceCredentialsResponseMsg msg = tmp.getValue().getValidateCredResponseMsg();
             ValidateDeviceCredentialsResponse.ValidateDeviceCredentialsResponseBuilder result = ValidateDeviceCredentialsResponse.builder();
             if (msg.hasDeviceInfo()) {
@@ -455,10 +465,30 @@ public class DefaultTransportService implements TransportService {
                 }
             }
             return result.build();
-        }, MoreExecutors.directExecutor());
+        }, MoreExecutors.directExecutor()));
         AsyncCallbackTemplate.withCallback(response, callback::onSuccess, callback::onError, transportCallbackExecutor);
     }
 
+    private ListenableFuture<ValidateDeviceCredentialsResponse> validateCredentials(DeviceTransportType transportType, TbProtoQueueMsg<TransportApiRequestMsg> protoMsg,
+                                                                                   Supplier<ListenableFuture<ValidateDeviceCredentialsResponse>> validateFunction) {
+        if (credentialsCache == null) {
+            return validateFunction.get();
+        }
+        return credentialsCache.get(transportType, protoMsg.getValue(), validateFunction);
+    }
+
+    private void invalidateCredentialsCache(DeviceId deviceId) {
+        if (credentialsCache != null) {
+            credentialsCache.invalidate(deviceId);
+        }
+    }
+
+    private void invalidateCredentialsCache(DeviceProfileId deviceProfileId) {
+        if (credentialsCache != null) {
+            credentialsCache.invalidate(deviceProfileId);
+        }
+    }
+
     @Override
     public void process(TransportProtos.GetOrCreateDeviceFromGatewayRequestMsg requestMsg, TransportServiceCallback<GetOrCreateDeviceFromGatewayResponse> callback) {
         TbProtoQueueMsg<TransportApiRequestMsg> protoMsg = new TbProtoQueueMsg<>(UUID.randomUUID(), TransportApiRequestMsg.newBuilder().setGetOrCreateDeviceRequestMsg(requestMsg).build());
@@ -866,6 +896,12 @@ public class DefaultTransportService implements TransportService {
 
     protected void processToTransportMsg(TransportProtos.ToTransportMsg toSessionMsg) {
         UUID sessionId = new UUID(toSessionMsg.getSessionIdMSB(), toSessionMsg.getSessionIdLSB());
+        if (toSessionMsg.hasToTransportUpdateCredentialsNotification()) {
+            TransportProtos.ToTransportUpdateCredentialsProto msg = toSessionMsg.getToTransportUpdateCredentialsNotification();
+            if (msg.getDeviceIdMSB() != 0 || msg.getDeviceIdLSB() != 0) {
+                invalidateCredentialsCache(new DeviceId(new UUID(msg.getDeviceIdMSB(), msg.getDeviceIdLSB())));
+            }
+        }
         SessionMetaData md = sessions.get(sessionId);
         if (md != null) {
             log.trace("[{}] Processing notification: {}", sessionId, toSessionMsg);
@@ -934,7 +970,9 @@ public class DefaultTransportService implements TransportService {
                 EntityType entityType = EntityType.valueOf(msg.getEntityType());
                 UUID entityUuid = new UUID(msg.getEntityIdMSB(), msg.getEntityIdLSB());
                 if (EntityType.DEVICE_PROFILE.equals(entityType)) {
-                    deviceProfileCache.evict(new DeviceProfileId(new UUID(msg.getEntityIdMSB(), msg.getEntityIdLSB())));
+                    DeviceProfileId deviceProfileId = new DeviceProfileId(entityUuid);
+                    deviceProfileCache.evict(deviceProfileId);
+                    invalidateCredentialsCache(deviceProfileId);
                 } else if (EntityType.TENANT_PROFILE.equals(entityType)) {
                     tenantProfileCache.remove(new TenantProfileId(entityUuid));
                 } else if (EntityType.TENANT.equals(entityType)) {
@@ -964,6 +1002,8 @@ public class DefaultTransportService implements TransportService {
                     log.warn("ResourceDelete - [{}] [{}]", id, mdRez);
                     transportCallbackExecutor.submit(() -> mdRez.getListener().onResourceDelete(msg));
                 });
+            } else if (toSessionMsg.hasToTransportUpdateCredentialsNotification()) {
+                log.trace("[{}] Device credentials updated", sessionId);
             } else if (toSessionMsg.hasQueueUpdateMsg()) {
                 partitionService.updateQueue(toSessionMsg.getQueueUpdateMsg());
             } else if (toSessionMsg.hasQueueDeleteMsg()) {
@@ -977,6 +1017,7 @@ public class DefaultTransportService implements TransportService {
 
 
     public void onProfileUpdate(DeviceProfile deviceProfile) {
+        invalidateCredentialsCache(deviceProfile.getId());
         long deviceProfileIdMSB = deviceProfile.getId().getId().getMostSignificantBits();
         long deviceProfileIdLSB = deviceProfile.getId().getId().getLeastSignificantBits();
         sessions.forEach((id, md) -> {
@@ -998,6 +1039,7 @@ public class DefaultTransportService implements TransportService {
     }
 
     private void onDeviceUpdate(Device device) {
+        invalidateCredentialsCache(device.getId());
         long deviceIdMSB = device.getId().getId().getMostSignificantBits();
         long deviceIdLSB = device.getId().getId().getLeastSignificantBits();
         long deviceProfileIdMSB = device.getDeviceProfileId().getId().getMostSignificantBits();
@@ -1033,6 +1075,7 @@ public class DefaultTransportService implements TransportService {
     }
 
     private void onDeviceDeleted(DeviceId deviceId) {
+        invalidateCredentialsCache(deviceId);
         sessions.forEach((id, md) -> {
             DeviceId sessionDeviceId = new DeviceId(new UUID(md.getSessionInfo().getDeviceIdMSB(), md.getSessionInfo().getDeviceIdLSB()));
             if (sessionDeviceId.equals(deviceId)) {
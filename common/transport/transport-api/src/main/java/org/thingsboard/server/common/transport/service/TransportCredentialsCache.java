@@ -0,0 +1,142 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.server.common.data.DeviceTransportType;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.transport.auth.ValidateDeviceCredentialsResponse;
+import org.thingsboard.server.gen.transport.TransportProtos.TransportApiRequestMsg;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the successfully validated device credentials.
+ * Concurrent validations of the same credentials share a single request to the core.
+ * Entries are invalidated by the device, device profile and device credentials notifications.
+ */
+@Slf4j
+class TransportCredentialsCache {
+
+    private final Cache<CredentialsKey, ValidateDeviceCredentialsResponse> cache;
+    private final ConcurrentMap<CredentialsKey, ListenableFuture<ValidateDeviceCredentialsResponse>> pendingRequests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<DeviceId, Set<CredentialsKey>> keysByDevice = new ConcurrentHashMap<>();
+    // responses of the requests sent before an invalidation are not cached, since they may be already outdated
+    private final AtomicLong invalidationsCount = new AtomicLong();
+
+    TransportCredentialsCache(int maxSize, long ttlInSec) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlInSec, TimeUnit.SECONDS)
+                .executor(MoreExecutors.directExecutor())
+                .<CredentialsKey, ValidateDeviceCredentialsResponse>removalListener((key, value, cause) -> onRemoval(key, value, cause))
+                .build();
+    }
+
+    ListenableFuture<ValidateDeviceCredentialsResponse> get(DeviceTransportType transportType, TransportApiRequestMsg request,
+                                                            Supplier<ListenableFuture<ValidateDeviceCredentialsResponse>> validateFunction) {
+        CredentialsKey key = new CredentialsKey(transportType, request);
+        ValidateDeviceCredentialsResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Futures.immediateFuture(cached);
+        }
+        SettableFuture<ValidateDeviceCredentialsResponse> future = SettableFuture.create();
+        ListenableFuture<ValidateDeviceCredentialsResponse> pending = pendingRequests.putIfAbsent(key, future);
+        if (pending != null) {
+            return pending;
+        }
+        long invalidationsBefore = invalidationsCount.get();
+        ListenableFuture<ValidateDeviceCredentialsResponse> response;
+        try {
+            response = validateFunction.get();
+        } catch (Throwable t) {
+            pendingRequests.remove(key, future);
+            future.setException(t);
+            return future;
+        }
+        Futures.addCallback(response, new FutureCallback<>() {
+            @Override
+            public void onSuccess(ValidateDeviceCredentialsResponse result) {
+                if (result != null && result.hasDeviceInfo() && invalidationsBefore == invalidationsCount.get()) {
+                    put(key, result);
+                    // an invalidation between the check and the put may have missed the new entry
+                    if (invalidationsBefore != invalidationsCount.get()) {
+                        cache.asMap().remove(key, result);
+                    }
+                }
+                pendingRequests.remove(key, future);
+                future.set(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                pendingRequests.remove(key, future);
+                future.setException(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    void invalidate(DeviceId deviceId) {
+        invalidationsCount.incrementAndGet();
+        Set<CredentialsKey> keys = keysByDevice.remove(deviceId);
+        if (keys != null) {
+            log.trace("[{}] Invalidating {} cached credentials", deviceId, keys.size());
+            cache.invalidateAll(keys);
+        }
+    }
+
+    void invalidate(DeviceProfileId deviceProfileId) {
+        invalidationsCount.incrementAndGet();
+        cache.asMap().values().removeIf(response -> deviceProfileId.equals(response.getDeviceInfo().getDeviceProfileId()));
+    }
+
+    void put(CredentialsKey key, ValidateDeviceCredentialsResponse response) {
+        keysByDevice.computeIfAbsent(response.getDeviceInfo().getDeviceId(), id -> ConcurrentHashMap.newKeySet()).add(key);
+        cache.put(key, response);
+    }
+
+    private void onRemoval(CredentialsKey key, ValidateDeviceCredentialsResponse value, RemovalCause cause) {
+        if (key == null || value == null || cause == RemovalCause.REPLACED) {
+            return;
+        }
+        keysByDevice.computeIfPresent(value.getDeviceInfo().getDeviceId(), (deviceId, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    @Data
+    static class CredentialsKey {
+        private final DeviceTransportType transportType;
+        private final TransportApiRequestMsg request;
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.common.transport.service;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thingsboard.server.common.data.DeviceTransportType;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.DeviceProfileId;
+import org.thingsboard.server.common.transport.auth.TransportDeviceInfo;
+import org.thingsboard.server.common.transport.auth.ValidateDeviceCredentialsResponse;
+import org.thingsboard.server.gen.transport.TransportProtos.TransportApiRequestMsg;
+import org.thingsboard.server.gen.transport.TransportProtos.ValidateDeviceTokenRequestMsg;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+public class TransportCredentialsCacheTest {
+
+    private static final DeviceId DEVICE_ID = new DeviceId(UUID.randomUUID());
+    private static final DeviceProfileId DEVICE_PROFILE_ID = new DeviceProfileId(UUID.randomUUID());
+
+    private TransportCredentialsCache cache;
+    private AtomicInteger requests;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TransportCredentialsCache(100, 60);
+        requests = new AtomicInteger();
+    }
+
+    @Test
+    void givenConcurrentRequests_whenPending_thenSingleValidation() throws Exception {
+        SettableFuture<ValidateDeviceCredentialsResponse> response = SettableFuture.create();
+        Supplier<ListenableFuture<ValidateDeviceCredentialsResponse>> validateFunction = () -> {
+            requests.incrementAndGet();
+            return response;
+        };
+
+        ListenableFuture<ValidateDeviceCredentialsResponse> first = cache.get(DeviceTransportType.MQTT, newRequest("token"), validateFunction);
+        ListenableFuture<ValidateDeviceCredentialsResponse> second = cache.get(DeviceTransportType.MQTT, newRequest("token"), validateFunction);
+        assertThat(first.isDone()).isFalse();
+        response.set(newResponse(DEVICE_ID, DEVICE_PROFILE_ID));
+
+        assertThat(first.get()).isSameAs(second.get());
+        assertThat(requests.get()).isEqualTo(1);
+        // the response is cached once it is received
+        get("token", DEVICE_ID, DEVICE_PROFILE_ID);
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void givenOtherTransportType_whenRequested_thenValidatedSeparately() throws Exception {
+        get("token", DEVICE_ID, DEVICE_PROFILE_ID);
+        cache.get(DeviceTransportType.COAP, newRequest("token"), validateFunction(newResponse(DEVICE_ID, DEVICE_PROFILE_ID))).get();
+
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void givenFailedOrEmptyResponse_whenRequestedAgain_thenValidatedAgain() throws Exception {
+        Supplier<ListenableFuture<ValidateDeviceCredentialsResponse>> failingFunction = () -> {
+            requests.incrementAndGet();
+            return Futures.immediateFailedFuture(new RuntimeException("test"));
+        };
+        assertThatThrownBy(() -> cache.get(DeviceTransportType.MQTT, newRequest("token"), failingFunction).get())
+                .isInstanceOf(ExecutionException.class);
+        assertThatThrownBy(() -> cache.get(DeviceTransportType.MQTT, newRequest("token"), () -> {
+            throw new IllegalStateException("test");
+        }).get()).isInstanceOf(ExecutionException.class);
+
+        ValidateDeviceCredentialsResponse notFound = ValidateDeviceCredentialsResponse.builder().build();
+        cache.get(DeviceTransportType.MQTT, newRequest("token"), validateFunction(notFound)).get();
+        cache.get(DeviceTransportType.MQTT, newRequest("token"), validateFunction(notFound)).get();
+
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void givenCachedCredentials_whenDeviceInvalidated_thenValidatedAgain() throws Exception {
+        DeviceId otherDeviceId = new DeviceId(UUID.randomUUID());
+        get("token", DEVICE_ID, DEVICE_PROFILE_ID);
+        get("other", otherDeviceId, DEVICE_PROFILE_ID);
+
+        cache.invalidate(DEVICE_ID);
+        get("token", DEVICE_ID, DEVICE_PROFILE_ID);
+        get("other", otherDeviceId, DEVICE_PROFILE_ID);
+
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void givenCachedCredentials_whenDeviceProfileInvalidated_thenValidatedAgain() throws Exception {
+        DeviceId otherDeviceId = new DeviceId(UUID.randomUUID());
+        get("token", DEVICE_ID, DEVICE_PROFILE_ID);
+        get("other", otherDeviceId, new DeviceProfileId(UUID.randomUUID()));
+
+        cache.invalidate(DEVICE_PROFILE_ID);
+        get("token", DEVICE_ID, DEVICE_PROFILE_ID);
+        get("other", otherDeviceId, DEVICE_PROFILE_ID);
+
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void givenInvalidationDuringRequest_whenResponseReceived_thenNotCached() throws Exception {
+        SettableFuture<ValidateDeviceCredentialsResponse> response = SettableFuture.create();
+        ListenableFuture<ValidateDeviceCredentialsResponse> result = cache.get(DeviceTransportType.MQTT, newRequest("token"), () -> {
+            requests.incrementAndGet();
+            return response;
+        });
+
+        cache.invalidate(DEVICE_ID);
+        response.set(newResponse(DEVICE_ID, DEVICE_PROFILE_ID));
+
+        assertThat(result.get().getDeviceInfo().getDeviceId()).isEqualTo(DEVICE_ID);
+        get("token", DEVICE_ID, DEVICE_PROFILE_ID);
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void givenInvalidationBetweenCheckAndPut_whenResponseReceived_thenEvicted() throws Exception {
+        cache = spy(cache);
+        // emulates the invalidation that runs right after the response passed the invalidations check
+        doAnswer(invocation -> {
+            cache.invalidate(DEVICE_ID);
+            return invocation.callRealMethod();
+        }).doCallRealMethod().when(cache).put(any(), any());
+
+        get("token", DEVICE_ID, DEVICE_PROFILE_ID);
+        get("token", DEVICE_ID, DEVICE_PROFILE_ID);
+        get("token", DEVICE_ID, DEVICE_PROFILE_ID);
+
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    private void get(String token, DeviceId deviceId, DeviceProfileId deviceProfileId) throws Exception {
+        ValidateDeviceCredentialsResponse response = cache.get(DeviceTransportType.MQTT, newRequest(token),
+                validateFunction(newResponse(deviceId, deviceProfileId))).get();
+        assertThat(response.getDeviceInfo().getDeviceId()).isEqualTo(deviceId);
+    }
+
+    private Supplier<ListenableFuture<ValidateDeviceCredentialsResponse>> validateFunction(ValidateDeviceCredentialsResponse response) {
+        return () -> {
+            requests.incrementAndGet();
+            return Futures.immediateFuture(response);
+        };
+    }
+
+    private static TransportApiRequestMsg newRequest(String token) {
+        return TransportApiRequestMsg.newBuilder()
+                .setValidateTokenRequestMsg(ValidateDeviceTokenRequestMsg.newBuilder().setToken(token))
+                .build();
+    }
+
+    private static ValidateDeviceCredentialsResponse newResponse(DeviceId deviceId, DeviceProfileId deviceProfileId) {
+        TransportDeviceInfo deviceInfo = new TransportDeviceInfo();
+        deviceInfo.setDeviceId(deviceId);
+        deviceInfo.setDeviceProfileId(deviceProfileId);
+        return ValidateDeviceCredentialsResponse.builder().deviceInfo(deviceInfo).build();
+    }
+
+}
@@ -16,25 +16,41 @@
 package org.thingsboard.common.util;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
-import org.thingsboard.common.util.ListeningExecutor;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 /**
  * Created by igor on 4/13/18.
  */
 public abstract class AbstractListeningExecutor implements ListeningExecutor {
 
+    protected static final String WORK_STEALING_EXECUTOR_TYPE = "work_stealing";
+    protected static final String JDBC_EXECUTOR_TYPE = "jdbc";
+
     private ListeningExecutorService service;
+    private Semaphore blockingTaskPermits;
+    private final Queue<ListenableFutureTask<?>> pendingBlockingTasks = new ConcurrentLinkedQueue<>();
 
     @PostConstruct
     public void init() {
-        this.service = MoreExecutors.listeningDecorator(ThingsBoardExecutors.newWorkStealingPool(getThreadPollSize(), getClass()));
+        int permits = getBlockingTaskPermits();
+        if (permits > 0) {
+            this.blockingTaskPermits = new Semaphore(permits);
+            // the threads over the permits are left for the callbacks and the other tasks run through execute()
+            this.service = MoreExecutors.listeningDecorator(ThingsBoardExecutors.newElasticPool(getThreadPollSize() + permits, getClass()));
+        } else {
+            this.service = MoreExecutors.listeningDecorator(ThingsBoardExecutors.newWorkStealingPool(getThreadPollSize(), getClass()));
+        }
     }
 
     @PreDestroy
@@ -46,11 +62,20 @@ public abstract class AbstractListeningExecutor implements ListeningExecutor {
 
     @Override
     public <T> ListenableFuture<T> executeAsync(Callable<T> task) {
-        return service.submit(task);
+        if (blockingTaskPermits == null) {
+            return service.submit(task);
+        }
+        ListenableFutureTask<T> future = ListenableFutureTask.create(task);
+        pendingBlockingTasks.add(future);
+        runPendingBlockingTasks();
+        return future;
     }
 
     public ListenableFuture<?> executeAsync(Runnable task) {
-        return service.submit(task);
+        if (blockingTaskPermits == null) {
+            return service.submit(task);
+        }
+        return executeAsync(Executors.callable(task));
     }
 
     @Override
@@ -64,4 +89,54 @@ public abstract class AbstractListeningExecutor implements ListeningExecutor {
 
     protected abstract int getThreadPollSize();
 
+    /**
+     * Executors of the tasks blocking on JDBC may limit the number of such tasks running concurrently, usually to the
+     * number of database connections. The limit applies to the tasks submitted through {@link #executeAsync}, while
+     * {@link #execute} (used to run the callbacks of the futures) is never delayed by it. The tasks over the limit wait
+     * in FIFO order without holding a thread of the elastic pool, which is capped to {@link #getThreadPollSize()} threads
+     * over the limit.
+     * 0 value means the work stealing pool of {@link #getThreadPollSize()} parallelism is used for all the tasks.
+     */
+    protected int getBlockingTaskPermits() {
+        return 0;
+    }
+
+    /**
+     * @return the given permits for the jdbc executor type, 0 for the work stealing one
+     * @throws IllegalArgumentException if the executor type is not supported
+     */
+    protected static int getBlockingTaskPermits(String executorType, int jdbcPermits) {
+        if (JDBC_EXECUTOR_TYPE.equalsIgnoreCase(executorType)) {
+            return jdbcPermits;
+        } else if (WORK_STEALING_EXECUTOR_TYPE.equalsIgnoreCase(executorType)) {
+            return 0;
+        } else {
+            throw new IllegalArgumentException("Unsupported executor type: " + executorType + ". Expected "
+                    + WORK_STEALING_EXECUTOR_TYPE + " or " + JDBC_EXECUTOR_TYPE);
+        }
+    }
+
+    private void runPendingBlockingTasks() {
+        while (!pendingBlockingTasks.isEmpty() && blockingTaskPermits.tryAcquire()) {
+            ListenableFutureTask<?> task = pendingBlockingTasks.poll();
+            if (task == null) {
+                blockingTaskPermits.release();
+                continue;
+            }
+            try {
+                service.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        blockingTaskPermits.release();
+                        runPendingBlockingTasks();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                blockingTaskPermits.release();
+                task.cancel(false);
+            }
+        }
+    }
+
 }
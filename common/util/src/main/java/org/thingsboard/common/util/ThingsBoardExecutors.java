@@ -21,6 +21,9 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class ThingsBoardExecutors {
 
@@ -52,4 +55,26 @@ public class ThingsBoardExecutors {
         return newWorkStealingPool(parallelism, clazz.getSimpleName());
     }
 
+    /**
+     * Creates a thread pool that creates new threads as needed up to the given maximum, queues the tasks submitted when
+     * all the threads are busy and releases the threads idle for a minute.
+     * Used together with the limit of the concurrently running tasks that block on a limited resource, e.g. on a JDBC
+     * connection, so the tasks waiting for the resource never hold the threads needed by the other tasks.
+     *
+     * @param maxThreads the maximum number of threads
+     * @param namePrefix used to define thread name
+     * @return the newly created thread pool
+     * @throws IllegalArgumentException if {@code maxThreads <= 0}
+     */
+    public static ExecutorService newElasticPool(int maxThreads, String namePrefix) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), ThingsBoardThreadFactory.forName(namePrefix));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static ExecutorService newElasticPool(int maxThreads, Class clazz) {
+        return newElasticPool(maxThreads, clazz.getSimpleName());
+    }
+
 }
@@ -0,0 +1,164 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.common.util;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AbstractListeningExecutorTest {
+
+    private static final int PERMITS = 2;
+
+    private AbstractListeningExecutor executor;
+
+    @Before
+    public void before() {
+        executor = new AbstractListeningExecutor() {
+            @Override
+            protected int getThreadPollSize() {
+                return 1;
+            }
+
+            @Override
+            protected int getBlockingTaskPermits() {
+                return PERMITS;
+            }
+        };
+        executor.init();
+    }
+
+    @After
+    public void after() {
+        executor.destroy();
+    }
+
+    @Test
+    public void givenAllPermitsTaken_whenCallbackExecuted_thenNotBlocked() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        List<ListenableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < PERMITS * 3; i++) {
+            futures.add(executor.executeAsync(() -> {
+                running.incrementAndGet();
+                release.await();
+                running.decrementAndGet();
+                return null;
+            }));
+        }
+
+        CountDownLatch callbackExecuted = new CountDownLatch(1);
+        executor.execute(callbackExecuted::countDown);
+
+        assertThat(callbackExecuted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(running.get()).isEqualTo(PERMITS);
+
+        release.countDown();
+        for (ListenableFuture<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(running.get()).isZero();
+    }
+
+    @Test
+    public void givenManyBlockingTasks_whenExecuted_thenAtMostPermitsRunConcurrently() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<ListenableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(executor.executeAsync(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }));
+        }
+
+        for (ListenableFuture<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        assertThat(maxRunning.get()).isBetween(1, PERMITS);
+    }
+
+    @Test
+    public void givenFailedBlockingTask_whenExecuted_thenPermitReleased() throws Exception {
+        for (int i = 0; i < PERMITS * 2; i++) {
+            ListenableFuture<Object> future = executor.executeAsync(() -> {
+                throw new IllegalStateException("test");
+            });
+            assertThat(future).failsWithin(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(executor.executeAsync(() -> "done").get(5, TimeUnit.SECONDS)).isEqualTo("done");
+    }
+
+    @Test
+    public void givenMoreTasksThanThreads_whenExecutedOnElasticPool_thenQueuedUpToMaxThreads() throws Exception {
+        ExecutorService pool = ThingsBoardExecutors.newElasticPool(PERMITS, getClass());
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger running = new AtomicInteger();
+            CountDownLatch completed = new CountDownLatch(PERMITS * 3);
+            for (int i = 0; i < PERMITS * 3; i++) {
+                pool.execute(() -> {
+                    running.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    completed.countDown();
+                });
+            }
+
+            assertThat(((ThreadPoolExecutor) pool).getPoolSize()).isEqualTo(PERMITS);
+            assertThat(((ThreadPoolExecutor) pool).getQueue()).hasSize(PERMITS * 2);
+
+            release.countDown();
+            assertThat(completed.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(running.get()).isZero();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenExecutorType_whenResolvingPermits_thenValidated() {
+        assertThat(AbstractListeningExecutor.getBlockingTaskPermits("jdbc", 5)).isEqualTo(5);
+        assertThat(AbstractListeningExecutor.getBlockingTaskPermits("JDBC", 5)).isEqualTo(5);
+        assertThat(AbstractListeningExecutor.getBlockingTaskPermits("work_stealing", 5)).isZero();
+        assertThatThrownBy(() -> AbstractListeningExecutor.getBlockingTaskPermits("jdcb", 5))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("jdcb");
+    }
+
+}
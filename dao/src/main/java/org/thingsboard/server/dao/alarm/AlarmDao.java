@@ -34,6 +34,7 @@ import org.thingsboard.server.dao.Dao;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -58,12 +59,20 @@ public interface AlarmDao extends Dao<Alarm> {
 
     PageData<AlarmData> findAlarmDataByQueryForEntities(TenantId tenantId, AlarmDataQuery query, Collection<EntityId> orderedEntityIds);
 
+    /**
+     * Resolves names of the given alarm originators with one query per entity type.
+     * Originators of unsupported entity types are not present in the result, deleted ones are mapped to null.
+     */
+    Map<EntityId, String> findAlarmOriginatorNames(TenantId tenantId, Collection<EntityId> originators);
+
     Set<AlarmSeverity> findAlarmSeverities(TenantId tenantId, EntityId entityId, Set<AlarmStatus> status);
 
     PageData<AlarmId> findAlarmsIdsByEndTsBeforeAndTenantId(Long time, TenantId tenantId, PageLink pageLink);
 
     void createEntityAlarmRecord(EntityAlarm entityAlarm);
 
+    void createEntityAlarmRecords(List<EntityAlarm> entityAlarms);
+
     List<EntityAlarm> findEntityAlarmRecords(TenantId tenantId, AlarmId id);
 
     void deleteEntityAlarmRecords(TenantId tenantId, EntityId entityId);
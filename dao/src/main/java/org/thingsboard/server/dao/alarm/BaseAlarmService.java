@@ -42,10 +42,6 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.query.AlarmData;
 import org.thingsboard.server.common.data.query.AlarmDataQuery;
-import org.thingsboard.server.common.data.relation.EntityRelation;
-import org.thingsboard.server.common.data.relation.EntityRelationsQuery;
-import org.thingsboard.server.common.data.relation.EntitySearchDirection;
-import org.thingsboard.server.common.data.relation.RelationsSearchParameters;
 import org.thingsboard.server.dao.entity.AbstractEntityService;
 import org.thingsboard.server.dao.entity.EntityService;
 import org.thingsboard.server.dao.service.DataValidator;
@@ -58,6 +54,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -177,22 +174,12 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
         if (alarm.isPropagateToTenant()) {
             propagatedEntitiesSet.add(alarm.getTenantId());
         }
-        for (EntityId entityId : propagatedEntitiesSet) {
-            createEntityAlarmRecord(alarm.getTenantId(), entityId, alarm);
-        }
+        createEntityAlarmRecords(alarm.getTenantId(), propagatedEntitiesSet, alarm);
         return new ArrayList<>(propagatedEntitiesSet);
     }
 
     private Set<EntityId> getRelatedEntities(Alarm alarm) throws InterruptedException, ExecutionException {
-        EntityRelationsQuery query = new EntityRelationsQuery();
-        RelationsSearchParameters parameters = new RelationsSearchParameters(alarm.getOriginator(), EntitySearchDirection.TO, Integer.MAX_VALUE, false);
-        query.setParameters(parameters);
-        List<String> propagateRelationTypes = alarm.getPropagateRelationTypes();
-        Stream<EntityRelation> relations = relationService.findByQuery(alarm.getTenantId(), query).get().stream();
-        if (!CollectionUtils.isEmpty(propagateRelationTypes)) {
-            relations = relations.filter(entityRelation -> propagateRelationTypes.contains(entityRelation.getType()));
-        }
-        return relations.map(EntityRelation::getFrom).collect(Collectors.toCollection(LinkedHashSet::new));
+        return relationService.findAncestors(alarm.getTenantId(), alarm.getOriginator(), alarm.getPropagateRelationTypes()).get();
     }
 
     private AlarmOperationResult updateAlarm(Alarm update) {
@@ -311,14 +298,18 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
     }
 
     private ListenableFuture<PageData<AlarmInfo>> fetchAlarmsOriginators(TenantId tenantId, PageData<AlarmInfo> alarms) {
+        Set<EntityId> originators = alarms.getData().stream().map(AlarmInfo::getOriginator).collect(Collectors.toSet());
+        Map<EntityId, String> originatorNames = originators.isEmpty() ? Collections.emptyMap() : alarmDao.findAlarmOriginatorNames(tenantId, originators);
         List<ListenableFuture<AlarmInfo>> alarmFutures = new ArrayList<>(alarms.getData().size());
         for (AlarmInfo alarmInfo : alarms.getData()) {
+            if (originatorNames.containsKey(alarmInfo.getOriginator())) {
+                alarmInfo.setOriginatorName(toOriginatorName(originatorNames.get(alarmInfo.getOriginator())));
+                alarmFutures.add(Futures.immediateFuture(alarmInfo));
+                continue;
+            }
             alarmFutures.add(Futures.transform(
                     entityService.fetchEntityNameAsync(tenantId, alarmInfo.getOriginator()), originatorName -> {
-                        if (originatorName == null) {
-                            originatorName = "Deleted";
-                        }
-                        alarmInfo.setOriginatorName(originatorName);
+                        alarmInfo.setOriginatorName(toOriginatorName(originatorName));
                         return alarmInfo;
                     }, MoreExecutors.directExecutor()
             ));
@@ -328,6 +319,10 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
                         alarms.hasNext()), MoreExecutors.directExecutor());
     }
 
+    private static String toOriginatorName(String originatorName) {
+        return originatorName != null ? originatorName : "Deleted";
+    }
+
     @Override
     public AlarmSeverity findHighestAlarmSeverity(TenantId tenantId, EntityId entityId, AlarmSearchStatus alarmSearchStatus,
                                                   AlarmStatus alarmStatus) {
@@ -391,12 +386,14 @@ public class BaseAlarmService extends AbstractEntityService implements AlarmServ
         }
     }
 
-    private void createEntityAlarmRecord(TenantId tenantId, EntityId entityId, Alarm alarm) {
-        EntityAlarm entityAlarm = new EntityAlarm(tenantId, entityId, alarm.getCreatedTime(), alarm.getType(), alarm.getCustomerId(), alarm.getId());
+    private void createEntityAlarmRecords(TenantId tenantId, Set<EntityId> entityIds, Alarm alarm) {
+        List<EntityAlarm> entityAlarms = entityIds.stream()
+                .map(entityId -> new EntityAlarm(tenantId, entityId, alarm.getCreatedTime(), alarm.getType(), alarm.getCustomerId(), alarm.getId()))
+                .collect(Collectors.toList());
         try {
-            alarmDao.createEntityAlarmRecord(entityAlarm);
+            alarmDao.createEntityAlarmRecords(entityAlarms);
         } catch (Exception e) {
-            log.warn("[{}] Failed to create entity alarm record: {}", tenantId, entityAlarm, e);
+            log.warn("[{}] Failed to create entity alarm records: {}", tenantId, entityAlarms, e);
         }
     }
 
@@ -155,14 +155,15 @@ public class CachedAttributesService implements AttributesService {
             try {
                 log.trace("[{}][{}] Lookup attributes from db: {}", entityId, scope, notFoundAttributeKeys);
                 List<AttributeKvEntry> result = attributesDao.find(tenantId, entityId, scope, notFoundAttributeKeys);
+                Map<AttributeCacheKey, AttributeKvEntry> cacheEntries = new HashMap<>();
                 for (AttributeKvEntry foundInDbAttribute : result) {
-                    AttributeCacheKey attributeCacheKey = new AttributeCacheKey(scope, entityId, foundInDbAttribute.getKey());
-                    cacheTransaction.putIfAbsent(attributeCacheKey, foundInDbAttribute);
+                    cacheEntries.put(new AttributeCacheKey(scope, entityId, foundInDbAttribute.getKey()), foundInDbAttribute);
                     notFoundAttributeKeys.remove(foundInDbAttribute.getKey());
                 }
                 for (String key : notFoundAttributeKeys) {
-                    cacheTransaction.putIfAbsent(new AttributeCacheKey(scope, entityId, key), null);
+                    cacheEntries.put(new AttributeCacheKey(scope, entityId, key), null);
                 }
+                cacheTransaction.putAllIfAbsent(cacheEntries);
                 List<AttributeKvEntry> mergedAttributes = new ArrayList<>(cachedAttributes);
                 mergedAttributes.addAll(result);
                 cacheTransaction.commit();
@@ -176,12 +177,16 @@ public class CachedAttributesService implements AttributesService {
     }
 
     private Map<String, TbCacheValueWrapper<AttributeKvEntry>> findCachedAttributes(EntityId entityId, String scope, Collection<String> attributeKeys) {
+        List<AttributeCacheKey> cacheKeys = attributeKeys.stream()
+                .map(attributeKey -> new AttributeCacheKey(scope, entityId, attributeKey))
+                .collect(Collectors.toList());
+        Map<AttributeCacheKey, TbCacheValueWrapper<AttributeKvEntry>> cachedValues = cache.getAll(cacheKeys);
         Map<String, TbCacheValueWrapper<AttributeKvEntry>> cachedAttributes = new HashMap<>();
-        for (String attributeKey : attributeKeys) {
-            var cachedAttributeValue = cache.get(new AttributeCacheKey(scope, entityId, attributeKey));
+        for (AttributeCacheKey cacheKey : cacheKeys) {
+            var cachedAttributeValue = cachedValues.get(cacheKey);
             if (cachedAttributeValue != null) {
                 hitCounter.increment();
-                cachedAttributes.put(attributeKey, cachedAttributeValue);
+                cachedAttributes.put(cacheKey.getKey(), cachedAttributeValue);
             } else {
                 missCounter.increment();
             }
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.dao.audit.sink;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.extern.slf4j.Slf4j;
@@ -26,22 +27,34 @@ import org.apache.http.client.CredentialsProvider;
 import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.nio.entity.NStringEntity;
+import org.apache.http.util.EntityUtils;
 import org.elasticsearch.client.Response;
-import org.elasticsearch.client.ResponseListener;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
+import org.thingsboard.common.util.ThingsBoardThreadFactory;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.audit.AuditLog;
 import org.thingsboard.server.common.data.id.TenantId;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 @ConditionalOnProperty(prefix = "audit-log.sink", value = "type", havingValue = "elasticsearch")
@@ -51,6 +64,7 @@ public class ElasticsearchAuditLogSink implements AuditLogSink {
     private static final String TENANT_PLACEHOLDER = "@{TENANT}";
     private static final String DATE_PLACEHOLDER = "@{DATE}";
     private static final String INDEX_TYPE = "audit_log";
+    private static final ContentType BULK_CONTENT_TYPE = ContentType.create("application/x-ndjson", StandardCharsets.UTF_8);
 
     private final ObjectMapper mapper = new ObjectMapper();
 
@@ -68,8 +82,17 @@ public class ElasticsearchAuditLogSink implements AuditLogSink {
     private String password;
     @Value("${audit-log.sink.date_format}")
     private String dateFormat;
+    @Value("${audit-log.sink.batch_size:500}")
+    private int batchSize;
+    @Value("${audit-log.sink.linger_ms:1000}")
+    private long lingerMs;
+    @Value("${audit-log.sink.max_queue_size:10000}")
+    private int maxQueueSize;
 
     private RestClient restClient;
+    private BlockingQueue<String> queue;
+    private ExecutorService executor;
+    private final AtomicLong droppedCount = new AtomicLong();
 
     @PostConstruct
     public void init() {
@@ -93,22 +116,105 @@ public class ElasticsearchAuditLogSink implements AuditLogSink {
             log.error("Sink init failed!", e);
             throw new RuntimeException(e.getMessage(), e);
         }
+        this.queue = maxQueueSize > 0 ? new LinkedBlockingQueue<>(maxQueueSize) : new LinkedBlockingQueue<>();
+        this.executor = Executors.newSingleThreadExecutor(ThingsBoardThreadFactory.forName("elasticsearch-audit-log-sink"));
+        this.executor.submit(this::processQueue);
     }
 
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (restClient != null) {
+            try {
+                restClient.close();
+            } catch (IOException e) {
+                log.warn("Failed to close Elasticsearch rest client", e);
+            }
+        }
+    }
+
+    /**
+     * Entries are not sent one by one but buffered and sent with the bulk API.
+     * When the buffer is full (e.g. Elasticsearch is unavailable) new entries are dropped, so the caller is never blocked.
+     */
     @Override
     public void logAction(AuditLog auditLogEntry) {
-        String jsonContent = createElasticJsonRecord(auditLogEntry);
+        String bulkItem = createBulkIndexAction(getIndexName(auditLogEntry.getTenantId())) + "\n" + createElasticJsonRecord(auditLogEntry) + "\n";
+        if (!queue.offer(bulkItem)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    private void processQueue() {
+        List<String> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                String item = queue.poll(lingerMs, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    batch.add(item);
+                    long deadline = System.currentTimeMillis() + lingerMs;
+                    while (batch.size() < batchSize) {
+                        queue.drainTo(batch, batchSize - batch.size());
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (batch.size() >= batchSize || remaining <= 0) {
+                            break;
+                        }
+                        item = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                        if (item == null) {
+                            break;
+                        }
+                        batch.add(item);
+                    }
+                    sendBulk(batch);
+                }
+                long dropped = droppedCount.getAndSet(0);
+                if (dropped > 0) {
+                    log.warn("Elasticsearch sink queue is full, dropped {} audit log entries", dropped);
+                }
+            } catch (InterruptedException e) {
+                log.info("Elasticsearch sink queue processing was interrupted");
+                break;
+            } catch (Exception e) {
+                log.warn("Elasticsearch sink failed to send {} audit log entries!", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
 
-        HttpEntity entity = new NStringEntity(
-                jsonContent,
-                ContentType.APPLICATION_JSON);
+    private void sendBulk(List<String> batch) throws IOException {
+        JsonNode result = mapper.readTree(executeBulk(String.join("", batch)));
+        if (result.path("errors").asBoolean()) {
+            long failed = 0;
+            for (JsonNode item : result.path("items")) {
+                if (item.path("index").has("error")) {
+                    failed++;
+                }
+            }
+            log.warn("Elasticsearch sink failed to index {} of {} audit log entries", failed, batch.size());
+        } else {
+            log.trace("Elasticsearch sink sent {} audit log entries", batch.size());
+        }
+    }
 
-        restClient.performRequestAsync(
+    String executeBulk(String body) throws IOException {
+        HttpEntity entity = new NStringEntity(body, BULK_CONTENT_TYPE);
+        Response response = restClient.performRequest(
                 HttpMethod.POST.name(),
-                String.format("/%s/%s", getIndexName(auditLogEntry.getTenantId()), INDEX_TYPE),
+                "/_bulk",
                 Collections.emptyMap(),
-                entity,
-                responseListener);
+                entity);
+        return EntityUtils.toString(response.getEntity());
+    }
+
+    private String createBulkIndexAction(String indexName) {
+        ObjectNode actionNode = mapper.createObjectNode();
+        actionNode.putObject("index")
+                .put("_index", indexName)
+                .put("_type", INDEX_TYPE);
+        return actionNode.toString();
     }
 
     private String createElasticJsonRecord(AuditLog auditLog) {
@@ -133,18 +239,6 @@ public class ElasticsearchAuditLogSink implements AuditLogSink {
         return auditLogNode.toString();
     }
 
-    private ResponseListener responseListener = new ResponseListener() {
-        @Override
-        public void onSuccess(Response response) {
-            log.trace("Elasticsearch sink log action method succeeded. Response result [{}]!", response);
-        }
-
-        @Override
-        public void onFailure(Exception exception) {
-            log.warn("Elasticsearch sink log action method failed!", exception);
-        }
-    };
-
     private String getIndexName(TenantId tenantId) {
         String indexName = indexPattern;
         if (indexName.contains(TENANT_PLACEHOLDER) && tenantId != null) {
@@ -15,12 +15,15 @@
  */
 package org.thingsboard.server.dao.relation;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -32,6 +35,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.thingsboard.common.util.ThingsBoardThreadFactory;
+import org.thingsboard.server.cache.TbCacheValueWrapper;
 import org.thingsboard.server.cache.TbTransactionalCache;
 import org.thingsboard.server.common.data.StringUtils;
 import org.thingsboard.server.common.data.id.EntityId;
@@ -55,6 +59,8 @@ import javax.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -64,7 +70,9 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 import static org.thingsboard.server.dao.service.Validator.validateId;
 
@@ -75,6 +83,8 @@ import static org.thingsboard.server.dao.service.Validator.validateId;
 @Slf4j
 public class BaseRelationService implements RelationService {
 
+    private static final int RELATIONS_CACHE_BATCH_SIZE = 1024;
+
     private final RelationDao relationDao;
     private final EntityService entityService;
     private final TbTransactionalCache<RelationCacheKey, RelationCacheValue> cache;
@@ -85,6 +95,13 @@ public class BaseRelationService implements RelationService {
 
     @Value("${sql.relations.query_timeout:20}")
     private Integer relationQueryTimeout;
+    @Value("${sql.relations.ancestors_cache_max_size:10000}")
+    private long ancestorsCacheMaxSize;
+    @Value("${sql.relations.ancestors_cache_ttl_sec:60}")
+    private long ancestorsCacheTtlSec;
+
+    private Cache<AncestorsCacheKey, Set<EntityId>> ancestorsCache;
+    private final AtomicLong ancestorsCacheVersion = new AtomicLong();
 
     public BaseRelationService(RelationDao relationDao, @Lazy EntityService entityService,
                                TbTransactionalCache<RelationCacheKey, RelationCacheValue> cache,
@@ -101,6 +118,12 @@ public class BaseRelationService implements RelationService {
     @PostConstruct
     public void init() {
         timeoutExecutorService = Executors.newSingleThreadScheduledExecutor(ThingsBoardThreadFactory.forName("relations-query-timeout"));
+        if (ancestorsCacheMaxSize > 0) {
+            ancestorsCache = Caffeine.newBuilder()
+                    .maximumSize(ancestorsCacheMaxSize)
+                    .expireAfterWrite(ancestorsCacheTtlSec, TimeUnit.SECONDS)
+                    .build();
+        }
     }
 
     @PreDestroy
@@ -119,6 +142,11 @@ public class BaseRelationService implements RelationService {
         keys.add(new RelationCacheKey(null, event.getTo(), event.getType(), event.getTypeGroup(), EntitySearchDirection.TO));
         keys.add(new RelationCacheKey(null, event.getTo(), null, event.getTypeGroup(), EntitySearchDirection.TO));
         cache.evict(keys);
+        if (ancestorsCache != null && event.getTypeGroup() == RelationTypeGroup.COMMON) {
+            // any relation may be a part of many ancestor paths, so the whole cache is cleared
+            ancestorsCacheVersion.incrementAndGet();
+            ancestorsCache.invalidateAll();
+        }
     }
 
     @Override
@@ -438,6 +466,33 @@ public class BaseRelationService implements RelationService {
         }
     }
 
+    @Override
+    public ListenableFuture<Set<EntityId>> findAncestors(TenantId tenantId, EntityId entityId, List<String> relationTypes) {
+        log.trace("Executing findAncestors [{}][{}]", entityId, relationTypes);
+        validateId(entityId.getId(), "Invalid entity id");
+        AncestorsCacheKey cacheKey = new AncestorsCacheKey(tenantId, entityId, relationTypes == null || relationTypes.isEmpty() ? null : new HashSet<>(relationTypes));
+        if (ancestorsCache != null) {
+            Set<EntityId> ancestors = ancestorsCache.getIfPresent(cacheKey);
+            if (ancestors != null) {
+                return Futures.immediateFuture(ancestors);
+            }
+        }
+        long version = ancestorsCacheVersion.get();
+        EntityRelationsQuery query = new EntityRelationsQuery();
+        query.setParameters(new RelationsSearchParameters(entityId, EntitySearchDirection.TO, Integer.MAX_VALUE, false));
+        return Futures.transform(findByQuery(tenantId, query), relations -> {
+            Set<EntityId> ancestors = Collections.unmodifiableSet(relations.stream()
+                    .filter(relation -> cacheKey.getRelationTypes() == null || cacheKey.getRelationTypes().contains(relation.getType()))
+                    .map(EntityRelation::getFrom)
+                    .collect(Collectors.toCollection(LinkedHashSet::new)));
+            // do not cache the result if relations were changed while it was fetched
+            if (ancestorsCache != null && ancestorsCacheVersion.get() == version) {
+                ancestorsCache.put(cacheKey, ancestors);
+            }
+            return ancestors;
+        }, MoreExecutors.directExecutor());
+    }
+
     @Override
     public ListenableFuture<List<EntityRelationInfo>> findInfoByQuery(TenantId tenantId, EntityRelationsQuery query) {
         log.trace("Executing findInfoByQuery [{}]", query);
@@ -565,42 +620,66 @@ public class BaseRelationService implements RelationService {
     }
 
     private void processQueue(RelationQueueCtx ctx) {
-        RelationTask task = ctx.tasks.poll();
-        while (task != null) {
-            List<EntityRelation> relations = findRelations(ctx.tenantId, task.root, ctx.direction, ctx.relationTypeGroup);
-            Map<EntityId, List<EntityRelation>> newChildrenRelations = new HashMap<>();
-            for (EntityRelation childRelation : relations) {
-                log.trace("Found Relation: {}", childRelation);
-                EntityId childId = ctx.direction == EntitySearchDirection.FROM ? childRelation.getTo() : childRelation.getFrom();
-                if (ctx.uniqueMap.putIfAbsent(childId, Boolean.TRUE) == null) {
-                    log.trace("Adding Relation: {}", childId);
-                    newChildrenRelations.put(childId, new ArrayList<>());
-                }
-                if (ctx.fetchLastLevelOnly) {
-                    var list = newChildrenRelations.get(childId);
-                    if (list != null) {
-                        list.add(childRelation);
-                    }
-                }
+        List<RelationTask> tasks = pollTasks(ctx);
+        while (!tasks.isEmpty()) {
+            // resolve the relations of the whole batch from cache at once, only misses go to the DB one by one
+            Map<RelationCacheKey, TbCacheValueWrapper<RelationCacheValue>> cachedRelations = cache.getAll(tasks.stream()
+                    .map(task -> getRelationsCacheKey(task.root, ctx.direction, ctx.relationTypeGroup))
+                    .collect(Collectors.toList()));
+            for (RelationTask task : tasks) {
+                processTask(ctx, task, cachedRelations);
+            }
+            tasks = pollTasks(ctx);
+        }
+        ctx.future.set(ctx.result);
+    }
+
+    private List<RelationTask> pollTasks(RelationQueueCtx ctx) {
+        List<RelationTask> tasks = new ArrayList<>();
+        RelationTask task;
+        while (tasks.size() < RELATIONS_CACHE_BATCH_SIZE && (task = ctx.tasks.poll()) != null) {
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private void processTask(RelationQueueCtx ctx, RelationTask task, Map<RelationCacheKey, TbCacheValueWrapper<RelationCacheValue>> cachedRelations) {
+        List<EntityRelation> relations;
+        var cachedValue = cachedRelations.get(getRelationsCacheKey(task.root, ctx.direction, ctx.relationTypeGroup));
+        if (cachedValue != null && cachedValue.get() != null) {
+            relations = cachedValue.get().getRelations();
+        } else {
+            relations = findRelations(ctx.tenantId, task.root, ctx.direction, ctx.relationTypeGroup);
+        }
+        Map<EntityId, List<EntityRelation>> newChildrenRelations = new HashMap<>();
+        for (EntityRelation childRelation : relations) {
+            log.trace("Found Relation: {}", childRelation);
+            EntityId childId = ctx.direction == EntitySearchDirection.FROM ? childRelation.getTo() : childRelation.getFrom();
+            if (ctx.uniqueMap.putIfAbsent(childId, Boolean.TRUE) == null) {
+                log.trace("Adding Relation: {}", childId);
+                newChildrenRelations.put(childId, new ArrayList<>());
             }
             if (ctx.fetchLastLevelOnly) {
-                if (relations.isEmpty()) {
-                    ctx.result.addAll(task.prevRelations);
-                } else if (task.currentLvl == ctx.maxLvl) {
-                    ctx.result.addAll(relations);
+                var list = newChildrenRelations.get(childId);
+                if (list != null) {
+                    list.add(childRelation);
                 }
-            } else {
+            }
+        }
+        if (ctx.fetchLastLevelOnly) {
+            if (relations.isEmpty()) {
+                ctx.result.addAll(task.prevRelations);
+            } else if (task.currentLvl == ctx.maxLvl) {
                 ctx.result.addAll(relations);
             }
-            var finalTask = task;
-            newChildrenRelations.forEach((child, childRelations) -> {
-                var newLvl = finalTask.currentLvl + 1;
-                if (newLvl <= ctx.maxLvl)
-                    ctx.tasks.add(new RelationTask(newLvl, child, childRelations));
-            });
-            task = ctx.tasks.poll();
+        } else {
+            ctx.result.addAll(relations);
         }
-        ctx.future.set(ctx.result);
+        newChildrenRelations.forEach((child, childRelations) -> {
+            var newLvl = task.currentLvl + 1;
+            if (newLvl <= ctx.maxLvl)
+                ctx.tasks.add(new RelationTask(newLvl, child, childRelations));
+        });
     }
 
     private ListenableFuture<Set<EntityRelation>> findRelationsRecursively(final TenantId tenantId, final EntityId rootId, final EntitySearchDirection direction,
@@ -616,6 +695,17 @@ public class BaseRelationService implements RelationService {
     }
 
 
+    private RelationCacheKey getRelationsCacheKey(EntityId rootId, EntitySearchDirection direction, RelationTypeGroup relationTypeGroup) {
+        if (relationTypeGroup == null) {
+            relationTypeGroup = RelationTypeGroup.COMMON;
+        }
+        if (direction == EntitySearchDirection.FROM) {
+            return RelationCacheKey.builder().from(rootId).typeGroup(relationTypeGroup).direction(EntitySearchDirection.FROM).build();
+        } else {
+            return RelationCacheKey.builder().to(rootId).typeGroup(relationTypeGroup).direction(EntitySearchDirection.TO).build();
+        }
+    }
+
     private List<EntityRelation> findRelations(final TenantId tenantId, final EntityId rootId, final EntitySearchDirection direction, RelationTypeGroup relationTypeGroup) {
         List<EntityRelation> relations;
         if (relationTypeGroup == null) {
@@ -637,4 +727,11 @@ public class BaseRelationService implements RelationService {
         }
     }
 
+    @Data
+    private static class AncestorsCacheKey {
+        private final TenantId tenantId;
+        private final EntityId entityId;
+        private final Set<String> relationTypes;
+    }
+
 }
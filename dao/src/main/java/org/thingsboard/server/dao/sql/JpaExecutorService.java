@@ -24,10 +24,17 @@ public class JpaExecutorService extends AbstractListeningExecutor {
 
     @Value("${spring.datasource.hikari.maximumPoolSize}")
     private int poolSize;
+    @Value("${sql.executor_type:work_stealing}")
+    private String executorType;
 
     @Override
     protected int getThreadPollSize() {
         return poolSize;
     }
 
+    @Override
+    protected int getBlockingTaskPermits() {
+        return getBlockingTaskPermits(executorType, poolSize);
+    }
+
 }
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.server.dao.sql;
 
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import lombok.extern.slf4j.Slf4j;
@@ -28,15 +29,14 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Slf4j
 public class TbSqlBlockingQueue<E> implements TbSqlQueue<E> {
 
-    private final BlockingQueue<TbSqlQueueElement<E>> queue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<TbSqlQueueElement<E>> queue;
     private final TbSqlBlockingQueueParams params;
 
     private ExecutorService executor;
@@ -45,6 +45,7 @@ public class TbSqlBlockingQueue<E> implements TbSqlQueue<E> {
     public TbSqlBlockingQueue(TbSqlBlockingQueueParams params, MessagesStats stats) {
         this.params = params;
         this.stats = stats;
+        this.queue = params.getMaxQueueSize() > 0 ? new LinkedBlockingQueue<>(params.getMaxQueueSize()) : new LinkedBlockingQueue<>();
     }
 
     @Override
@@ -54,28 +55,31 @@ public class TbSqlBlockingQueue<E> implements TbSqlQueue<E> {
             String logName = params.getLogName();
             int batchSize = params.getBatchSize();
             long maxDelay = params.getMaxDelay();
-            List<TbSqlQueueElement<E>> entities = new ArrayList<>(batchSize);
+            List<TbSqlQueueElement<E>> elements = new ArrayList<>(batchSize);
+            List<E> entities = new ArrayList<>(batchSize);
             while (!Thread.interrupted()) {
                 try {
                     long currentTs = System.currentTimeMillis();
                     TbSqlQueueElement<E> attr = queue.poll(maxDelay, TimeUnit.MILLISECONDS);
                     if (attr == null) {
                         continue;
-                    } else {
-                        entities.add(attr);
                     }
-                    queue.drainTo(entities, batchSize - 1);
-                    boolean fullPack = entities.size() == batchSize;
+                    // elements added with addAll are never split, so the pack may slightly exceed the batch size
+                    while (attr != null) {
+                        elements.add(attr);
+                        entities.addAll(attr.getEntities());
+                        attr = entities.size() < batchSize ? queue.poll() : null;
+                    }
+                    boolean fullPack = entities.size() >= batchSize;
                     if (log.isDebugEnabled()) {
                         log.debug("[{}] Going to save {} entities", logName, entities.size());
                         log.trace("[{}] Going to save entities: {}", logName, entities);
                     }
-                    Stream<E> entitiesStream = entities.stream().map(TbSqlQueueElement::getEntity);
-                    saveFunction.accept(
-                            (params.isBatchSortEnabled() ? entitiesStream.sorted(batchUpdateComparator) : entitiesStream)
-                                    .collect(Collectors.toList())
-                    );
-                    entities.forEach(v -> v.getFuture().set(null));
+                    if (params.isBatchSortEnabled()) {
+                        entities.sort(batchUpdateComparator);
+                    }
+                    saveFunction.accept(new ArrayList<>(entities));
+                    elements.forEach(v -> v.getFuture().set(null));
                     stats.incrementSuccessful(entities.size());
                     if (!fullPack) {
                         long remainingDelay = maxDelay - (System.currentTimeMillis() - currentTs);
@@ -85,7 +89,7 @@ public class TbSqlBlockingQueue<E> implements TbSqlQueue<E> {
                     }
                 } catch (Exception e) {
                     stats.incrementFailed(entities.size());
-                    entities.forEach(entityFutureWrapper -> entityFutureWrapper.getFuture().setException(e));
+                    elements.forEach(entityFutureWrapper -> entityFutureWrapper.getFuture().setException(e));
                     if (e instanceof InterruptedException) {
                         log.info("[{}] Queue polling was interrupted", logName);
                         break;
@@ -93,6 +97,7 @@ public class TbSqlBlockingQueue<E> implements TbSqlQueue<E> {
                         log.error("[{}] Failed to save {} entities", logName, entities.size(), e);
                     }
                 } finally {
+                    elements.clear();
                     entities.clear();
                 }
             }
@@ -117,8 +122,28 @@ public class TbSqlBlockingQueue<E> implements TbSqlQueue<E> {
     @Override
     public ListenableFuture<Void> add(E element) {
         SettableFuture<Void> future = SettableFuture.create();
-        queue.add(new TbSqlQueueElement<>(future, element));
+        if (!queue.offer(new TbSqlQueueElement<>(future, element))) {
+            return rejected(1);
+        }
         stats.incrementTotal();
         return future;
     }
+
+    @Override
+    public ListenableFuture<Void> addAll(List<E> elements) {
+        if (elements.isEmpty()) {
+            return Futures.immediateFuture(null);
+        }
+        SettableFuture<Void> future = SettableFuture.create();
+        if (!queue.offer(new TbSqlQueueElement<>(future, elements))) {
+            return rejected(elements.size());
+        }
+        stats.incrementTotal(elements.size());
+        return future;
+    }
+
+    private ListenableFuture<Void> rejected(int count) {
+        stats.incrementFailed(count);
+        return Futures.immediateFailedFuture(new RejectedExecutionException("[" + params.getLogName() + "] Queue is full, max size " + params.getMaxQueueSize()));
+    }
 }
@@ -30,4 +30,8 @@ public class TbSqlBlockingQueueParams {
     private final long statsPrintIntervalMs;
     private final String statsNamePrefix;
     private final boolean batchSortEnabled;
+    /**
+     * Maximum number of pending queue elements, 0 for unbounded. Elements added to a full queue are rejected.
+     */
+    private final int maxQueueSize;
 }
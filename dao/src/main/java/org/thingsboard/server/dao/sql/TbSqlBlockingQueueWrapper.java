@@ -15,14 +15,19 @@
  */
 package org.thingsboard.server.dao.sql;
 
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.stats.MessagesStats;
 import org.thingsboard.server.common.stats.StatsFactory;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -55,8 +60,31 @@ public class TbSqlBlockingQueueWrapper<E> {
     }
 
     public ListenableFuture<Void> add(E element) {
-        int queueIndex = element != null ? (hashCodeFunction.apply(element) & 0x7FFFFFFF) % maxThreads : 0;
-        return queues.get(queueIndex).add(element);
+        return queues.get(getQueueIndex(element)).add(element);
+    }
+
+    /**
+     * Enqueues the elements with one unit per queue, so the returned future completes once all of them are saved.
+     */
+    public ListenableFuture<Void> addAll(List<E> elements) {
+        if (elements.isEmpty()) {
+            return Futures.immediateFuture(null);
+        }
+        Map<Integer, List<E>> elementsByQueue = new HashMap<>();
+        for (E element : elements) {
+            elementsByQueue.computeIfAbsent(getQueueIndex(element), k -> new ArrayList<>()).add(element);
+        }
+        if (elementsByQueue.size() == 1) {
+            Map.Entry<Integer, List<E>> entry = elementsByQueue.entrySet().iterator().next();
+            return queues.get(entry.getKey()).addAll(entry.getValue());
+        }
+        List<ListenableFuture<Void>> futures = new ArrayList<>(elementsByQueue.size());
+        elementsByQueue.forEach((queueIndex, queueElements) -> futures.add(queues.get(queueIndex).addAll(queueElements)));
+        return Futures.transform(Futures.allAsList(futures), v -> null, MoreExecutors.directExecutor());
+    }
+
+    private int getQueueIndex(E element) {
+        return element != null ? (hashCodeFunction.apply(element) & 0x7FFFFFFF) % maxThreads : 0;
     }
 
     public void destroy() {
@@ -28,4 +28,9 @@ public interface TbSqlQueue<E> {
     void destroy();
 
     ListenableFuture<Void> add(E element);
+
+    /**
+     * Enqueues the elements as one unit that is saved within a single batch and completes a single future.
+     */
+    ListenableFuture<Void> addAll(List<E> elements);
 }
@@ -19,16 +19,23 @@ import com.google.common.util.concurrent.SettableFuture;
 import lombok.Getter;
 import lombok.ToString;
 
+import java.util.Collections;
+import java.util.List;
+
 @ToString(exclude = "future")
 public final class TbSqlQueueElement<E> {
     @Getter
     private final SettableFuture<Void> future;
     @Getter
-    private final E entity;
+    private final List<E> entities;
 
     public TbSqlQueueElement(SettableFuture<Void> future, E entity) {
+        this(future, Collections.singletonList(entity));
+    }
+
+    public TbSqlQueueElement(SettableFuture<Void> future, List<E> entities) {
         this.future = future;
-        this.entity = entity;
+        this.entities = entities;
     }
 }
 
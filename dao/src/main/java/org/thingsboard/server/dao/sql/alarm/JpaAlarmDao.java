@@ -47,9 +47,11 @@ import org.thingsboard.server.dao.util.SqlDao;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Created by Valerii Sosliuk on 5/19/2017.
@@ -68,6 +70,9 @@ public class JpaAlarmDao extends JpaAbstractDao<AlarmEntity, Alarm> implements A
     @Autowired
     private EntityAlarmRepository entityAlarmRepository;
 
+    @Autowired
+    private EntityAlarmInsertRepository entityAlarmInsertRepository;
+
     @Override
     protected Class<AlarmEntity> getEntityClass() {
         return AlarmEntity.class;
@@ -166,6 +171,11 @@ public class JpaAlarmDao extends JpaAbstractDao<AlarmEntity, Alarm> implements A
         return alarmQueryRepository.findAlarmDataByQueryForEntities(tenantId, query, orderedEntityIds);
     }
 
+    @Override
+    public Map<EntityId, String> findAlarmOriginatorNames(TenantId tenantId, Collection<EntityId> originators) {
+        return alarmQueryRepository.findOriginatorNames(tenantId, originators);
+    }
+
     @Override
     public Set<AlarmSeverity> findAlarmSeverities(TenantId tenantId, EntityId entityId, Set<AlarmStatus> statuses) {
         return alarmRepository.findAlarmSeverities(tenantId.getId(), entityId.getId(), entityId.getEntityType().name(), statuses);
@@ -183,6 +193,12 @@ public class JpaAlarmDao extends JpaAbstractDao<AlarmEntity, Alarm> implements A
         entityAlarmRepository.save(new EntityAlarmEntity(entityAlarm));
     }
 
+    @Override
+    public void createEntityAlarmRecords(List<EntityAlarm> entityAlarms) {
+        log.debug("Saving entity alarms {}", entityAlarms);
+        entityAlarmInsertRepository.save(entityAlarms.stream().map(EntityAlarmEntity::new).collect(Collectors.toList()));
+    }
+
     @Override
     public List<EntityAlarm> findEntityAlarmRecords(TenantId tenantId, AlarmId id) {
         log.trace("[{}] Try to find entity alarm records using [{}]", tenantId, id);
@@ -0,0 +1,80 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql.audit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thingsboard.server.dao.model.sql.AuditLogEntity;
+import org.thingsboard.server.dao.util.SqlDao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+@Repository
+@Transactional
+@SqlDao
+public class AuditLogInsertRepository {
+
+    private static final String INSERT =
+            "INSERT INTO audit_log (id, created_time, tenant_id, customer_id, entity_id, entity_type, entity_name, user_id, user_name, " +
+                    "action_type, action_data, action_status, action_failure_details) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);";
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    protected void save(List<AuditLogEntity> entities) {
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        AuditLogEntity auditLog = entities.get(i);
+                        ps.setObject(1, auditLog.getUuid());
+                        ps.setLong(2, auditLog.getCreatedTime());
+                        ps.setObject(3, auditLog.getTenantId());
+                        ps.setObject(4, auditLog.getCustomerId());
+                        ps.setObject(5, auditLog.getEntityId());
+                        ps.setString(6, auditLog.getEntityType() != null ? auditLog.getEntityType().name() : null);
+                        ps.setString(7, auditLog.getEntityName());
+                        ps.setObject(8, auditLog.getUserId());
+                        ps.setString(9, auditLog.getUserName());
+                        ps.setString(10, auditLog.getActionType() != null ? auditLog.getActionType().name() : null);
+                        ps.setString(11, auditLog.getActionData() != null ? auditLog.getActionData().toString() : null);
+                        ps.setString(12, auditLog.getActionStatus() != null ? auditLog.getActionStatus().name() : null);
+                        ps.setString(13, auditLog.getActionFailureDetails());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return entities.size();
+                    }
+                });
+            }
+        });
+    }
+}
@@ -32,18 +32,28 @@ import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.id.UserId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.TimePageLink;
+import org.thingsboard.server.common.stats.StatsFactory;
 import org.thingsboard.server.dao.DaoUtil;
 import org.thingsboard.server.dao.audit.AuditLogDao;
 import org.thingsboard.server.dao.model.ModelConstants;
 import org.thingsboard.server.dao.model.sql.AuditLogEntity;
 import org.thingsboard.server.dao.sql.JpaAbstractDao;
+import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
+import org.thingsboard.server.dao.sql.TbSqlBlockingQueueParams;
+import org.thingsboard.server.dao.sql.TbSqlBlockingQueueWrapper;
 import org.thingsboard.server.dao.util.SqlDao;
 import org.thingsboard.server.dao.sqlts.insert.sql.SqlPartitioningRepository;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.thingsboard.server.dao.model.ModelConstants.NULL_UUID;
 
 @Component
 @SqlDao
@@ -52,16 +62,29 @@ import java.util.concurrent.TimeUnit;
 public class JpaAuditLogDao extends JpaAbstractDao<AuditLogEntity, AuditLog> implements AuditLogDao {
 
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogInsertRepository auditLogInsertRepository;
     private final SqlPartitioningRepository partitioningRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final ScheduledLogExecutorComponent logExecutor;
+    private final StatsFactory statsFactory;
 
     @Value("${sql.audit_logs.partition_size:168}")
     private int partitionSizeInHours;
     @Value("${sql.ttl.audit_logs.ttl:0}")
     private long ttlInSec;
+    @Value("${sql.audit_logs.batch_size:1000}")
+    private int batchSize;
+    @Value("${sql.audit_logs.batch_max_delay:100}")
+    private long maxDelay;
+    @Value("${sql.audit_logs.stats_print_interval_ms:10000}")
+    private long statsPrintIntervalMs;
+    @Value("${sql.audit_logs.max_queue_size:10000}")
+    private int maxQueueSize;
 
     private static final String TABLE_NAME = ModelConstants.AUDIT_LOG_COLUMN_FAMILY_NAME;
 
+    private TbSqlBlockingQueueWrapper<AuditLogEntity> queue;
+
     @Override
     protected Class<AuditLogEntity> getEntityClass() {
         return AuditLogEntity.class;
@@ -72,23 +95,61 @@ public class JpaAuditLogDao extends JpaAbstractDao<AuditLogEntity, AuditLog> imp
         return auditLogRepository;
     }
 
+    @PostConstruct
+    private void init() {
+        TbSqlBlockingQueueParams params = TbSqlBlockingQueueParams.builder()
+                .logName("Audit Logs")
+                .batchSize(batchSize)
+                .maxDelay(maxDelay)
+                .statsPrintIntervalMs(statsPrintIntervalMs)
+                .statsNamePrefix("audit.logs")
+                .batchSortEnabled(false)
+                .maxQueueSize(maxQueueSize)
+                .build();
+        Function<AuditLogEntity, Integer> hashcodeFunction = entity -> {
+            if (entity.getTenantId() != null) {
+                return entity.getTenantId().hashCode();
+            } else {
+                return NULL_UUID.hashCode();
+            }
+        };
+        queue = new TbSqlBlockingQueueWrapper<>(params, hashcodeFunction, 1, statsFactory);
+        queue.init(logExecutor, this::saveBatch, Comparator.comparing(AuditLogEntity::getCreatedTime));
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (queue != null) {
+            queue.destroy();
+        }
+    }
+
     @Override
     public ListenableFuture<Void> saveByTenantId(AuditLog auditLog) {
-        return service.submit(() -> {
-            save(auditLog.getTenantId(), auditLog);
-            return null;
-        });
+        setIdIfAbsent(auditLog);
+        return queue.add(new AuditLogEntity(auditLog));
     }
 
     @Override
     public AuditLog save(TenantId tenantId, AuditLog auditLog) {
+        setIdIfAbsent(auditLog);
+        partitioningRepository.createPartitionIfNotExists(TABLE_NAME, auditLog.getCreatedTime(), TimeUnit.HOURS.toMillis(partitionSizeInHours));
+        return super.save(tenantId, auditLog);
+    }
+
+    void saveBatch(List<AuditLogEntity> entities) {
+        long partitionDurationMs = TimeUnit.HOURS.toMillis(partitionSizeInHours);
+        entities.stream().map(entity -> entity.getCreatedTime() - entity.getCreatedTime() % partitionDurationMs).distinct()
+                .forEach(partitionStartTs -> partitioningRepository.createPartitionIfNotExists(TABLE_NAME, partitionStartTs, partitionDurationMs));
+        auditLogInsertRepository.save(entities);
+    }
+
+    private void setIdIfAbsent(AuditLog auditLog) {
         if (auditLog.getId() == null) {
             UUID uuid = Uuids.timeBased();
             auditLog.setId(new AuditLogId(uuid));
             auditLog.setCreatedTime(Uuids.unixTimestamp(uuid));
         }
-        partitioningRepository.createPartitionIfNotExists(TABLE_NAME, auditLog.getCreatedTime(), TimeUnit.HOURS.toMillis(partitionSizeInHours));
-        return super.save(tenantId, auditLog);
     }
 
     @Override
@@ -22,10 +22,13 @@ import org.thingsboard.server.common.data.query.AlarmData;
 import org.thingsboard.server.common.data.query.AlarmDataQuery;
 
 import java.util.Collection;
+import java.util.Map;
 
 public interface AlarmQueryRepository {
 
     PageData<AlarmData> findAlarmDataByQueryForEntities(TenantId tenantId,
                                                         AlarmDataQuery query, Collection<EntityId> orderedEntityIds);
 
+    Map<EntityId, String> findOriginatorNames(TenantId tenantId, Collection<EntityId> originators);
+
 }
@@ -25,6 +25,7 @@ import org.thingsboard.server.common.data.alarm.AlarmSearchStatus;
 import org.thingsboard.server.common.data.alarm.AlarmSeverity;
 import org.thingsboard.server.common.data.alarm.AlarmStatus;
 import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.EntityIdFactory;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.query.AlarmData;
@@ -37,12 +38,14 @@ import org.thingsboard.server.dao.model.ModelConstants;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Repository
@@ -70,22 +73,22 @@ public class DefaultAlarmQueryRepository implements AlarmQueryRepository {
         alarmFieldColumnMap.put("originator", "originator_name");
     }
 
-    private static final String SELECT_ORIGINATOR_NAME = " COALESCE(CASE" +
-            " WHEN a.originator_type = " + EntityType.TENANT.ordinal() +
-            " THEN (select title from tenant where id = a.originator_id)" +
-            " WHEN a.originator_type = " + EntityType.CUSTOMER.ordinal() +
-            " THEN (select title from customer where id = a.originator_id)" +
-            " WHEN a.originator_type = " + EntityType.USER.ordinal() +
-            " THEN (select email from tb_user where id = a.originator_id)" +
-            " WHEN a.originator_type = " + EntityType.DASHBOARD.ordinal() +
-            " THEN (select title from dashboard where id = a.originator_id)" +
-            " WHEN a.originator_type = " + EntityType.ASSET.ordinal() +
-            " THEN (select name from asset where id = a.originator_id)" +
-            " WHEN a.originator_type = " + EntityType.DEVICE.ordinal() +
-            " THEN (select name from device where id = a.originator_id)" +
-            " WHEN a.originator_type = " + EntityType.ENTITY_VIEW.ordinal() +
-            " THEN (select name from entity_view where id = a.originator_id)" +
-            " END, 'Deleted') as originator_name";
+    private static final Map<EntityType, String> originatorNameSources = new EnumMap<>(EntityType.class);
+
+    static {
+        originatorNameSources.put(EntityType.TENANT, "title from tenant");
+        originatorNameSources.put(EntityType.CUSTOMER, "title from customer");
+        originatorNameSources.put(EntityType.USER, "email from tb_user");
+        originatorNameSources.put(EntityType.DASHBOARD, "title from dashboard");
+        originatorNameSources.put(EntityType.ASSET, "name from asset");
+        originatorNameSources.put(EntityType.DEVICE, "name from device");
+        originatorNameSources.put(EntityType.ENTITY_VIEW, "name from entity_view");
+    }
+
+    private static final String SELECT_ORIGINATOR_NAME = originatorNameSources.entrySet().stream()
+            .map(source -> " WHEN a.originator_type = " + source.getKey().ordinal() +
+                    " THEN (select " + source.getValue() + " where id = a.originator_id)")
+            .collect(Collectors.joining("", " COALESCE(CASE", " END, 'Deleted') as originator_name"));
 
     private static final String FIELDS_SELECTION = "select a.id as id," +
             " a.created_time as created_time," +
@@ -119,6 +122,26 @@ public class DefaultAlarmQueryRepository implements AlarmQueryRepository {
         this.queryLog = queryLog;
     }
 
+    @Override
+    public Map<EntityId, String> findOriginatorNames(TenantId tenantId, Collection<EntityId> originators) {
+        Map<EntityType, List<UUID>> originatorIdsByType = originators.stream()
+                .filter(originator -> originatorNameSources.containsKey(originator.getEntityType()))
+                .collect(Collectors.groupingBy(EntityId::getEntityType, () -> new EnumMap<>(EntityType.class),
+                        Collectors.mapping(EntityId::getId, Collectors.toList())));
+        Map<EntityId, String> originatorNames = new HashMap<>();
+        originatorIdsByType.forEach((entityType, ids) -> {
+            QueryContext ctx = new QueryContext(new QuerySecurityContext(tenantId, null, entityType));
+            ctx.addUuidListParameter("ids", ids);
+            ctx.append("select id, " + originatorNameSources.get(entityType) + " where id in (:ids)");
+            Map<UUID, String> names = new HashMap<>();
+            jdbcTemplate.query(ctx.getQuery(), ctx, rs -> {
+                names.put((UUID) rs.getObject(1), rs.getString(2));
+            });
+            ids.forEach(id -> originatorNames.put(EntityIdFactory.getByTypeAndUuid(entityType, id), names.get(id)));
+        });
+        return originatorNames;
+    }
+
     @Override
     public PageData<AlarmData> findAlarmDataByQueryForEntities(TenantId tenantId, AlarmDataQuery query, Collection<EntityId> orderedEntityIds) {
         return transactionTemplate.execute(status -> {
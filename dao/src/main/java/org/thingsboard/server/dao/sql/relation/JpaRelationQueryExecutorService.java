@@ -24,10 +24,20 @@ public class JpaRelationQueryExecutorService extends AbstractListeningExecutor {
 
     @Value("${sql.relations.pool_size:4}")
     private int poolSize;
+    @Value("${sql.relations.executor_type:work_stealing}")
+    private String executorType;
+    @Value("${spring.datasource.hikari.maximumPoolSize}")
+    private int dbPoolSize;
 
     @Override
     protected int getThreadPollSize() {
         return poolSize;
     }
 
+    @Override
+    protected int getBlockingTaskPermits() {
+        // relation queries must not take all the database connections
+        return getBlockingTaskPermits(executorType, Math.min(poolSize, dbPoolSize));
+    }
+
 }
@@ -144,6 +144,13 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
         return getSaveLatestFuture(entityId, tsKvEntry);
     }
 
+    @Override
+    public ListenableFuture<Void> saveAllLatest(TenantId tenantId, Map<EntityId, List<TsKvEntry>> tsKvEntries) {
+        List<TsKvLatestEntity> latestEntities = new ArrayList<>();
+        tsKvEntries.forEach((entityId, entries) -> entries.forEach(tsKvEntry -> latestEntities.add(toLatestEntity(entityId, tsKvEntry))));
+        return tsLatestQueue.addAll(latestEntities);
+    }
+
     @Override
     public ListenableFuture<TsKvLatestRemovingResult> removeLatest(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query) {
         return getRemoveLatestFuture(tenantId, entityId, query);
@@ -255,6 +262,10 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
     }
 
     protected ListenableFuture<Void> getSaveLatestFuture(EntityId entityId, TsKvEntry tsKvEntry) {
+        return tsLatestQueue.add(toLatestEntity(entityId, tsKvEntry));
+    }
+
+    private TsKvLatestEntity toLatestEntity(EntityId entityId, TsKvEntry tsKvEntry) {
         TsKvLatestEntity latestEntity = new TsKvLatestEntity();
         latestEntity.setEntityId(entityId.getId());
         latestEntity.setTs(tsKvEntry.getTs());
@@ -264,8 +275,7 @@ public class SqlTimeseriesLatestDao extends BaseAbstractSqlTimeseriesDao impleme
         latestEntity.setLongValue(tsKvEntry.getLongValue().orElse(null));
         latestEntity.setBooleanValue(tsKvEntry.getBooleanValue().orElse(null));
         latestEntity.setJsonValue(tsKvEntry.getJsonValue().orElse(null));
-
-        return tsLatestQueue.add(latestEntity);
+        return latestEntity;
     }
 
 }
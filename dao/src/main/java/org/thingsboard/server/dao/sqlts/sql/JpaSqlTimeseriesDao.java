@@ -43,6 +43,8 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -81,6 +83,28 @@ public class JpaSqlTimeseriesDao extends AbstractChunkedAggregationTimeseriesDao
     @Override
     public ListenableFuture<Integer> save(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
         int dataPointDays = getDataPointDays(tsKvEntry, computeTtl(ttl));
+        TsKvEntity entity = toEntity(entityId, tsKvEntry);
+        log.trace("Saving entity: {}", entity);
+        return Futures.transform(tsQueue.add(entity), v -> dataPointDays, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public ListenableFuture<Integer> saveAll(TenantId tenantId, Map<EntityId, List<TsKvEntry>> tsKvEntries, long ttl) {
+        long computedTtl = computeTtl(ttl);
+        int dataPointDays = 0;
+        List<TsKvEntity> entities = new ArrayList<>();
+        for (Map.Entry<EntityId, List<TsKvEntry>> entry : tsKvEntries.entrySet()) {
+            for (TsKvEntry tsKvEntry : entry.getValue()) {
+                dataPointDays += getDataPointDays(tsKvEntry, computedTtl);
+                entities.add(toEntity(entry.getKey(), tsKvEntry));
+            }
+        }
+        log.trace("Saving entities: {}", entities);
+        int totalDataPointDays = dataPointDays;
+        return Futures.transform(tsQueue.addAll(entities), v -> totalDataPointDays, MoreExecutors.directExecutor());
+    }
+
+    private TsKvEntity toEntity(EntityId entityId, TsKvEntry tsKvEntry) {
         savePartitionIfNotExist(tsKvEntry.getTs());
         String strKey = tsKvEntry.getKey();
         Integer keyId = getOrSaveKeyId(strKey);
@@ -93,8 +117,7 @@ public class JpaSqlTimeseriesDao extends AbstractChunkedAggregationTimeseriesDao
         entity.setLongValue(tsKvEntry.getLongValue().orElse(null));
         entity.setBooleanValue(tsKvEntry.getBooleanValue().orElse(null));
         entity.setJsonValue(tsKvEntry.getJsonValue().orElse(null));
-        log.trace("Saving entity: {}", entity);
-        return Futures.transform(tsQueue.add(entity), v -> dataPointDays, MoreExecutors.directExecutor());
+        return entity;
     }
 
     @Override
@@ -48,6 +48,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
@@ -107,6 +108,28 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
     @Override
     public ListenableFuture<Integer> save(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
         int dataPointDays = getDataPointDays(tsKvEntry, computeTtl(ttl));
+        TimescaleTsKvEntity entity = toEntity(entityId, tsKvEntry);
+        log.trace("Saving entity to timescale db: {}", entity);
+        return Futures.transform(tsQueue.add(entity), v -> dataPointDays, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public ListenableFuture<Integer> saveAll(TenantId tenantId, Map<EntityId, List<TsKvEntry>> tsKvEntries, long ttl) {
+        long computedTtl = computeTtl(ttl);
+        int dataPointDays = 0;
+        List<TimescaleTsKvEntity> entities = new ArrayList<>();
+        for (Map.Entry<EntityId, List<TsKvEntry>> entry : tsKvEntries.entrySet()) {
+            for (TsKvEntry tsKvEntry : entry.getValue()) {
+                dataPointDays += getDataPointDays(tsKvEntry, computedTtl);
+                entities.add(toEntity(entry.getKey(), tsKvEntry));
+            }
+        }
+        log.trace("Saving entities to timescale db: {}", entities);
+        int totalDataPointDays = dataPointDays;
+        return Futures.transform(tsQueue.addAll(entities), v -> totalDataPointDays, MoreExecutors.directExecutor());
+    }
+
+    private TimescaleTsKvEntity toEntity(EntityId entityId, TsKvEntry tsKvEntry) {
         String strKey = tsKvEntry.getKey();
         Integer keyId = getOrSaveKeyId(strKey);
         TimescaleTsKvEntity entity = new TimescaleTsKvEntity();
@@ -118,8 +141,7 @@ public class TimescaleTimeseriesDao extends AbstractSqlTimeseriesDao implements
         entity.setLongValue(tsKvEntry.getLongValue().orElse(null));
         entity.setBooleanValue(tsKvEntry.getBooleanValue().orElse(null));
         entity.setJsonValue(tsKvEntry.getJsonValue().orElse(null));
-        log.trace("Saving entity to timescale db: {}", entity);
-        return Futures.transform(tsQueue.add(entity), v -> dataPointDays, MoreExecutors.directExecutor());
+        return entity;
     }
 
     @Override
@@ -46,6 +46,7 @@ import org.thingsboard.server.dao.service.Validator;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -60,7 +61,6 @@ import static org.thingsboard.server.common.data.StringUtils.isBlank;
 public class BaseTimeseriesService implements TimeseriesService {
 
     private static final int INSERTS_PER_ENTRY = 3;
-    private static final int INSERTS_PER_ENTRY_WITHOUT_LATEST = 2;
     private static final int DELETES_PER_ENTRY = INSERTS_PER_ENTRY;
     public static final Function<List<Integer>, Integer> SUM_ALL_INTEGERS = new Function<>() {
         @Override
@@ -166,40 +166,43 @@ public class BaseTimeseriesService implements TimeseriesService {
 
     @Override
     public ListenableFuture<Integer> save(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries, long ttl) {
-        return doSave(tenantId, entityId, tsKvEntries, ttl, true);
+        return saveAll(tenantId, Collections.singletonMap(entityId, tsKvEntries), ttl, true);
     }
 
     @Override
     public ListenableFuture<Integer> saveWithoutLatest(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries, long ttl) {
-        return doSave(tenantId, entityId, tsKvEntries, ttl, false);
+        return saveAll(tenantId, Collections.singletonMap(entityId, tsKvEntries), ttl, false);
     }
 
-    private ListenableFuture<Integer> doSave(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries, long ttl, boolean saveLatest) {
-        int inserts = saveLatest ? INSERTS_PER_ENTRY : INSERTS_PER_ENTRY_WITHOUT_LATEST;
-        List<ListenableFuture<Integer>> futures = Lists.newArrayListWithExpectedSize(tsKvEntries.size() * inserts);
-        for (TsKvEntry tsKvEntry : tsKvEntries) {
-            if (tsKvEntry == null) {
-                throw new IncorrectParameterException("Key value entry can't be null");
-            }
-            if (saveLatest) {
-                saveAndRegisterFutures(tenantId, futures, entityId, tsKvEntry, ttl);
-            } else {
-                saveWithoutLatestAndRegisterFutures(tenantId, futures, entityId, tsKvEntry, ttl);
+    @Override
+    public ListenableFuture<Integer> saveAll(TenantId tenantId, Map<EntityId, List<TsKvEntry>> tsKvEntries, long ttl, boolean saveLatest) {
+        tsKvEntries.forEach((entityId, entries) -> {
+            for (TsKvEntry tsKvEntry : entries) {
+                if (tsKvEntry == null) {
+                    throw new IncorrectParameterException("Key value entry can't be null");
+                }
+                if (entityId.getEntityType().equals(EntityType.ENTITY_VIEW)) {
+                    throw new IncorrectParameterException("Telemetry data can't be stored for entity view. Read only");
+                }
             }
+        });
+        ListenableFuture<Integer> tsFuture = timeseriesDao.saveAll(tenantId, tsKvEntries, ttl);
+        if (!saveLatest) {
+            return tsFuture;
         }
-        return Futures.transform(Futures.allAsList(futures), SUM_ALL_INTEGERS, MoreExecutors.directExecutor());
+        ListenableFuture<Void> latestFuture = timeseriesLatestDao.saveAllLatest(tenantId, tsKvEntries);
+        return Futures.whenAllSucceed(tsFuture, latestFuture).call(() -> Futures.getDone(tsFuture), MoreExecutors.directExecutor());
     }
 
     @Override
     public ListenableFuture<List<Void>> saveLatest(TenantId tenantId, EntityId entityId, List<TsKvEntry> tsKvEntries) {
-        List<ListenableFuture<Void>> futures = Lists.newArrayListWithExpectedSize(tsKvEntries.size());
         for (TsKvEntry tsKvEntry : tsKvEntries) {
             if (tsKvEntry == null) {
                 throw new IncorrectParameterException("Key value entry can't be null");
             }
-            futures.add(timeseriesLatestDao.saveLatest(tenantId, entityId, tsKvEntry));
         }
-        return Futures.allAsList(futures);
+        return Futures.transform(timeseriesLatestDao.saveAllLatest(tenantId, Collections.singletonMap(entityId, tsKvEntries)),
+                v -> Collections.<Void>nCopies(tsKvEntries.size(), null), MoreExecutors.directExecutor());
     }
 
     private void saveAndRegisterFutures(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
@@ -207,10 +210,6 @@ public class BaseTimeseriesService implements TimeseriesService {
         futures.add(Futures.transform(timeseriesLatestDao.saveLatest(tenantId, entityId, tsKvEntry), v -> 0, MoreExecutors.directExecutor()));
     }
 
-    private void saveWithoutLatestAndRegisterFutures(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
-        doSaveAndRegisterFuturesFor(tenantId, futures, entityId, tsKvEntry, ttl);
-    }
-
     private void doSaveAndRegisterFuturesFor(TenantId tenantId, List<ListenableFuture<Integer>> futures, EntityId entityId, TsKvEntry tsKvEntry, long ttl) {
         if (entityId.getEntityType().equals(EntityType.ENTITY_VIEW)) {
             throw new IncorrectParameterException("Telemetry data can't be stored for entity view. Read only");
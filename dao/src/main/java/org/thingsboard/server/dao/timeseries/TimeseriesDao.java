@@ -15,7 +15,9 @@
  */
 package org.thingsboard.server.dao.timeseries;
 
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
@@ -23,7 +25,9 @@ import org.thingsboard.server.common.data.kv.ReadTsKvQuery;
 import org.thingsboard.server.common.data.kv.ReadTsKvQueryResult;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Andrew Shvayka
@@ -36,6 +40,21 @@ public interface TimeseriesDao {
 
     ListenableFuture<Integer> savePartition(TenantId tenantId, EntityId entityId, long tsKvEntryTs, String key);
 
+    /**
+     * Saves the entries and their partitions for one or many entities.
+     *
+     * @return the total number of data point days
+     */
+    default ListenableFuture<Integer> saveAll(TenantId tenantId, Map<EntityId, List<TsKvEntry>> tsKvEntries, long ttl) {
+        List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        tsKvEntries.forEach((entityId, entries) -> entries.forEach(tsKvEntry -> {
+            futures.add(savePartition(tenantId, entityId, tsKvEntry.getTs(), tsKvEntry.getKey()));
+            futures.add(save(tenantId, entityId, tsKvEntry, ttl));
+        }));
+        return Futures.transform(Futures.allAsList(futures),
+                results -> results.stream().mapToInt(result -> result != null ? result : 0).sum(), MoreExecutors.directExecutor());
+    }
+
     ListenableFuture<Void> remove(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query);
 
     void cleanup(long systemTtl);
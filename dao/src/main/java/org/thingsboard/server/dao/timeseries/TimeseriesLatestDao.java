@@ -15,7 +15,9 @@
  */
 package org.thingsboard.server.dao.timeseries;
 
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.thingsboard.server.common.data.id.DeviceProfileId;
 import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
@@ -23,7 +25,9 @@ import org.thingsboard.server.common.data.kv.DeleteTsKvQuery;
 import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.common.data.kv.TsKvLatestRemovingResult;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface TimeseriesLatestDao {
@@ -44,6 +48,15 @@ public interface TimeseriesLatestDao {
 
     ListenableFuture<Void> saveLatest(TenantId tenantId, EntityId entityId, TsKvEntry tsKvEntry);
 
+    /**
+     * Saves the latest values of one or many entities.
+     */
+    default ListenableFuture<Void> saveAllLatest(TenantId tenantId, Map<EntityId, List<TsKvEntry>> tsKvEntries) {
+        List<ListenableFuture<Void>> futures = new ArrayList<>();
+        tsKvEntries.forEach((entityId, entries) -> entries.forEach(tsKvEntry -> futures.add(saveLatest(tenantId, entityId, tsKvEntry))));
+        return Futures.transform(Futures.allAsList(futures), v -> null, MoreExecutors.directExecutor());
+    }
+
     ListenableFuture<TsKvLatestRemovingResult> removeLatest(TenantId tenantId, EntityId entityId, DeleteTsKvQuery query);
 
     List<String> findAllKeysByDeviceProfileId(TenantId tenantId, DeviceProfileId deviceProfileId);
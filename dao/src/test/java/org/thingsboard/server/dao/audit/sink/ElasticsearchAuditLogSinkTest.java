@@ -0,0 +1,145 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.audit.sink;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.audit.ActionStatus;
+import org.thingsboard.server.common.data.audit.ActionType;
+import org.thingsboard.server.common.data.audit.AuditLog;
+import org.thingsboard.server.common.data.id.AuditLogId;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.common.data.id.UserId;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ElasticsearchAuditLogSinkTest {
+
+    private static final String BULK_OK = "{\"errors\":false,\"items\":[]}";
+    private static final String BULK_ERRORS = "{\"errors\":true,\"items\":[{\"index\":{\"error\":{\"type\":\"mapper_parsing_exception\"}}}]}";
+
+    private final TenantId tenantId = TenantId.fromUUID(Uuids.timeBased());
+
+    private ElasticsearchAuditLogSink sink;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        sink = spy(new ElasticsearchAuditLogSink());
+        ReflectionTestUtils.setField(sink, "indexPattern", "@{TENANT}_AUDIT_LOG");
+        ReflectionTestUtils.setField(sink, "dateFormat", "YYYY.MM.dd");
+        ReflectionTestUtils.setField(sink, "batchSize", 2);
+        ReflectionTestUtils.setField(sink, "lingerMs", 100L);
+        ReflectionTestUtils.setField(sink, "queue", new LinkedBlockingQueue<String>(3));
+        doReturn(BULK_OK).when(sink).executeBulk(anyString());
+    }
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenQueuedEntries_whenProcessed_thenSentInBulksOfBatchSize() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            sink.logAction(newAuditLog());
+        }
+
+        startProcessing();
+
+        ArgumentCaptor<String> bodyCaptor = ArgumentCaptor.forClass(String.class);
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> verify(sink, times(2)).executeBulk(bodyCaptor.capture()));
+        List<String> bodies = bodyCaptor.getAllValues();
+        String[] lines = bodies.get(0).split("\n");
+        assertThat(lines).hasSize(4);
+        assertThat(bodies.get(1).split("\n")).hasSize(2);
+        assertThat(bodies.get(0)).endsWith("\n");
+        assertThat(JacksonUtil.toJsonNode(lines[0]).get("index").get("_index").asText())
+                .isEqualTo(tenantId.getId().toString() + "_audit_log");
+        assertThat(JacksonUtil.toJsonNode(lines[1]).get("tenantId").asText()).isEqualTo(tenantId.getId().toString());
+        assertThat(JacksonUtil.toJsonNode(lines[1]).get("actionType").asText()).isEqualTo(ActionType.ADDED.name());
+    }
+
+    @Test
+    public void givenFullQueue_whenLogAction_thenEntryDroppedWithoutBlocking() {
+        for (int i = 0; i < 5; i++) {
+            sink.logAction(newAuditLog());
+        }
+
+        AtomicLong droppedCount = (AtomicLong) ReflectionTestUtils.getField(sink, "droppedCount");
+        assertThat(droppedCount.get()).isEqualTo(2);
+
+        startProcessing();
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> droppedCount.get() == 0);
+    }
+
+    @Test
+    public void givenBulkFailure_whenProcessed_thenNextEntriesStillSent() throws Exception {
+        doThrow(new IOException("Connection refused")).doReturn(BULK_ERRORS).doReturn(BULK_OK).when(sink).executeBulk(anyString());
+        sink.logAction(newAuditLog());
+
+        startProcessing();
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> verify(sink, times(1)).executeBulk(anyString()));
+
+        sink.logAction(newAuditLog());
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> verify(sink, times(2)).executeBulk(anyString()));
+
+        sink.logAction(newAuditLog());
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> verify(sink, times(3)).executeBulk(anyString()));
+    }
+
+    private void startProcessing() {
+        executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> ReflectionTestUtils.invokeMethod(sink, "processQueue"));
+    }
+
+    private AuditLog newAuditLog() {
+        AuditLog auditLog = new AuditLog(new AuditLogId(Uuids.timeBased()));
+        auditLog.setTenantId(tenantId);
+        auditLog.setEntityId(new DeviceId(Uuids.timeBased()));
+        auditLog.setEntityName("Device A");
+        auditLog.setUserId(new UserId(Uuids.timeBased()));
+        auditLog.setUserName("tenant@thingsboard.org");
+        auditLog.setActionType(ActionType.ADDED);
+        auditLog.setActionStatus(ActionStatus.SUCCESS);
+        return auditLog;
+    }
+
+}
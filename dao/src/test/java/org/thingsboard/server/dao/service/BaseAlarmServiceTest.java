@@ -32,6 +32,7 @@ import org.thingsboard.server.common.data.alarm.AlarmStatus;
 import org.thingsboard.server.common.data.asset.Asset;
 import org.thingsboard.server.common.data.id.AssetId;
 import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.EntityId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.page.PageData;
 import org.thingsboard.server.common.data.page.SortOrder;
@@ -51,7 +52,9 @@ import org.thingsboard.common.util.JacksonUtil;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 public abstract class BaseAlarmServiceTest extends AbstractServiceTest {
 
@@ -282,6 +285,45 @@ public abstract class BaseAlarmServiceTest extends AbstractServiceTest {
         Assert.assertEquals(tenantAlarm, alarms.getData().get(0));
     }
 
+    @Test
+    public void testFindAlarmsWithOriginatorNames() throws ExecutionException, InterruptedException {
+        Customer customer = new Customer();
+        customer.setTitle("TestCustomer");
+        customer.setTenantId(tenantId);
+        customer = customerService.saveCustomer(customer);
+
+        Device device = new Device();
+        device.setName("TestDevice");
+        device.setType("default");
+        device.setTenantId(tenantId);
+        device = deviceService.saveDevice(device);
+
+        AssetId deletedAssetId = new AssetId(Uuids.timeBased());
+
+        long ts = System.currentTimeMillis();
+        for (EntityId originator : Arrays.asList(device.getId(), customer.getId(), deletedAssetId)) {
+            alarmService.createOrUpdateAlarm(Alarm.builder().tenantId(tenantId)
+                    .originator(originator)
+                    .type(TEST_ALARM)
+                    .severity(AlarmSeverity.CRITICAL).status(AlarmStatus.ACTIVE_UNACK)
+                    .startTs(ts).build());
+        }
+
+        PageData<AlarmInfo> alarms = alarmService.findAlarms(tenantId, AlarmQuery.builder()
+                .fetchOriginator(true)
+                .status(AlarmStatus.ACTIVE_UNACK).pageLink(
+                        new TimePageLink(10, 0, "",
+                                new SortOrder("createdTime", SortOrder.Direction.DESC), 0L, System.currentTimeMillis())
+                ).build()).get();
+        Assert.assertEquals(3, alarms.getData().size());
+
+        Map<EntityId, String> originatorNames = alarms.getData().stream()
+                .collect(Collectors.toMap(AlarmInfo::getOriginator, AlarmInfo::getOriginatorName));
+        Assert.assertEquals("TestDevice", originatorNames.get(device.getId()));
+        Assert.assertEquals("TestCustomer", originatorNames.get(customer.getId()));
+        Assert.assertEquals("Deleted", originatorNames.get(deletedAssetId));
+    }
+
     @Test
     public void testFindPropagatedCustomerAssetAlarm() throws ExecutionException, InterruptedException {
         Customer customer = new Customer();
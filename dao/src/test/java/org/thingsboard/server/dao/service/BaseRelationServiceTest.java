@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 public abstract class BaseRelationServiceTest extends AbstractServiceTest {
@@ -286,6 +287,28 @@ public abstract class BaseRelationServiceTest extends AbstractServiceTest {
         Assert.assertTrue(relations.contains(relationBC));
     }
 
+    @Test
+    public void testFindAncestors() throws ExecutionException, InterruptedException {
+        // A -> B -> D, C -manages-> D
+        AssetId assetA = new AssetId(Uuids.timeBased());
+        AssetId assetB = new AssetId(Uuids.timeBased());
+        AssetId assetC = new AssetId(Uuids.timeBased());
+        DeviceId deviceD = new DeviceId(Uuids.timeBased());
+
+        saveRelation(new EntityRelation(assetA, assetB, EntityRelation.CONTAINS_TYPE));
+        saveRelation(new EntityRelation(assetB, deviceD, EntityRelation.CONTAINS_TYPE));
+        saveRelation(new EntityRelation(assetC, deviceD, EntityRelation.MANAGES_TYPE));
+
+        Assert.assertEquals(Set.of(assetA, assetB, assetC), relationService.findAncestors(SYSTEM_TENANT_ID, deviceD, null).get());
+        Assert.assertEquals(Set.of(assetA, assetB),
+                relationService.findAncestors(SYSTEM_TENANT_ID, deviceD, Collections.singletonList(EntityRelation.CONTAINS_TYPE)).get());
+
+        // cached ancestors are invalidated by relation changes
+        Assert.assertTrue(relationService.deleteRelation(SYSTEM_TENANT_ID, assetA, assetB, EntityRelation.CONTAINS_TYPE, RelationTypeGroup.COMMON));
+        Assert.assertEquals(Set.of(assetB),
+                relationService.findAncestors(SYSTEM_TENANT_ID, deviceD, Collections.singletonList(EntityRelation.CONTAINS_TYPE)).get());
+    }
+
     @Test
     public void testRecursiveRelationDepth() throws ExecutionException, InterruptedException {
         int maxLevel = 1000;
@@ -45,6 +45,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -101,6 +102,25 @@ public abstract class BaseTimeseriesServiceTest extends AbstractServiceTest {
         testLatestTsAndVerify(deviceId);
     }
 
+    @Test
+    public void testSaveAllForMultipleEntities() throws Exception {
+        DeviceId deviceId = new DeviceId(Uuids.timeBased());
+        DeviceId otherDeviceId = new DeviceId(Uuids.timeBased());
+        List<TsKvEntry> entries = List.of(
+                toTsEntry(TS, stringKvEntry),
+                toTsEntry(TS, longKvEntry),
+                toTsEntry(TS, doubleKvEntry),
+                toTsEntry(TS, booleanKvEntry));
+
+        tsService.saveAll(tenantId, Map.of(deviceId, entries, otherDeviceId, entries), 0, true).get(MAX_TIMEOUT, TimeUnit.SECONDS);
+
+        testLatestTsAndVerify(deviceId);
+        testLatestTsAndVerify(otherDeviceId);
+        List<TsKvEntry> saved = tsService.findAll(tenantId, otherDeviceId, Collections.singletonList(
+                new BaseReadTsKvQuery(LONG_KEY, TS - 1, TS + 1, 1000, 10, Aggregation.NONE))).get(MAX_TIMEOUT, TimeUnit.SECONDS);
+        assertEquals(Collections.singletonList(toTsEntry(TS, longKvEntry)), saved);
+    }
+
     private void testLatestTsAndVerify(EntityId entityId) throws ExecutionException, InterruptedException, TimeoutException {
         List<TsKvEntry> tsList = tsService.findAllLatest(tenantId, entityId).get(MAX_TIMEOUT, TimeUnit.SECONDS);
 
@@ -0,0 +1,117 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.thingsboard.server.common.stats.MessagesStats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class TbSqlBlockingQueueTest {
+
+    private MessagesStats stats;
+    private TbSqlBlockingQueue<String> queue;
+
+    @Before
+    public void setUp() {
+        stats = mock(MessagesStats.class);
+    }
+
+    @After
+    public void tearDown() {
+        if (queue != null) {
+            queue.destroy();
+        }
+    }
+
+    @Test
+    public void givenBoundedQueue_whenFull_thenRejected() {
+        queue = new TbSqlBlockingQueue<>(params(2), stats);
+
+        ListenableFuture<Void> first = queue.add("a");
+        ListenableFuture<Void> second = queue.addAll(List.of("b", "c"));
+        ListenableFuture<Void> rejected = queue.add("d");
+        ListenableFuture<Void> rejectedAll = queue.addAll(List.of("e", "f", "g"));
+
+        assertThat(first).isNotDone();
+        assertThat(second).isNotDone();
+        assertThatThrownBy(rejected::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(rejectedAll::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        verify(stats).incrementTotal();
+        verify(stats).incrementTotal(2);
+        verify(stats).incrementFailed(1);
+        verify(stats).incrementFailed(3);
+    }
+
+    @Test
+    public void givenQueuedElements_whenProcessed_thenSavedInBatchesAndFuturesCompleted() throws Exception {
+        queue = new TbSqlBlockingQueue<>(params(0), stats);
+        List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+
+        List<ListenableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(queue.add("e" + i));
+        }
+        queue.init(mock(ScheduledLogExecutorComponent.class), batches::add, String::compareTo, 0);
+
+        for (ListenableFuture<Void> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        List<String> saved = new ArrayList<>();
+        batches.forEach(saved::addAll);
+        assertThat(saved).containsExactly("e0", "e1", "e2", "e3", "e4");
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+    }
+
+    @Test
+    public void givenFailingSave_whenProcessed_thenFuturesFailed() {
+        queue = new TbSqlBlockingQueue<>(params(0), stats);
+        ListenableFuture<Void> future = queue.add("a");
+        queue.init(mock(ScheduledLogExecutorComponent.class), batch -> {
+            throw new IllegalStateException("test");
+        }, String::compareTo, 0);
+
+        assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    private TbSqlBlockingQueueParams params(int maxQueueSize) {
+        return TbSqlBlockingQueueParams.builder()
+                .logName("Test")
+                .batchSize(2)
+                .maxDelay(10)
+                .statsPrintIntervalMs(10000)
+                .statsNamePrefix("test")
+                .maxQueueSize(maxQueueSize)
+                .build();
+    }
+
+}
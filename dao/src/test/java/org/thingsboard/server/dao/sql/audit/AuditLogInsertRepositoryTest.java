@@ -0,0 +1,96 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql.audit;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.server.common.data.EntityType;
+import org.thingsboard.server.common.data.audit.ActionStatus;
+import org.thingsboard.server.common.data.audit.ActionType;
+import org.thingsboard.server.common.data.id.TenantId;
+import org.thingsboard.server.dao.AbstractJpaDaoTest;
+import org.thingsboard.server.dao.model.ModelConstants;
+import org.thingsboard.server.dao.model.sql.AuditLogEntity;
+import org.thingsboard.server.dao.sqlts.insert.sql.SqlPartitioningRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class AuditLogInsertRepositoryTest extends AbstractJpaDaoTest {
+
+    private final UUID tenantId = Uuids.timeBased();
+    private final List<UUID> savedIds = new ArrayList<>();
+
+    @Autowired
+    private AuditLogInsertRepository auditLogInsertRepository;
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+    @Autowired
+    private SqlPartitioningRepository partitioningRepository;
+
+    @After
+    public void tearDown() {
+        savedIds.forEach(auditLogRepository::deleteById);
+    }
+
+    @Test
+    public void testBatchInsert() {
+        AuditLogEntity full = newEntity();
+        full.setCustomerId(Uuids.timeBased());
+        full.setEntityType(EntityType.DEVICE);
+        full.setEntityId(Uuids.timeBased());
+        full.setEntityName("Device A");
+        full.setUserId(Uuids.timeBased());
+        full.setUserName("tenant@thingsboard.org");
+        full.setActionType(ActionType.ADDED);
+        full.setActionData(JacksonUtil.toJsonNode("{\"key\":\"value\"}"));
+        full.setActionStatus(ActionStatus.FAILURE);
+        full.setActionFailureDetails("failure");
+        AuditLogEntity minimal = newEntity();
+
+        auditLogInsertRepository.save(List.of(full, minimal));
+
+        AuditLogEntity savedFull = auditLogRepository.findById(full.getUuid()).orElse(null);
+        assertNotNull(savedFull);
+        assertEquals(full.toData(), savedFull.toData());
+        AuditLogEntity savedMinimal = auditLogRepository.findById(minimal.getUuid()).orElse(null);
+        assertNotNull(savedMinimal);
+        assertEquals(TenantId.fromUUID(tenantId), savedMinimal.toData().getTenantId());
+        assertNull(savedMinimal.getActionType());
+        assertNull(savedMinimal.getActionData());
+    }
+
+    private AuditLogEntity newEntity() {
+        UUID id = Uuids.timeBased();
+        AuditLogEntity entity = new AuditLogEntity();
+        entity.setUuid(id);
+        entity.setCreatedTime(Uuids.unixTimestamp(id));
+        entity.setTenantId(tenantId);
+        partitioningRepository.createPartitionIfNotExists(ModelConstants.AUDIT_LOG_COLUMN_FAMILY_NAME, entity.getCreatedTime(), TimeUnit.HOURS.toMillis(168));
+        savedIds.add(id);
+        return entity;
+    }
+
+}
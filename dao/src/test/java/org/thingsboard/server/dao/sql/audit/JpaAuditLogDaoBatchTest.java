@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.server.dao.sql.audit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thingsboard.server.common.stats.StatsFactory;
+import org.thingsboard.server.dao.model.ModelConstants;
+import org.thingsboard.server.dao.model.sql.AuditLogEntity;
+import org.thingsboard.server.dao.sql.ScheduledLogExecutorComponent;
+import org.thingsboard.server.dao.sqlts.insert.sql.SqlPartitioningRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class JpaAuditLogDaoBatchTest {
+
+    private static final long PARTITION_MS = TimeUnit.HOURS.toMillis(1);
+
+    private AuditLogInsertRepository insertRepository;
+    private SqlPartitioningRepository partitioningRepository;
+    private JpaAuditLogDao auditLogDao;
+
+    @Before
+    public void setUp() {
+        insertRepository = mock(AuditLogInsertRepository.class);
+        partitioningRepository = mock(SqlPartitioningRepository.class);
+        auditLogDao = new JpaAuditLogDao(mock(AuditLogRepository.class), insertRepository, partitioningRepository,
+                mock(JdbcTemplate.class), mock(ScheduledLogExecutorComponent.class), mock(StatsFactory.class));
+        ReflectionTestUtils.setField(auditLogDao, "partitionSizeInHours", 1);
+    }
+
+    @Test
+    public void givenBatch_whenSaved_thenEachPartitionCreatedOnce() {
+        long firstPartition = 100 * PARTITION_MS;
+        long secondPartition = 101 * PARTITION_MS;
+        List<AuditLogEntity> entities = List.of(
+                entity(firstPartition + 10),
+                entity(firstPartition + 20),
+                entity(secondPartition),
+                entity(firstPartition + PARTITION_MS - 1),
+                entity(secondPartition + 5));
+
+        auditLogDao.saveBatch(entities);
+
+        verify(partitioningRepository).createPartitionIfNotExists(ModelConstants.AUDIT_LOG_COLUMN_FAMILY_NAME, firstPartition, PARTITION_MS);
+        verify(partitioningRepository).createPartitionIfNotExists(ModelConstants.AUDIT_LOG_COLUMN_FAMILY_NAME, secondPartition, PARTITION_MS);
+        verify(partitioningRepository, times(2)).createPartitionIfNotExists(anyString(), anyLong(), anyLong());
+        verify(insertRepository).save(entities);
+    }
+
+    private AuditLogEntity entity(long createdTime) {
+        AuditLogEntity entity = new AuditLogEntity();
+        entity.setCreatedTime(createdTime);
+        return entity;
+    }
+
+}
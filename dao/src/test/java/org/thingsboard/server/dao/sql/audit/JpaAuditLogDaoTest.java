@@ -16,10 +16,13 @@
 package org.thingsboard.server.dao.sql.audit;
 
 import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.thingsboard.server.common.data.audit.ActionStatus;
 import org.thingsboard.server.common.data.audit.ActionType;
 import org.thingsboard.server.common.data.audit.AuditLog;
 import org.thingsboard.server.common.data.id.CustomerId;
@@ -140,12 +143,38 @@ public class JpaAuditLogDaoTest extends AbstractJpaDaoTest {
         checkFoundedAuditLogsList(foundedAuditLogs, 6);
     }
 
+    @Test
+    public void testSaveByTenantId() throws ExecutionException, InterruptedException, TimeoutException {
+        List<AuditLog> queuedAuditLogs = new ArrayList<>();
+        List<ListenableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            AuditLog auditLog = newAuditLog(100 + i, ActionType.UPDATED, customerId1, userId1, entityId1);
+            futures.add(auditLogDao.saveByTenantId(auditLog));
+            queuedAuditLogs.add(auditLog);
+        }
+        Futures.allAsList(futures).get(30, TimeUnit.SECONDS);
+        auditLogList.addAll(queuedAuditLogs);
+
+        for (AuditLog auditLog : queuedAuditLogs) {
+            assertNotNull(auditLog.getId());
+            assertEquals(auditLog, auditLogDao.findById(TenantId.fromUUID(tenantId), auditLog.getUuidId()));
+        }
+        List<AuditLog> foundedAuditLogs = auditLogDao.findAuditLogsByTenantId(tenantId,
+                List.of(ActionType.UPDATED),
+                new TimePageLink(10)).getData();
+        checkFoundedAuditLogsList(foundedAuditLogs, 5);
+    }
+
     private void checkFoundedAuditLogsList(List<AuditLog> foundedAuditLogs, int neededSizeForFoundedList) {
         assertNotNull(foundedAuditLogs);
         assertEquals(neededSizeForFoundedList, foundedAuditLogs.size());
     }
 
     private AuditLog createAuditLog(int number, ActionType actionType, CustomerId customerId, UserId userId, EntityId entityId) {
+        return auditLogDao.save(TenantId.fromUUID(tenantId), newAuditLog(number, actionType, customerId, userId, entityId));
+    }
+
+    private AuditLog newAuditLog(int number, ActionType actionType, CustomerId customerId, UserId userId, EntityId entityId) {
         AuditLog auditLog = new AuditLog();
         auditLog.setTenantId(TenantId.fromUUID(tenantId));
         auditLog.setCustomerId(customerId);
@@ -153,6 +182,7 @@ public class JpaAuditLogDaoTest extends AbstractJpaDaoTest {
         auditLog.setEntityId(entityId);
         auditLog.setUserName("AUDIT_LOG_" + number);
         auditLog.setActionType(actionType);
-        return auditLogDao.save(TenantId.fromUUID(tenantId), auditLog);
+        auditLog.setActionStatus(ActionStatus.SUCCESS);
+        return auditLog;
     }
 }
@@ -15,6 +15,7 @@
  */
 package org.thingsboard.rule.engine.api;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import io.netty.channel.EventLoopGroup;
 import org.thingsboard.common.util.ListeningExecutor;
 import org.thingsboard.rule.engine.api.sms.SmsSenderFactory;
@@ -315,6 +316,8 @@ public interface TbContext {
 
     RuleNodeState saveRuleNodeState(RuleNodeState state);
 
+    ListenableFuture<RuleNodeState> saveRuleNodeStateAsync(RuleNodeState state);
+
     void clearRuleNodeStates();
 
     void addTenantProfileListener(Consumer<TenantProfile> listener);
@@ -0,0 +1,362 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.analytics;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.gson.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.api.RuleNode;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNode;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.rule.engine.api.util.TbNodeUtils;
+import org.thingsboard.server.common.data.id.CustomerId;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.data.kv.DataType;
+import org.thingsboard.server.common.data.kv.KvEntry;
+import org.thingsboard.server.common.data.plugin.ComponentType;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
+import org.thingsboard.server.common.msg.session.SessionMsgType;
+import org.thingsboard.server.common.transport.adaptor.JsonConverter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.thingsboard.rule.engine.api.TbRelationTypes.SUCCESS;
+
+@Slf4j
+@RuleNode(
+        type = ComponentType.ACTION,
+        name = "window aggregation",
+        configClazz = TbWindowAggregationNodeConfiguration.class,
+        relationTypes = {"Success", "Late", "Failure"},
+        nodeDescription = "Aggregates numeric telemetry of each originator over time windows",
+        nodeDetails = "Collects values of the <code>inputKeys</code> from incoming POST_TELEMETRY_REQUEST messages per originator " +
+                "into <b>TUMBLING</b> or <b>SLIDING</b> windows of <code>windowSize</code> seconds, aligned to the epoch and " +
+                "starting every <code>windowSlide</code> seconds. Timestamps are taken from the message data or metadata.ts. " +
+                "When a window closes, produces a POST_TELEMETRY_REQUEST message via <b>Success</b> chain with " +
+                "<code>{\"ts\": windowStart, \"values\": {\"temperature_avg\": ..., \"temperature_min\": ...}}</code> and " +
+                "metadata.windowStart/windowEnd.<br/>" +
+                "A window closes <code>allowedLateness</code> seconds after its end. Messages with values only for already closed " +
+                "windows are routed via <b>Late</b> chain, messages without numeric values of the input keys via <b>Failure</b> chain, " +
+                "other messages are acknowledged. " +
+                "At most <code>maxOriginators</code> originators are tracked, the windows of the least recently active one " +
+                "are closed early when the limit is reached. Windows of originators that moved to another node are closed early as well. " +
+                "Open windows are kept in memory only.",
+        icon = "functions"
+)
+public class TbWindowAggregationNode implements TbNode {
+
+    static final String LATE = "Late";
+    private static final String TB_WINDOW_AGGREGATION_NODE_MSG = "TbWindowAggregationNodeMsg";
+
+    private Set<String> inputKeys;
+    private List<Aggregation> aggregations;
+    private long windowSizeMs;
+    private long windowSlideMs;
+    private long latenessMs;
+    private int maxOriginators;
+    private long closedUpToTs;
+    private UUID nextTickId;
+    private final LinkedHashMap<EntityId, OriginatorWindows> states = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Override
+    public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
+        TbWindowAggregationNodeConfiguration config = TbNodeUtils.convert(configuration, TbWindowAggregationNodeConfiguration.class);
+        if (config.getInputKeys() == null || config.getInputKeys().isEmpty()) {
+            throw new TbNodeException("Input keys can't be empty");
+        }
+        if (config.getWindowSize() <= 0) {
+            throw new TbNodeException("Window size must be positive: " + config.getWindowSize());
+        }
+        this.inputKeys = new LinkedHashSet<>(config.getInputKeys());
+        this.aggregations = new ArrayList<>();
+        if (config.getAggregations() != null) {
+            config.getAggregations().stream().filter(aggregation -> aggregation != Aggregation.NONE).distinct().forEach(aggregations::add);
+        }
+        if (aggregations.isEmpty()) {
+            throw new TbNodeException("Aggregations can't be empty");
+        }
+        this.windowSizeMs = TimeUnit.SECONDS.toMillis(config.getWindowSize());
+        if (config.getWindowType() == TbAggregationWindowType.SLIDING) {
+            if (config.getWindowSlide() <= 0 || config.getWindowSlide() > config.getWindowSize()
+                    || config.getWindowSize() % config.getWindowSlide() != 0) {
+                throw new TbNodeException("Window slide must be a divisor of the window size: " + config.getWindowSlide());
+            }
+            this.windowSlideMs = TimeUnit.SECONDS.toMillis(config.getWindowSlide());
+        } else {
+            this.windowSlideMs = windowSizeMs;
+        }
+        this.latenessMs = TimeUnit.SECONDS.toMillis(Math.max(0, config.getAllowedLateness()));
+        this.maxOriginators = Math.max(1, config.getMaxOriginators());
+        this.closedUpToTs = getClosedUpToTs(System.currentTimeMillis());
+        scheduleTickMsg(ctx);
+    }
+
+    @Override
+    public void onMsg(TbContext ctx, TbMsg msg) {
+        if (msg.getType().equals(TB_WINDOW_AGGREGATION_NODE_MSG)) {
+            if (msg.getId().equals(nextTickId)) {
+                closedUpToTs = Math.max(closedUpToTs, getClosedUpToTs(System.currentTimeMillis()));
+                closeWindows(ctx);
+                scheduleTickMsg(ctx);
+            }
+            return;
+        }
+        if (!msg.getType().equals(SessionMsgType.POST_TELEMETRY_REQUEST.name())) {
+            ctx.tellFailure(msg, new IllegalArgumentException("Unsupported msg type: " + msg.getType()));
+            return;
+        }
+        Map<Long, List<KvEntry>> tsKvMap;
+        try {
+            tsKvMap = JsonConverter.convertToTelemetry(new JsonParser().parse(msg.getData()), msg.getMetaDataTs());
+        } catch (Exception e) {
+            ctx.tellFailure(msg, e);
+            return;
+        }
+        long maxTs = System.currentTimeMillis() + windowSizeMs;
+        for (Long ts : tsKvMap.keySet()) {
+            if (ts > maxTs) {
+                ctx.tellFailure(msg, new IllegalArgumentException("Timestamp is too far in the future: " + ts));
+                return;
+            }
+        }
+        int accepted = 0;
+        int late = 0;
+        OriginatorWindows state = null;
+        for (Map.Entry<Long, List<KvEntry>> entry : tsKvMap.entrySet()) {
+            Map<String, Double> values = getNumericValues(entry.getValue());
+            if (values.isEmpty()) {
+                continue;
+            }
+            if (state == null) {
+                state = getOrCreateState(ctx, msg.getOriginator());
+            }
+            if (addToWindows(state, entry.getKey(), values)) {
+                accepted++;
+            } else {
+                late++;
+            }
+        }
+        if (accepted > 0) {
+            state.update(msg);
+        }
+        if (late > 0) {
+            log.debug("[{}][{}] Dropped {} late data points", ctx.getSelfId(), msg.getOriginator(), late);
+        }
+        if (accepted == 0 && late > 0) {
+            ctx.tellNext(msg, LATE);
+        } else if (accepted == 0) {
+            ctx.tellFailure(msg, new IllegalArgumentException("Message has no numeric values of the input keys: " + inputKeys));
+        } else {
+            ctx.ack(msg);
+        }
+    }
+
+    @Override
+    public void onPartitionChangeMsg(TbContext ctx, PartitionChangeMsg msg) {
+        // data of the originators that moved to another node is aggregated there from now on,
+        // so the partial windows collected here are emitted instead of being lost
+        Iterator<Map.Entry<EntityId, OriginatorWindows>> iterator = states.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<EntityId, OriginatorWindows> entry = iterator.next();
+            if (!ctx.isLocalEntity(entry.getKey())) {
+                iterator.remove();
+                log.debug("[{}][{}] Closing windows early, originator moved to another node", ctx.getSelfId(), entry.getKey());
+                emitWindows(ctx, entry.getKey(), entry.getValue(), entry.getValue().windows);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        states.clear();
+    }
+
+    private Map<String, Double> getNumericValues(List<KvEntry> kvEntries) {
+        Map<String, Double> values = new HashMap<>();
+        for (KvEntry kvEntry : kvEntries) {
+            if (!inputKeys.contains(kvEntry.getKey())) {
+                continue;
+            }
+            if (kvEntry.getDataType() == DataType.LONG) {
+                kvEntry.getLongValue().ifPresent(value -> values.put(kvEntry.getKey(), value.doubleValue()));
+            } else if (kvEntry.getDataType() == DataType.DOUBLE) {
+                kvEntry.getDoubleValue().ifPresent(value -> values.put(kvEntry.getKey(), value));
+            }
+        }
+        return values;
+    }
+
+    private boolean addToWindows(OriginatorWindows state, long ts, Map<String, Double> values) {
+        boolean added = false;
+        for (long startTs = alignDown(ts); startTs > ts - windowSizeMs; startTs -= windowSlideMs) {
+            if (startTs + windowSizeMs <= closedUpToTs) {
+                break;
+            }
+            state.windows.computeIfAbsent(startTs, key -> new Window()).add(values);
+            added = true;
+        }
+        return added;
+    }
+
+    private OriginatorWindows getOrCreateState(TbContext ctx, EntityId originator) {
+        OriginatorWindows state = states.get(originator);
+        if (state == null) {
+            state = new OriginatorWindows();
+            states.put(originator, state);
+            Iterator<Map.Entry<EntityId, OriginatorWindows>> iterator = states.entrySet().iterator();
+            while (states.size() > maxOriginators && iterator.hasNext()) {
+                Map.Entry<EntityId, OriginatorWindows> eldest = iterator.next();
+                iterator.remove();
+                log.debug("[{}][{}] Closing windows early, max number of originators reached", ctx.getSelfId(), eldest.getKey());
+                emitWindows(ctx, eldest.getKey(), eldest.getValue(), eldest.getValue().windows);
+            }
+        }
+        return state;
+    }
+
+    private void closeWindows(TbContext ctx) {
+        Iterator<Map.Entry<EntityId, OriginatorWindows>> iterator = states.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<EntityId, OriginatorWindows> entry = iterator.next();
+            OriginatorWindows state = entry.getValue();
+            emitWindows(ctx, entry.getKey(), state, state.windows.headMap(closedUpToTs - windowSizeMs, true));
+            if (state.windows.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void emitWindows(TbContext ctx, EntityId originator, OriginatorWindows state, NavigableMap<Long, Window> windows) {
+        for (Map.Entry<Long, Window> entry : windows.entrySet()) {
+            long startTs = entry.getKey();
+            ObjectNode values = JacksonUtil.newObjectNode();
+            for (String key : inputKeys) {
+                Accumulator accumulator = entry.getValue().accumulators.get(key);
+                if (accumulator != null) {
+                    for (Aggregation aggregation : aggregations) {
+                        accumulator.put(values, key, aggregation);
+                    }
+                }
+            }
+            ObjectNode data = JacksonUtil.newObjectNode();
+            data.put("ts", startTs);
+            data.set("values", values);
+            TbMsgMetaData metaData = state.metaData.copy();
+            metaData.putValue("ts", Long.toString(startTs));
+            metaData.putValue("windowStart", Long.toString(startTs));
+            metaData.putValue("windowEnd", Long.toString(startTs + windowSizeMs));
+            TbMsg aggMsg = TbMsg.newMsg(state.queueName, SessionMsgType.POST_TELEMETRY_REQUEST.name(), originator,
+                    state.customerId, metaData, JacksonUtil.toString(data));
+            ctx.enqueueForTellNext(aggMsg, SUCCESS);
+        }
+        windows.clear();
+    }
+
+    private long getClosedUpToTs(long ts) {
+        return alignDown(ts - latenessMs);
+    }
+
+    private long alignDown(long ts) {
+        return Math.floorDiv(ts, windowSlideMs) * windowSlideMs;
+    }
+
+    private void scheduleTickMsg(TbContext ctx) {
+        long nextCloseTs = closedUpToTs + windowSlideMs + latenessMs;
+        TbMsg tickMsg = ctx.newMsg(null, TB_WINDOW_AGGREGATION_NODE_MSG, ctx.getSelfId(), null, new TbMsgMetaData(), "");
+        nextTickId = tickMsg.getId();
+        ctx.tellSelf(tickMsg, Math.max(0L, nextCloseTs - System.currentTimeMillis()));
+    }
+
+    private static class OriginatorWindows {
+
+        // open windows by start ts; the number is bounded by the window size, slide and lateness
+        private final TreeMap<Long, Window> windows = new TreeMap<>();
+        private String queueName;
+        private CustomerId customerId;
+        private TbMsgMetaData metaData = new TbMsgMetaData();
+
+        void update(TbMsg msg) {
+            this.queueName = msg.getQueueName();
+            this.customerId = msg.getCustomerId();
+            this.metaData = msg.getMetaData().copy();
+        }
+    }
+
+    private static class Window {
+
+        private final Map<String, Accumulator> accumulators = new HashMap<>();
+
+        void add(Map<String, Double> values) {
+            values.forEach((key, value) -> accumulators.computeIfAbsent(key, k -> new Accumulator()).add(value));
+        }
+    }
+
+    private static class Accumulator {
+
+        private long count;
+        private double sum;
+        private double min = Double.MAX_VALUE;
+        private double max = -Double.MAX_VALUE;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        void put(ObjectNode values, String key, Aggregation aggregation) {
+            String outputKey = key + "_" + aggregation.name().toLowerCase();
+            switch (aggregation) {
+                case MIN:
+                    values.put(outputKey, min);
+                    break;
+                case MAX:
+                    values.put(outputKey, max);
+                    break;
+                case AVG:
+                    values.put(outputKey, sum / count);
+                    break;
+                case SUM:
+                    values.put(outputKey, sum);
+                    break;
+                case COUNT:
+                    values.put(outputKey, count);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.analytics;
+
+import lombok.Data;
+import org.thingsboard.rule.engine.api.NodeConfiguration;
+import org.thingsboard.server.common.data.kv.Aggregation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@Data
+public class TbWindowAggregationNodeConfiguration implements NodeConfiguration<TbWindowAggregationNodeConfiguration> {
+
+    private List<String> inputKeys;
+    private List<Aggregation> aggregations;
+    private TbAggregationWindowType windowType;
+    private int windowSize;
+    private int windowSlide;
+    private int allowedLateness;
+    private int maxOriginators;
+
+    @Override
+    public TbWindowAggregationNodeConfiguration defaultConfiguration() {
+        TbWindowAggregationNodeConfiguration configuration = new TbWindowAggregationNodeConfiguration();
+        configuration.setInputKeys(Collections.singletonList("temperature"));
+        configuration.setAggregations(Arrays.asList(Aggregation.AVG, Aggregation.MIN, Aggregation.MAX, Aggregation.COUNT));
+        configuration.setWindowType(TbAggregationWindowType.TUMBLING);
+        configuration.setWindowSize(60);
+        configuration.setWindowSlide(60);
+        configuration.setAllowedLateness(0);
+        configuration.setMaxOriginators(10000);
+        return configuration;
+    }
+}
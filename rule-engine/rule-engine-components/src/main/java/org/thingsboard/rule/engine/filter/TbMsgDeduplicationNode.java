@@ -0,0 +1,318 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.filter;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.api.RuleNode;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNode;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.rule.engine.api.util.TbNodeUtils;
+import org.thingsboard.server.common.data.StringUtils;
+import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.page.PageLink;
+import org.thingsboard.server.common.data.plugin.ComponentType;
+import org.thingsboard.server.common.data.rule.RuleNodeState;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@RuleNode(
+        type = ComponentType.FILTER,
+        name = "deduplication",
+        configClazz = TbMsgDeduplicationNodeConfiguration.class,
+        relationTypes = {"Success", "Duplicate", "Failure"},
+        nodeDescription = "Routes repeated messages of the same originator via Duplicate chain",
+        nodeDetails = "A message is a duplicate if a message of the same originator with the same deduplication key passed the node " +
+                "less than <code>interval</code> seconds ago. The deduplication key is the hash of the message type and data, " +
+                "or of the <code>deduplicationKey</code> pattern if it is set, e.g. <code>$[ts]</code> or <code>${deviceName}-$[ts]</code>.<br/>" +
+                "Unique messages are routed via <b>Success</b> chain, duplicates via <b>Duplicate</b> chain. " +
+                "Up to <code>maxKeysPerOriginator</code> keys of up to <code>maxOriginators</code> originators are kept in memory " +
+                "and persisted if <code>persistState</code> is enabled, so the deduplication survives restarts of the rule node.",
+        icon = "content_copy"
+)
+public class TbMsgDeduplicationNode implements TbNode {
+
+    static final String DUPLICATE = "Duplicate";
+    private static final String TB_MSG_DEDUPLICATION_NODE_MSG = "TbMsgDeduplicationNodeMsg";
+    private static final long MAX_TICK_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final TypeReference<LinkedHashMap<String, Long>> STATE_TYPE = new TypeReference<>() {};
+
+    private TbContext ctx;
+    private TbMsgDeduplicationNodeConfiguration config;
+    private long intervalMs;
+    private UUID nextTickId;
+    private final LinkedHashMap<EntityId, OriginatorState> states = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<EntityId> dirtyOriginators = new LinkedHashSet<>();
+    // updated from the db callback threads, merged into dirtyOriginators on the next tick
+    private final Set<EntityId> failedOriginators = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
+        this.ctx = ctx;
+        this.config = TbNodeUtils.convert(configuration, TbMsgDeduplicationNodeConfiguration.class);
+        if (config.getMaxKeysPerOriginator() <= 0) {
+            throw new TbNodeException("Max keys per originator should be greater than 0!");
+        }
+        if (config.getMaxOriginators() <= 0) {
+            throw new TbNodeException("Max originators should be greater than 0!");
+        }
+        this.intervalMs = TimeUnit.SECONDS.toMillis(Math.max(1, config.getInterval()));
+        if (config.isPersistState()) {
+            fetchStates(ctx);
+        } else if (ctx.isLocalEntity(ctx.getSelfId())) {
+            ctx.clearRuleNodeStates();
+        }
+        scheduleTickMsg(ctx);
+    }
+
+    @Override
+    public void onMsg(TbContext ctx, TbMsg msg) {
+        if (msg.getType().equals(TB_MSG_DEDUPLICATION_NODE_MSG)) {
+            if (msg.getId().equals(nextTickId)) {
+                removeExpiredKeys(ctx, System.currentTimeMillis());
+                flushStates(ctx);
+                scheduleTickMsg(ctx);
+            }
+            return;
+        }
+        String key;
+        try {
+            key = getDeduplicationKey(msg);
+        } catch (Exception e) {
+            ctx.tellFailure(msg, e);
+            return;
+        }
+        if (isDuplicate(ctx, msg.getOriginator(), key, System.currentTimeMillis())) {
+            ctx.tellNext(msg, DUPLICATE);
+        } else {
+            ctx.tellSuccess(msg);
+        }
+    }
+
+    @Override
+    public void onPartitionChangeMsg(TbContext ctx, PartitionChangeMsg msg) {
+        states.entrySet().removeIf(entry -> {
+            if (ctx.isLocalEntity(entry.getKey())) {
+                return false;
+            }
+            flushState(ctx, entry.getKey(), entry.getValue());
+            return true;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        flushStates(ctx);
+        states.clear();
+        dirtyOriginators.clear();
+    }
+
+    private String getDeduplicationKey(TbMsg msg) {
+        String content = StringUtils.isEmpty(config.getDeduplicationKey()) ?
+                msg.getType() + msg.getData() : TbNodeUtils.processPattern(config.getDeduplicationKey(), msg);
+        return Hashing.murmur3_128().hashString(content, StandardCharsets.UTF_8).toString();
+    }
+
+    private boolean isDuplicate(TbContext ctx, EntityId originator, String key, long ts) {
+        OriginatorState state = states.get(originator);
+        if (state == null) {
+            state = new OriginatorState(null);
+            states.put(originator, state);
+            evictOriginators(ctx);
+        }
+        if (state.removeExpiredKeys(ts - intervalMs)) {
+            markDirty(originator);
+        }
+        if (state.keys.containsKey(key)) {
+            return true;
+        }
+        state.keys.put(key, ts);
+        if (state.keys.size() > config.getMaxKeysPerOriginator()) {
+            Iterator<String> iterator = state.keys.keySet().iterator();
+            iterator.next();
+            iterator.remove();
+        }
+        markDirty(originator);
+        return false;
+    }
+
+    private void evictOriginators(TbContext ctx) {
+        Iterator<Map.Entry<EntityId, OriginatorState>> iterator = states.entrySet().iterator();
+        while (states.size() > config.getMaxOriginators() && iterator.hasNext()) {
+            Map.Entry<EntityId, OriginatorState> eldest = iterator.next();
+            iterator.remove();
+            removePersistedState(ctx, eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private void removeExpiredKeys(TbContext ctx, long ts) {
+        Iterator<Map.Entry<EntityId, OriginatorState>> iterator = states.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<EntityId, OriginatorState> entry = iterator.next();
+            OriginatorState state = entry.getValue();
+            if (state.removeExpiredKeys(ts - intervalMs)) {
+                if (state.keys.isEmpty()) {
+                    iterator.remove();
+                    removePersistedState(ctx, entry.getKey(), state);
+                } else {
+                    markDirty(entry.getKey());
+                }
+            }
+        }
+    }
+
+    private void fetchStates(TbContext ctx) {
+        long expirationTs = System.currentTimeMillis() - intervalMs;
+        List<EntityId> expiredStates = new ArrayList<>();
+        PageLink pageLink = new PageLink(1024);
+        while (true) {
+            PageData<RuleNodeState> ruleNodeStates = ctx.findRuleNodeStates(pageLink);
+            for (RuleNodeState ruleNodeState : ruleNodeStates.getData()) {
+                if (ctx.isLocalEntity(ruleNodeState.getEntityId())) {
+                    OriginatorState state = new OriginatorState(ruleNodeState);
+                    LinkedHashMap<String, Long> keys = JacksonUtil.fromString(ruleNodeState.getStateData(), STATE_TYPE);
+                    if (keys != null) {
+                        state.keys.putAll(keys);
+                    }
+                    state.removeExpiredKeys(expirationTs);
+                    if (state.keys.isEmpty()) {
+                        expiredStates.add(ruleNodeState.getEntityId());
+                    } else {
+                        states.put(ruleNodeState.getEntityId(), state);
+                        evictOriginators(ctx);
+                    }
+                }
+            }
+            if (!ruleNodeStates.hasNext()) {
+                break;
+            }
+            pageLink = pageLink.nextPageLink();
+        }
+        expiredStates.forEach(ctx::removeRuleNodeStateForEntity);
+        log.debug("[{}] Fetched deduplication state for {} originators", ctx.getSelfId(), states.size());
+    }
+
+    private void markDirty(EntityId originator) {
+        if (config.isPersistState()) {
+            dirtyOriginators.add(originator);
+        }
+    }
+
+    private void flushStates(TbContext ctx) {
+        if (!failedOriginators.isEmpty()) {
+            Iterator<EntityId> iterator = failedOriginators.iterator();
+            while (iterator.hasNext()) {
+                dirtyOriginators.add(iterator.next());
+                iterator.remove();
+            }
+        }
+        for (EntityId originator : dirtyOriginators) {
+            OriginatorState state = states.get(originator);
+            if (state != null) {
+                flushState(ctx, originator, state);
+            }
+        }
+        dirtyOriginators.clear();
+    }
+
+    private void flushState(TbContext ctx, EntityId originator, OriginatorState state) {
+        String stateData = JacksonUtil.toString(state.keys);
+        // saves of the same originator are chained, so the id of a new state is known before the next save
+        state.saveFuture = Futures.transformAsync(state.saveFuture, v -> saveState(ctx, originator, state, stateData), MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<Void> saveState(TbContext ctx, EntityId originator, OriginatorState state, String stateData) {
+        RuleNodeState ruleNodeState = state.ruleNodeState;
+        if (ruleNodeState == null) {
+            ruleNodeState = new RuleNodeState();
+            ruleNodeState.setRuleNodeId(ctx.getSelfId());
+            ruleNodeState.setEntityId(originator);
+        }
+        ruleNodeState.setStateData(stateData);
+        ListenableFuture<Void> future = Futures.transform(ctx.saveRuleNodeStateAsync(ruleNodeState), savedState -> {
+            if (savedState != null) {
+                state.ruleNodeState = savedState;
+            }
+            return null;
+        }, MoreExecutors.directExecutor());
+        return Futures.catching(future, Exception.class, e -> {
+            log.warn("[{}][{}] Failed to persist deduplication state", ctx.getSelfId(), originator, e);
+            failedOriginators.add(originator);
+            return null;
+        }, MoreExecutors.directExecutor());
+    }
+
+    private void removePersistedState(TbContext ctx, EntityId originator, OriginatorState state) {
+        dirtyOriginators.remove(originator);
+        if (!state.saveFuture.isDone()) {
+            // the pending save may create the state, so it is removed once the save completes
+            state.saveFuture.addListener(() -> ctx.removeRuleNodeStateForEntity(originator), ctx.getDbCallbackExecutor());
+        } else if (state.ruleNodeState != null) {
+            ctx.removeRuleNodeStateForEntity(originator);
+        }
+    }
+
+    private void scheduleTickMsg(TbContext ctx) {
+        TbMsg tickMsg = ctx.newMsg(null, TB_MSG_DEDUPLICATION_NODE_MSG, ctx.getSelfId(), null, new TbMsgMetaData(), "");
+        nextTickId = tickMsg.getId();
+        ctx.tellSelf(tickMsg, Math.min(intervalMs, MAX_TICK_INTERVAL_MS));
+    }
+
+    private static class OriginatorState {
+
+        // insertion order is the order of arrival, so the eldest keys expire first
+        private final LinkedHashMap<String, Long> keys = new LinkedHashMap<>();
+        private volatile RuleNodeState ruleNodeState;
+        private ListenableFuture<Void> saveFuture = Futures.immediateVoidFuture();
+
+        OriginatorState(RuleNodeState ruleNodeState) {
+            this.ruleNodeState = ruleNodeState;
+        }
+
+        boolean removeExpiredKeys(long expirationTs) {
+            boolean removed = false;
+            Iterator<Long> iterator = keys.values().iterator();
+            while (iterator.hasNext() && iterator.next() <= expirationTs) {
+                iterator.remove();
+                removed = true;
+            }
+            return removed;
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.filter;
+
+import lombok.Data;
+import org.thingsboard.rule.engine.api.NodeConfiguration;
+
+@Data
+public class TbMsgDeduplicationNodeConfiguration implements NodeConfiguration<TbMsgDeduplicationNodeConfiguration> {
+
+    private int interval;
+    private String deduplicationKey;
+    private int maxKeysPerOriginator;
+    private int maxOriginators;
+    private boolean persistState;
+
+    @Override
+    public TbMsgDeduplicationNodeConfiguration defaultConfiguration() {
+        TbMsgDeduplicationNodeConfiguration configuration = new TbMsgDeduplicationNodeConfiguration();
+        configuration.setInterval(60);
+        configuration.setDeduplicationKey("");
+        configuration.setMaxKeysPerOriginator(100);
+        configuration.setMaxOriginators(10000);
+        configuration.setPersistState(true);
+        return configuration;
+    }
+}
@@ -80,6 +80,17 @@ class DataSnapshot {
         }
     }
 
+    /**
+     * Adds values fetched for keys that were added to the device profile, values that are already present are kept.
+     */
+    void putAllAbsent(DataSnapshot other) {
+        other.values.forEach((key, value) -> {
+            if (keys.contains(key)) {
+                values.putIfAbsent(key, value);
+            }
+        });
+    }
+
     EntityKeyValue getValue(AlarmConditionFilterKey key) {
         return values.get(key);
     }
@@ -15,6 +15,9 @@
  */
 package org.thingsboard.rule.engine.profile;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gson.JsonParser;
 import lombok.extern.slf4j.Slf4j;
 import org.thingsboard.server.common.data.StringUtils;
@@ -39,12 +42,14 @@ import org.thingsboard.server.common.data.query.EntityKey;
 import org.thingsboard.server.common.data.query.EntityKeyType;
 import org.thingsboard.server.common.data.rule.RuleNodeState;
 import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
 import org.thingsboard.server.common.msg.session.SessionMsgType;
 import org.thingsboard.server.common.transport.adaptor.JsonConverter;
 import org.thingsboard.server.dao.sql.query.EntityKeyMapping;
 import org.thingsboard.common.util.JacksonUtil;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -58,12 +63,20 @@ import java.util.stream.Collectors;
 @Slf4j
 class DeviceState {
 
+    static final int MAX_PENDING_MSGS = 1000;
+
     private final boolean persistState;
     private final DeviceId deviceId;
     private final ProfileState deviceProfile;
     private RuleNodeState state;
     private PersistedDeviceState pds;
     private DataSnapshot latestValues;
+    private ListenableFuture<DataSnapshot> latestValuesFuture;
+    private Set<AlarmConditionFilterKey> latestValuesFetchKeys;
+    private final List<TbMsg> pendingMsgs = new ArrayList<>();
+    private boolean stateDirty;
+    private ListenableFuture<Void> stateSaveFuture = Futures.immediateVoidFuture();
+    private volatile boolean stateSaveFailed;
     private final ConcurrentMap<String, AlarmState> alarmStates = new ConcurrentHashMap<>();
     private final DynamicPredicateValueCtx dynamicPredicateValueCtx;
 
@@ -98,14 +111,15 @@ class DeviceState {
         }
     }
 
-    public void updateProfile(TbContext ctx, DeviceProfile deviceProfile) throws ExecutionException, InterruptedException {
-        Set<AlarmConditionFilterKey> oldKeys = Set.copyOf(this.deviceProfile.getEntityKeys());
+    public void updateProfile(TbContext ctx, DeviceProfile deviceProfile) {
         this.deviceProfile.updateDeviceProfile(deviceProfile);
-        if (latestValues != null) {
+        if (latestValues != null && latestValuesFuture == null) {
+            // values of the keys added to the profile are fetched in background, msgs wait for them in the meantime.
+            // if a fetch is already in progress, the new keys are fetched once it completes
             Set<AlarmConditionFilterKey> keysToFetch = new HashSet<>(this.deviceProfile.getEntityKeys());
-            keysToFetch.removeAll(oldKeys);
+            keysToFetch.removeAll(latestValuesFetchKeys);
             if (!keysToFetch.isEmpty()) {
-                addEntityKeysToSnapshot(ctx, deviceId, keysToFetch, latestValues);
+                startFetch(ctx, keysToFetch);
             }
         }
         Set<String> newAlarmStateIds = this.deviceProfile.getAlarmSettings().stream().map(DeviceProfileAlarm::getId).collect(Collectors.toSet());
@@ -126,15 +140,151 @@ class DeviceState {
             stateChanged |= state.process(ctx, ts);
         }
         if (persistState && stateChanged) {
-            state.setStateData(JacksonUtil.toString(pds));
-            state = ctx.saveRuleNodeState(state);
+            stateDirty = true;
         }
     }
 
+    /**
+     * Processes the msg once the latest values of the device are fetched. While a fetch is in progress,
+     * msgs are queued and the rule node is notified by {@link TbDeviceProfileNode#LATEST_VALUES_FETCHED_MSG_TYPE}
+     * to resume processing via {@link #onLatestValuesFetched(TbContext)}.
+     */
     public void process(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException {
+        if (latestValuesFuture == null && latestValues == null) {
+            startFetch(ctx, Set.copyOf(deviceProfile.getEntityKeys()));
+        }
+        if (latestValuesFuture != null) {
+            if (pendingMsgs.size() >= MAX_PENDING_MSGS) {
+                ctx.tellFailure(msg, new RuntimeException("Too many msgs are waiting for the latest values of device " + deviceId.getId()));
+            } else {
+                pendingMsgs.add(msg);
+            }
+            return;
+        }
+        doProcess(ctx, msg);
+    }
+
+    public void onLatestValuesFetched(TbContext ctx) {
+        if (latestValuesFuture == null || !latestValuesFuture.isDone()) {
+            return;
+        }
+        ListenableFuture<DataSnapshot> future = latestValuesFuture;
+        latestValuesFuture = null;
+        if (!applyFetchResult(ctx, future)) {
+            return;
+        }
+        Set<AlarmConditionFilterKey> keysToFetch = new HashSet<>(deviceProfile.getEntityKeys());
+        keysToFetch.removeAll(latestValuesFetchKeys);
+        if (!keysToFetch.isEmpty()) {
+            // the profile was updated while the latest values were being fetched, pending msgs wait for the new keys as well
+            startFetch(ctx, keysToFetch);
+            if (latestValuesFuture != null) {
+                return;
+            }
+        }
+        List<TbMsg> msgs = new ArrayList<>(pendingMsgs);
+        pendingMsgs.clear();
+        for (TbMsg msg : msgs) {
+            try {
+                doProcess(ctx, msg);
+            } catch (Exception e) {
+                ctx.tellFailure(msg, e);
+            }
+        }
+    }
+
+    /**
+     * Starts fetching the values of the keys: the initial snapshot if there are no latest values yet,
+     * otherwise the keys that were added to the profile. A fetch that is already complete is applied inline.
+     */
+    private void startFetch(TbContext ctx, Set<AlarmConditionFilterKey> keysToFetch) {
+        DataSnapshot snapshot = new DataSnapshot(latestValues == null ? deviceProfile.getEntityKeys() : keysToFetch);
         if (latestValues == null) {
-            latestValues = fetchLatestValues(ctx, deviceId);
+            latestValuesFetchKeys = new HashSet<>(keysToFetch);
+        } else {
+            latestValuesFetchKeys.addAll(keysToFetch);
+        }
+        ListenableFuture<DataSnapshot> future = Futures.transform(addEntityKeysToSnapshot(ctx, deviceId, keysToFetch, snapshot),
+                v -> snapshot, MoreExecutors.directExecutor());
+        if (future.isDone()) {
+            applyFetchResult(ctx, future);
+            return;
+        }
+        latestValuesFuture = future;
+        future.addListener(() -> ctx.tellSelf(TbMsg.newMsg(TbDeviceProfileNode.LATEST_VALUES_FETCHED_MSG_TYPE, ctx.getTenantId(),
+                TbMsgMetaData.EMPTY, deviceId.getId().toString()), 0L), MoreExecutors.directExecutor());
+    }
+
+    private boolean applyFetchResult(TbContext ctx, ListenableFuture<DataSnapshot> future) {
+        try {
+            DataSnapshot snapshot = Futures.getDone(future);
+            if (latestValues == null) {
+                latestValues = snapshot;
+            } else {
+                latestValues.putAllAbsent(snapshot);
+            }
+            return true;
+        } catch (Exception e) {
+            // the whole snapshot is fetched again with the next msg
+            latestValues = null;
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.debug("[{}] Failed to fetch latest values", deviceId, cause);
+            List<TbMsg> msgs = new ArrayList<>(pendingMsgs);
+            pendingMsgs.clear();
+            msgs.forEach(msg -> ctx.tellFailure(msg, cause));
+            return false;
+        }
+    }
+
+    /**
+     * @return msgs that wait for the latest values to be fetched. The device state should not be used after this call.
+     */
+    public List<TbMsg> drainPendingMsgs() {
+        latestValuesFuture = null;
+        List<TbMsg> msgs = new ArrayList<>(pendingMsgs);
+        pendingMsgs.clear();
+        return msgs;
+    }
+
+    public boolean isStateDirty() {
+        return stateDirty;
+    }
+
+    /**
+     * Saves the state asynchronously. Saves of the same device are chained, so a new state gets its id
+     * before the next save is started. A failed save is repeated with the next flush.
+     *
+     * @return true if all saves are completed, false if the state should be flushed again later
+     */
+    public boolean flushState(TbContext ctx) {
+        if (stateSaveFailed) {
+            stateSaveFailed = false;
+            stateDirty = true;
+        }
+        if (stateDirty) {
+            String stateData = JacksonUtil.toString(pds);
+            stateDirty = false;
+            stateSaveFuture = Futures.transformAsync(stateSaveFuture, v -> saveState(ctx, stateData), MoreExecutors.directExecutor());
         }
+        return stateSaveFuture.isDone() && !stateSaveFailed;
+    }
+
+    private ListenableFuture<Void> saveState(TbContext ctx, String stateData) {
+        state.setStateData(stateData);
+        ListenableFuture<Void> future = Futures.transform(ctx.saveRuleNodeStateAsync(state), savedState -> {
+            if (savedState != null) {
+                state = savedState;
+            }
+            return null;
+        }, MoreExecutors.directExecutor());
+        return Futures.catching(future, Exception.class, e -> {
+            log.warn("[{}][{}] Failed to persist rule node state", ctx.getSelfId(), deviceId, e);
+            stateSaveFailed = true;
+            return null;
+        }, MoreExecutors.directExecutor());
+    }
+
+    private void doProcess(TbContext ctx, TbMsg msg) throws ExecutionException, InterruptedException {
         boolean stateChanged = false;
         if (msg.getType().equals(SessionMsgType.POST_TELEMETRY_REQUEST.name())) {
             stateChanged = processTelemetry(ctx, msg);
@@ -159,8 +309,7 @@ class DeviceState {
             ctx.tellSuccess(msg);
         }
         if (persistState && stateChanged) {
-            state.setStateData(JacksonUtil.toString(pds));
-            state = ctx.saveRuleNodeState(state);
+            stateDirty = true;
         }
     }
 
@@ -317,18 +466,15 @@ class DeviceState {
         return EntityKeyType.ATTRIBUTE;
     }
 
-    private DataSnapshot fetchLatestValues(TbContext ctx, EntityId originator) throws ExecutionException, InterruptedException {
-        Set<AlarmConditionFilterKey> entityKeysToFetch = deviceProfile.getEntityKeys();
-        DataSnapshot result = new DataSnapshot(entityKeysToFetch);
-        addEntityKeysToSnapshot(ctx, originator, entityKeysToFetch, result);
-        return result;
-    }
-
-    private void addEntityKeysToSnapshot(TbContext ctx, EntityId originator, Set<AlarmConditionFilterKey> entityKeysToFetch, DataSnapshot result) throws InterruptedException, ExecutionException {
+    /**
+     * Fetches the device fields, latest telemetry and attributes of all scopes in parallel
+     * and adds them to the snapshot in the same order as they used to be fetched one by one.
+     */
+    private ListenableFuture<Void> addEntityKeysToSnapshot(TbContext ctx, EntityId originator, Set<AlarmConditionFilterKey> entityKeysToFetch, DataSnapshot result) {
         Set<String> attributeKeys = new HashSet<>();
         Set<String> latestTsKeys = new HashSet<>();
+        Set<AlarmConditionFilterKey> entityFieldKeys = new HashSet<>();
 
-        Device device = null;
         for (AlarmConditionFilterKey entityKey : entityKeysToFetch) {
             String key = entityKey.getKey();
             switch (entityKey.getType()) {
@@ -339,41 +485,58 @@ class DeviceState {
                     latestTsKeys.add(key);
                     break;
                 case ENTITY_FIELD:
-                    if (device == null) {
-                        device = ctx.getDeviceService().findDeviceById(ctx.getTenantId(), new DeviceId(originator.getId()));
-                    }
-                    if (device != null) {
-                        switch (key) {
-                            case EntityKeyMapping.NAME:
-                                result.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getName()));
-                                break;
-                            case EntityKeyMapping.TYPE:
-                                result.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getType()));
-                                break;
-                            case EntityKeyMapping.CREATED_TIME:
-                                result.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromLong(device.getCreatedTime()));
-                                break;
-                            case EntityKeyMapping.LABEL:
-                                result.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getLabel()));
-                                break;
-                        }
-                    }
+                    entityFieldKeys.add(entityKey);
                     break;
             }
         }
 
-        if (!latestTsKeys.isEmpty()) {
-            List<TsKvEntry> data = ctx.getTimeseriesService().findLatest(ctx.getTenantId(), originator, latestTsKeys).get();
-            for (TsKvEntry entry : data) {
+        ListenableFuture<Device> deviceFuture = entityFieldKeys.isEmpty() ? Futures.immediateFuture(null) :
+                ctx.getDeviceService().findDeviceByIdAsync(ctx.getTenantId(), new DeviceId(originator.getId()));
+        ListenableFuture<List<TsKvEntry>> latestTsFuture = latestTsKeys.isEmpty() ? Futures.immediateFuture(Collections.emptyList()) :
+                ctx.getTimeseriesService().findLatest(ctx.getTenantId(), originator, latestTsKeys);
+        List<ListenableFuture<List<AttributeKvEntry>>> attributesFutures = new ArrayList<>();
+        if (!attributeKeys.isEmpty()) {
+            attributesFutures.add(ctx.getAttributesService().find(ctx.getTenantId(), originator, DataConstants.CLIENT_SCOPE, attributeKeys));
+            attributesFutures.add(ctx.getAttributesService().find(ctx.getTenantId(), originator, DataConstants.SHARED_SCOPE, attributeKeys));
+            attributesFutures.add(ctx.getAttributesService().find(ctx.getTenantId(), originator, DataConstants.SERVER_SCOPE, attributeKeys));
+        }
+
+        List<ListenableFuture<?>> futures = new ArrayList<>(attributesFutures);
+        futures.add(deviceFuture);
+        futures.add(latestTsFuture);
+        return Futures.whenAllSucceed(futures).call(() -> {
+            Device device = Futures.getDone(deviceFuture);
+            if (device != null) {
+                addToSnapshot(result, device, entityFieldKeys);
+            }
+            for (TsKvEntry entry : Futures.getDone(latestTsFuture)) {
                 if (entry.getValue() != null) {
                     result.putValue(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, entry.getKey()), entry.getTs(), toEntityValue(entry));
                 }
             }
-        }
-        if (!attributeKeys.isEmpty()) {
-            addToSnapshot(result, ctx.getAttributesService().find(ctx.getTenantId(), originator, DataConstants.CLIENT_SCOPE, attributeKeys).get());
-            addToSnapshot(result, ctx.getAttributesService().find(ctx.getTenantId(), originator, DataConstants.SHARED_SCOPE, attributeKeys).get());
-            addToSnapshot(result, ctx.getAttributesService().find(ctx.getTenantId(), originator, DataConstants.SERVER_SCOPE, attributeKeys).get());
+            for (ListenableFuture<List<AttributeKvEntry>> attributesFuture : attributesFutures) {
+                addToSnapshot(result, Futures.getDone(attributesFuture));
+            }
+            return null;
+        }, MoreExecutors.directExecutor());
+    }
+
+    private void addToSnapshot(DataSnapshot snapshot, Device device, Set<AlarmConditionFilterKey> entityFieldKeys) {
+        for (AlarmConditionFilterKey entityKey : entityFieldKeys) {
+            switch (entityKey.getKey()) {
+                case EntityKeyMapping.NAME:
+                    snapshot.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getName()));
+                    break;
+                case EntityKeyMapping.TYPE:
+                    snapshot.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getType()));
+                    break;
+                case EntityKeyMapping.CREATED_TIME:
+                    snapshot.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromLong(device.getCreatedTime()));
+                    break;
+                case EntityKeyMapping.LABEL:
+                    snapshot.putValue(entityKey, device.getCreatedTime(), EntityKeyValue.fromString(device.getLabel()));
+                    break;
+            }
         }
     }
 
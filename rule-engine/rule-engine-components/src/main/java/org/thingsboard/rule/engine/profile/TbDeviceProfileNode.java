@@ -40,7 +40,10 @@ import org.thingsboard.server.common.msg.TbMsgMetaData;
 import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
 import org.thingsboard.common.util.JacksonUtil;
 
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
@@ -63,11 +66,16 @@ public class TbDeviceProfileNode implements TbNode {
     private static final String PERIODIC_MSG_TYPE = "TbDeviceProfilePeriodicMsg";
     private static final String PROFILE_UPDATE_MSG_TYPE = "TbDeviceProfileUpdateMsg";
     private static final String DEVICE_UPDATE_MSG_TYPE = "TbDeviceUpdateMsg";
+    static final String STATE_FLUSH_MSG_TYPE = "TbDeviceProfileStateFlushMsg";
+    static final String LATEST_VALUES_FETCHED_MSG_TYPE = "TbDeviceProfileLatestValuesFetchedMsg";
+    private static final long STATE_FLUSH_INTERVAL_MS = TimeUnit.SECONDS.toMillis(1);
 
     private TbDeviceProfileNodeConfiguration config;
     private RuleEngineDeviceProfileCache cache;
     private TbContext ctx;
     private final Map<DeviceId, DeviceState> deviceStates = new ConcurrentHashMap<>();
+    private final Set<DeviceId> dirtyDeviceStates = new HashSet<>();
+    private boolean stateFlushScheduled;
 
     @Override
     public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
@@ -110,6 +118,19 @@ public class TbDeviceProfileNode implements TbNode {
         if (msg.getType().equals(PERIODIC_MSG_TYPE)) {
             scheduleAlarmHarvesting(ctx, msg);
             harvestAlarms(ctx, System.currentTimeMillis());
+        } else if (msg.getType().equals(STATE_FLUSH_MSG_TYPE)) {
+            stateFlushScheduled = false;
+            flushStates(ctx);
+            if (!dirtyDeviceStates.isEmpty()) {
+                scheduleStateFlush(ctx);
+            }
+        } else if (msg.getType().equals(LATEST_VALUES_FETCHED_MSG_TYPE)) {
+            DeviceId deviceId = new DeviceId(UUID.fromString(msg.getData()));
+            DeviceState deviceState = deviceStates.get(deviceId);
+            if (deviceState != null) {
+                deviceState.onLatestValuesFetched(ctx);
+                onStateProcessed(ctx, deviceId, deviceState);
+            }
         } else if (msg.getType().equals(PROFILE_UPDATE_MSG_TYPE)) {
             updateProfile(ctx, new DeviceProfileId(UUID.fromString(msg.getData())));
         } else if (msg.getType().equals(DEVICE_UPDATE_MSG_TYPE)) {
@@ -130,13 +151,7 @@ public class TbDeviceProfileNode implements TbNode {
                     removeDeviceState(deviceId);
                     ctx.tellSuccess(msg);
                 } else {
-                    DeviceState deviceState = getOrCreateDeviceState(ctx, deviceId, null);
-                    if (deviceState != null) {
-                        deviceState.process(ctx, msg);
-                    } else {
-                        log.info("Device was not found! Most probably device [" + deviceId + "] has been removed from the database. Acknowledging msg.");
-                        ctx.ack(msg);
-                    }
+                    processDeviceMsg(ctx, deviceId, msg);
                 }
             } else {
                 ctx.tellSuccess(msg);
@@ -147,15 +162,72 @@ public class TbDeviceProfileNode implements TbNode {
     @Override
     public void onPartitionChangeMsg(TbContext ctx, PartitionChangeMsg msg) {
         // Cleanup the cache for all entities that are no longer assigned to current server partitions
-        deviceStates.entrySet().removeIf(entry -> !ctx.isLocalEntity(entry.getKey()));
+        deviceStates.entrySet().removeIf(entry -> {
+            if (ctx.isLocalEntity(entry.getKey())) {
+                return false;
+            }
+            if (dirtyDeviceStates.remove(entry.getKey())) {
+                flushState(ctx, entry.getKey(), entry.getValue());
+            }
+            return true;
+        });
     }
 
     @Override
     public void destroy() {
         ctx.removeListeners();
+        flushStates(ctx);
         deviceStates.clear();
     }
 
+    protected void processDeviceMsg(TbContext ctx, DeviceId deviceId, TbMsg msg) throws ExecutionException, InterruptedException {
+        DeviceState deviceState = getOrCreateDeviceState(ctx, deviceId, null);
+        if (deviceState != null) {
+            try {
+                deviceState.process(ctx, msg);
+            } finally {
+                onStateProcessed(ctx, deviceId, deviceState);
+            }
+        } else {
+            log.info("Device was not found! Most probably device [" + deviceId + "] has been removed from the database. Acknowledging msg.");
+            ctx.ack(msg);
+        }
+    }
+
+    private void onStateProcessed(TbContext ctx, DeviceId deviceId, DeviceState deviceState) {
+        if (deviceState.isStateDirty() && dirtyDeviceStates.add(deviceId)) {
+            scheduleStateFlush(ctx);
+        }
+    }
+
+    private void scheduleStateFlush(TbContext ctx) {
+        if (!stateFlushScheduled) {
+            stateFlushScheduled = true;
+            ctx.tellSelf(TbMsg.newMsg(STATE_FLUSH_MSG_TYPE, ctx.getTenantId(), TbMsgMetaData.EMPTY, "{}"), STATE_FLUSH_INTERVAL_MS);
+        }
+    }
+
+    protected void flushStates(TbContext ctx) {
+        Iterator<DeviceId> iterator = dirtyDeviceStates.iterator();
+        while (iterator.hasNext()) {
+            DeviceId deviceId = iterator.next();
+            DeviceState deviceState = deviceStates.get(deviceId);
+            if (deviceState == null || flushState(ctx, deviceId, deviceState)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private boolean flushState(TbContext ctx, DeviceId deviceId, DeviceState deviceState) {
+        try {
+            // the state is saved asynchronously and stays in the dirty set until the save is completed
+            return deviceState.flushState(ctx);
+        } catch (Exception e) {
+            log.warn("[{}][{}] Failed to persist rule node state", ctx.getSelfId(), deviceId, e);
+            return false;
+        }
+    }
+
     protected DeviceState getOrCreateDeviceState(TbContext ctx, DeviceId deviceId, RuleNodeState rns) {
         DeviceState deviceState = deviceStates.get(deviceId);
         if (deviceState == null) {
@@ -174,8 +246,9 @@ public class TbDeviceProfileNode implements TbNode {
     }
 
     protected void harvestAlarms(TbContext ctx, long ts) throws ExecutionException, InterruptedException {
-        for (DeviceState state : deviceStates.values()) {
-            state.harvestAlarms(ctx, ts);
+        for (Map.Entry<DeviceId, DeviceState> entry : deviceStates.entrySet()) {
+            entry.getValue().harvestAlarms(ctx, ts);
+            onStateProcessed(ctx, entry.getKey(), entry.getValue());
         }
     }
 
@@ -232,8 +305,19 @@ public class TbDeviceProfileNode implements TbNode {
 
     private void removeDeviceState(DeviceId deviceId) {
         DeviceState state = deviceStates.remove(deviceId);
+        dirtyDeviceStates.remove(deviceId);
         if (config.isPersistAlarmRulesState() && (state != null || !config.isFetchAlarmRulesStateOnStart())) {
             ctx.removeRuleNodeStateForEntity(deviceId);
         }
+        if (state != null) {
+            // msgs that waited for the latest values of the removed state are processed with the new one
+            for (TbMsg msg : state.drainPendingMsgs()) {
+                try {
+                    processDeviceMsg(ctx, deviceId, msg);
+                } catch (Exception e) {
+                    ctx.tellFailure(msg, e);
+                }
+            }
+        }
     }
 }
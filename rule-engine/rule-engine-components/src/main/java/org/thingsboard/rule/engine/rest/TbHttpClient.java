@@ -15,6 +15,7 @@
  */
 package org.thingsboard.rule.engine.rest;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import lombok.Data;
@@ -26,6 +27,7 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.conn.ssl.DefaultHostnameVerifier;
 import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
 import org.apache.http.impl.nio.client.HttpAsyncClients;
@@ -50,18 +52,24 @@ import org.thingsboard.rule.engine.credentials.BasicCredentials;
 import org.thingsboard.rule.engine.credentials.ClientCredentials;
 import org.thingsboard.rule.engine.credentials.CredentialsType;
 import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgDataType;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLException;
+import java.io.IOException;
 import java.net.Authenticator;
 import java.net.PasswordAuthentication;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
@@ -76,13 +84,19 @@ public class TbHttpClient {
     private static final String STATUS_REASON = "statusReason";
     private static final String ERROR = "error";
     private static final String ERROR_BODY = "error_body";
+    private static final String BATCH_FLUSH_MSG = "TbHttpClientBatchFlushMsg";
     private static final String ERROR_SYSTEM_PROPERTIES = "Didn't set any system proxy properties. Should be added next system proxy properties: \"http.proxyHost\" and \"http.proxyPort\" or  \"https.proxyHost\" and \"https.proxyPort\" or \"socksProxyHost\" and \"socksProxyPort\"";
 
     private final TbRestApiCallNodeConfiguration config;
 
     private EventLoopGroup eventLoopGroup;
     private AsyncRestTemplate httpClient;
+    private CloseableHttpAsyncClient asyncClient;
     private Deque<ListenableFuture<ResponseEntity<String>>> pendingFutures;
+    // batches are accessed from the rule node actor only, the linger is implemented with self tick messages
+    private final Map<BatchKey, List<TbMsg>> batches = new LinkedHashMap<>();
+    private final Map<BatchKey, Long> batchDeadlines = new LinkedHashMap<>();
+    private UUID nextBatchFlushTickId;
 
     TbHttpClient(TbRestApiCallNodeConfiguration config, EventLoopGroup eventLoopGroupShared) throws TbNodeException {
         try {
@@ -90,6 +104,9 @@ public class TbHttpClient {
             if (config.getMaxParallelRequestsCount() > 0) {
                 pendingFutures = new ConcurrentLinkedDeque<>();
             }
+            if (config.getBatchSize() > 0) {
+                checkBatchRequest(config);
+            }
 
             if (config.isEnableProxy()) {
                 checkProxyHost(config.getProxyHost());
@@ -98,7 +115,6 @@ public class TbHttpClient {
                 String proxyUser;
                 String proxyPassword;
 
-                CloseableHttpAsyncClient asyncClient;
                 HttpComponentsAsyncClientHttpRequestFactory requestFactory = new HttpComponentsAsyncClientHttpRequestFactory();
 
                 if (config.isUseSystemProxyProperties()) {
@@ -144,6 +160,22 @@ public class TbHttpClient {
                     throw new TbNodeException("Simple HTTP Factory does not support CERT PEM credentials!");
                 }
                 httpClient = new AsyncRestTemplate();
+            } else if (config.isEnableKeepAlive()) {
+                if (CredentialsType.CERT_PEM == config.getCredentials().getType()) {
+                    throw new TbNodeException("Keep-alive connection pool does not support CERT PEM credentials!");
+                }
+                HttpAsyncClientBuilder httpAsyncClientBuilder = HttpAsyncClientBuilder.create()
+                        .setSSLHostnameVerifier(new DefaultHostnameVerifier())
+                        .setSSLContext(SSLContext.getDefault())
+                        .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE);
+                if (config.getMaxConnections() > 0) {
+                    httpAsyncClientBuilder.setMaxConnTotal(config.getMaxConnections())
+                            .setMaxConnPerRoute(config.getMaxConnections());
+                }
+                asyncClient = httpAsyncClientBuilder.build();
+                HttpComponentsAsyncClientHttpRequestFactory requestFactory = new HttpComponentsAsyncClientHttpRequestFactory(asyncClient);
+                requestFactory.setReadTimeout(config.getReadTimeoutMs());
+                httpClient = new AsyncRestTemplate(requestFactory);
             } else {
                 Netty4ClientHttpRequestFactory nettyFactory = new Netty4ClientHttpRequestFactory(getSharedOrCreateEventLoopGroup(eventLoopGroupShared));
                 nettyFactory.setSslContext(config.getCredentials().initSslContext());
@@ -176,13 +208,35 @@ public class TbHttpClient {
         return !StringUtils.isEmpty(proxyUser) && !StringUtils.isEmpty(proxyPassword);
     }
 
-    void destroy() {
+    void destroy(TbContext ctx) {
+        if (!batches.isEmpty()) {
+            log.debug("Failing {} unsent batches on destroy", batches.size());
+            RuntimeException error = new RuntimeException("Rule node was stopped before the batch was sent");
+            for (List<TbMsg> batch : batches.values()) {
+                for (TbMsg msg : batch) {
+                    ctx.tellFailure(msg, error);
+                }
+            }
+        }
+        batches.clear();
+        batchDeadlines.clear();
+        if (this.asyncClient != null) {
+            try {
+                this.asyncClient.close();
+            } catch (IOException e) {
+                log.warn("Failed to close HTTP client", e);
+            }
+        }
         if (this.eventLoopGroup != null) {
             this.eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
         }
     }
 
     public void processMessage(TbContext ctx, TbMsg msg) {
+        if (config.getBatchSize() > 0) {
+            processBatchMessage(ctx, msg);
+            return;
+        }
         String endpointUrl = TbNodeUtils.processPattern(config.getRestEndpointUrlPattern(), msg);
         HttpHeaders headers = prepareHeaders(msg);
         HttpMethod method = HttpMethod.valueOf(config.getRequestMethod());
@@ -221,6 +275,144 @@ public class TbHttpClient {
         }
     }
 
+    private void processBatchMessage(TbContext ctx, TbMsg msg) {
+        if (BATCH_FLUSH_MSG.equals(msg.getType())) {
+            if (msg.getId().equals(nextBatchFlushTickId)) {
+                nextBatchFlushTickId = null;
+                flushExpiredBatches(ctx, System.currentTimeMillis());
+            }
+            return;
+        }
+        String endpointUrl = TbNodeUtils.processPattern(config.getRestEndpointUrlPattern(), msg);
+        BatchKey key = new BatchKey(buildEncodedUri(endpointUrl), prepareHeaders(msg));
+        List<TbMsg> batch = batches.computeIfAbsent(key, k -> new ArrayList<>(config.getBatchSize()));
+        batch.add(msg);
+        if (batch.size() >= config.getBatchSize()) {
+            batches.remove(key);
+            batchDeadlines.remove(key);
+            sendBatch(ctx, key, batch);
+        } else if (batch.size() == 1) {
+            batchDeadlines.put(key, System.currentTimeMillis() + config.getBatchLingerMs());
+            if (nextBatchFlushTickId == null) {
+                scheduleBatchFlush(ctx, config.getBatchLingerMs());
+            }
+        }
+    }
+
+    private void flushExpiredBatches(TbContext ctx, long ts) {
+        long nextDeadline = Long.MAX_VALUE;
+        Iterator<Map.Entry<BatchKey, Long>> iterator = batchDeadlines.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<BatchKey, Long> entry = iterator.next();
+            if (entry.getValue() <= ts) {
+                iterator.remove();
+                sendBatch(ctx, entry.getKey(), batches.remove(entry.getKey()));
+            } else {
+                nextDeadline = Math.min(nextDeadline, entry.getValue());
+            }
+        }
+        if (nextDeadline != Long.MAX_VALUE) {
+            scheduleBatchFlush(ctx, nextDeadline - ts);
+        }
+    }
+
+    private void scheduleBatchFlush(TbContext ctx, long delayMs) {
+        TbMsg tickMsg = ctx.newMsg(null, BATCH_FLUSH_MSG, ctx.getSelfId(), null, new TbMsgMetaData(), "");
+        nextBatchFlushTickId = tickMsg.getId();
+        ctx.tellSelf(tickMsg, Math.max(0L, delayMs));
+    }
+
+    private void sendBatch(TbContext ctx, BatchKey key, List<TbMsg> batch) {
+        TbHttpBatchFormat format = config.getBatchFormat();
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(key.getHeaders());
+        headers.set(HttpHeaders.CONTENT_TYPE, format.getContentType());
+        HttpEntity<String> entity = new HttpEntity<>(toBatchBody(batch, format), headers);
+        ListenableFuture<ResponseEntity<String>> future = httpClient.exchange(
+                key.getUri(), HttpMethod.valueOf(config.getRequestMethod()), entity, String.class);
+        future.addCallback(new ListenableFutureCallback<ResponseEntity<String>>() {
+            @Override
+            public void onFailure(Throwable throwable) {
+                for (TbMsg msg : batch) {
+                    ctx.tellFailure(processException(ctx, msg, throwable), throwable);
+                }
+            }
+
+            @Override
+            public void onSuccess(ResponseEntity<String> responseEntity) {
+                if (responseEntity.getStatusCode().is2xxSuccessful()) {
+                    processBatchResponse(ctx, batch, responseEntity);
+                } else {
+                    for (TbMsg msg : batch) {
+                        ctx.tellNext(processFailureResponse(ctx, msg, responseEntity), TbRelationTypes.FAILURE);
+                    }
+                }
+            }
+        });
+        if (pendingFutures != null) {
+            processParallelRequests(future);
+        }
+    }
+
+    String toBatchBody(List<TbMsg> batch, TbHttpBatchFormat format) {
+        StringBuilder body = new StringBuilder();
+        if (format == TbHttpBatchFormat.JSON_ARRAY) {
+            body.append('[');
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                body.append(format == TbHttpBatchFormat.JSON_ARRAY ? ',' : '\n');
+            }
+            TbMsg msg = batch.get(i);
+            if (msg.getDataType() != TbMsgDataType.JSON) {
+                body.append(JacksonUtil.toString(msg.getData()));
+            } else if (format == TbHttpBatchFormat.NDJSON && msg.getData().indexOf('\n') >= 0) {
+                body.append(JacksonUtil.toString(JacksonUtil.toJsonNode(msg.getData())));
+            } else {
+                body.append(msg.getData());
+            }
+        }
+        if (format == TbHttpBatchFormat.JSON_ARRAY) {
+            body.append(']');
+        }
+        return body.toString();
+    }
+
+    /**
+     * A JSON array response of the batch size is matched to the messages by index, an element with
+     * a non-2xx numeric <code>status</code> fails its message. Any other response applies to every message.
+     */
+    private void processBatchResponse(TbContext ctx, List<TbMsg> batch, ResponseEntity<String> response) {
+        JsonNode results = null;
+        if (response.getBody() != null) {
+            try {
+                JsonNode body = JacksonUtil.toJsonNode(response.getBody());
+                if (body != null && body.isArray() && body.size() == batch.size()) {
+                    results = body;
+                }
+            } catch (IllegalArgumentException e) {
+                log.trace("Batch response is not a JSON: {}", response.getBody());
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            TbMsg msg = batch.get(i);
+            if (results == null) {
+                ctx.tellSuccess(processResponse(ctx, msg, response));
+                continue;
+            }
+            JsonNode result = results.get(i);
+            JsonNode status = result.isObject() ? result.get("status") : null;
+            if (status != null && status.isInt() && (status.asInt() < 200 || status.asInt() > 299)) {
+                TbMsgMetaData metaData = msg.getMetaData();
+                metaData.putValue(STATUS_CODE, Integer.toString(status.asInt()));
+                metaData.putValue(ERROR_BODY, JacksonUtil.toString(result));
+                ctx.tellNext(ctx.transformMsg(msg, msg.getType(), msg.getOriginator(), metaData, msg.getData()), TbRelationTypes.FAILURE);
+            } else {
+                ctx.tellSuccess(processResponse(ctx, msg, response, JacksonUtil.toString(result)));
+            }
+        }
+    }
+
     public URI buildEncodedUri(String endpointUrl) {
         if (endpointUrl == null) {
             throw new RuntimeException("Url string cannot be null!");
@@ -244,12 +436,15 @@ public class TbHttpClient {
     }
 
     private TbMsg processResponse(TbContext ctx, TbMsg origMsg, ResponseEntity<String> response) {
+        return processResponse(ctx, origMsg, response, response.getBody() == null ? "{}" : response.getBody());
+    }
+
+    private TbMsg processResponse(TbContext ctx, TbMsg origMsg, ResponseEntity<String> response, String body) {
         TbMsgMetaData metaData = origMsg.getMetaData();
         metaData.putValue(STATUS, response.getStatusCode().name());
         metaData.putValue(STATUS_CODE, response.getStatusCode().value() + "");
         metaData.putValue(STATUS_REASON, response.getStatusCode().getReasonPhrase());
         headersToMetaData(response.getHeaders(), metaData::putValue);
-        String body = response.getBody() == null ? "{}" : response.getBody();
         return ctx.transformMsg(origMsg, origMsg.getType(), origMsg.getOriginator(), metaData, body);
     }
 
@@ -322,6 +517,13 @@ public class TbHttpClient {
         }
     }
 
+    private static void checkBatchRequest(TbRestApiCallNodeConfiguration config) throws TbNodeException {
+        HttpMethod method = HttpMethod.valueOf(config.getRequestMethod());
+        if (config.isIgnoreRequestBody() || !(HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method) || HttpMethod.PATCH.equals(method))) {
+            throw new TbNodeException("Batching requires POST, PUT or PATCH request with body");
+        }
+    }
+
     private static void checkProxyHost(String proxyHost) throws TbNodeException {
         if (StringUtils.isEmpty(proxyHost)) {
             throw new TbNodeException("Proxy host can't be empty");
@@ -334,4 +536,10 @@ public class TbHttpClient {
         }
     }
 
+    @Data
+    static class BatchKey {
+        private final URI uri;
+        private final HttpHeaders headers;
+    }
+
 }
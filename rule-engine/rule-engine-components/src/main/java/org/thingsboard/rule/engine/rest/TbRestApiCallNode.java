@@ -37,6 +37,9 @@ import org.thingsboard.server.common.msg.TbMsg;
                 "(<code>status</code>, <code>statusCode</code>, <code>statusReason</code> and response <code>headers</code>) in the Message Metadata." +
                 " Response body saved in outbound Message payload. " +
                 "For example <b>statusCode</b> field can be accessed with <code>metadata.statusCode</code>." +
+                " If <code>batchSize</code> is set, messages are sent in batches of up to <code>batchSize</code> messages or after " +
+                "<code>batchLingerMs</code> as a JSON array or NDJSON body. A JSON array response of the same size is matched " +
+                "to the messages by index, an element with a non-2xx <code>status</code> routes its message via Failure chain." +
                 "<br/><b>Note-</b> if you use system proxy properties, the next system proxy properties should be added: \"http.proxyHost\" and \"http.proxyPort\" or  \"https.proxyHost\" and \"https.proxyPort\" or \"socksProxyHost\" and \"socksProxyPort\"," +
                 "and if your proxy with auth, the next ones  should be added: \"tb.proxy.user\" and \"tb.proxy.password\" to the thingsboard.conf file.",
         uiResources = {"static/rulenode/rulenode-core-config.js"},
@@ -46,10 +49,12 @@ import org.thingsboard.server.common.msg.TbMsg;
 public class TbRestApiCallNode implements TbNode {
 
     private boolean useRedisQueueForMsgPersistence;
+    private TbContext ctx;
     protected TbHttpClient httpClient;
 
     @Override
     public void init(TbContext ctx, TbNodeConfiguration configuration) throws TbNodeException {
+        this.ctx = ctx;
         TbRestApiCallNodeConfiguration config = TbNodeUtils.convert(configuration, TbRestApiCallNodeConfiguration.class);
         httpClient = new TbHttpClient(config, ctx.getSharedEventLoop());
         useRedisQueueForMsgPersistence = config.isUseRedisQueueForMsgPersistence();
@@ -66,7 +71,7 @@ public class TbRestApiCallNode implements TbNode {
     @Override
     public void destroy() {
         if (this.httpClient != null) {
-            this.httpClient.destroy();
+            this.httpClient.destroy(ctx);
         }
     }
 
@@ -48,6 +48,11 @@ public class TbRestApiCallNodeConfiguration implements NodeConfiguration<TbRestA
     private String proxyScheme;
     private ClientCredentials credentials;
     private boolean ignoreRequestBody;
+    private int batchSize;
+    private int batchLingerMs;
+    private TbHttpBatchFormat batchFormat;
+    private boolean enableKeepAlive;
+    private int maxConnections;
 
     @Override
     public TbRestApiCallNodeConfiguration defaultConfiguration() {
@@ -63,6 +68,11 @@ public class TbRestApiCallNodeConfiguration implements NodeConfiguration<TbRestA
         configuration.setEnableProxy(false);
         configuration.setCredentials(new AnonymousCredentials());
         configuration.setIgnoreRequestBody(false);
+        configuration.setBatchSize(0);
+        configuration.setBatchLingerMs(1000);
+        configuration.setBatchFormat(TbHttpBatchFormat.JSON_ARRAY);
+        configuration.setEnableKeepAlive(false);
+        configuration.setMaxConnections(100);
         return configuration;
     }
 
@@ -73,4 +83,8 @@ public class TbRestApiCallNodeConfiguration implements NodeConfiguration<TbRestA
             return this.credentials;
         }
     }
+
+    public TbHttpBatchFormat getBatchFormat() {
+        return this.batchFormat == null ? TbHttpBatchFormat.JSON_ARRAY : this.batchFormat;
+    }
 }
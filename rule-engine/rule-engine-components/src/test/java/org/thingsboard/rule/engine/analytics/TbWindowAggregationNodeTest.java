@@ -0,0 +1,188 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.analytics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.kv.Aggregation;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.queue.PartitionChangeMsg;
+import org.thingsboard.server.common.msg.queue.ServiceType;
+import org.thingsboard.server.common.msg.session.SessionMsgType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.thingsboard.rule.engine.api.TbRelationTypes.SUCCESS;
+
+public class TbWindowAggregationNodeTest {
+
+    private static final long WINDOW_SIZE_MS = TimeUnit.SECONDS.toMillis(60);
+
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+    private final DeviceId otherDeviceId = new DeviceId(UUID.randomUUID());
+    private final RuleNodeId ruleNodeId = new RuleNodeId(UUID.randomUUID());
+
+    private TbContext ctx;
+    private TbWindowAggregationNodeConfiguration config;
+
+    @BeforeEach
+    void setUp() {
+        ctx = mock(TbContext.class);
+        when(ctx.getSelfId()).thenReturn(ruleNodeId);
+        when(ctx.newMsg(any(), anyString(), any(), any(), any(), anyString()))
+                .thenAnswer(invocation -> TbMsg.newMsg(invocation.getArgument(1), ruleNodeId, new TbMsgMetaData(), ""));
+        config = new TbWindowAggregationNodeConfiguration().defaultConfiguration();
+        config.setAggregations(Arrays.asList(Aggregation.AVG, Aggregation.MIN, Aggregation.MAX, Aggregation.COUNT, Aggregation.SUM));
+        config.setMaxOriginators(1);
+    }
+
+    @Test
+    void givenTumblingWindow_whenWindowClosed_thenAggregatesProduced() throws TbNodeException {
+        TbWindowAggregationNode node = initNode();
+        long startTs = Math.floorDiv(System.currentTimeMillis(), WINDOW_SIZE_MS) * WINDOW_SIZE_MS;
+        TbMsg first = getTbMsg(deviceId, "{\"ts\":" + startTs + ",\"values\":{\"temperature\":20,\"humidity\":50}}");
+        TbMsg second = getTbMsg(deviceId, "{\"ts\":" + (startTs + 1) + ",\"values\":{\"temperature\":25.5}}");
+
+        node.onMsg(ctx, first);
+        node.onMsg(ctx, second);
+        verify(ctx).ack(first);
+        verify(ctx).ack(second);
+        verify(ctx, never()).enqueueForTellNext(any(), anyString());
+
+        // the window of the least recently active originator is closed once the limit of originators is reached
+        node.onMsg(ctx, getTbMsg(otherDeviceId, "{\"temperature\":30}"));
+
+        List<TbMsg> aggMsgs = captureAggMsgs(1);
+        TbMsg aggMsg = aggMsgs.get(0);
+        assertThat(aggMsg.getOriginator()).isEqualTo(deviceId);
+        assertThat(aggMsg.getType()).isEqualTo(SessionMsgType.POST_TELEMETRY_REQUEST.name());
+        assertThat(aggMsg.getMetaData().getValue("windowStart")).isEqualTo(Long.toString(startTs));
+        assertThat(aggMsg.getMetaData().getValue("windowEnd")).isEqualTo(Long.toString(startTs + WINDOW_SIZE_MS));
+        JsonNode data = JacksonUtil.toJsonNode(aggMsg.getData());
+        assertThat(data.get("ts").asLong()).isEqualTo(startTs);
+        JsonNode values = data.get("values");
+        assertThat(values.get("temperature_avg").asDouble()).isEqualTo(22.75);
+        assertThat(values.get("temperature_min").asDouble()).isEqualTo(20.0);
+        assertThat(values.get("temperature_max").asDouble()).isEqualTo(25.5);
+        assertThat(values.get("temperature_sum").asDouble()).isEqualTo(45.5);
+        assertThat(values.get("temperature_count").asLong()).isEqualTo(2);
+        assertThat(values.has("humidity_avg")).isFalse();
+    }
+
+    @Test
+    void givenSlidingWindow_whenOnMsg_thenValueAddedToOverlappingWindows() throws TbNodeException {
+        config.setWindowType(TbAggregationWindowType.SLIDING);
+        config.setWindowSlide(30);
+        TbWindowAggregationNode node = initNode();
+
+        node.onMsg(ctx, getTbMsg(deviceId, "{\"temperature\":20}"));
+        node.onMsg(ctx, getTbMsg(otherDeviceId, "{\"temperature\":30}"));
+
+        List<TbMsg> aggMsgs = captureAggMsgs(2);
+        for (TbMsg aggMsg : aggMsgs) {
+            assertThat(aggMsg.getOriginator()).isEqualTo(deviceId);
+            assertThat(JacksonUtil.toJsonNode(aggMsg.getData()).get("values").get("temperature_count").asLong()).isEqualTo(1);
+        }
+        long firstStartTs = Long.parseLong(aggMsgs.get(0).getMetaData().getValue("windowStart"));
+        long secondStartTs = Long.parseLong(aggMsgs.get(1).getMetaData().getValue("windowStart"));
+        assertThat(secondStartTs - firstStartTs).isEqualTo(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    @Test
+    void givenDataForClosedWindow_whenOnMsg_thenRoutedViaLate() throws TbNodeException {
+        TbWindowAggregationNode node = initNode();
+        TbMsg msg = getTbMsg(deviceId, "{\"ts\":" + (System.currentTimeMillis() - 2 * WINDOW_SIZE_MS) + ",\"values\":{\"temperature\":20}}");
+
+        node.onMsg(ctx, msg);
+
+        verify(ctx).tellNext(msg, TbWindowAggregationNode.LATE);
+        verify(ctx, never()).ack(msg);
+    }
+
+    @Test
+    void givenUnsupportedMsgType_whenOnMsg_thenFailure() throws TbNodeException {
+        TbWindowAggregationNode node = initNode();
+        TbMsg msg = TbMsg.newMsg(SessionMsgType.POST_ATTRIBUTES_REQUEST.name(), deviceId, new TbMsgMetaData(), "{\"temperature\":20}");
+
+        node.onMsg(ctx, msg);
+
+        verify(ctx).tellFailure(eq(msg), any());
+    }
+
+    @Test
+    void givenNoNumericValues_whenOnMsg_thenFailure() throws TbNodeException {
+        TbWindowAggregationNode node = initNode();
+        TbMsg msg = getTbMsg(deviceId, "{\"humidity\":50,\"temperature\":\"warm\"}");
+
+        node.onMsg(ctx, msg);
+
+        verify(ctx).tellFailure(eq(msg), any());
+        verify(ctx, never()).ack(msg);
+    }
+
+    @Test
+    void givenOriginatorMovedToAnotherNode_whenPartitionChanged_thenOpenWindowsEmitted() throws TbNodeException {
+        TbWindowAggregationNode node = initNode();
+        node.onMsg(ctx, getTbMsg(deviceId, "{\"temperature\":20}"));
+        verify(ctx, never()).enqueueForTellNext(any(), anyString());
+
+        when(ctx.isLocalEntity(deviceId)).thenReturn(false);
+        node.onPartitionChangeMsg(ctx, new PartitionChangeMsg(ServiceType.TB_RULE_ENGINE, Collections.emptySet()));
+
+        TbMsg aggMsg = captureAggMsgs(1).get(0);
+        assertThat(aggMsg.getOriginator()).isEqualTo(deviceId);
+        assertThat(JacksonUtil.toJsonNode(aggMsg.getData()).get("values").get("temperature_count").asLong()).isEqualTo(1);
+    }
+
+    private List<TbMsg> captureAggMsgs(int count) {
+        ArgumentCaptor<TbMsg> captor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctx, times(count)).enqueueForTellNext(captor.capture(), eq(SUCCESS));
+        return captor.getAllValues();
+    }
+
+    private TbWindowAggregationNode initNode() throws TbNodeException {
+        TbWindowAggregationNode node = new TbWindowAggregationNode();
+        node.init(ctx, new TbNodeConfiguration(JacksonUtil.valueToTree(config)));
+        return node;
+    }
+
+    private TbMsg getTbMsg(DeviceId originator, String data) {
+        return TbMsg.newMsg(SessionMsgType.POST_TELEMETRY_REQUEST.name(), originator, new TbMsgMetaData(), data);
+    }
+
+}
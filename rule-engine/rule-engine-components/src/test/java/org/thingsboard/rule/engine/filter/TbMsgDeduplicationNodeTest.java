@@ -0,0 +1,175 @@
+/**
+ * Copyright © 2016-2022 The Thingsboard Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.thingsboard.rule.engine.filter;
+
+import com.google.common.util.concurrent.Futures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.thingsboard.common.util.JacksonUtil;
+import org.thingsboard.rule.engine.api.TbContext;
+import org.thingsboard.rule.engine.api.TbNodeConfiguration;
+import org.thingsboard.rule.engine.api.TbNodeException;
+import org.thingsboard.server.common.data.id.DeviceId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
+import org.thingsboard.server.common.data.page.PageData;
+import org.thingsboard.server.common.data.rule.RuleNodeState;
+import org.thingsboard.server.common.msg.TbMsg;
+import org.thingsboard.server.common.msg.TbMsgMetaData;
+import org.thingsboard.server.common.msg.session.SessionMsgType;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TbMsgDeduplicationNodeTest {
+
+    private final DeviceId deviceId = new DeviceId(UUID.randomUUID());
+    private final RuleNodeId ruleNodeId = new RuleNodeId(UUID.randomUUID());
+
+    private TbContext ctx;
+    private TbMsgDeduplicationNodeConfiguration config;
+
+    @BeforeEach
+    void setUp() {
+        ctx = mock(TbContext.class);
+        when(ctx.getSelfId()).thenReturn(ruleNodeId);
+        when(ctx.isLocalEntity(any())).thenReturn(true);
+        when(ctx.findRuleNodeStates(any())).thenReturn(new PageData<>(Collections.emptyList(), 0, 0, false));
+        when(ctx.newMsg(any(), anyString(), any(), any(), any(), anyString()))
+                .thenAnswer(invocation -> TbMsg.newMsg(invocation.getArgument(1), ruleNodeId, new TbMsgMetaData(), ""));
+        config = new TbMsgDeduplicationNodeConfiguration().defaultConfiguration();
+    }
+
+    @Test
+    void givenSameData_whenOnMsg_thenDuplicateRoutedSeparately() throws TbNodeException {
+        TbMsgDeduplicationNode node = initNode();
+        TbMsg msg = getTbMsg("{\"temperature\":42}");
+        TbMsg duplicate = getTbMsg("{\"temperature\":42}");
+        TbMsg other = getTbMsg("{\"temperature\":43}");
+
+        node.onMsg(ctx, msg);
+        node.onMsg(ctx, duplicate);
+        node.onMsg(ctx, other);
+
+        verify(ctx).tellSuccess(msg);
+        verify(ctx).tellNext(duplicate, TbMsgDeduplicationNode.DUPLICATE);
+        verify(ctx).tellSuccess(other);
+        verify(ctx, never()).tellFailure(any(), any());
+    }
+
+    @Test
+    void givenDeduplicationKey_whenOnMsg_thenOnlyKeyIsCompared() throws TbNodeException {
+        config.setDeduplicationKey("$[ts]");
+        TbMsgDeduplicationNode node = initNode();
+        TbMsg msg = getTbMsg("{\"ts\":1000,\"temperature\":42}");
+        TbMsg duplicate = getTbMsg("{\"ts\":1000,\"temperature\":43}");
+
+        node.onMsg(ctx, msg);
+        node.onMsg(ctx, duplicate);
+
+        verify(ctx).tellSuccess(msg);
+        verify(ctx).tellNext(duplicate, TbMsgDeduplicationNode.DUPLICATE);
+    }
+
+    @Test
+    void givenMaxKeysPerOriginator_whenExceeded_thenEldestKeyIsEvicted() throws TbNodeException {
+        config.setMaxKeysPerOriginator(1);
+        TbMsgDeduplicationNode node = initNode();
+        TbMsg first = getTbMsg("{\"temperature\":42}");
+        TbMsg second = getTbMsg("{\"temperature\":43}");
+        TbMsg firstAgain = getTbMsg("{\"temperature\":42}");
+
+        node.onMsg(ctx, first);
+        node.onMsg(ctx, second);
+        node.onMsg(ctx, firstAgain);
+
+        verify(ctx).tellSuccess(firstAgain);
+        verify(ctx, never()).tellNext(any(), eq(TbMsgDeduplicationNode.DUPLICATE));
+    }
+
+    @Test
+    void givenPersistedState_whenNodeRestarted_thenDuplicateDetected() throws TbNodeException {
+        when(ctx.saveRuleNodeStateAsync(any())).thenAnswer(invocation -> Futures.immediateFuture(invocation.getArgument(0)));
+        TbMsgDeduplicationNode node = initNode();
+        node.onMsg(ctx, getTbMsg("{\"temperature\":42}"));
+        node.destroy();
+
+        ArgumentCaptor<RuleNodeState> stateCaptor = ArgumentCaptor.forClass(RuleNodeState.class);
+        verify(ctx, times(1)).saveRuleNodeStateAsync(stateCaptor.capture());
+        RuleNodeState state = stateCaptor.getValue();
+        assertThat(state.getEntityId()).isEqualTo(deviceId);
+        assertThat(JacksonUtil.toJsonNode(state.getStateData()).size()).isEqualTo(1);
+
+        when(ctx.findRuleNodeStates(any())).thenReturn(new PageData<>(List.of(state), 1, 1, false));
+        TbMsgDeduplicationNode restarted = initNode();
+        TbMsg duplicate = getTbMsg("{\"temperature\":42}");
+        restarted.onMsg(ctx, duplicate);
+
+        verify(ctx).tellNext(duplicate, TbMsgDeduplicationNode.DUPLICATE);
+    }
+
+    @Test
+    void givenNonPositiveLimits_whenInit_thenException() {
+        config.setMaxKeysPerOriginator(0);
+        assertThatThrownBy(this::initNode).isInstanceOf(TbNodeException.class);
+
+        config.setMaxKeysPerOriginator(100);
+        config.setMaxOriginators(-1);
+        assertThatThrownBy(this::initNode).isInstanceOf(TbNodeException.class);
+    }
+
+    @Test
+    void givenUnchangedState_whenTickedTwice_thenSavedOnce() throws TbNodeException {
+        when(ctx.saveRuleNodeStateAsync(any())).thenAnswer(invocation -> Futures.immediateFuture(invocation.getArgument(0)));
+        TbMsgDeduplicationNode node = initNode();
+        node.onMsg(ctx, getTbMsg("{\"temperature\":42}"));
+        node.onMsg(ctx, lastTickMsg(1));
+        node.onMsg(ctx, lastTickMsg(2));
+
+        verify(ctx, times(1)).saveRuleNodeStateAsync(any());
+        verify(ctx, never()).saveRuleNodeState(any());
+    }
+
+    private TbMsgDeduplicationNode initNode() throws TbNodeException {
+        TbMsgDeduplicationNode node = new TbMsgDeduplicationNode();
+        node.init(ctx, new TbNodeConfiguration(JacksonUtil.valueToTree(config)));
+        return node;
+    }
+
+    private TbMsg lastTickMsg(int ticks) {
+        ArgumentCaptor<TbMsg> tickCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctx, times(ticks)).tellSelf(tickCaptor.capture(), anyLong());
+        return tickCaptor.getValue();
+    }
+
+    private TbMsg getTbMsg(String data) {
+        return TbMsg.newMsg(SessionMsgType.POST_TELEMETRY_REQUEST.name(), deviceId, new TbMsgMetaData(), data);
+    }
+
+}
@@ -19,9 +19,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.AdditionalAnswers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -51,6 +54,7 @@ import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.DeviceProfileId;
 import org.thingsboard.server.common.data.id.TenantId;
 import org.thingsboard.server.common.data.kv.AttributeKvEntry;
+import org.thingsboard.server.common.data.kv.TsKvEntry;
 import org.thingsboard.server.common.data.query.BooleanFilterPredicate;
 import org.thingsboard.server.common.data.query.DynamicValue;
 import org.thingsboard.server.common.data.query.DynamicValueSourceType;
@@ -58,6 +62,7 @@ import org.thingsboard.server.common.data.query.EntityKeyType;
 import org.thingsboard.server.common.data.query.EntityKeyValueType;
 import org.thingsboard.server.common.data.query.FilterPredicateValue;
 import org.thingsboard.server.common.data.query.NumericFilterPredicate;
+import org.thingsboard.server.common.data.rule.RuleNodeState;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.TbMsgDataType;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
@@ -73,6 +78,7 @@ import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.TreeMap;
@@ -214,6 +220,102 @@ public class TbDeviceProfileNodeTest {
 
     }
 
+    @Test
+    public void testAlarmCreateAfterAsyncFetchOfLatestValues() throws Exception {
+        init();
+
+        DeviceProfile deviceProfile = new DeviceProfile();
+        DeviceProfileData deviceProfileData = new DeviceProfileData();
+
+        AlarmConditionFilter highTempFilter = new AlarmConditionFilter();
+        highTempFilter.setKey(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, "temperature"));
+        highTempFilter.setValueType(EntityKeyValueType.NUMERIC);
+        NumericFilterPredicate highTemperaturePredicate = new NumericFilterPredicate();
+        highTemperaturePredicate.setOperation(NumericFilterPredicate.NumericOperation.GREATER);
+        highTemperaturePredicate.setValue(new FilterPredicateValue<>(30.0));
+        highTempFilter.setPredicate(highTemperaturePredicate);
+        AlarmCondition alarmCondition = new AlarmCondition();
+        alarmCondition.setCondition(Collections.singletonList(highTempFilter));
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setCondition(alarmCondition);
+        DeviceProfileAlarm dpa = new DeviceProfileAlarm();
+        dpa.setId("highTemperatureAlarmID");
+        dpa.setAlarmType("highTemperatureAlarm");
+        dpa.setCreateRules(new TreeMap<>(Collections.singletonMap(AlarmSeverity.CRITICAL, alarmRule)));
+
+        deviceProfileData.setAlarms(Collections.singletonList(dpa));
+        deviceProfile.setProfileData(deviceProfileData);
+
+        SettableFuture<List<TsKvEntry>> latestFuture = SettableFuture.create();
+        Mockito.when(cache.get(tenantId, deviceId)).thenReturn(deviceProfile);
+        Mockito.when(timeseriesService.findLatest(tenantId, deviceId, Collections.singleton("temperature"))).thenReturn(latestFuture);
+        Mockito.when(alarmService.findLatestByOriginatorAndType(tenantId, deviceId, "highTemperatureAlarm")).thenReturn(Futures.immediateFuture(null));
+        Mockito.when(alarmService.createOrUpdateAlarm(Mockito.any())).thenAnswer(AdditionalAnswers.returnsFirstArg());
+
+        TbMsg theMsg = TbMsg.newMsg("ALARM", deviceId, new TbMsgMetaData(), "");
+        Mockito.when(ctx.newMsg(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString())).thenReturn(theMsg);
+
+        ObjectNode data = mapper.createObjectNode();
+        data.put("temperature", 42);
+        TbMsg msg = TbMsg.newMsg(SessionMsgType.POST_TELEMETRY_REQUEST.name(), deviceId, new TbMsgMetaData(),
+                TbMsgDataType.JSON, mapper.writeValueAsString(data), null, null);
+        node.onMsg(ctx, msg);
+        verify(ctx, Mockito.never()).tellSuccess(msg);
+
+        latestFuture.set(Collections.emptyList());
+        ArgumentCaptor<TbMsg> fetchedMsgCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctx).tellSelf(fetchedMsgCaptor.capture(), eq(0L));
+        TbMsg fetchedMsg = fetchedMsgCaptor.getValue();
+        Assert.assertEquals(TbDeviceProfileNode.LATEST_VALUES_FETCHED_MSG_TYPE, fetchedMsg.getType());
+
+        node.onMsg(ctx, fetchedMsg);
+        verify(ctx).tellSuccess(msg);
+        verify(ctx).enqueueForTellNext(theMsg, "Alarm Created");
+        verify(ctx, Mockito.never()).tellFailure(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testPendingMsgsOverflowWhileFetchingLatestValues() throws Exception {
+        init();
+
+        DeviceProfile deviceProfile = new DeviceProfile();
+        DeviceProfileData deviceProfileData = new DeviceProfileData();
+        AlarmConditionFilter highTempFilter = new AlarmConditionFilter();
+        highTempFilter.setKey(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, "temperature"));
+        highTempFilter.setValueType(EntityKeyValueType.NUMERIC);
+        NumericFilterPredicate highTemperaturePredicate = new NumericFilterPredicate();
+        highTemperaturePredicate.setOperation(NumericFilterPredicate.NumericOperation.GREATER);
+        highTemperaturePredicate.setValue(new FilterPredicateValue<>(30.0));
+        highTempFilter.setPredicate(highTemperaturePredicate);
+        AlarmCondition alarmCondition = new AlarmCondition();
+        alarmCondition.setCondition(Collections.singletonList(highTempFilter));
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setCondition(alarmCondition);
+        DeviceProfileAlarm dpa = new DeviceProfileAlarm();
+        dpa.setId("highTemperatureAlarmID");
+        dpa.setAlarmType("highTemperatureAlarm");
+        dpa.setCreateRules(new TreeMap<>(Collections.singletonMap(AlarmSeverity.CRITICAL, alarmRule)));
+        deviceProfileData.setAlarms(Collections.singletonList(dpa));
+        deviceProfile.setProfileData(deviceProfileData);
+
+        Mockito.when(cache.get(tenantId, deviceId)).thenReturn(deviceProfile);
+        Mockito.when(timeseriesService.findLatest(tenantId, deviceId, Collections.singleton("temperature"))).thenReturn(SettableFuture.create());
+
+        ObjectNode data = mapper.createObjectNode();
+        data.put("temperature", 42);
+        for (int i = 0; i < DeviceState.MAX_PENDING_MSGS; i++) {
+            node.onMsg(ctx, TbMsg.newMsg(SessionMsgType.POST_TELEMETRY_REQUEST.name(), deviceId, new TbMsgMetaData(),
+                    TbMsgDataType.JSON, mapper.writeValueAsString(data), null, null));
+        }
+        verify(ctx, Mockito.never()).tellFailure(Mockito.any(), Mockito.any());
+
+        TbMsg overflowMsg = TbMsg.newMsg(SessionMsgType.POST_TELEMETRY_REQUEST.name(), deviceId, new TbMsgMetaData(),
+                TbMsgDataType.JSON, mapper.writeValueAsString(data), null, null);
+        node.onMsg(ctx, overflowMsg);
+        verify(ctx).tellFailure(eq(overflowMsg), Mockito.any());
+        verify(timeseriesService, Mockito.times(1)).findLatest(tenantId, deviceId, Collections.singleton("temperature"));
+    }
+
     @Test
     public void testConstantKeyFilterSimple() throws Exception {
         init();
@@ -1589,14 +1691,155 @@ public class TbDeviceProfileNodeTest {
         verify(ctx, Mockito.never()).tellFailure(Mockito.any(), Mockito.any());
     }
 
+    @Test
+    public void testDirtyStateFlushedOnTick() throws Exception {
+        initWithPersistedState();
+        mockRepeatingAlarmProfile();
+        List<String> savedStateData = new ArrayList<>();
+        mockStateSaves(savedStateData, Futures.immediateFuture(new RuleNodeState()));
+
+        node.onMsg(ctx, newTemperatureMsg());
+        Assert.assertTrue(savedStateData.isEmpty());
+
+        TbMsg flushMsg = captureStateFlushMsg(1);
+        node.onMsg(ctx, flushMsg);
+        Assert.assertEquals(Collections.singletonList(1L), toEventCounts(savedStateData));
+
+        node.onMsg(ctx, flushMsg);
+        Assert.assertEquals(1, savedStateData.size());
+        captureStateFlushMsg(1);
+    }
+
+    @Test
+    public void testFailedStateSaveIsRetried() throws Exception {
+        initWithPersistedState();
+        mockRepeatingAlarmProfile();
+        List<String> savedStateData = new ArrayList<>();
+        mockStateSaves(savedStateData, Futures.immediateFailedFuture(new RuntimeException("Failed to save")),
+                Futures.immediateFuture(new RuleNodeState()));
+
+        node.onMsg(ctx, newTemperatureMsg());
+        node.onMsg(ctx, captureStateFlushMsg(1));
+        Assert.assertEquals(1, savedStateData.size());
+
+        TbMsg retryMsg = captureStateFlushMsg(2);
+        node.onMsg(ctx, retryMsg);
+        Assert.assertEquals(List.of(1L, 1L), toEventCounts(savedStateData));
+
+        node.onMsg(ctx, retryMsg);
+        Assert.assertEquals(2, savedStateData.size());
+        captureStateFlushMsg(2);
+    }
+
+    @Test
+    public void testStateUpdatedWhileFlushInFlightIsNotLost() throws Exception {
+        initWithPersistedState();
+        mockRepeatingAlarmProfile();
+        List<String> savedStateData = new ArrayList<>();
+        SettableFuture<RuleNodeState> firstSave = SettableFuture.create();
+        mockStateSaves(savedStateData, firstSave, Futures.immediateFuture(new RuleNodeState()));
+
+        node.onMsg(ctx, newTemperatureMsg());
+        TbMsg flushMsg = captureStateFlushMsg(1);
+        node.onMsg(ctx, flushMsg);
+        captureStateFlushMsg(2);
+
+        node.onMsg(ctx, newTemperatureMsg());
+        node.onMsg(ctx, flushMsg);
+        Assert.assertEquals(Collections.singletonList(1L), toEventCounts(savedStateData));
+
+        RuleNodeState savedState = new RuleNodeState();
+        firstSave.set(savedState);
+        Assert.assertEquals(List.of(1L, 2L), toEventCounts(savedStateData));
+        verify(ctx).saveRuleNodeStateAsync(Mockito.same(savedState));
+
+        node.onMsg(ctx, flushMsg);
+        Assert.assertEquals(2, savedStateData.size());
+        captureStateFlushMsg(3);
+    }
+
+    private void initWithPersistedState() throws TbNodeException {
+        ObjectNode configuration = mapper.createObjectNode();
+        configuration.put("persistAlarmRulesState", true);
+        init(configuration);
+    }
+
+    private void mockRepeatingAlarmProfile() {
+        AlarmConditionFilter highTempFilter = new AlarmConditionFilter();
+        highTempFilter.setKey(new AlarmConditionFilterKey(AlarmConditionKeyType.TIME_SERIES, "temperature"));
+        highTempFilter.setValueType(EntityKeyValueType.NUMERIC);
+        NumericFilterPredicate highTemperaturePredicate = new NumericFilterPredicate();
+        highTemperaturePredicate.setOperation(NumericFilterPredicate.NumericOperation.GREATER);
+        highTemperaturePredicate.setValue(new FilterPredicateValue<>(30.0));
+        highTempFilter.setPredicate(highTemperaturePredicate);
+        AlarmCondition alarmCondition = new AlarmCondition();
+        alarmCondition.setCondition(Collections.singletonList(highTempFilter));
+        RepeatingAlarmConditionSpec repeating = new RepeatingAlarmConditionSpec();
+        repeating.setPredicate(new FilterPredicateValue<>(100));
+        alarmCondition.setSpec(repeating);
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setCondition(alarmCondition);
+        DeviceProfileAlarm dpa = new DeviceProfileAlarm();
+        dpa.setId("highTemperatureAlarmID");
+        dpa.setAlarmType("highTemperatureAlarm");
+        dpa.setCreateRules(new TreeMap<>(Collections.singletonMap(AlarmSeverity.CRITICAL, alarmRule)));
+
+        DeviceProfile deviceProfile = new DeviceProfile();
+        DeviceProfileData deviceProfileData = new DeviceProfileData();
+        deviceProfileData.setAlarms(Collections.singletonList(dpa));
+        deviceProfile.setProfileData(deviceProfileData);
+
+        Mockito.when(cache.get(tenantId, deviceId)).thenReturn(deviceProfile);
+        Mockito.when(timeseriesService.findLatest(tenantId, deviceId, Collections.singleton("temperature")))
+                .thenReturn(Futures.immediateFuture(Collections.emptyList()));
+        Mockito.when(alarmService.findLatestByOriginatorAndType(tenantId, deviceId, "highTemperatureAlarm")).thenReturn(Futures.immediateFuture(null));
+    }
+
+    @SafeVarargs
+    private void mockStateSaves(List<String> savedStateData, ListenableFuture<RuleNodeState>... results) {
+        Iterator<ListenableFuture<RuleNodeState>> resultIterator = Arrays.asList(results).iterator();
+        Mockito.when(ctx.saveRuleNodeStateAsync(Mockito.any())).thenAnswer(invocation -> {
+            RuleNodeState state = invocation.getArgument(0);
+            savedStateData.add(state.getStateData());
+            return resultIterator.next();
+        });
+    }
+
+    private TbMsg newTemperatureMsg() throws Exception {
+        ObjectNode data = mapper.createObjectNode();
+        data.put("temperature", 42);
+        return TbMsg.newMsg(SessionMsgType.POST_TELEMETRY_REQUEST.name(), deviceId, new TbMsgMetaData(),
+                TbMsgDataType.JSON, mapper.writeValueAsString(data), null, null);
+    }
+
+    private TbMsg captureStateFlushMsg(int expectedTimes) {
+        ArgumentCaptor<TbMsg> flushMsgCaptor = ArgumentCaptor.forClass(TbMsg.class);
+        verify(ctx, Mockito.times(expectedTimes)).tellSelf(flushMsgCaptor.capture(), eq(TimeUnit.SECONDS.toMillis(1)));
+        TbMsg flushMsg = flushMsgCaptor.getValue();
+        Assert.assertEquals(TbDeviceProfileNode.STATE_FLUSH_MSG_TYPE, flushMsg.getType());
+        return flushMsg;
+    }
+
+    private List<Long> toEventCounts(List<String> stateData) throws Exception {
+        List<Long> eventCounts = new ArrayList<>();
+        for (String data : stateData) {
+            eventCounts.add(mapper.readTree(data).at("/alarmStates/highTemperatureAlarmID/createRuleStates/CRITICAL/eventCount").asLong());
+        }
+        return eventCounts;
+    }
+
     private void init() throws TbNodeException {
+        init(mapper.createObjectNode());
+    }
+
+    private void init(ObjectNode configuration) throws TbNodeException {
         Mockito.when(ctx.getTenantId()).thenReturn(tenantId);
         Mockito.when(ctx.getDeviceProfileCache()).thenReturn(cache);
         Mockito.when(ctx.getTimeseriesService()).thenReturn(timeseriesService);
         Mockito.when(ctx.getAlarmService()).thenReturn(alarmService);
         Mockito.when(ctx.getDeviceService()).thenReturn(deviceService);
         Mockito.when(ctx.getAttributesService()).thenReturn(attributesService);
-        TbNodeConfiguration nodeConfiguration = new TbNodeConfiguration(mapper.createObjectNode());
+        TbNodeConfiguration nodeConfiguration = new TbNodeConfiguration(configuration);
         node = new TbDeviceProfileNode();
         node.init(ctx, nodeConfiguration);
     }
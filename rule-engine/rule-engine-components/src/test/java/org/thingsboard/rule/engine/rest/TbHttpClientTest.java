@@ -27,17 +27,24 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockserver.integration.ClientAndServer;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.concurrent.SettableListenableFuture;
 import org.springframework.web.client.AsyncRestTemplate;
 import org.thingsboard.rule.engine.api.TbContext;
 import org.thingsboard.server.common.data.id.DeviceId;
 import org.thingsboard.server.common.data.id.EntityId;
+import org.thingsboard.server.common.data.id.RuleNodeId;
 import org.thingsboard.server.common.msg.TbMsg;
 import org.thingsboard.server.common.msg.TbMsgMetaData;
 
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -45,9 +52,12 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.willCallRealMethod;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -223,4 +233,94 @@ public class TbHttpClientTest {
         Assertions.assertThat(data.get("Set-Cookie")).isEqualTo("[\"sap-context=sap-client=075; path=/\",\"sap-token=sap-client=075; path=/\"]");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testBatchBody() {
+        willCallRealMethod().given(client).toBatchBody(any(), any());
+        List<TbMsg> batch = List.of(
+                TbMsg.newMsg("POST", new DeviceId(EntityId.NULL_UUID), TbMsgMetaData.EMPTY, "{\"a\":1}"),
+                TbMsg.newMsg("POST", new DeviceId(EntityId.NULL_UUID), TbMsgMetaData.EMPTY, "{\n  \"a\": 2\n}"));
+
+        Assert.assertEquals("[{\"a\":1},{\n  \"a\": 2\n}]", client.toBatchBody(batch, TbHttpBatchFormat.JSON_ARRAY));
+        Assert.assertEquals("{\"a\":1}\n{\"a\":2}", client.toBatchBody(batch, TbHttpBatchFormat.NDJSON));
+    }
+
+    @Test
+    public void testProcessMessagesInBatch() throws Exception {
+        var config = new TbRestApiCallNodeConfiguration().defaultConfiguration();
+        config.setUseSimpleClientHttpFactory(true);
+        config.setBatchSize(2);
+
+        var asyncRestTemplate = mock(AsyncRestTemplate.class);
+        var future = new SettableListenableFuture<ResponseEntity<String>>();
+        when(asyncRestTemplate.exchange(any(URI.class), eq(HttpMethod.POST), any(), eq(String.class))).thenReturn(future);
+
+        var httpClient = new TbHttpClient(config, eventLoop);
+        httpClient.setHttpClient(asyncRestTemplate);
+
+        var ctx = mock(TbContext.class);
+        when(ctx.getSelfId()).thenReturn(new RuleNodeId(UUID.randomUUID()));
+        when(ctx.newMsg(any(), anyString(), any(), any(), any(), anyString()))
+                .thenAnswer(invocation -> TbMsg.newMsg(invocation.getArgument(1), new DeviceId(EntityId.NULL_UUID), new TbMsgMetaData(), ""));
+        when(ctx.transformMsg(any(), any(), any(), any(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var first = TbMsg.newMsg("POST", new DeviceId(EntityId.NULL_UUID), new TbMsgMetaData(), "{\"a\":1}");
+        var second = TbMsg.newMsg("POST", new DeviceId(EntityId.NULL_UUID), new TbMsgMetaData(), "{\"a\":2}");
+
+        httpClient.processMessage(ctx, first);
+        verify(ctx, times(1)).tellSelf(any(), anyLong());
+        verify(asyncRestTemplate, never()).exchange(any(URI.class), any(HttpMethod.class), any(), eq(String.class));
+
+        httpClient.processMessage(ctx, second);
+        ArgumentCaptor<HttpEntity> entityCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(asyncRestTemplate, times(1)).exchange(any(URI.class), eq(HttpMethod.POST), entityCaptor.capture(), eq(String.class));
+        Assert.assertEquals("[{\"a\":1},{\"a\":2}]", entityCaptor.getValue().getBody());
+
+        future.set(new ResponseEntity<>("[{\"status\":200},{\"status\":400}]", HttpStatus.OK));
+
+        verify(ctx, times(1)).tellSuccess(first);
+        verify(ctx, times(1)).tellNext(second, "Failure");
+        Assert.assertEquals("400", second.getMetaData().getValue("statusCode"));
+    }
+
+    @Test
+    public void testDestroyFailsBufferedMessages() throws Exception {
+        var config = new TbRestApiCallNodeConfiguration().defaultConfiguration();
+        config.setUseSimpleClientHttpFactory(true);
+        config.setBatchSize(10);
+
+        var asyncRestTemplate = mock(AsyncRestTemplate.class);
+        var httpClient = new TbHttpClient(config, eventLoop);
+        httpClient.setHttpClient(asyncRestTemplate);
+
+        var ctx = mock(TbContext.class);
+        when(ctx.getSelfId()).thenReturn(new RuleNodeId(UUID.randomUUID()));
+        when(ctx.newMsg(any(), anyString(), any(), any(), any(), anyString()))
+                .thenAnswer(invocation -> TbMsg.newMsg(invocation.getArgument(1), new DeviceId(EntityId.NULL_UUID), new TbMsgMetaData(), ""));
+
+        var first = TbMsg.newMsg("POST", new DeviceId(EntityId.NULL_UUID), new TbMsgMetaData(), "{\"a\":1}");
+        var second = TbMsg.newMsg("POST", new DeviceId(EntityId.NULL_UUID), new TbMsgMetaData(), "{\"a\":2}");
+        httpClient.processMessage(ctx, first);
+        httpClient.processMessage(ctx, second);
+
+        httpClient.destroy(ctx);
+
+        verify(ctx, times(1)).tellFailure(eq(first), any());
+        verify(ctx, times(1)).tellFailure(eq(second), any());
+        verify(asyncRestTemplate, never()).exchange(any(URI.class), any(HttpMethod.class), any(), eq(String.class));
+    }
+
+    @Test
+    public void testDestroyClosesKeepAliveClient() throws Exception {
+        var config = new TbRestApiCallNodeConfiguration().defaultConfiguration();
+        config.setEnableKeepAlive(true);
+
+        var httpClient = new TbHttpClient(config, eventLoop);
+        httpClient.getAsyncClient().start();
+        Assert.assertTrue(httpClient.getAsyncClient().isRunning());
+
+        httpClient.destroy(mock(TbContext.class));
+
+        Assert.assertFalse(httpClient.getAsyncClient().isRunning());
+    }
+
+}